@@ -12,7 +12,13 @@ dependencies {
     testRuntimeOnly(libs.sqlite)
 }
 
+tasks.withType<JavaCompile> {
+    // The vector primitives use the incubator Vector API.
+    options.compilerArgs.addAll(listOf("--add-modules", "jdk.incubator.vector"))
+}
+
 tasks.withType<Javadoc> {
+    (options as StandardJavadocDocletOptions).addStringOption("-add-modules", "jdk.incubator.vector")
     // Exclude specific packages from Javadoc generation
     exclude("smile/linalg/arpack/**", "smile/linalg/blas/**", "smile/linalg/lapack/**")
 }
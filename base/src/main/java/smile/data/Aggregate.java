@@ -0,0 +1,186 @@
+/*
+ * Copyright (c) 2010-2025 Haifeng Li. All rights reserved.
+ *
+ * Smile is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Smile is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Smile. If not, see <https://www.gnu.org/licenses/>.
+ */
+package smile.data;
+
+/**
+ * An aggregate function on a column of grouped data. The null and
+ * NaN values are ignored except by {@code count()}, which counts the
+ * rows of groups.
+ *
+ * @param function the aggregate function.
+ * @param column the column name, or null for {@code count()}.
+ * @param p the probability of quantile. It is ignored by other functions.
+ * @param alias the name of output column, or null for the default name
+ *              such as {@code mean(x)}.
+ *
+ * @see GroupBy
+ * @author Haifeng Li
+ */
+public record Aggregate(Function function, String column, double p, String alias) {
+    /** The aggregate functions. */
+    public enum Function {
+        /** The number of rows or non-null values. */
+        COUNT,
+        /** The sum. */
+        SUM,
+        /** The mean. */
+        MEAN,
+        /** The minimum. */
+        MIN,
+        /** The maximum. */
+        MAX,
+        /** The sample variance. */
+        VAR,
+        /** The sample standard deviation. */
+        SD,
+        /** The quantile. */
+        QUANTILE
+    }
+
+    /** Constructor. */
+    public Aggregate {
+        if (function == null) {
+            throw new IllegalArgumentException("Null aggregate function");
+        }
+
+        if (column == null && function != Function.COUNT) {
+            throw new IllegalArgumentException("Null column of " + function);
+        }
+
+        if (function == Function.QUANTILE && (p < 0.0 || p > 1.0)) {
+            throw new IllegalArgumentException("Invalid probability of quantile: " + p);
+        }
+    }
+
+    /**
+     * Returns the name of output column.
+     * @return the name of output column.
+     */
+    public String name() {
+        if (alias != null) return alias;
+        String fn = function.name().toLowerCase();
+        if (column == null) return fn;
+        if (function == Function.QUANTILE) {
+            return String.format("%s(%s, %s)", fn, column, p);
+        }
+        return String.format("%s(%s)", fn, column);
+    }
+
+    /**
+     * Returns the same aggregate with a new output column name.
+     * @param alias the name of output column.
+     * @return the aggregate.
+     */
+    public Aggregate as(String alias) {
+        return new Aggregate(function, column, p, alias);
+    }
+
+    @Override
+    public String toString() {
+        return name();
+    }
+
+    /**
+     * Returns the aggregate of the number of rows.
+     * @return the aggregate.
+     */
+    public static Aggregate count() {
+        return new Aggregate(Function.COUNT, null, 0.0, null);
+    }
+
+    /**
+     * Returns the aggregate of the number of non-null values.
+     * @param column the column name.
+     * @return the aggregate.
+     */
+    public static Aggregate count(String column) {
+        return new Aggregate(Function.COUNT, column, 0.0, null);
+    }
+
+    /**
+     * Returns the aggregate of sum.
+     * @param column the column name.
+     * @return the aggregate.
+     */
+    public static Aggregate sum(String column) {
+        return new Aggregate(Function.SUM, column, 0.0, null);
+    }
+
+    /**
+     * Returns the aggregate of mean.
+     * @param column the column name.
+     * @return the aggregate.
+     */
+    public static Aggregate mean(String column) {
+        return new Aggregate(Function.MEAN, column, 0.0, null);
+    }
+
+    /**
+     * Returns the aggregate of minimum.
+     * @param column the column name.
+     * @return the aggregate.
+     */
+    public static Aggregate min(String column) {
+        return new Aggregate(Function.MIN, column, 0.0, null);
+    }
+
+    /**
+     * Returns the aggregate of maximum.
+     * @param column the column name.
+     * @return the aggregate.
+     */
+    public static Aggregate max(String column) {
+        return new Aggregate(Function.MAX, column, 0.0, null);
+    }
+
+    /**
+     * Returns the aggregate of sample variance.
+     * @param column the column name.
+     * @return the aggregate.
+     */
+    public static Aggregate var(String column) {
+        return new Aggregate(Function.VAR, column, 0.0, null);
+    }
+
+    /**
+     * Returns the aggregate of sample standard deviation.
+     * @param column the column name.
+     * @return the aggregate.
+     */
+    public static Aggregate sd(String column) {
+        return new Aggregate(Function.SD, column, 0.0, null);
+    }
+
+    /**
+     * Returns the aggregate of quantile.
+     * @param column the column name.
+     * @param p the probability.
+     * @return the aggregate.
+     */
+    public static Aggregate quantile(String column, double p) {
+        return new Aggregate(Function.QUANTILE, column, p, null);
+    }
+
+    /**
+     * Returns the aggregate of median.
+     * @param column the column name.
+     * @return the aggregate.
+     */
+    public static Aggregate median(String column) {
+        return quantile(column, 0.5).as("median(" + column + ")");
+    }
+}
@@ -23,6 +23,7 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.*;
 import java.util.function.Function;
+import java.util.function.IntBinaryOperator;
 import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
@@ -627,6 +628,319 @@ public record DataFrame(StructType schema, List<ValueVector> columns, RowIndex i
         return left.merge(other);
     }
 
+    /**
+     * Inner joins two data frames on key columns by hashing. The key
+     * columns must have the same names in both data frames. The rows
+     * with null keys don't match any rows. The output has the columns
+     * of this data frame and the non-key columns of the other. A
+     * column name that appears in both is renamed with suffix _2 in
+     * the output. The output has no row index.
+     *
+     * @param other the data frame to join.
+     * @param on the key columns.
+     * @return the joined data frame.
+     */
+    public DataFrame innerJoin(DataFrame other, String... on) {
+        return hashJoin(other, false, on);
+    }
+
+    /**
+     * Left outer joins two data frames on key columns by hashing.
+     * The rows of this data frame without matches have null values
+     * in the columns of the other data frame, which become nullable.
+     * Otherwise, it is the same as {@link #innerJoin(DataFrame, String...)}.
+     *
+     * @param other the data frame to join.
+     * @param on the key columns.
+     * @return the joined data frame.
+     */
+    public DataFrame leftJoin(DataFrame other, String... on) {
+        return hashJoin(other, true, on);
+    }
+
+    /**
+     * Joins two data frames on key columns by hashing. The hash
+     * table is built on the other data frame.
+     * @param other the data frame to join.
+     * @param outer true for left outer join, false for inner join.
+     * @param on the key columns.
+     * @return the joined data frame.
+     */
+    private DataFrame hashJoin(DataFrame other, boolean outer, String... on) {
+        if (on.length == 0) {
+            throw new IllegalArgumentException("Empty join keys");
+        }
+
+        var codes = KeyEncoder.join(
+                Arrays.stream(on).map(this::column).toArray(ValueVector[]::new),
+                Arrays.stream(on).map(other::column).toArray(ValueVector[]::new));
+
+        // The rows of other data frame bucketed by key codes.
+        int[] right = codes.right();
+        int[] start = new int[codes.size() + 1];
+        for (int code : right) {
+            if (code >= 0) start[code + 1]++;
+        }
+        for (int c = 0; c < codes.size(); c++) {
+            start[c + 1] += start[c];
+        }
+        int[] pos = Arrays.copyOf(start, codes.size());
+        int[] bucket = new int[start[codes.size()]];
+        for (int r = 0; r < right.length; r++) {
+            if (right[r] >= 0) bucket[pos[right[r]]++] = r;
+        }
+
+        int[] left = codes.left();
+        long total = 0;
+        for (int code : left) {
+            total += code >= 0 ? start[code + 1] - start[code] : (outer ? 1 : 0);
+        }
+        if (total > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Too many rows in join result: " + total);
+        }
+
+        int[] li = new int[(int) total];
+        int[] ri = new int[(int) total];
+        int k = 0;
+        for (int l = 0; l < left.length; l++) {
+            int code = left[l];
+            if (code >= 0) {
+                for (int b = start[code]; b < start[code + 1]; b++) {
+                    li[k] = l;
+                    ri[k++] = bucket[b];
+                }
+            } else if (outer) {
+                li[k] = l;
+                ri[k++] = -1;
+            }
+        }
+
+        var leftIndex = Index.of(li);
+        var rightIndex = Index.of(ri);
+        boolean missing = outer && Arrays.stream(ri).anyMatch(r -> r < 0);
+        Set<String> keys = new HashSet<>(Arrays.asList(on));
+        var lhs = new DataFrame(columns.stream()
+                .map(column -> column.get(leftIndex))
+                .toArray(ValueVector[]::new));
+        var rhs = other.columns.stream()
+                .filter(column -> !keys.contains(column.name()))
+                .map(column -> missing ? gather(column, ri) : column.get(rightIndex))
+                .toArray(ValueVector[]::new);
+        return rhs.length == 0 ? lhs : lhs.merge(new DataFrame(rhs));
+    }
+
+    /**
+     * Returns the elements of a vector at the given positions as a
+     * nullable vector. The negative positions are null.
+     * @param column the vector.
+     * @param rows the positions of elements.
+     * @return the nullable vector.
+     */
+    private static ValueVector gather(ValueVector column, int[] rows) {
+        int n = rows.length;
+        BitSet mask = new BitSet(n);
+        for (int i = 0; i < n; i++) {
+            if (rows[i] < 0 || column.isNullAt(rows[i])) mask.set(i);
+        }
+
+        String name = column.name();
+        Measure measure = column.measure();
+        return switch (column.dtype().id()) {
+            case Boolean -> {
+                boolean[] a = new boolean[n];
+                for (int i = 0; i < n; i++) if (!mask.get(i)) a[i] = column.getBoolean(rows[i]);
+                yield new NullableBooleanVector(new StructField(name, DataTypes.NullableBooleanType, measure), a, mask);
+            }
+            case Char -> {
+                char[] a = new char[n];
+                for (int i = 0; i < n; i++) if (!mask.get(i)) a[i] = column.getChar(rows[i]);
+                yield new NullableCharVector(new StructField(name, DataTypes.NullableCharType, measure), a, mask);
+            }
+            case Byte -> {
+                byte[] a = new byte[n];
+                for (int i = 0; i < n; i++) if (!mask.get(i)) a[i] = column.getByte(rows[i]);
+                yield new NullableByteVector(new StructField(name, DataTypes.NullableByteType, measure), a, mask);
+            }
+            case Short -> {
+                short[] a = new short[n];
+                for (int i = 0; i < n; i++) if (!mask.get(i)) a[i] = column.getShort(rows[i]);
+                yield new NullableShortVector(new StructField(name, DataTypes.NullableShortType, measure), a, mask);
+            }
+            case Int -> {
+                int[] a = new int[n];
+                for (int i = 0; i < n; i++) if (!mask.get(i)) a[i] = column.getInt(rows[i]);
+                yield new NullableIntVector(new StructField(name, DataTypes.NullableIntType, measure), a, mask);
+            }
+            case Long -> {
+                long[] a = new long[n];
+                for (int i = 0; i < n; i++) if (!mask.get(i)) a[i] = column.getLong(rows[i]);
+                yield new NullableLongVector(new StructField(name, DataTypes.NullableLongType, measure), a, mask);
+            }
+            case Float -> {
+                float[] a = new float[n];
+                for (int i = 0; i < n; i++) a[i] = mask.get(i) ? Float.NaN : column.getFloat(rows[i]);
+                yield new NullableFloatVector(new StructField(name, DataTypes.NullableFloatType, measure), a, mask);
+            }
+            case Double -> {
+                double[] a = new double[n];
+                for (int i = 0; i < n; i++) a[i] = mask.get(i) ? Double.NaN : column.getDouble(rows[i]);
+                yield new NullableDoubleVector(new StructField(name, DataTypes.NullableDoubleType, measure), a, mask);
+            }
+            case String -> {
+                String[] a = new String[n];
+                for (int i = 0; i < n; i++) if (!mask.get(i)) a[i] = (String) column.get(rows[i]);
+                yield new StringVector(column.field(), a);
+            }
+            default -> {
+                Object[] a = new Object[n];
+                for (int i = 0; i < n; i++) if (!mask.get(i)) a[i] = column.get(rows[i]);
+                yield new ObjectVector<>(column.field(), a);
+            }
+        };
+    }
+
+    /**
+     * Groups the rows by the values of key columns.
+     * @param keys the key columns.
+     * @return the grouped data.
+     */
+    public GroupBy groupBy(String... keys) {
+        return new GroupBy(this, keys);
+    }
+
+    /**
+     * Sorts the rows by columns in ascending order. The sort is stable.
+     * The null values are placed last.
+     * @param columns the columns to sort by.
+     * @return the sorted data frame.
+     */
+    public DataFrame sort(String... columns) {
+        boolean[] ascending = new boolean[columns.length];
+        Arrays.fill(ascending, true);
+        return sort(columns, ascending);
+    }
+
+    /**
+     * Sorts the rows by columns. The sort is stable. The null values are
+     * placed last in both ascending and descending order. The columns
+     * are compared on primitive arrays except for object columns, which
+     * must be comparable.
+     * @param columns the columns to sort by.
+     * @param ascending the sort order of columns.
+     * @return the sorted data frame.
+     */
+    public DataFrame sort(String[] columns, boolean[] ascending) {
+        if (columns.length == 0 || columns.length != ascending.length) {
+            throw new IllegalArgumentException("Invalid sort columns or orders");
+        }
+
+        IntBinaryOperator[] comparators = new IntBinaryOperator[columns.length];
+        for (int j = 0; j < columns.length; j++) {
+            comparators[j] = comparator(column(columns[j]), ascending[j]);
+        }
+
+        IntBinaryOperator comparator = (a, b) -> {
+            for (var c : comparators) {
+                int r = c.applyAsInt(a, b);
+                if (r != 0) return r;
+            }
+            return 0;
+        };
+
+        int n = size();
+        int[] order = IntStream.range(0, n).toArray();
+        mergeSort(order, new int[n], 0, n, comparator);
+        return get(Index.of(order));
+    }
+
+    /**
+     * Returns the comparator of rows by a column, with nulls last.
+     * @param column the column.
+     * @param ascending the sort order.
+     * @return the comparator of row indices.
+     */
+    @SuppressWarnings("unchecked")
+    private static IntBinaryOperator comparator(ValueVector column, boolean ascending) {
+        int n = column.size();
+        int sign = ascending ? 1 : -1;
+        DataType dtype = column.dtype();
+        boolean[] nulls = new boolean[n];
+        for (int i = 0; i < n; i++) {
+            nulls[i] = column.isNullAt(i);
+        }
+
+        IntBinaryOperator compare;
+        if (dtype.isFloating()) {
+            double[] x = new double[n];
+            for (int i = 0; i < n; i++) {
+                x[i] = nulls[i] ? Double.NaN : column.getDouble(i);
+                nulls[i] = Double.isNaN(x[i]);
+            }
+            compare = (a, b) -> Double.compare(x[a], x[b]);
+        } else if (dtype.isPrimitive()) {
+            long[] x = new long[n];
+            for (int i = 0; i < n; i++) {
+                if (!nulls[i]) x[i] = column.getLong(i);
+            }
+            compare = (a, b) -> Long.compare(x[a], x[b]);
+        } else {
+            Comparable<Object>[] x = new Comparable[n];
+            for (int i = 0; i < n; i++) {
+                Object value = column.get(i);
+                nulls[i] = value == null;
+                if (value != null && !(value instanceof Comparable)) {
+                    throw new IllegalArgumentException("Column " + column.name() + " is not comparable: " + dtype);
+                }
+                x[i] = (Comparable<Object>) value;
+            }
+            compare = (a, b) -> x[a].compareTo(x[b]);
+        }
+
+        return (a, b) -> {
+            if (nulls[a] || nulls[b]) {
+                return nulls[a] == nulls[b] ? 0 : (nulls[a] ? 1 : -1);
+            }
+            return sign * compare.applyAsInt(a, b);
+        };
+    }
+
+    /**
+     * Stable merge sort of row indices.
+     * @param a the row indices.
+     * @param tmp the buffer of the same length.
+     * @param lo the inclusive start.
+     * @param hi the exclusive end.
+     * @param comparator the comparator of row indices.
+     */
+    private static void mergeSort(int[] a, int[] tmp, int lo, int hi, IntBinaryOperator comparator) {
+        if (hi - lo <= 16) {
+            // Insertion sort for short runs.
+            for (int i = lo + 1; i < hi; i++) {
+                int x = a[i];
+                int j = i - 1;
+                while (j >= lo && comparator.applyAsInt(a[j], x) > 0) {
+                    a[j + 1] = a[j];
+                    j--;
+                }
+                a[j + 1] = x;
+            }
+            return;
+        }
+
+        int mid = (lo + hi) >>> 1;
+        mergeSort(a, tmp, lo, mid, comparator);
+        mergeSort(a, tmp, mid, hi, comparator);
+        if (comparator.applyAsInt(a[mid - 1], a[mid]) <= 0) return;
+
+        System.arraycopy(a, lo, tmp, lo, hi - lo);
+        int i = lo, j = mid, k = lo;
+        while (i < mid && j < hi) {
+            a[k++] = comparator.applyAsInt(tmp[j], tmp[i]) < 0 ? tmp[j++] : tmp[i++];
+        }
+        while (i < mid) a[k++] = tmp[i++];
+        while (j < hi) a[k++] = tmp[j++];
+    }
+
     /**
      * Merges data frames horizontally by columns. If there are columns
      * with the same name, the latter ones will be renamed with suffix
@@ -676,9 +990,16 @@ public record DataFrame(StructType schema, List<ValueVector> columns, RowIndex i
             hasIndex &= df.index != null;
         }
 
-        var rows = Stream.concat(Stream.of(this), Stream.of(dataframes))
-                .flatMap(DataFrame::stream);
-        var df = DataFrame.of(schema, rows);
+        List<ValueVector> vectors = new ArrayList<>(columns.size());
+        for (int j = 0; j < columns.size(); j++) {
+            ValueVector[] parts = new ValueVector[dataframes.length + 1];
+            parts[0] = columns.get(j);
+            for (int i = 0; i < dataframes.length; i++) {
+                parts[i + 1] = dataframes[i].column(j);
+            }
+            vectors.add(ValueVector.concat(parts));
+        }
+        var df = new DataFrame(schema, vectors, null);
 
         if (hasIndex) {
             var index = Stream.concat(Stream.of(this), Stream.of(dataframes))
@@ -691,6 +1012,9 @@ public record DataFrame(StructType schema, List<ValueVector> columns, RowIndex i
     /**
      * Returns a new DataFrame with given columns converted to nominal.
      *
+     * Dictionary-encoded string columns are converted without copying,
+     * with the dictionary as the levels.
+     *
      * @param names column names. If empty, all object columns
      *              in the data frame will be converted.
      * @return a new DataFrame.
@@ -709,6 +1033,7 @@ public record DataFrame(StructType schema, List<ValueVector> columns, RowIndex i
 
         ValueVector[] vectors = columns.stream().map(column -> {
             if (!set.contains(column.name())) return column;
+            if (column instanceof DictionaryVector vector) return vector.factorize();
 
             List<String> levels = IntStream.range(0, n)
                     .mapToObj(column::getString)
@@ -1483,6 +1808,18 @@ public record DataFrame(StructType schema, List<ValueVector> columns, RowIndex i
                     yield new NumberVector<>(field, values);
                 }
 
+                case Date, Time, DateTime -> {
+                    Object[] values = new Object[n];
+                    for (int i = 0; i < n; i++) {
+                        values[i] = data.get(i).get(j);
+                    }
+                    yield switch (field.dtype().id()) {
+                        case Date -> DateVector.of(field, values);
+                        case Time -> TimeVector.of(field, values);
+                        default -> DateTimeVector.of(field, values);
+                    };
+                }
+
                 default -> {
                     Object[] values = new Object[n];
                     for (int i = 0; i < n; i++) {
@@ -0,0 +1,600 @@
+/*
+ * Copyright (c) 2010-2025 Haifeng Li. All rights reserved.
+ *
+ * Smile is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Smile is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Smile. If not, see <https://www.gnu.org/licenses/>.
+ */
+package smile.data;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+import smile.data.vector.DoubleVector;
+import smile.data.vector.LongVector;
+import smile.data.vector.NullableLongVector;
+import smile.data.vector.ValueVector;
+import smile.util.DoubleArrayList;
+import smile.util.Index;
+
+/**
+ * The rows of a data frame grouped by the values of key columns.
+ * The groups are found with hash tables on the column storage, see
+ * {@link KeyEncoder}. The rows with null keys form a group of their
+ * own. The groups are ordered by their first appearance in the data.
+ * <p>
+ * The aggregates are computed on primitive arrays. The rows are split
+ * into about as many chunks as the worker threads, which are aggregated
+ * in parallel into partial results of all groups. The partial results
+ * are then merged. The sum, minimum and maximum of integral columns are
+ * exact long integers. Other aggregates are doubles.
+ *
+ * <pre>{@code
+ * var stats = df.groupBy("sex", "pclass").agg(
+ *         Aggregate.count(),
+ *         Aggregate.mean("age"),
+ *         Aggregate.quantile("fare", 0.9).as("fare90"));
+ * }</pre>
+ *
+ * @author Haifeng Li
+ */
+public class GroupBy {
+    /** The minimum number of rows in a chunk of parallel aggregation. */
+    private static final int MIN_CHUNK = 65536;
+    /** The data frame. */
+    private final DataFrame data;
+    /** The key columns. */
+    private final String[] keys;
+    /** The group id of rows. */
+    private final int[] group;
+    /** The number of groups. */
+    private final int size;
+    /** The first row of groups. */
+    private final int[] first;
+
+    /**
+     * Constructor.
+     * @param data the data frame.
+     * @param keys the key columns.
+     */
+    public GroupBy(DataFrame data, String... keys) {
+        if (keys.length == 0) {
+            throw new IllegalArgumentException("Empty group keys");
+        }
+
+        this.data = data;
+        this.keys = keys;
+        var codes = KeyEncoder.group(Arrays.stream(keys).map(data::column).toArray(ValueVector[]::new));
+        this.group = codes.codes();
+        this.size = codes.size();
+        this.first = new int[size];
+        Arrays.fill(first, -1);
+        for (int i = 0; i < group.length; i++) {
+            if (first[group[i]] < 0) first[group[i]] = i;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("GroupBy(%s, %d groups)", String.join(", ", keys), size);
+    }
+
+    /**
+     * Returns the number of groups.
+     * @return the number of groups.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the group id of each row.
+     * @return the group id of each row.
+     */
+    public int[] group() {
+        return group;
+    }
+
+    /**
+     * Returns the key values of groups.
+     * @return the data frame of key columns with a row per group.
+     */
+    public DataFrame keys() {
+        var index = Index.of(first);
+        return new DataFrame(Arrays.stream(keys)
+                .map(key -> data.column(key).get(index))
+                .toArray(ValueVector[]::new));
+    }
+
+    /**
+     * Returns the rows of a group.
+     * @param g the group id.
+     * @return the rows of group.
+     */
+    public DataFrame get(int g) {
+        return data.get(Index.of(IntStream.range(0, group.length).filter(i -> group[i] == g).toArray()));
+    }
+
+    /**
+     * Returns the number of rows of each group.
+     * @return the data frame of key columns and the count column.
+     */
+    public DataFrame count() {
+        return agg(Aggregate.count());
+    }
+
+    /**
+     * Aggregates the groups.
+     * @param aggregates the aggregate functions.
+     * @return the data frame of key columns and a column per aggregate,
+     *         with a row per group.
+     */
+    public DataFrame agg(Aggregate... aggregates) {
+        var index = Index.of(first);
+        ValueVector[] columns = new ValueVector[keys.length + aggregates.length];
+        for (int j = 0; j < keys.length; j++) {
+            columns[j] = data.column(keys[j]).get(index);
+        }
+        for (int j = 0; j < aggregates.length; j++) {
+            columns[keys.length + j] = aggregate(aggregates[j]);
+        }
+        return new DataFrame(columns);
+    }
+
+    /**
+     * Computes an aggregate.
+     * @param aggregate the aggregate function.
+     * @return the column of aggregate values.
+     */
+    private ValueVector aggregate(Aggregate aggregate) {
+        Supplier<Accumulator> factory = accumulator(aggregate);
+        int n = group.length;
+        // About a chunk per worker thread so that the partial results
+        // of all groups are allocated only a few times.
+        int chunks = Math.max(1, Math.min(ForkJoinPool.getCommonPoolParallelism(), n / MIN_CHUNK));
+        int chunk = (n + chunks - 1) / chunks;
+        var stream = IntStream.range(0, chunks);
+        if (chunks > 1) stream = stream.parallel();
+        var accumulator = stream.mapToObj(c -> {
+                    var acc = factory.get();
+                    acc.add(c * chunk, (int) Math.min(n, (long) (c + 1) * chunk));
+                    return acc;
+                })
+                .reduce((a, b) -> {
+                    a.merge(b);
+                    return a;
+                })
+                .orElseGet(factory);
+        return accumulator.result(aggregate.name());
+    }
+
+    /**
+     * Returns the factory of accumulators of aggregate. The column values
+     * are read once and shared by the accumulators of all chunks. The sum,
+     * minimum and maximum of integral columns are accumulated in long
+     * integers. Other aggregates are computed on doubles.
+     */
+    private Supplier<Accumulator> accumulator(Aggregate aggregate) {
+        var function = aggregate.function();
+        if (aggregate.column() == null) {
+            return () -> new Count(size, null);
+        }
+
+        ValueVector column = data.column(aggregate.column());
+        if (function == Aggregate.Function.COUNT) {
+            // Only the null flags matter.
+            boolean[] nulls = nulls(column);
+            return () -> new Count(size, nulls);
+        }
+
+        var dtype = column.dtype();
+        if (!dtype.isNumeric() && !dtype.isBoolean()) {
+            throw new IllegalArgumentException(String.format("%s of non-numeric column %s: %s", function, column.name(), dtype));
+        }
+
+        boolean exact = dtype.isIntegral() && switch (function) {
+            case SUM, MIN, MAX -> true;
+            default -> false;
+        };
+
+        if (exact) {
+            boolean[] nulls = nulls(column);
+            long[] x = new long[column.size()];
+            IntStream.range(0, x.length).parallel().forEach(i -> {
+                if (nulls == null || !nulls[i]) x[i] = column.getLong(i);
+            });
+            return function == Aggregate.Function.SUM ?
+                    () -> new LongSum(size, x, nulls) :
+                    () -> new LongExtreme(size, function == Aggregate.Function.MAX, x, nulls);
+        }
+
+        double[] x = values(column);
+        return switch (function) {
+            case SUM, MEAN, VAR, SD -> () -> new Moments(size, function, x);
+            case MIN -> () -> new Extreme(size, false, x);
+            case MAX -> () -> new Extreme(size, true, x);
+            case QUANTILE -> () -> new Quantile(size, aggregate.p(), x);
+            case COUNT -> throw new IllegalStateException("Unexpected aggregate: " + function);
+        };
+    }
+
+    /**
+     * Returns the null flags of column values. NaN values of floating
+     * columns are null too. Returns null if the column has no nulls.
+     */
+    private static boolean[] nulls(ValueVector column) {
+        boolean floating = column.dtype().isFloating();
+        boolean nullable = column.isNullable() && column.getNullCount() > 0;
+        if (!nullable && !floating) return null;
+
+        boolean[] nulls = new boolean[column.size()];
+        IntStream.range(0, nulls.length).parallel().forEach(i ->
+                nulls[i] = (nullable && column.isNullAt(i)) || (floating && Double.isNaN(column.getDouble(i))));
+        return nulls;
+    }
+
+    /**
+     * Returns the values of column as doubles, with NaN for nulls.
+     */
+    private static double[] values(ValueVector column) {
+        boolean nullable = column.isNullable() && column.getNullCount() > 0;
+        double[] x = new double[column.size()];
+        IntStream.range(0, x.length).parallel().forEach(i ->
+                x[i] = nullable && column.isNullAt(i) ? Double.NaN : column.getDouble(i));
+        return x;
+    }
+
+    /**
+     * The partial aggregate of all groups.
+     */
+    private abstract class Accumulator {
+        /**
+         * Adds the values of a range of rows.
+         * @param from the inclusive start row.
+         * @param to the exclusive end row.
+         */
+        abstract void add(int from, int to);
+
+        /**
+         * Merges another partial aggregate of other rows.
+         * @param other the partial aggregate.
+         */
+        abstract void merge(Accumulator other);
+
+        /**
+         * Returns the column of aggregate values.
+         * @param name the column name.
+         * @return the column of aggregate values.
+         */
+        abstract ValueVector result(String name);
+    }
+
+    /** The count of rows or non-null values. */
+    private class Count extends Accumulator {
+        /** The null flags of values, or null to count rows. */
+        final boolean[] nulls;
+        /** The counts. */
+        final long[] count;
+
+        /** Constructor. */
+        Count(int k, boolean[] nulls) {
+            this.nulls = nulls;
+            count = new long[k];
+        }
+
+        @Override
+        void add(int from, int to) {
+            for (int i = from; i < to; i++) {
+                if (nulls == null || !nulls[i]) {
+                    count[group[i]]++;
+                }
+            }
+        }
+
+        @Override
+        void merge(Accumulator other) {
+            long[] b = ((Count) other).count;
+            for (int g = 0; g < count.length; g++) {
+                count[g] += b[g];
+            }
+        }
+
+        @Override
+        ValueVector result(String name) {
+            return new LongVector(name, count);
+        }
+    }
+
+    /** The exact sum of integral values. */
+    private class LongSum extends Accumulator {
+        /** The column values. */
+        final long[] x;
+        /** The null flags of values, or null if no nulls. */
+        final boolean[] nulls;
+        /** The sums. */
+        final long[] sum;
+
+        /** Constructor. */
+        LongSum(int k, long[] x, boolean[] nulls) {
+            this.x = x;
+            this.nulls = nulls;
+            sum = new long[k];
+        }
+
+        @Override
+        void add(int from, int to) {
+            for (int i = from; i < to; i++) {
+                if (nulls == null || !nulls[i]) {
+                    int g = group[i];
+                    sum[g] = Math.addExact(sum[g], x[i]);
+                }
+            }
+        }
+
+        @Override
+        void merge(Accumulator other) {
+            long[] b = ((LongSum) other).sum;
+            for (int g = 0; g < sum.length; g++) {
+                sum[g] = Math.addExact(sum[g], b[g]);
+            }
+        }
+
+        @Override
+        ValueVector result(String name) {
+            return new LongVector(name, sum);
+        }
+    }
+
+    /** The minimum or maximum of integral values. */
+    private class LongExtreme extends Accumulator {
+        /** True for maximum. */
+        final boolean max;
+        /** The column values. */
+        final long[] x;
+        /** The null flags of values, or null if no nulls. */
+        final boolean[] nulls;
+        /** The extreme values. */
+        final long[] value;
+        /** The groups without values yet. */
+        final BitSet empty;
+
+        /** Constructor. */
+        LongExtreme(int k, boolean max, long[] x, boolean[] nulls) {
+            this.max = max;
+            this.x = x;
+            this.nulls = nulls;
+            value = new long[k];
+            empty = new BitSet(k);
+            empty.set(0, k);
+        }
+
+        /** Updates the extreme value of group. */
+        private void update(int g, long v) {
+            if (empty.get(g)) {
+                value[g] = v;
+                empty.clear(g);
+            } else if (max ? v > value[g] : v < value[g]) {
+                value[g] = v;
+            }
+        }
+
+        @Override
+        void add(int from, int to) {
+            for (int i = from; i < to; i++) {
+                if (nulls == null || !nulls[i]) {
+                    update(group[i], x[i]);
+                }
+            }
+        }
+
+        @Override
+        void merge(Accumulator other) {
+            var b = (LongExtreme) other;
+            for (int g = 0; g < value.length; g++) {
+                if (!b.empty.get(g)) {
+                    update(g, b.value[g]);
+                }
+            }
+        }
+
+        @Override
+        ValueVector result(String name) {
+            return empty.isEmpty() ? new LongVector(name, value) : new NullableLongVector(name, value, empty);
+        }
+    }
+
+    /** The sum, mean and variance with Welford's algorithm. */
+    private class Moments extends Accumulator {
+        /** The aggregate function. */
+        final Aggregate.Function function;
+        /** The column values with NaN for nulls. */
+        final double[] x;
+        /** The number of values. */
+        final long[] n;
+        /** The sum. */
+        final double[] sum;
+        /** The mean. */
+        final double[] mean;
+        /** The sum of squared deviations from the mean. */
+        final double[] m2;
+
+        /** Constructor. */
+        Moments(int k, Aggregate.Function function, double[] x) {
+            this.function = function;
+            this.x = x;
+            n = new long[k];
+            sum = new double[k];
+            mean = new double[k];
+            m2 = new double[k];
+        }
+
+        @Override
+        void add(int from, int to) {
+            for (int i = from; i < to; i++) {
+                double xi = x[i];
+                if (Double.isNaN(xi)) continue;
+                int g = group[i];
+                long ng = ++n[g];
+                sum[g] += xi;
+                double delta = xi - mean[g];
+                mean[g] += delta / ng;
+                m2[g] += delta * (xi - mean[g]);
+            }
+        }
+
+        @Override
+        void merge(Accumulator other) {
+            var b = (Moments) other;
+            for (int g = 0; g < n.length; g++) {
+                if (b.n[g] == 0) continue;
+                long ng = n[g] + b.n[g];
+                double delta = b.mean[g] - mean[g];
+                m2[g] += b.m2[g] + delta * delta * n[g] * b.n[g] / ng;
+                mean[g] += delta * b.n[g] / ng;
+                sum[g] += b.sum[g];
+                n[g] = ng;
+            }
+        }
+
+        @Override
+        ValueVector result(String name) {
+            double[] y = new double[n.length];
+            for (int g = 0; g < y.length; g++) {
+                y[g] = switch (function) {
+                    case SUM -> sum[g];
+                    case MEAN -> n[g] > 0 ? mean[g] : Double.NaN;
+                    case VAR -> n[g] > 1 ? m2[g] / (n[g] - 1) : Double.NaN;
+                    case SD -> n[g] > 1 ? Math.sqrt(m2[g] / (n[g] - 1)) : Double.NaN;
+                    default -> throw new IllegalStateException("Unsupported aggregate: " + function);
+                };
+            }
+            return new DoubleVector(name, y);
+        }
+    }
+
+    /** The minimum or maximum. */
+    private class Extreme extends Accumulator {
+        /** True for maximum. */
+        final boolean max;
+        /** The column values with NaN for nulls. */
+        final double[] x;
+        /** The extreme values, NaN if no values yet. */
+        final double[] value;
+
+        /** Constructor. */
+        Extreme(int k, boolean max, double[] x) {
+            this.max = max;
+            this.x = x;
+            value = new double[k];
+            Arrays.fill(value, Double.NaN);
+        }
+
+        /** Updates the extreme value of group. */
+        private void update(int g, double x) {
+            double v = value[g];
+            if (Double.isNaN(v) || (max ? x > v : x < v)) {
+                value[g] = x;
+            }
+        }
+
+        @Override
+        void add(int from, int to) {
+            for (int i = from; i < to; i++) {
+                if (!Double.isNaN(x[i])) {
+                    update(group[i], x[i]);
+                }
+            }
+        }
+
+        @Override
+        void merge(Accumulator other) {
+            double[] b = ((Extreme) other).value;
+            for (int g = 0; g < value.length; g++) {
+                if (!Double.isNaN(b[g])) {
+                    update(g, b[g]);
+                }
+            }
+        }
+
+        @Override
+        ValueVector result(String name) {
+            return new DoubleVector(name, value);
+        }
+    }
+
+    /**
+     * The exact quantile with linear interpolation between order statistics.
+     */
+    private class Quantile extends Accumulator {
+        /** The probability. */
+        final double p;
+        /** The column values with NaN for nulls. */
+        final double[] x;
+        /** The values of groups. */
+        final DoubleArrayList[] values;
+
+        /** Constructor. */
+        Quantile(int k, double p, double[] x) {
+            this.p = p;
+            this.x = x;
+            values = new DoubleArrayList[k];
+        }
+
+        /** Returns the value list of group. */
+        private DoubleArrayList list(int g) {
+            if (values[g] == null) {
+                values[g] = new DoubleArrayList();
+            }
+            return values[g];
+        }
+
+        @Override
+        void add(int from, int to) {
+            for (int i = from; i < to; i++) {
+                if (!Double.isNaN(x[i])) {
+                    list(group[i]).add(x[i]);
+                }
+            }
+        }
+
+        @Override
+        void merge(Accumulator other) {
+            var b = ((Quantile) other).values;
+            for (int g = 0; g < values.length; g++) {
+                if (b[g] != null) {
+                    list(g).add(b[g].toArray());
+                }
+            }
+        }
+
+        @Override
+        ValueVector result(String name) {
+            double[] y = new double[values.length];
+            for (int g = 0; g < y.length; g++) {
+                if (values[g] == null) {
+                    y[g] = Double.NaN;
+                    continue;
+                }
+
+                double[] v = values[g].toArray();
+                Arrays.sort(v);
+                double h = (v.length - 1) * p;
+                int lo = (int) Math.floor(h);
+                int hi = Math.min(lo + 1, v.length - 1);
+                y[g] = v[lo] + (h - lo) * (v[hi] - v[lo]);
+            }
+            return new DoubleVector(name, y);
+        }
+    }
+}
@@ -0,0 +1,363 @@
+/*
+ * Copyright (c) 2010-2025 Haifeng Li. All rights reserved.
+ *
+ * Smile is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Smile is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Smile. If not, see <https://www.gnu.org/licenses/>.
+ */
+package smile.data;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import smile.data.type.DataType;
+import smile.data.vector.ValueVector;
+
+/**
+ * Encodes the values of key columns into dense integer codes with hash
+ * tables, which is the basis of group-by and hash join. The values of
+ * primitive columns (and the codes of nominal columns) are hashed as
+ * long integers without boxing. Other columns are hashed as objects.
+ * The codes are assigned in the order of first appearance. Null and
+ * NaN values are encoded as -1.
+ * <p>
+ * Multiple key columns are combined one after another. The pair of the
+ * code of previous columns and the code of next column is encoded into
+ * a long integer, which is hashed again. So the combined codes stay dense.
+ *
+ * @author Haifeng Li
+ */
+final class KeyEncoder {
+    /**
+     * The codes of keys.
+     * @param codes the codes of rows.
+     * @param size the number of distinct codes.
+     */
+    record Codes(int[] codes, int size) {
+
+    }
+
+    /**
+     * The codes of join keys.
+     * @param left the codes of left rows.
+     * @param right the codes of right rows.
+     * @param size the number of distinct right keys.
+     */
+    record JoinCodes(int[] left, int[] right, int size) {
+
+    }
+
+    /** The dictionary of primitive values. */
+    private final LongIntHashMap longs = new LongIntHashMap();
+    /** The dictionary of object values. */
+    private final HashMap<Object, Integer> objects = new HashMap<>();
+    /** True if the primitive values are hashed as doubles. */
+    private final boolean floating;
+    /** The number of distinct values. */
+    private int size;
+
+    /** Constructor. */
+    KeyEncoder() {
+        this(false);
+    }
+
+    /**
+     * Constructor.
+     * @param floating true if the primitive values are hashed as doubles
+     *                 so that integral and floating keys can be matched.
+     */
+    KeyEncoder(boolean floating) {
+        this.floating = floating;
+    }
+
+    /**
+     * Returns the number of distinct values.
+     * @return the number of distinct values.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Returns the long integer key of a primitive value.
+     * @param column the column.
+     * @param i the row index.
+     * @return the key.
+     */
+    private static long key(ValueVector column, boolean floating, int i) {
+        if (floating) {
+            // -0.0 + 0.0 is 0.0 so that 0.0 and -0.0 are the same key.
+            return Double.doubleToLongBits(column.getDouble(i) + 0.0);
+        }
+        return column.getLong(i);
+    }
+
+    /**
+     * Returns true if the value is null or NaN.
+     */
+    private static boolean isNull(ValueVector column, boolean floating, int i) {
+        return column.isNullAt(i) || (floating && Double.isNaN(column.getDouble(i)));
+    }
+
+    /**
+     * Encodes the column values, adding the new values to the dictionary.
+     * @param column the column.
+     * @return the codes of values, -1 for null.
+     */
+    int[] add(ValueVector column) {
+        return encode(column, true);
+    }
+
+    /**
+     * Encodes the column values with the dictionary. The values not in
+     * the dictionary are encoded as -1.
+     * @param column the column.
+     * @return the codes of values, -1 for null or absent values.
+     */
+    int[] lookup(ValueVector column) {
+        return encode(column, false);
+    }
+
+    /**
+     * Encodes the column values.
+     * @param column the column.
+     * @param add true if the new values are added to the dictionary.
+     * @return the codes of values.
+     */
+    private int[] encode(ValueVector column, boolean add) {
+        int n = column.size();
+        int[] codes = new int[n];
+        DataType dtype = column.dtype();
+        if (dtype.isPrimitive()) {
+            boolean floating = this.floating || dtype.isFloating();
+            boolean nullable = column.isNullable() || floating;
+            for (int i = 0; i < n; i++) {
+                if (nullable && isNull(column, floating, i)) {
+                    codes[i] = -1;
+                    continue;
+                }
+
+                long key = key(column, floating, i);
+                int code = longs.get(key);
+                if (code < 0 && add) {
+                    code = size++;
+                    longs.put(key, code);
+                }
+                codes[i] = code;
+            }
+        } else {
+            for (int i = 0; i < n; i++) {
+                Object key = column.get(i);
+                if (key == null) {
+                    codes[i] = -1;
+                    continue;
+                }
+
+                Integer code = add ? objects.putIfAbsent(key, size) : objects.get(key);
+                if (code == null) {
+                    codes[i] = add ? size++ : -1;
+                } else {
+                    codes[i] = code;
+                }
+            }
+        }
+        return codes;
+    }
+
+    /**
+     * Combines the codes of previous key columns with the codes of next
+     * column. A pair with a code of -1 is encoded as -1.
+     * @param prev the codes of previous key columns.
+     * @param next the codes of next key column.
+     * @param cardinality the number of distinct codes of next column.
+     * @param add true if the new pairs are added to the dictionary.
+     * @return the combined codes.
+     */
+    int[] combine(int[] prev, int[] next, int cardinality, boolean add) {
+        int n = prev.length;
+        int[] codes = new int[n];
+        for (int i = 0; i < n; i++) {
+            if (prev[i] < 0 || next[i] < 0) {
+                codes[i] = -1;
+                continue;
+            }
+
+            long key = (long) prev[i] * cardinality + next[i];
+            int code = longs.get(key);
+            if (code < 0 && add) {
+                code = size++;
+                longs.put(key, code);
+            }
+            codes[i] = code;
+        }
+        return codes;
+    }
+
+    /**
+     * Returns the group ids of rows. The rows with null keys are
+     * in the same group.
+     * @param columns the key columns.
+     * @return the group ids of rows.
+     */
+    static Codes group(ValueVector... columns) {
+        int[] codes = null;
+        int cardinality = 0;
+        for (var column : columns) {
+            var encoder = new KeyEncoder();
+            int[] next = encoder.add(column);
+            int card = encoder.size();
+            // The null keys are a group of their own.
+            if (Arrays.stream(next).anyMatch(code -> code < 0)) {
+                for (int i = 0; i < next.length; i++) {
+                    if (next[i] < 0) next[i] = card;
+                }
+                card++;
+            }
+
+            if (codes == null) {
+                codes = next;
+                cardinality = card;
+            } else {
+                var combiner = new KeyEncoder();
+                codes = combiner.combine(codes, next, card, true);
+                cardinality = combiner.size();
+            }
+        }
+
+        return new Codes(codes, cardinality);
+    }
+
+    /**
+     * Returns the codes of keys of two data frames for hash join.
+     * The codes are consistent between two data frames. The null
+     * keys and the keys that don't appear in the right data frame
+     * are encoded as -1. The integral keys of different widths are
+     * matched as long integers. The integral keys are matched with
+     * the floating keys as doubles.
+     * @param left the key columns of left data frame.
+     * @param right the key columns of right data frame.
+     * @return the codes of left and right keys.
+     * @throws IllegalArgumentException if a pair of key columns have
+     *         incompatible data types.
+     */
+    static JoinCodes join(ValueVector[] left, ValueVector[] right) {
+        int[] lcodes = null;
+        int[] rcodes = null;
+        int cardinality = 0;
+        for (int j = 0; j < right.length; j++) {
+            var encoder = new KeyEncoder(floating(left[j], right[j]));
+            int[] rnext = encoder.add(right[j]);
+            int[] lnext = encoder.lookup(left[j]);
+            int card = encoder.size();
+
+            if (rcodes == null) {
+                rcodes = rnext;
+                lcodes = lnext;
+                cardinality = card;
+            } else {
+                var combiner = new KeyEncoder();
+                rcodes = combiner.combine(rcodes, rnext, card, true);
+                lcodes = combiner.combine(lcodes, lnext, card, false);
+                cardinality = combiner.size();
+            }
+        }
+        return new JoinCodes(lcodes, rcodes, cardinality);
+    }
+
+    /**
+     * Returns true if a pair of join keys are hashed as doubles, i.e.
+     * both are numeric and one of them is floating.
+     * @param left the key column of left data frame.
+     * @param right the key column of right data frame.
+     * @return true if the keys are hashed as doubles.
+     * @throws IllegalArgumentException if the keys have incompatible data types.
+     */
+    private static boolean floating(ValueVector left, ValueVector right) {
+        DataType a = left.dtype();
+        DataType b = right.dtype();
+        boolean anum = a.isIntegral() || a.isFloating();
+        boolean bnum = b.isIntegral() || b.isFloating();
+        if (anum && bnum) {
+            return a.isFloating() || b.isFloating();
+        }
+
+        if (a.id() != b.id()) {
+            throw new IllegalArgumentException(String.format("Incompatible types of join key %s: %s vs %s", left.name(), a, b));
+        }
+        return false;
+    }
+
+    /**
+     * {@code HashMap<long, int>} with open addressing for non-negative
+     * values. It returns -1 for absent keys.
+     */
+    private static class LongIntHashMap {
+        /** The keys. */
+        private long[] keys;
+        /** The values, -1 for free slots. */
+        private int[] values;
+        /** The number of entries. */
+        private int size;
+        /** Mask to calculate the position. */
+        private int mask;
+
+        /** Constructor. */
+        LongIntHashMap() {
+            keys = new long[16];
+            values = new int[16];
+            Arrays.fill(values, -1);
+            mask = 15;
+        }
+
+        /** Returns the slot of key. */
+        private int slot(long key) {
+            // Fibonacci hashing mixes the high bits into the low bits.
+            long h = key * 0x9E3779B97F4A7C15L;
+            int ptr = (int) (h ^ (h >>> 32)) & mask;
+            while (values[ptr] >= 0 && keys[ptr] != key) {
+                ptr = (ptr + 1) & mask;
+            }
+            return ptr;
+        }
+
+        /** Returns the value of key, or -1 if absent. */
+        int get(long key) {
+            return values[slot(key)];
+        }
+
+        /** Puts a new key. */
+        void put(long key, int value) {
+            int ptr = slot(key);
+            keys[ptr] = key;
+            values[ptr] = value;
+            if (++size > keys.length * 3 / 4) {
+                rehash();
+            }
+        }
+
+        /** Doubles the hash table. */
+        private void rehash() {
+            long[] oldKeys = keys;
+            int[] oldValues = values;
+            keys = new long[oldKeys.length * 2];
+            values = new int[oldKeys.length * 2];
+            Arrays.fill(values, -1);
+            mask = keys.length - 1;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldValues[i] >= 0) {
+                    int ptr = slot(oldKeys[i]);
+                    keys[ptr] = oldKeys[i];
+                    values[ptr] = oldValues[i];
+                }
+            }
+        }
+    }
+}
@@ -16,17 +16,39 @@
  */
 package smile.data;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.sql.*;
 import java.util.*;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.ipc.ArrowReader;
+import org.duckdb.DuckDBResultSet;
+import smile.data.type.StructType;
+import smile.data.vector.ValueVector;
+import smile.io.Arrow;
 
 /**
  * An in-process SQL database management interface.
+ * <p>
+ * The query results are fetched from DuckDB as Arrow record batches
+ * and converted to column vectors directly, without materializing
+ * a tuple per row. The results with column types that are not supported
+ * by Arrow conversion are read through JDBC result set instead.
  *
  * @author Haifeng Li
  */
 public class SQL implements AutoCloseable {
     private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(SQL.class);
+    /** The number of rows in an Arrow record batch of query results. */
+    private static final int BATCH_SIZE = 65536;
+    /** DuckDB column types whose Arrow export can be converted to value vectors. */
+    private static final Set<String> ARROW_TYPES = Set.of(
+            "BOOLEAN", "TINYINT", "SMALLINT", "INTEGER", "BIGINT", "FLOAT", "DOUBLE",
+            "VARCHAR", "DATE", "TIME", "TIMESTAMP", "BLOB");
     /** JDBC connection. */
     private final Connection db;
 
@@ -384,8 +406,218 @@ public class SQL implements AutoCloseable {
      */
     public DataFrame query(String sql) throws SQLException {
         logger.info(sql);
-        try (var stmt = db.createStatement()) {
-            return DataFrame.of(stmt.executeQuery(sql));
+        try (var stmt = db.createStatement();
+             var rs = stmt.executeQuery(sql)) {
+            if (!isArrowExportable(rs)) {
+                return DataFrame.of(rs);
+            }
+
+            try (var allocator = new RootAllocator();
+                 var reader = arrow(rs, allocator, BATCH_SIZE)) {
+                List<ValueVector[]> batches = new ArrayList<>();
+                while (reader.loadNextBatch()) {
+                    var root = reader.getVectorSchemaRoot();
+                    if (root.getRowCount() > 0) {
+                        batches.add(Arrow.read(root).columns().toArray(new ValueVector[0]));
+                    }
+                }
+
+                if (batches.isEmpty()) {
+                    return Arrow.read(reader.getVectorSchemaRoot());
+                }
+
+                int ncol = batches.getFirst().length;
+                ValueVector[] columns = new ValueVector[ncol];
+                ValueVector[] vectors = new ValueVector[batches.size()];
+                for (int j = 0; j < ncol; j++) {
+                    for (int i = 0; i < vectors.length; i++) {
+                        vectors[i] = batches.get(i)[j];
+                        // Release the batch column once it is copied.
+                        batches.get(i)[j] = null;
+                    }
+                    columns[j] = ValueVector.concat(vectors);
+                }
+                return new DataFrame(columns);
+            } catch (IOException ex) {
+                throw new SQLException(ex);
+            }
+        }
+    }
+
+    /**
+     * Executes a SELECT statement and returns the results in batches,
+     * which makes it possible to process large results incrementally
+     * without holding them in memory. The stream holds the database
+     * resources and must be closed after use, e.g. with try-with-resources.
+     *
+     * @param sql a SELECT statement.
+     * @param batchSize the maximum number of rows in a batch.
+     * @return the stream of query result batches.
+     * @throws SQLException if fail to execute the SQL query.
+     */
+    public Stream<DataFrame> stream(String sql, int batchSize) throws SQLException {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Invalid batch size: " + batchSize);
+        }
+
+        logger.info(sql);
+        var stmt = db.createStatement();
+        try {
+            var rs = stmt.executeQuery(sql);
+            Iterator<DataFrame> iterator;
+            AutoCloseable resource;
+            if (isArrowExportable(rs)) {
+                var allocator = new RootAllocator();
+                var reader = arrow(rs, allocator, batchSize);
+                iterator = new ArrowBatchIterator(reader);
+                resource = () -> {
+                    try (rs; allocator; reader) {
+                        logger.debug("Close query result stream");
+                    }
+                };
+            } else {
+                iterator = new ResultSetBatchIterator(rs, batchSize);
+                resource = rs;
+            }
+
+            Spliterator<DataFrame> spliterator = Spliterators.spliteratorUnknownSize(iterator,
+                    Spliterator.ORDERED | Spliterator.NONNULL);
+            return StreamSupport.stream(spliterator, false).onClose(() -> {
+                try (stmt; resource) {
+                    logger.debug("Close query statement");
+                } catch (Exception ex) {
+                    throw new IllegalStateException("Failed to close query result", ex);
+                }
+            });
+        } catch (SQLException | RuntimeException ex) {
+            stmt.close();
+            throw ex;
+        }
+    }
+
+    /**
+     * Returns true if the result set can be exported as Arrow record
+     * batches that are convertible to value vectors.
+     * @param rs the result set.
+     * @return true if the result set can be exported as Arrow record batches.
+     * @throws SQLException if fail to access the result set metadata.
+     */
+    private static boolean isArrowExportable(ResultSet rs) throws SQLException {
+        if (!(rs instanceof DuckDBResultSet)) {
+            return false;
+        }
+
+        var meta = rs.getMetaData();
+        for (int i = 1; i <= meta.getColumnCount(); i++) {
+            String type = meta.getColumnTypeName(i);
+            if (!ARROW_TYPES.contains(type) && !type.startsWith("DECIMAL")) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Exports the result set as a stream of Arrow record batches.
+     * @param rs the result set.
+     * @param allocator the Arrow memory allocator.
+     * @param batchSize the number of rows in a record batch.
+     * @return the Arrow reader of record batches.
+     * @throws SQLException if fail to export the result set.
+     */
+    private static ArrowReader arrow(ResultSet rs, BufferAllocator allocator, int batchSize) throws SQLException {
+        return (ArrowReader) ((DuckDBResultSet) rs).arrowExportStream(allocator, batchSize);
+    }
+
+    /**
+     * The iterator of data frames converted from Arrow record batches.
+     */
+    private static class ArrowBatchIterator implements Iterator<DataFrame> {
+        /** The Arrow reader. */
+        private final ArrowReader reader;
+        /** True if a non-empty batch is loaded but not consumed yet. */
+        private boolean loaded;
+
+        /**
+         * Constructor.
+         * @param reader the Arrow reader.
+         */
+        ArrowBatchIterator(ArrowReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public boolean hasNext() {
+            try {
+                while (!loaded && reader.loadNextBatch()) {
+                    loaded = reader.getVectorSchemaRoot().getRowCount() > 0;
+                }
+                return loaded;
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+
+        @Override
+        public DataFrame next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            loaded = false;
+            return Arrow.read(reader.getVectorSchemaRoot());
+        }
+    }
+
+    /**
+     * The iterator of data frames read from JDBC result set.
+     */
+    private static class ResultSetBatchIterator implements Iterator<DataFrame> {
+        /** The result set. */
+        private final ResultSet rs;
+        /** The schema of result set. */
+        private final StructType schema;
+        /** The maximum number of rows in a batch. */
+        private final int batchSize;
+        /** True if the cursor is on a row not consumed yet. */
+        private boolean loaded;
+
+        /**
+         * Constructor.
+         * @param rs the result set.
+         * @param batchSize the maximum number of rows in a batch.
+         */
+        ResultSetBatchIterator(ResultSet rs, int batchSize) throws SQLException {
+            this.rs = rs;
+            this.schema = StructType.of(rs);
+            this.batchSize = batchSize;
+        }
+
+        @Override
+        public boolean hasNext() {
+            try {
+                if (!loaded) loaded = rs.next();
+                return loaded;
+            } catch (SQLException ex) {
+                throw new IllegalStateException("Failed to fetch the next row", ex);
+            }
+        }
+
+        @Override
+        public DataFrame next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            try {
+                List<Tuple> rows = new ArrayList<>(batchSize);
+                do {
+                    rows.add(Tuple.of(schema, rs));
+                } while (rows.size() < batchSize && rs.next());
+                loaded = false;
+                return DataFrame.of(schema, rows);
+            } catch (SQLException ex) {
+                throw new IllegalStateException("Failed to fetch the next batch", ex);
+            }
         }
     }
 
@@ -17,11 +17,14 @@
 package smile.data.formula;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
+import smile.data.DataFrame;
 import smile.data.Tuple;
 import smile.data.type.DataType;
 import smile.data.type.StructField;
 import smile.data.type.StructType;
+import smile.data.vector.ValueVector;
 
 /**
  * The term of abs function.
@@ -72,6 +75,39 @@ public class Abs extends AbstractFunction {
                     };
                 }
 
+                @Override
+                public ValueVector apply(DataFrame data) {
+                    int n = data.size();
+                    ValueVector x = feature.apply(data);
+                    BitSet nullMask = Vectors.nullMask(n, x);
+                    DataType dtype = field.dtype();
+                    if (dtype.isInt()) {
+                        int[] values = new int[n];
+                        Vectors.chunks(n, (from, to) -> {
+                            for (int i = from; i < to; i++) values[i] = Math.abs(x.getInt(i));
+                        });
+                        return Vectors.of(field, values, nullMask);
+                    } else if (dtype.isLong()) {
+                        long[] values = new long[n];
+                        Vectors.chunks(n, (from, to) -> {
+                            for (int i = from; i < to; i++) values[i] = Math.abs(x.getLong(i));
+                        });
+                        return Vectors.of(field, values, nullMask);
+                    } else if (dtype.isFloat()) {
+                        float[] values = new float[n];
+                        Vectors.chunks(n, (from, to) -> {
+                            for (int i = from; i < to; i++) values[i] = Math.abs(x.getFloat(i));
+                        });
+                        return Vectors.of(field, values, nullMask);
+                    } else {
+                        double[] values = new double[n];
+                        Vectors.chunks(n, (from, to) -> {
+                            for (int i = from; i < to; i++) values[i] = Math.abs(x.getDouble(i));
+                        });
+                        return Vectors.of(field, values, nullMask);
+                    }
+                }
+
                 @Override
                 public int applyAsInt(Tuple o) {
                     return Math.abs(feature.applyAsInt(o));
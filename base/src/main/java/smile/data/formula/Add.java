@@ -18,10 +18,12 @@ package smile.data.formula;
 
 import java.util.ArrayList;
 import java.util.List;
+import smile.data.DataFrame;
 import smile.data.Tuple;
 import smile.data.type.DataType;
 import smile.data.type.StructField;
 import smile.data.type.StructType;
+import smile.data.vector.ValueVector;
 
 /**
  * The term of {@code a + b} expression.
@@ -86,6 +88,11 @@ public class Add extends Operator {
                     else return lambda.apply(o);
                 }
 
+                @Override
+                public ValueVector apply(DataFrame data) {
+                    return Operator.evaluate(data, a, b, field, Integer::sum, Long::sum, Double::sum);
+                }
+
                 @Override
                 public int applyAsInt(Tuple o) {
                     return a.applyAsInt(o) + b.applyAsInt(o);
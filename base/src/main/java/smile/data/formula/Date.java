@@ -22,6 +22,7 @@ import java.time.LocalTime;
 import java.time.temporal.IsoFields;
 import java.time.temporal.WeekFields;
 import java.util.*;
+import smile.data.DataFrame;
 import smile.data.Tuple;
 import smile.data.measure.Measure;
 import smile.data.measure.NominalScale;
@@ -29,6 +30,9 @@ import smile.data.type.DataType;
 import smile.data.type.DataTypes;
 import smile.data.type.StructField;
 import smile.data.type.StructType;
+import smile.data.vector.IntVector;
+import smile.data.vector.TemporalVector;
+import smile.data.vector.ValueVector;
 
 /**
  * Date/time feature extractor.
@@ -116,6 +120,14 @@ public class Date implements Term {
                     return x == null ? -1 : (int) x;
                 }
 
+                @Override
+                public ValueVector apply(DataFrame data) {
+                    if (data.column(index) instanceof TemporalVector vector) {
+                        return new IntVector(field, extract(vector, feature));
+                    }
+                    return Feature.super.apply(data);
+                }
+
                 @Override
                 public Object apply(Tuple o) {
                     Object x = o.get(index);
@@ -170,6 +182,128 @@ public class Date implements Term {
         return features;
     }
 
+    /** The number of days before each month in a non-leap year. */
+    private static final int[] DAYS_BEFORE_MONTH = {0, 31, 59, 90, 120, 151, 181, 212, 243, 273, 304, 334};
+    /** The first day of week, consistent with the tuple based extraction. */
+    private static final int WEEK_START = WeekFields.of(Locale.ROOT).getFirstDayOfWeek().getValue();
+    /** The minimal number of days in the first week. */
+    private static final int WEEK_MIN_DAYS = WeekFields.of(Locale.ROOT).getMinimalDaysInFirstWeek();
+
+    /**
+     * Extracts a date/time feature from the primitive values of a vector
+     * without creating java.time objects. The date fields are computed
+     * from epoch days with the proleptic Gregorian calendar. The weeks
+     * follow {@code WeekFields.of(Locale.ROOT)} as the tuple based
+     * extraction does.
+     * @param vector the date/time vector.
+     * @param feature the feature to extract.
+     * @return the feature values, -1 for nulls.
+     */
+    static int[] extract(TemporalVector vector, DateFeature feature) {
+        int n = vector.size();
+        int[] values = new int[n];
+        switch (feature) {
+            case HOUR, MINUTE, SECOND -> {
+                long unit = switch (feature) {
+                    case HOUR -> 3_600_000_000_000L;
+                    case MINUTE -> 60_000_000_000L;
+                    default -> 1_000_000_000L;
+                };
+                int mod = feature == DateFeature.HOUR ? 24 : 60;
+                for (int i = 0; i < n; i++) {
+                    values[i] = (int) (vector.nanoOfDay(i) / unit % mod);
+                }
+            }
+            case DAY_OF_WEEK -> {
+                for (int i = 0; i < n; i++) {
+                    values[i] = dayOfWeek(vector.epochDay(i));
+                }
+            }
+            default -> {
+                for (int i = 0; i < n; i++) {
+                    long day = vector.epochDay(i);
+                    int date = civil(day);
+                    int year = date >> 9;
+                    int month = (date >> 5) & 0xF;
+                    int dayOfMonth = date & 0x1F;
+                    values[i] = switch (feature) {
+                        case YEAR -> year;
+                        case MONTH -> month;
+                        case QUARTER -> (month - 1) / 3 + 1;
+                        case DAY_OF_MONTH -> dayOfMonth;
+                        case DAY_OF_YEAR -> dayOfYear(year, month, dayOfMonth);
+                        case WEEK_OF_MONTH -> week(dayOfMonth, dayOfWeek(day - dayOfMonth + 1));
+                        case WEEK_OF_YEAR -> {
+                            int doy = dayOfYear(year, month, dayOfMonth);
+                            yield week(doy, dayOfWeek(day - doy + 1));
+                        }
+                        default -> throw new IllegalStateException("Unexpected date feature: " + feature);
+                    };
+                }
+            }
+        }
+
+        for (int i = 0; i < n; i++) {
+            if (vector.isNullAt(i)) values[i] = -1;
+        }
+        return values;
+    }
+
+    /**
+     * Returns the ISO day of week from 1 (Monday) to 7 (Sunday).
+     * @param epochDay the epoch day.
+     * @return the day of week.
+     */
+    private static int dayOfWeek(long epochDay) {
+        // 1970-01-01 is Thursday.
+        return (int) Math.floorMod(epochDay + 3, 7L) + 1;
+    }
+
+    /**
+     * Returns the week of a period (month or year) as defined by
+     * {@code WeekFields.of(Locale.ROOT)}. The days before the first
+     * week of period are in week 0.
+     * @param day the day of period starting from 1.
+     * @param firstDayOfWeek the day of week of the first day of period.
+     * @return the week of period.
+     */
+    private static int week(int day, int firstDayOfWeek) {
+        int offset = Math.floorMod(firstDayOfWeek - WEEK_START, 7);
+        int week = (day - 1 + offset) / 7;
+        return 7 - offset >= WEEK_MIN_DAYS ? week + 1 : week;
+    }
+
+    /**
+     * Returns the day of year.
+     * @param year the year.
+     * @param month the month.
+     * @param day the day of month.
+     * @return the day of year.
+     */
+    private static int dayOfYear(int year, int month, int day) {
+        boolean leap = (year % 4 == 0) && (year % 100 != 0 || year % 400 == 0);
+        return DAYS_BEFORE_MONTH[month - 1] + day + (leap && month > 2 ? 1 : 0);
+    }
+
+    /**
+     * Converts an epoch day to the civil date with the algorithm
+     * of Howard Hinnant.
+     * @param epochDay the epoch day.
+     * @return the date packed as year &lt;&lt; 9 | month &lt;&lt; 5 | day.
+     */
+    private static int civil(long epochDay) {
+        long z = epochDay + 719468;
+        long era = Math.floorDiv(z, 146097);
+        long doe = z - era * 146097;
+        long yoe = (doe - doe / 1460 + doe / 36524 - doe / 146096) / 365;
+        long doy = doe - (365 * yoe + yoe / 4 - yoe / 100);
+        long mp = (5 * doy + 2) / 153;
+        int day = (int) (doy - (153 * mp + 2) / 5 + 1);
+        int month = (int) (mp < 10 ? mp + 3 : mp - 9);
+        int year = (int) (yoe + era * 400 + (month <= 2 ? 1 : 0));
+        return year << 9 | month << 5 | day;
+    }
+
     /** Returns true if there are time related features. */
     private boolean hasTimeFeatures(DateFeature[] features) {
         for (DateFeature feature : features) {
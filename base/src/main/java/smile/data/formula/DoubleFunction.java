@@ -17,12 +17,15 @@
 package smile.data.formula;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
+import smile.data.DataFrame;
 import smile.data.Tuple;
 import smile.data.type.DataType;
 import smile.data.type.DataTypes;
 import smile.data.type.StructField;
 import smile.data.type.StructType;
+import smile.data.vector.ValueVector;
 
 /**
  * The generic term of applying a double function.
@@ -74,6 +77,21 @@ public class DoubleFunction extends AbstractFunction {
                     else return lambda.apply(((Number) y).doubleValue());
                 }
 
+                @Override
+                public ValueVector apply(DataFrame data) {
+                    int n = data.size();
+                    ValueVector x = feature.apply(data);
+                    BitSet nullMask = Vectors.nullMask(n, x);
+                    boolean hasNull = !nullMask.isEmpty();
+                    double[] values = new double[n];
+                    Vectors.chunks(n, (from, to) -> {
+                        for (int i = from; i < to; i++) {
+                            values[i] = hasNull && nullMask.get(i) ? Double.NaN : lambda.apply(x.getDouble(i));
+                        }
+                    });
+                    return Vectors.of(field, values, nullMask);
+                }
+
                 @Override
                 public double applyAsDouble(Tuple o) {
                     return lambda.apply(feature.applyAsDouble(o));
@@ -18,12 +18,15 @@ package smile.data.formula;
 
 import java.util.*;
 import java.util.stream.Collectors;
+import smile.data.DataFrame;
 import smile.data.Tuple;
 import smile.data.measure.CategoricalMeasure;
 import smile.data.measure.NominalScale;
 import smile.data.type.DataTypes;
 import smile.data.type.StructField;
 import smile.data.type.StructType;
+import smile.data.vector.IntVector;
+import smile.data.vector.ValueVector;
 
 /**
  * The interaction of all the factors appearing in the term.
@@ -136,5 +139,47 @@ public class FactorInteraction implements Term {
             String level = factors.stream().map(o::getString).collect(Collectors.joining(":"));
             return measure.valueOf(level);
         }
+
+        /**
+         * Computes the interaction levels from the integer codes of
+         * factors. The levels are ordered with the first factor as the
+         * most significant digit, so that the level of a row is the
+         * mixed-radix number of the factor values.
+         */
+        @Override
+        public ValueVector apply(DataFrame data) {
+            int n = data.size();
+            int k = factors.size();
+            ValueVector[] columns = new ValueVector[k];
+            CategoricalMeasure[] scales = new CategoricalMeasure[k];
+            for (int j = 0; j < k; j++) {
+                columns[j] = data.column(factors.get(j));
+                StructField column = columns[j].field();
+                if (!(column.measure() instanceof CategoricalMeasure cat) || !column.dtype().isIntegral()) {
+                    return Feature.super.apply(data);
+                }
+                scales[j] = cat;
+            }
+
+            int[] values = new int[n];
+            Vectors.chunks(n, (from, to) -> {
+                for (int i = from; i < to; i++) {
+                    int level = 0;
+                    for (int j = 0; j < k; j++) {
+                        ValueVector column = columns[j];
+                        if (column.isNullAt(i)) {
+                            throw new IllegalArgumentException(String.format("Null value of %s at row %d", factors.get(j), i));
+                        }
+                        int factor = scales[j].factor(column.getInt(i));
+                        if (factor < 0 || factor >= scales[j].size()) {
+                            throw new IllegalArgumentException(String.format("Invalid level of %s at row %d: %d", factors.get(j), i, column.getInt(i)));
+                        }
+                        level = level * scales[j].size() + factor;
+                    }
+                    values[i] = level;
+                }
+            });
+            return new IntVector(field, values);
+        }
     }
 }
@@ -142,7 +142,10 @@ public interface Feature {
     }
 
     /**
-     * Applies the term on a data frame.
+     * Applies the term on a data frame. The default implementation
+     * evaluates the term on the tuple of each row. The features that
+     * can work on the primitive values of columns override it to
+     * evaluate the whole column in parallel chunks.
      * @param data the data frame.
      * @return the feature vector.
      */
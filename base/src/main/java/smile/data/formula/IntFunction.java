@@ -16,13 +16,16 @@
  */
 package smile.data.formula;
 
+import smile.data.DataFrame;
 import smile.data.Tuple;
 import smile.data.type.DataType;
 import smile.data.type.DataTypes;
 import smile.data.type.StructField;
 import smile.data.type.StructType;
+import smile.data.vector.ValueVector;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
 
 /**
@@ -75,6 +78,21 @@ public class IntFunction extends AbstractFunction {
                     else return lambda.apply(((Number) y).intValue());
                 }
 
+                @Override
+                public ValueVector apply(DataFrame data) {
+                    int n = data.size();
+                    ValueVector x = feature.apply(data);
+                    BitSet nullMask = Vectors.nullMask(n, x);
+                    boolean hasNull = !nullMask.isEmpty();
+                    int[] values = new int[n];
+                    Vectors.chunks(n, (from, to) -> {
+                        for (int i = from; i < to; i++) {
+                            values[i] = hasNull && nullMask.get(i) ? Integer.MIN_VALUE : lambda.apply(x.getInt(i));
+                        }
+                    });
+                    return Vectors.of(field, values, nullMask);
+                }
+
                 @Override
                 public int applyAsInt(Tuple o) {
                     return lambda.apply(feature.applyAsInt(o));
@@ -16,6 +16,15 @@
  */
 package smile.data.formula;
 
+import java.util.BitSet;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.IntBinaryOperator;
+import java.util.function.LongBinaryOperator;
+import smile.data.DataFrame;
+import smile.data.type.DataType;
+import smile.data.type.StructField;
+import smile.data.vector.ValueVector;
+
 /**
  * The infix bifunction term.
  *
@@ -37,4 +46,73 @@ public abstract class Operator extends AbstractBiFunction {
     public String toString() {
         return String.format("(%s %s %s)", x, name, y);
     }
+
+    /**
+     * Applies an arithmetic operator on the columns of operands. The rows
+     * are processed in parallel chunks of primitive values. The float
+     * values are computed in double precision and rounded back to float,
+     * which gives the same results as float arithmetic for the basic
+     * operations. The null rows are skipped so that the integer division
+     * by the placeholder of null value doesn't fail.
+     *
+     * @param data the data frame.
+     * @param a the left operand.
+     * @param b the right operand.
+     * @param field the struct field of result.
+     * @param intOp the operator on int values.
+     * @param longOp the operator on long values.
+     * @param doubleOp the operator on float and double values.
+     * @return the result vector.
+     */
+    static ValueVector evaluate(DataFrame data, Feature a, Feature b, StructField field,
+                                IntBinaryOperator intOp, LongBinaryOperator longOp, DoubleBinaryOperator doubleOp) {
+        int n = data.size();
+        ValueVector x = a.apply(data);
+        ValueVector y = b.apply(data);
+        DataType dtype = field.dtype();
+        BitSet nullMask = dtype.isNullable() ? Vectors.nullMask(n, x, y) : new BitSet(n);
+        boolean hasNull = !nullMask.isEmpty();
+
+        if (dtype.isInt()) {
+            int[] values = new int[n];
+            Vectors.chunks(n, (from, to) -> {
+                for (int i = from; i < to; i++) {
+                    values[i] = hasNull && nullMask.get(i) ? Integer.MIN_VALUE : intOp.applyAsInt(x.getInt(i), y.getInt(i));
+                }
+            });
+            return Vectors.of(field, values, nullMask);
+        }
+
+        if (dtype.isLong()) {
+            long[] values = new long[n];
+            Vectors.chunks(n, (from, to) -> {
+                for (int i = from; i < to; i++) {
+                    values[i] = hasNull && nullMask.get(i) ? Long.MIN_VALUE : longOp.applyAsLong(x.getLong(i), y.getLong(i));
+                }
+            });
+            return Vectors.of(field, values, nullMask);
+        }
+
+        if (dtype.isFloat()) {
+            float[] values = new float[n];
+            Vectors.chunks(n, (from, to) -> {
+                for (int i = from; i < to; i++) {
+                    values[i] = hasNull && nullMask.get(i) ? Float.NaN : (float) doubleOp.applyAsDouble(x.getFloat(i), y.getFloat(i));
+                }
+            });
+            return Vectors.of(field, values, nullMask);
+        }
+
+        if (dtype.isDouble()) {
+            double[] values = new double[n];
+            Vectors.chunks(n, (from, to) -> {
+                for (int i = from; i < to; i++) {
+                    values[i] = hasNull && nullMask.get(i) ? Double.NaN : doubleOp.applyAsDouble(x.getDouble(i), y.getDouble(i));
+                }
+            });
+            return Vectors.of(field, values, nullMask);
+        }
+
+        throw new IllegalStateException("Invalid data type: " + dtype);
+    }
 }
@@ -16,12 +16,15 @@
  */
 package smile.data.formula;
 
+import smile.data.DataFrame;
 import smile.data.Tuple;
 import smile.data.type.DataType;
 import smile.data.type.StructField;
 import smile.data.type.StructType;
+import smile.data.vector.ValueVector;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
 
 /**
@@ -69,6 +72,26 @@ public class Round extends AbstractFunction {
                     };
                 }
 
+                @Override
+                public ValueVector apply(DataFrame data) {
+                    int n = data.size();
+                    ValueVector x = feature.apply(data);
+                    BitSet nullMask = Vectors.nullMask(n, x);
+                    if (field.dtype().isFloat()) {
+                        float[] values = new float[n];
+                        Vectors.chunks(n, (from, to) -> {
+                            for (int i = from; i < to; i++) values[i] = Math.round(x.getFloat(i));
+                        });
+                        return Vectors.of(field, values, nullMask);
+                    } else {
+                        double[] values = new double[n];
+                        Vectors.chunks(n, (from, to) -> {
+                            for (int i = from; i < to; i++) values[i] = Math.round(x.getDouble(i));
+                        });
+                        return Vectors.of(field, values, nullMask);
+                    }
+                }
+
                 @Override
                 public float applyAsFloat(Tuple o) {
                     return Math.round(feature.applyAsFloat(o));
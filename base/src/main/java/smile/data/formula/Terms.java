@@ -17,17 +17,24 @@
 package smile.data.formula;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.function.*;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import smile.data.DataFrame;
 import smile.data.Tuple;
 import smile.data.type.DataType;
 import smile.data.type.DataTypes;
 import smile.data.type.StructField;
 import smile.data.type.StructType;
+import smile.data.vector.DoubleVector;
+import smile.data.vector.FloatVector;
+import smile.data.vector.IntVector;
+import smile.data.vector.LongVector;
+import smile.data.vector.ValueVector;
 
 /**
  * Predefined terms.
@@ -1117,6 +1124,13 @@ public interface Terms {
                         return x;
                     }
 
+                    @Override
+                    public ValueVector apply(DataFrame data) {
+                        int[] values = new int[data.size()];
+                        Arrays.fill(values, x);
+                        return new IntVector(field, values);
+                    }
+
                     @Override
                     public Object apply(Tuple o) {
                         return x;
@@ -1165,6 +1179,13 @@ public interface Terms {
                         return x;
                     }
 
+                    @Override
+                    public ValueVector apply(DataFrame data) {
+                        long[] values = new long[data.size()];
+                        Arrays.fill(values, x);
+                        return new LongVector(field, values);
+                    }
+
                     @Override
                     public Object apply(Tuple o) {
                         return x;
@@ -1208,6 +1229,13 @@ public interface Terms {
                         return x;
                     }
 
+                    @Override
+                    public ValueVector apply(DataFrame data) {
+                        float[] values = new float[data.size()];
+                        Arrays.fill(values, x);
+                        return new FloatVector(field, values);
+                    }
+
                     @Override
                     public Object apply(Tuple o) {
                         return x;
@@ -1246,6 +1274,13 @@ public interface Terms {
                         return x;
                     }
 
+                    @Override
+                    public ValueVector apply(DataFrame data) {
+                        double[] values = new double[data.size()];
+                        Arrays.fill(values, x);
+                        return new DoubleVector(field, values);
+                    }
+
                     @Override
                     public Object apply(Tuple o) {
                         return x;
@@ -0,0 +1,137 @@
+/*
+ * Copyright (c) 2010-2025 Haifeng Li. All rights reserved.
+ *
+ * Smile is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Smile is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Smile. If not, see <https://www.gnu.org/licenses/>.
+ */
+package smile.data.formula;
+
+import java.util.BitSet;
+import java.util.stream.IntStream;
+import smile.data.type.StructField;
+import smile.data.vector.*;
+
+/**
+ * The helper functions to evaluate features on whole columns. The rows
+ * are split into chunks, which are processed in parallel. The kernels
+ * work on the primitive values of vectors without creating the tuple
+ * of each row.
+ *
+ * @author Haifeng Li
+ */
+final class Vectors {
+    /** The number of rows in a chunk. */
+    static final int CHUNK = 16384;
+
+    /** Private constructor to prevent instance creation. */
+    private Vectors() {
+
+    }
+
+    /**
+     * The kernel on a range of rows.
+     */
+    interface Range {
+        /**
+         * Processes the rows in [from, to).
+         * @param from the inclusive start index.
+         * @param to the exclusive end index.
+         */
+        void apply(int from, int to);
+    }
+
+    /**
+     * Applies the kernel on the chunks of rows. The chunks are processed
+     * in parallel if there are more than one.
+     * @param n the number of rows.
+     * @param kernel the kernel on a range of rows.
+     */
+    static void chunks(int n, Range kernel) {
+        int nchunks = (n + CHUNK - 1) / CHUNK;
+        if (nchunks <= 1) {
+            kernel.apply(0, n);
+        } else {
+            IntStream.range(0, nchunks).parallel().forEach(chunk -> {
+                int from = chunk * CHUNK;
+                kernel.apply(from, Math.min(from + CHUNK, n));
+            });
+        }
+    }
+
+    /**
+     * Returns the union of null masks of vectors, i.e. the bit is 1
+     * if the value of any vector is null.
+     * @param n the number of rows.
+     * @param vectors the vectors.
+     * @return the null mask.
+     */
+    static BitSet nullMask(int n, ValueVector... vectors) {
+        BitSet nullMask = new BitSet(n);
+        for (ValueVector vector : vectors) {
+            if (vector.getNullCount() > 0) {
+                for (int i = 0; i < n; i++) {
+                    if (vector.isNullAt(i)) nullMask.set(i);
+                }
+            }
+        }
+        return nullMask;
+    }
+
+    /**
+     * Returns an integer vector.
+     * @param field the struct field of vector.
+     * @param values the values.
+     * @param nullMask the null mask, which is ignored if the data type
+     *                 is not nullable.
+     * @return the vector.
+     */
+    static ValueVector of(StructField field, int[] values, BitSet nullMask) {
+        return field.dtype().isNullable() ? new NullableIntVector(field, values, nullMask) : new IntVector(field, values);
+    }
+
+    /**
+     * Returns a long vector.
+     * @param field the struct field of vector.
+     * @param values the values.
+     * @param nullMask the null mask, which is ignored if the data type
+     *                 is not nullable.
+     * @return the vector.
+     */
+    static ValueVector of(StructField field, long[] values, BitSet nullMask) {
+        return field.dtype().isNullable() ? new NullableLongVector(field, values, nullMask) : new LongVector(field, values);
+    }
+
+    /**
+     * Returns a float vector.
+     * @param field the struct field of vector.
+     * @param values the values.
+     * @param nullMask the null mask, which is ignored if the data type
+     *                 is not nullable.
+     * @return the vector.
+     */
+    static ValueVector of(StructField field, float[] values, BitSet nullMask) {
+        return field.dtype().isNullable() ? new NullableFloatVector(field, values, nullMask) : new FloatVector(field, values);
+    }
+
+    /**
+     * Returns a double vector.
+     * @param field the struct field of vector.
+     * @param values the values.
+     * @param nullMask the null mask, which is ignored if the data type
+     *                 is not nullable.
+     * @return the vector.
+     */
+    static ValueVector of(StructField field, double[] values, BitSet nullMask) {
+        return field.dtype().isNullable() ? new NullableDoubleVector(field, values, nullMask) : new DoubleVector(field, values);
+    }
+}
@@ -0,0 +1,187 @@
+/*
+ * Copyright (c) 2010-2025 Haifeng Li. All rights reserved.
+ *
+ * Smile is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Smile is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Smile. If not, see <https://www.gnu.org/licenses/>.
+ */
+package smile.data.vector;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.DoubleStream;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+import smile.data.measure.CategoricalMeasure;
+import smile.data.measure.NominalScale;
+import smile.data.type.DataTypes;
+import smile.data.type.StructField;
+
+/**
+ * Abstract base class of string vectors with compact storage, which
+ * don't hold a String object per element.
+ *
+ * @author Haifeng Li
+ */
+public abstract class AbstractStringVector extends AbstractVector {
+    /**
+     * Constructor.
+     * @param field the struct field of vector.
+     */
+    public AbstractStringVector(StructField field) {
+        if (field.dtype() != DataTypes.StringType) {
+            throw new IllegalArgumentException("Invalid data type: " + field);
+        }
+        super(field);
+    }
+
+    @Override
+    public abstract String get(int i);
+
+    @Override
+    public String getString(int i) {
+        return get(i);
+    }
+
+    @Override
+    public Stream<String> stream() {
+        return index().mapToObj(this::get);
+    }
+
+    /**
+     * Returns the distinct values.
+     * @return the distinct values.
+     */
+    public List<String> distinct() {
+        return new ArrayList<>(stream().collect(HashSet::new, HashSet::add, HashSet::addAll));
+    }
+
+    /**
+     * Returns a nominal scale of measure based on distinct non-null
+     * values in the vector.
+     * @return the nominal scale.
+     */
+    public NominalScale nominal() {
+        List<String> levels = distinct();
+        levels.remove(null);
+        Collections.sort(levels);
+        return new NominalScale(levels);
+    }
+
+    /**
+     * Converts strings to discrete measured values. Depending on how many levels
+     * in the nominal scale, the type of returned vector may be byte, short
+     * or integer. The missing values/nulls will be converted to -1.
+     * @param scale the categorical measure.
+     * @return the factorized vector.
+     */
+    public ValueVector factorize(CategoricalMeasure scale) {
+        int n = size();
+        return switch (scale.type().id()) {
+            case Byte -> {
+                byte[] data = new byte[n];
+                for (int i = 0; i < n; i++) {
+                    String s = get(i);
+                    data[i] = s == null ? (byte) -1 : scale.valueOf(s).byteValue();
+                }
+                yield new ByteVector(new StructField(name(), DataTypes.ByteType, scale), data);
+            }
+            case Short -> {
+                short[] data = new short[n];
+                for (int i = 0; i < n; i++) {
+                    String s = get(i);
+                    data[i] = s == null ? (short) -1 : scale.valueOf(s).shortValue();
+                }
+                yield new ShortVector(new StructField(name(), DataTypes.ShortType, scale), data);
+            }
+            case Int -> {
+                int[] data = new int[n];
+                for (int i = 0; i < n; i++) {
+                    String s = get(i);
+                    data[i] = s == null ? -1 : scale.valueOf(s).intValue();
+                }
+                yield new IntVector(new StructField(name(), DataTypes.IntType, scale), data);
+            }
+            default -> throw new UnsupportedOperationException("Unsupported data type for nominal measure: " + scale.type());
+        };
+    }
+
+    @Override
+    public IntStream intStream() {
+        return stream().filter(Objects::nonNull).mapToInt(Integer::parseInt);
+    }
+
+    @Override
+    public LongStream longStream() {
+        return stream().filter(Objects::nonNull).mapToLong(Long::parseLong);
+    }
+
+    @Override
+    public DoubleStream doubleStream() {
+        return stream().filter(Objects::nonNull).mapToDouble(Double::parseDouble);
+    }
+
+    @Override
+    public boolean isNullable() {
+        return true;
+    }
+
+    @Override
+    public int getNullCount() {
+        return (int) index().filter(this::isNullAt).count();
+    }
+
+    @Override
+    public boolean getBoolean(int i) {
+        return Boolean.parseBoolean(get(i));
+    }
+
+    @Override
+    public char getChar(int i) {
+        String s = get(i);
+        return s.isEmpty() ? '\u0000' : s.charAt(0);
+    }
+
+    @Override
+    public byte getByte(int i) {
+        return Byte.parseByte(get(i));
+    }
+
+    @Override
+    public short getShort(int i) {
+        return Short.parseShort(get(i));
+    }
+
+    @Override
+    public int getInt(int i) {
+        return Integer.parseInt(get(i));
+    }
+
+    @Override
+    public long getLong(int i) {
+        return Long.parseLong(get(i));
+    }
+
+    @Override
+    public float getFloat(int i) {
+        return Float.parseFloat(get(i));
+    }
+
+    @Override
+    public double getDouble(int i) {
+        return Double.parseDouble(get(i));
+    }
+}
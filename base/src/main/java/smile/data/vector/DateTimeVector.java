@@ -0,0 +1,229 @@
+/*
+ * Copyright (c) 2010-2025 Haifeng Li. All rights reserved.
+ *
+ * Smile is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Smile is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Smile. If not, see <https://www.gnu.org/licenses/>.
+ */
+package smile.data.vector;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.BitSet;
+import java.util.stream.LongStream;
+import smile.data.type.DataTypes;
+import smile.data.type.StructField;
+import smile.util.Index;
+
+/**
+ * A date-time vector, which stores the local date-times as the seconds
+ * since 1970-01-01T00:00, i.e. the epoch seconds as if the local
+ * date-times were in UTC, and the nanoseconds of second in a separate
+ * array. Both the full precision and the full range of LocalDateTime
+ * are preserved.
+ *
+ * @author Haifeng Li
+ */
+public class DateTimeVector extends TemporalVector {
+    /** The number of seconds per day. */
+    private static final long SECONDS_PER_DAY = 86400L;
+    /** The epoch seconds of local date-times. */
+    private final long[] seconds;
+    /** The nanoseconds of second. */
+    private final int[] nanos;
+
+    /**
+     * Constructor.
+     * @param name the name of vector.
+     * @param seconds the epoch seconds of local date-times.
+     * @param nanos the nanoseconds of second, in the range of [0, 999,999,999].
+     * @param nullMask the null bitmap. The bit is 1 if the value is null.
+     */
+    public DateTimeVector(String name, long[] seconds, int[] nanos, BitSet nullMask) {
+        this(new StructField(name, DataTypes.DateTimeType), seconds, nanos, nullMask);
+    }
+
+    /**
+     * Constructor.
+     * @param field the struct field of vector.
+     * @param seconds the epoch seconds of local date-times.
+     * @param nanos the nanoseconds of second, in the range of [0, 999,999,999].
+     * @param nullMask the null bitmap. The bit is 1 if the value is null.
+     */
+    public DateTimeVector(StructField field, long[] seconds, int[] nanos, BitSet nullMask) {
+        if (field.dtype() != DataTypes.DateTimeType) {
+            throw new IllegalArgumentException("Invalid data type: " + field);
+        }
+        if (seconds.length != nanos.length) {
+            throw new IllegalArgumentException(String.format("Seconds and nanos have different length: %d != %d", seconds.length, nanos.length));
+        }
+        for (int nano : nanos) {
+            if (nano < 0 || nano >= 1_000_000_000) {
+                throw new IllegalArgumentException("Invalid nanosecond of second: " + nano);
+            }
+        }
+        super(field, nullMask);
+        this.seconds = seconds;
+        this.nanos = nanos;
+    }
+
+    /**
+     * Creates a date-time vector of java.time or java.sql objects.
+     * Instants are converted to the local date-times in UTC.
+     * @param field the struct field of vector.
+     * @param values the date-times, which may be null.
+     * @return the vector.
+     */
+    public static DateTimeVector of(StructField field, Object[] values) {
+        int n = values.length;
+        long[] seconds = new long[n];
+        int[] nanos = new int[n];
+        BitSet nullMask = new BitSet(n);
+        for (int i = 0; i < n; i++) {
+            if (values[i] == null) {
+                nullMask.set(i);
+            } else {
+                LocalDateTime datetime = toLocalDateTime(values[i]);
+                seconds[i] = datetime.toEpochSecond(ZoneOffset.UTC);
+                nanos[i] = datetime.getNano();
+            }
+        }
+        return new DateTimeVector(field, seconds, nanos, nullMask);
+    }
+
+    /**
+     * Converts a date-time object to local date-time.
+     * @param value the date-time object.
+     * @return the local date-time.
+     */
+    private static LocalDateTime toLocalDateTime(Object value) {
+        return switch (value) {
+            case LocalDateTime datetime -> datetime;
+            case ZonedDateTime datetime -> datetime.toLocalDateTime();
+            case OffsetDateTime datetime -> datetime.toLocalDateTime();
+            case Instant instant -> LocalDateTime.ofInstant(instant, ZoneOffset.UTC);
+            case LocalDate date -> date.atStartOfDay();
+            case java.sql.Timestamp timestamp -> timestamp.toLocalDateTime();
+            default -> throw new IllegalArgumentException("Invalid value type: " + value.getClass());
+        };
+    }
+
+    /**
+     * Returns the nanosecond of second of element.
+     * @param i the index of element.
+     * @return the nanosecond of second.
+     */
+    public int nano(int i) {
+        return nanos[i];
+    }
+
+    @Override
+    public int size() {
+        return seconds.length;
+    }
+
+    @Override
+    public DateTimeVector withName(String name) {
+        return new DateTimeVector(field.withName(name), seconds, nanos, nullMask);
+    }
+
+    @Override
+    public LongStream longStream() {
+        return index().mapToLong(i -> nullMask.get(i) ? Long.MIN_VALUE : seconds[i]);
+    }
+
+    @Override
+    public void set(int i, Object value) {
+        if (value == null) {
+            nullMask.set(i);
+        } else {
+            LocalDateTime datetime = toLocalDateTime(value);
+            seconds[i] = datetime.toEpochSecond(ZoneOffset.UTC);
+            nanos[i] = datetime.getNano();
+            nullMask.clear(i);
+        }
+    }
+
+    @Override
+    public DateTimeVector get(Index index) {
+        int n = index.size();
+        long[] s = new long[n];
+        int[] ns = new int[n];
+        for (int i = 0; i < n; i++) {
+            int j = index.apply(i);
+            s[i] = seconds[j];
+            ns[i] = nanos[j];
+        }
+        return new DateTimeVector(field, s, ns, nullMask(index));
+    }
+
+    @Override
+    public LocalDateTime get(int i) {
+        if (nullMask.get(i)) return null;
+        return LocalDateTime.ofEpochSecond(seconds[i], nanos[i], ZoneOffset.UTC);
+    }
+
+    @Override
+    public long epochDay(int i) {
+        return Math.floorDiv(seconds[i], SECONDS_PER_DAY);
+    }
+
+    @Override
+    public long nanoOfDay(int i) {
+        return Math.floorMod(seconds[i], SECONDS_PER_DAY) * 1_000_000_000L + nanos[i];
+    }
+
+    @Override
+    public boolean hasDate() {
+        return true;
+    }
+
+    @Override
+    public boolean hasTime() {
+        return true;
+    }
+
+    /**
+     * Returns the epoch seconds of element. The nanoseconds of
+     * second are available with {@link #nano(int)}.
+     * @param i the index of element.
+     * @return the epoch seconds.
+     */
+    @Override
+    public long getLong(int i) {
+        return seconds[i];
+    }
+
+    /**
+     * Concatenates date-time vectors. The struct field of the first
+     * vector is used for the new vector.
+     * @param vectors the vectors to concatenate.
+     * @return the concatenated vector.
+     */
+    static DateTimeVector concat(DateTimeVector... vectors) {
+        int n = 0;
+        for (var vector : vectors) n += vector.size();
+        long[] s = new long[n];
+        int[] ns = new int[n];
+        int k = 0;
+        for (var vector : vectors) {
+            System.arraycopy(vector.seconds, 0, s, k, vector.size());
+            System.arraycopy(vector.nanos, 0, ns, k, vector.size());
+            k += vector.size();
+        }
+        return new DateTimeVector(vectors[0].field, s, ns, nullMask(vectors));
+    }
+}
@@ -0,0 +1,182 @@
+/*
+ * Copyright (c) 2010-2025 Haifeng Li. All rights reserved.
+ *
+ * Smile is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Smile is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Smile. If not, see <https://www.gnu.org/licenses/>.
+ */
+package smile.data.vector;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.BitSet;
+import java.util.stream.IntStream;
+import smile.data.type.DataTypes;
+import smile.data.type.StructField;
+import smile.util.Index;
+
+/**
+ * A date vector, which stores the dates as epoch days,
+ * i.e. the number of days since 1970-01-01.
+ *
+ * @author Haifeng Li
+ */
+public class DateVector extends TemporalVector {
+    /** The epoch days. */
+    private final int[] vector;
+
+    /**
+     * Constructor.
+     * @param name the name of vector.
+     * @param vector the epoch days.
+     * @param nullMask the null bitmap. The bit is 1 if the value is null.
+     */
+    public DateVector(String name, int[] vector, BitSet nullMask) {
+        this(new StructField(name, DataTypes.DateType), vector, nullMask);
+    }
+
+    /**
+     * Constructor.
+     * @param field the struct field of vector.
+     * @param vector the epoch days.
+     * @param nullMask the null bitmap. The bit is 1 if the value is null.
+     */
+    public DateVector(StructField field, int[] vector, BitSet nullMask) {
+        if (field.dtype() != DataTypes.DateType) {
+            throw new IllegalArgumentException("Invalid data type: " + field);
+        }
+        super(field, nullMask);
+        this.vector = vector;
+    }
+
+    /**
+     * Creates a date vector of java.time or java.sql objects.
+     * @param field the struct field of vector.
+     * @param values the dates, which may be null.
+     * @return the vector.
+     */
+    public static DateVector of(StructField field, Object[] values) {
+        int n = values.length;
+        int[] data = new int[n];
+        BitSet nullMask = new BitSet(n);
+        for (int i = 0; i < n; i++) {
+            if (values[i] == null) {
+                nullMask.set(i);
+            } else {
+                data[i] = epochDay(values[i]);
+            }
+        }
+        return new DateVector(field, data, nullMask);
+    }
+
+    /**
+     * Returns the epoch day of a date object.
+     * @param value the date object.
+     * @return the epoch day.
+     */
+    private static int epochDay(Object value) {
+        return switch (value) {
+            case LocalDate date -> Math.toIntExact(date.toEpochDay());
+            case LocalDateTime datetime -> Math.toIntExact(datetime.toLocalDate().toEpochDay());
+            case java.sql.Date date -> Math.toIntExact(date.toLocalDate().toEpochDay());
+            default -> throw new IllegalArgumentException("Invalid value type: " + value.getClass());
+        };
+    }
+
+    @Override
+    public int size() {
+        return vector.length;
+    }
+
+    @Override
+    public DateVector withName(String name) {
+        return new DateVector(field.withName(name), vector, nullMask);
+    }
+
+    @Override
+    public IntStream intStream() {
+        return index().map(i -> nullMask.get(i) ? Integer.MIN_VALUE : vector[i]);
+    }
+
+    @Override
+    public void set(int i, Object value) {
+        if (value == null) {
+            nullMask.set(i);
+        } else {
+            vector[i] = epochDay(value);
+            nullMask.clear(i);
+        }
+    }
+
+    @Override
+    public DateVector get(Index index) {
+        int n = index.size();
+        int[] data = new int[n];
+        for (int i = 0; i < n; i++) {
+            data[i] = vector[index.apply(i)];
+        }
+        return new DateVector(field, data, nullMask(index));
+    }
+
+    @Override
+    public LocalDate get(int i) {
+        return nullMask.get(i) ? null : LocalDate.ofEpochDay(vector[i]);
+    }
+
+    @Override
+    public long epochDay(int i) {
+        return vector[i];
+    }
+
+    @Override
+    public long nanoOfDay(int i) {
+        return 0;
+    }
+
+    @Override
+    public boolean hasDate() {
+        return true;
+    }
+
+    @Override
+    public boolean hasTime() {
+        return false;
+    }
+
+    @Override
+    public int getInt(int i) {
+        return vector[i];
+    }
+
+    @Override
+    public long getLong(int i) {
+        return vector[i];
+    }
+
+    /**
+     * Concatenates date vectors. The struct field of the first
+     * vector is used for the new vector.
+     * @param vectors the vectors to concatenate.
+     * @return the concatenated vector.
+     */
+    static DateVector concat(DateVector... vectors) {
+        int n = 0;
+        for (var vector : vectors) n += vector.size();
+        int[] data = new int[n];
+        int k = 0;
+        for (var vector : vectors) {
+            System.arraycopy(vector.vector, 0, data, k, vector.size());
+            k += vector.size();
+        }
+        return new DateVector(vectors[0].field, data, nullMask(vectors));
+    }
+}
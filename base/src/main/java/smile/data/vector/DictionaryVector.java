@@ -0,0 +1,353 @@
+/*
+ * Copyright (c) 2010-2025 Haifeng Li. All rights reserved.
+ *
+ * Smile is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Smile is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Smile. If not, see <https://www.gnu.org/licenses/>.
+ */
+package smile.data.vector;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeSet;
+import smile.data.measure.NominalScale;
+import smile.data.type.DataTypes;
+import smile.data.type.StructField;
+import smile.util.Index;
+
+/**
+ * A dictionary-encoded string vector. The distinct values are stored
+ * once in the dictionary and each element is the code of its value in
+ * the dictionary, i.e. the index in the dictionary array. Depending on
+ * the size of dictionary, the codes are stored as byte, short or integer.
+ * The code of null is -1. The dictionary is always sorted so that the
+ * codes agree with the levels of nominal scale.
+ * <p>
+ * Setting a value that is not in the dictionary inserts it into the
+ * dictionary and remaps the codes, which takes linear time. The codes
+ * are widened to short or integer when the dictionary outgrows the
+ * current code type.
+ * <p>
+ * The codes of low cardinality columns take much less memory than String
+ * references, and the vector can be factorized to a nominal vector without
+ * hashing the values again, as the dictionary is already the levels.
+ *
+ * @author Haifeng Li
+ */
+public class DictionaryVector extends AbstractStringVector {
+    /** The sorted distinct values. */
+    private String[] dictionary;
+    /** The codes if the dictionary has at most 128 values. */
+    private byte[] bytes;
+    /** The codes if the dictionary has at most 32768 values. */
+    private short[] shorts;
+    /** The codes of large dictionary. */
+    private int[] ints;
+    /** The size of vector. */
+    private final int size;
+    /**
+     * True if the code array is shared with another vector,
+     * which is copied on the next write.
+     */
+    private boolean shared;
+
+    /**
+     * Constructor. If the dictionary is not sorted, it is sorted
+     * and the codes are remapped accordingly.
+     * @param field the struct field of vector.
+     * @param dictionary the distinct values.
+     * @param codes the codes of elements, -1 for null.
+     */
+    public DictionaryVector(StructField field, String[] dictionary, int[] codes) {
+        super(field);
+        int k = dictionary.length;
+        for (int code : codes) {
+            if (code < -1 || code >= k) {
+                throw new IllegalArgumentException("Invalid dictionary code: " + code);
+            }
+        }
+
+        boolean sorted = true;
+        for (int i = 0; i < k; i++) {
+            if (dictionary[i] == null) {
+                throw new IllegalArgumentException("Null value in dictionary");
+            }
+            if (i > 0 && dictionary[i - 1].compareTo(dictionary[i]) >= 0) {
+                sorted = false;
+            }
+        }
+
+        if (!sorted) {
+            String[] levels = dictionary.clone();
+            Arrays.sort(levels);
+            for (int i = 1; i < k; i++) {
+                if (levels[i - 1].equals(levels[i])) {
+                    throw new IllegalArgumentException("Duplicate value in dictionary: " + levels[i]);
+                }
+            }
+
+            int[] order = new int[k];
+            for (int i = 0; i < k; i++) {
+                order[i] = Arrays.binarySearch(levels, dictionary[i]);
+            }
+            codes = codes.clone();
+            for (int i = 0; i < codes.length; i++) {
+                if (codes[i] >= 0) codes[i] = order[codes[i]];
+            }
+            dictionary = levels;
+        }
+
+        this.dictionary = dictionary;
+        this.size = codes.length;
+        pack(codes);
+    }
+
+    /**
+     * Constructor with the codes of suitable type, only one of which is not null.
+     * @param field the struct field of vector.
+     * @param dictionary the distinct values.
+     * @param bytes the byte codes.
+     * @param shorts the short codes.
+     * @param ints the integer codes.
+     */
+    private DictionaryVector(StructField field, String[] dictionary, byte[] bytes, short[] shorts, int[] ints) {
+        super(field);
+        this.dictionary = dictionary;
+        this.bytes = bytes;
+        this.shorts = shorts;
+        this.ints = ints;
+        this.size = bytes != null ? bytes.length : shorts != null ? shorts.length : ints.length;
+    }
+
+    /**
+     * Stores the codes in the narrowest type for the size of dictionary.
+     * @param codes the codes of elements, -1 for null.
+     */
+    private void pack(int[] codes) {
+        int k = dictionary.length;
+        bytes = null;
+        shorts = null;
+        ints = null;
+        if (k <= Byte.MAX_VALUE + 1) {
+            bytes = new byte[size];
+            for (int i = 0; i < size; i++) bytes[i] = (byte) codes[i];
+        } else if (k <= Short.MAX_VALUE + 1) {
+            shorts = new short[size];
+            for (int i = 0; i < size; i++) shorts[i] = (short) codes[i];
+        } else {
+            ints = codes;
+        }
+        shared = false;
+    }
+
+    /**
+     * Inserts a value into the dictionary and remaps the codes.
+     * @param pos the insertion point in the sorted dictionary.
+     * @param value the new value.
+     */
+    private void insert(int pos, String value) {
+        int k = dictionary.length;
+        String[] levels = new String[k + 1];
+        System.arraycopy(dictionary, 0, levels, 0, pos);
+        levels[pos] = value;
+        System.arraycopy(dictionary, pos, levels, pos + 1, k - pos);
+
+        int[] codes = new int[size];
+        for (int i = 0; i < size; i++) {
+            int code = code(i);
+            codes[i] = code >= pos ? code + 1 : code;
+        }
+        dictionary = levels;
+        pack(codes);
+    }
+
+    /**
+     * Encodes the strings with a sorted dictionary of distinct values.
+     * @param name the name of vector.
+     * @param values the strings.
+     * @return the dictionary-encoded vector.
+     */
+    public static DictionaryVector encode(String name, String... values) {
+        return encode(new StructField(name, DataTypes.StringType), values);
+    }
+
+    /**
+     * Encodes the strings with a sorted dictionary of distinct values.
+     * @param field the struct field of vector.
+     * @param values the strings.
+     * @return the dictionary-encoded vector.
+     */
+    public static DictionaryVector encode(StructField field, String[] values) {
+        // Assign the codes in the order of first occurrence,
+        // and then remap them to the sorted order.
+        Map<String, Integer> map = new HashMap<>();
+        int[] codes = new int[values.length];
+        for (int i = 0; i < values.length; i++) {
+            String s = values[i];
+            codes[i] = s == null ? -1 : map.computeIfAbsent(s, key -> map.size());
+        }
+
+        String[] dictionary = map.keySet().toArray(new String[0]);
+        Arrays.sort(dictionary);
+        int[] order = new int[dictionary.length];
+        for (int i = 0; i < dictionary.length; i++) {
+            order[map.get(dictionary[i])] = i;
+        }
+        for (int i = 0; i < codes.length; i++) {
+            if (codes[i] >= 0) codes[i] = order[codes[i]];
+        }
+        return new DictionaryVector(field, dictionary, codes);
+    }
+
+    /**
+     * Returns the sorted dictionary of distinct values.
+     * @return the dictionary.
+     */
+    public String[] dictionary() {
+        return dictionary;
+    }
+
+    /**
+     * Returns the code of element, i.e. the index of value in the dictionary.
+     * @param i the index of element.
+     * @return the code, or -1 for null.
+     */
+    public int code(int i) {
+        if (bytes != null) return bytes[i];
+        if (shorts != null) return shorts[i];
+        return ints[i];
+    }
+
+    /**
+     * Returns the nominal vector of codes with the dictionary as the
+     * levels. The vector shares the code array with this vector so that
+     * no data is copied. The nulls are -1 in the nominal vector. Setting
+     * an element of this vector afterwards copies the code array first
+     * so that the nominal vector is not affected. However, setting an
+     * element of the nominal vector changes this vector as well.
+     * @return the nominal vector.
+     */
+    public ValueVector factorize() {
+        shared = true;
+        NominalScale scale = new NominalScale(dictionary.clone());
+        if (bytes != null) {
+            return new ByteVector(new StructField(name(), DataTypes.ByteType, scale), bytes);
+        } else if (shorts != null) {
+            return new ShortVector(new StructField(name(), DataTypes.ShortType, scale), shorts);
+        } else {
+            return new IntVector(new StructField(name(), DataTypes.IntType, scale), ints);
+        }
+    }
+
+    @Override
+    public NominalScale nominal() {
+        return new NominalScale(dictionary.clone());
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public String get(int i) {
+        int code = code(i);
+        return code < 0 ? null : dictionary[code];
+    }
+
+    @Override
+    public void set(int i, Object value) {
+        int code = -1;
+        if (value != null) {
+            String s = (String) value;
+            code = Arrays.binarySearch(dictionary, s);
+            if (code < 0) {
+                code = -code - 1;
+                insert(code, s);
+            }
+        }
+
+        if (shared) {
+            if (bytes != null) bytes = bytes.clone();
+            else if (shorts != null) shorts = shorts.clone();
+            else ints = ints.clone();
+            shared = false;
+        }
+
+        if (bytes != null) bytes[i] = (byte) code;
+        else if (shorts != null) shorts[i] = (short) code;
+        else ints[i] = code;
+    }
+
+    @Override
+    public DictionaryVector get(Index index) {
+        int n = index.size();
+        if (bytes != null) {
+            byte[] data = new byte[n];
+            for (int i = 0; i < n; i++) data[i] = bytes[index.apply(i)];
+            return new DictionaryVector(field, dictionary, data, null, null);
+        } else if (shorts != null) {
+            short[] data = new short[n];
+            for (int i = 0; i < n; i++) data[i] = shorts[index.apply(i)];
+            return new DictionaryVector(field, dictionary, null, data, null);
+        } else {
+            int[] data = new int[n];
+            for (int i = 0; i < n; i++) data[i] = ints[index.apply(i)];
+            return new DictionaryVector(field, dictionary, null, null, data);
+        }
+    }
+
+    @Override
+    public DictionaryVector withName(String name) {
+        var vector = new DictionaryVector(field.withName(name), dictionary, bytes, shorts, ints);
+        vector.shared = true;
+        shared = true;
+        return vector;
+    }
+
+    @Override
+    public boolean isNullAt(int i) {
+        return code(i) < 0;
+    }
+
+    /**
+     * Concatenates dictionary-encoded vectors. The dictionaries are merged
+     * and sorted, and the codes are remapped to the merged dictionary.
+     * The struct field of the first vector is used for the new vector.
+     * @param vectors the vectors to concatenate.
+     * @return the concatenated vector.
+     */
+    static DictionaryVector concat(DictionaryVector... vectors) {
+        TreeSet<String> values = new TreeSet<>();
+        int n = 0;
+        for (var vector : vectors) {
+            values.addAll(Arrays.asList(vector.dictionary));
+            n += vector.size();
+        }
+
+        String[] dictionary = values.toArray(new String[0]);
+        int[] codes = new int[n];
+        int k = 0;
+        for (var vector : vectors) {
+            int[] order = new int[vector.dictionary.length];
+            for (int i = 0; i < order.length; i++) {
+                order[i] = Arrays.binarySearch(dictionary, vector.dictionary[i]);
+            }
+            for (int i = 0; i < vector.size(); i++, k++) {
+                int code = vector.code(i);
+                codes[k] = code < 0 ? -1 : order[code];
+            }
+        }
+        return new DictionaryVector(vectors[0].field, dictionary, codes);
+    }
+}
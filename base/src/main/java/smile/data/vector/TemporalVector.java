@@ -0,0 +1,160 @@
+/*
+ * Copyright (c) 2010-2025 Haifeng Li. All rights reserved.
+ *
+ * Smile is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Smile is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Smile. If not, see <https://www.gnu.org/licenses/>.
+ */
+package smile.data.vector;
+
+import java.util.BitSet;
+import java.util.stream.Stream;
+import smile.data.type.StructField;
+import smile.util.Index;
+
+/**
+ * Abstract base class of date/time vectors, which store the values as
+ * primitive integers (e.g. epoch days) with a null bitmap instead of
+ * java.time objects. The java.time objects are created only when the
+ * elements are accessed with {@link #get(int)}. The primitive accessor
+ * {@link #getLong(int)} returns the underlying integer value.
+ *
+ * @author Haifeng Li
+ */
+public abstract class TemporalVector extends AbstractVector {
+    /** The null bitmap. The bit is 1 if the value is null. */
+    final BitSet nullMask;
+
+    /**
+     * Constructor.
+     * @param field the struct field of vector.
+     * @param nullMask the null bitmap. The bit is 1 if the value is null.
+     */
+    public TemporalVector(StructField field, BitSet nullMask) {
+        super(field);
+        this.nullMask = nullMask;
+    }
+
+    /**
+     * Returns the epoch day of element, i.e. the number of days
+     * since 1970-01-01.
+     * @param i the index of element.
+     * @return the epoch day.
+     */
+    public abstract long epochDay(int i);
+
+    /**
+     * Returns the nanosecond of day of element.
+     * @param i the index of element.
+     * @return the nanosecond of day.
+     */
+    public abstract long nanoOfDay(int i);
+
+    /**
+     * Returns true if the elements have the date part.
+     * @return true if the elements have the date part.
+     */
+    public abstract boolean hasDate();
+
+    /**
+     * Returns true if the elements have the time part.
+     * @return true if the elements have the time part.
+     */
+    public abstract boolean hasTime();
+
+    @Override
+    public Stream<?> stream() {
+        return index().mapToObj(this::get);
+    }
+
+    @Override
+    public boolean isNullable() {
+        return true;
+    }
+
+    @Override
+    public boolean isNullAt(int i) {
+        return nullMask.get(i);
+    }
+
+    @Override
+    public int getNullCount() {
+        return nullMask.cardinality();
+    }
+
+    @Override
+    public boolean getBoolean(int i) {
+        throw new UnsupportedOperationException("Cannot convert " + field.dtype() + " to boolean");
+    }
+
+    @Override
+    public char getChar(int i) {
+        throw new UnsupportedOperationException("Cannot convert " + field.dtype() + " to char");
+    }
+
+    @Override
+    public byte getByte(int i) {
+        throw new UnsupportedOperationException("Cannot convert " + field.dtype() + " to byte");
+    }
+
+    @Override
+    public short getShort(int i) {
+        throw new UnsupportedOperationException("Cannot convert " + field.dtype() + " to short");
+    }
+
+    @Override
+    public int getInt(int i) {
+        return Math.toIntExact(getLong(i));
+    }
+
+    @Override
+    public float getFloat(int i) {
+        return (float) getDouble(i);
+    }
+
+    @Override
+    public double getDouble(int i) {
+        return nullMask.get(i) ? Double.NaN : getLong(i);
+    }
+
+    /**
+     * Concatenates the null bitmaps of vectors.
+     * @param vectors the vectors.
+     * @return the concatenated null bitmap.
+     */
+    static BitSet nullMask(TemporalVector... vectors) {
+        BitSet mask = new BitSet();
+        int k = 0;
+        for (var vector : vectors) {
+            BitSet bits = vector.nullMask;
+            for (int i = bits.nextSetBit(0); i >= 0 && i < vector.size(); i = bits.nextSetBit(i + 1)) {
+                mask.set(k + i);
+            }
+            k += vector.size();
+        }
+        return mask;
+    }
+
+    /**
+     * Returns the null bitmap of selected elements.
+     * @param index the index of selected elements.
+     * @return the null bitmap.
+     */
+    BitSet nullMask(Index index) {
+        int n = index.size();
+        BitSet mask = new BitSet(n);
+        for (int i = 0; i < n; i++) {
+            if (nullMask.get(index.apply(i))) mask.set(i);
+        }
+        return mask;
+    }
+}
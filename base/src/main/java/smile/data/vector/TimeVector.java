@@ -0,0 +1,178 @@
+/*
+ * Copyright (c) 2010-2025 Haifeng Li. All rights reserved.
+ *
+ * Smile is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Smile is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Smile. If not, see <https://www.gnu.org/licenses/>.
+ */
+package smile.data.vector;
+
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetTime;
+import java.util.BitSet;
+import java.util.stream.LongStream;
+import smile.data.type.DataTypes;
+import smile.data.type.StructField;
+import smile.util.Index;
+
+/**
+ * A time vector, which stores the times as nanoseconds of day.
+ *
+ * @author Haifeng Li
+ */
+public class TimeVector extends TemporalVector {
+    /** The nanoseconds of day. */
+    private final long[] vector;
+
+    /**
+     * Constructor.
+     * @param name the name of vector.
+     * @param vector the nanoseconds of day.
+     * @param nullMask the null bitmap. The bit is 1 if the value is null.
+     */
+    public TimeVector(String name, long[] vector, BitSet nullMask) {
+        this(new StructField(name, DataTypes.TimeType), vector, nullMask);
+    }
+
+    /**
+     * Constructor.
+     * @param field the struct field of vector.
+     * @param vector the nanoseconds of day.
+     * @param nullMask the null bitmap. The bit is 1 if the value is null.
+     */
+    public TimeVector(StructField field, long[] vector, BitSet nullMask) {
+        if (field.dtype() != DataTypes.TimeType) {
+            throw new IllegalArgumentException("Invalid data type: " + field);
+        }
+        super(field, nullMask);
+        this.vector = vector;
+    }
+
+    /**
+     * Creates a time vector of java.time or java.sql objects.
+     * @param field the struct field of vector.
+     * @param values the times, which may be null.
+     * @return the vector.
+     */
+    public static TimeVector of(StructField field, Object[] values) {
+        int n = values.length;
+        long[] data = new long[n];
+        BitSet nullMask = new BitSet(n);
+        for (int i = 0; i < n; i++) {
+            if (values[i] == null) {
+                nullMask.set(i);
+            } else {
+                data[i] = nanoOfDay(values[i]);
+            }
+        }
+        return new TimeVector(field, data, nullMask);
+    }
+
+    /**
+     * Returns the nanosecond of day of a time object.
+     * @param value the time object.
+     * @return the nanosecond of day.
+     */
+    private static long nanoOfDay(Object value) {
+        return switch (value) {
+            case LocalTime time -> time.toNanoOfDay();
+            case OffsetTime time -> time.toLocalTime().toNanoOfDay();
+            case LocalDateTime datetime -> datetime.toLocalTime().toNanoOfDay();
+            case java.sql.Time time -> time.toLocalTime().toNanoOfDay();
+            default -> throw new IllegalArgumentException("Invalid value type: " + value.getClass());
+        };
+    }
+
+    @Override
+    public int size() {
+        return vector.length;
+    }
+
+    @Override
+    public TimeVector withName(String name) {
+        return new TimeVector(field.withName(name), vector, nullMask);
+    }
+
+    @Override
+    public LongStream longStream() {
+        return index().mapToLong(i -> nullMask.get(i) ? Long.MIN_VALUE : vector[i]);
+    }
+
+    @Override
+    public void set(int i, Object value) {
+        if (value == null) {
+            nullMask.set(i);
+        } else {
+            vector[i] = nanoOfDay(value);
+            nullMask.clear(i);
+        }
+    }
+
+    @Override
+    public TimeVector get(Index index) {
+        int n = index.size();
+        long[] data = new long[n];
+        for (int i = 0; i < n; i++) {
+            data[i] = vector[index.apply(i)];
+        }
+        return new TimeVector(field, data, nullMask(index));
+    }
+
+    @Override
+    public LocalTime get(int i) {
+        return nullMask.get(i) ? null : LocalTime.ofNanoOfDay(vector[i]);
+    }
+
+    @Override
+    public long epochDay(int i) {
+        throw new UnsupportedOperationException("Time has no date part");
+    }
+
+    @Override
+    public long nanoOfDay(int i) {
+        return vector[i];
+    }
+
+    @Override
+    public boolean hasDate() {
+        return false;
+    }
+
+    @Override
+    public boolean hasTime() {
+        return true;
+    }
+
+    @Override
+    public long getLong(int i) {
+        return vector[i];
+    }
+
+    /**
+     * Concatenates time vectors. The struct field of the first
+     * vector is used for the new vector.
+     * @param vectors the vectors to concatenate.
+     * @return the concatenated vector.
+     */
+    static TimeVector concat(TimeVector... vectors) {
+        int n = 0;
+        for (var vector : vectors) n += vector.size();
+        long[] data = new long[n];
+        int k = 0;
+        for (var vector : vectors) {
+            System.arraycopy(vector.vector, 0, data, k, vector.size());
+            k += vector.size();
+        }
+        return new TimeVector(vectors[0].field, data, nullMask(vectors));
+    }
+}
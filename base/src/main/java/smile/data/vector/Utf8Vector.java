@@ -0,0 +1,245 @@
+/*
+ * Copyright (c) 2010-2025 Haifeng Li. All rights reserved.
+ *
+ * Smile is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Smile is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Smile. If not, see <https://www.gnu.org/licenses/>.
+ */
+package smile.data.vector;
+
+import java.nio.charset.StandardCharsets;
+import java.util.BitSet;
+import smile.data.type.DataTypes;
+import smile.data.type.StructField;
+import smile.util.Index;
+
+/**
+ * A string vector of UTF-8 bytes in the layout of Apache Arrow. The bytes
+ * of all elements are stored consecutively in one array, and the element
+ * i is the bytes in the range of [offsets[i], offsets[i+1]). Strings are
+ * decoded on access. As the vector holds no String objects, it takes
+ * much less memory than StringVector for high cardinality columns and
+ * can be copied from Arrow buffers in bulk.
+ * <p>
+ * The vector is copied on write. The first call of set decodes all
+ * elements into a StringVector, which backs the vector afterwards.
+ * Therefore, the memory saving is lost once the vector is modified.
+ *
+ * @author Haifeng Li
+ */
+public class Utf8Vector extends AbstractStringVector {
+    /** The UTF-8 bytes of elements. */
+    private byte[] data;
+    /** The offsets of elements in the byte array, of length size() + 1. */
+    private int[] offsets;
+    /** The null bitmap. The bit is 1 if the value is null. */
+    private BitSet nullMask;
+    /** The decoded strings after the vector is modified. */
+    private StringVector strings;
+
+    /**
+     * Constructor.
+     * @param field the struct field of vector.
+     * @param data the UTF-8 bytes of elements.
+     * @param offsets the offsets of elements in the byte array,
+     *                of length size() + 1.
+     * @param nullMask the null bitmap. The bit is 1 if the value is null.
+     */
+    public Utf8Vector(StructField field, byte[] data, int[] offsets, BitSet nullMask) {
+        super(field);
+        if (offsets.length == 0 || offsets[0] != 0 || offsets[offsets.length - 1] > data.length) {
+            throw new IllegalArgumentException("Invalid offsets");
+        }
+        this.data = data;
+        this.offsets = offsets;
+        this.nullMask = nullMask;
+    }
+
+    /**
+     * Encodes the strings in UTF-8.
+     * @param name the name of vector.
+     * @param values the strings.
+     * @return the vector.
+     */
+    public static Utf8Vector of(String name, String... values) {
+        return of(new StructField(name, DataTypes.StringType), values);
+    }
+
+    /**
+     * Encodes the strings in UTF-8.
+     * @param field the struct field of vector.
+     * @param values the strings.
+     * @return the vector.
+     */
+    public static Utf8Vector of(StructField field, String[] values) {
+        int n = values.length;
+        int[] offsets = new int[n + 1];
+        BitSet nullMask = new BitSet(n);
+        byte[][] bytes = new byte[n][];
+        for (int i = 0; i < n; i++) {
+            if (values[i] == null) {
+                nullMask.set(i);
+                offsets[i + 1] = offsets[i];
+            } else {
+                bytes[i] = values[i].getBytes(StandardCharsets.UTF_8);
+                offsets[i + 1] = Math.addExact(offsets[i], bytes[i].length);
+            }
+        }
+
+        byte[] data = new byte[offsets[n]];
+        for (int i = 0; i < n; i++) {
+            if (bytes[i] != null) {
+                System.arraycopy(bytes[i], 0, data, offsets[i], bytes[i].length);
+            }
+        }
+        return new Utf8Vector(field, data, offsets, nullMask);
+    }
+
+    /**
+     * Returns the dictionary-encoded vector of the same values.
+     * @return the dictionary-encoded vector.
+     */
+    public DictionaryVector encode() {
+        return DictionaryVector.encode(field, toStringArray());
+    }
+
+    /**
+     * Returns the UTF-8 vector of the same values. It is this vector
+     * if not modified, or a new encoding of the modified values.
+     * @return the UTF-8 vector.
+     */
+    private Utf8Vector utf8() {
+        return strings == null ? this : of(field, strings.toStringArray());
+    }
+
+    /**
+     * Returns the number of UTF-8 bytes of an element.
+     * @param i the index of element.
+     * @return the number of bytes.
+     */
+    public int length(int i) {
+        if (strings != null) {
+            String s = strings.get(i);
+            return s == null ? 0 : s.getBytes(StandardCharsets.UTF_8).length;
+        }
+        return offsets[i + 1] - offsets[i];
+    }
+
+    @Override
+    public int size() {
+        return strings != null ? strings.size() : offsets.length - 1;
+    }
+
+    @Override
+    public String get(int i) {
+        if (strings != null) return strings.get(i);
+        if (nullMask.get(i)) return null;
+        return new String(data, offsets[i], offsets[i + 1] - offsets[i], StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public String[] toStringArray(String[] a) {
+        int n = Math.min(a.length, size());
+        for (int i = 0; i < n; i++) {
+            a[i] = get(i);
+        }
+        return a;
+    }
+
+    @Override
+    public void set(int i, Object value) {
+        if (strings == null) {
+            strings = new StringVector(field, toStringArray());
+            data = null;
+            offsets = null;
+            nullMask = null;
+        }
+        strings.set(i, value);
+    }
+
+    @Override
+    public Utf8Vector get(Index index) {
+        if (strings != null) {
+            return of(field, strings.get(index).toStringArray());
+        }
+
+        int n = index.size();
+        int[] pos = new int[n + 1];
+        BitSet mask = new BitSet(n);
+        for (int i = 0; i < n; i++) {
+            int j = index.apply(i);
+            if (nullMask.get(j)) mask.set(i);
+            pos[i + 1] = Math.addExact(pos[i], length(j));
+        }
+
+        byte[] bytes = new byte[pos[n]];
+        for (int i = 0; i < n; i++) {
+            int j = index.apply(i);
+            System.arraycopy(data, offsets[j], bytes, pos[i], pos[i + 1] - pos[i]);
+        }
+        return new Utf8Vector(field, bytes, pos, mask);
+    }
+
+    @Override
+    public Utf8Vector withName(String name) {
+        if (strings != null) {
+            return of(field.withName(name), strings.toStringArray());
+        }
+        return new Utf8Vector(field.withName(name), data, offsets, nullMask);
+    }
+
+    @Override
+    public boolean isNullAt(int i) {
+        return strings != null ? strings.isNullAt(i) : nullMask.get(i);
+    }
+
+    @Override
+    public int getNullCount() {
+        return strings != null ? strings.getNullCount() : nullMask.cardinality();
+    }
+
+    /**
+     * Concatenates UTF-8 vectors. The struct field of the first
+     * vector is used for the new vector.
+     * @param vectors the vectors to concatenate.
+     * @return the concatenated vector.
+     */
+    static Utf8Vector concat(Utf8Vector... vectors) {
+        vectors = vectors.clone();
+        for (int i = 0; i < vectors.length; i++) {
+            vectors[i] = vectors[i].utf8();
+        }
+
+        int n = 0;
+        int bytes = 0;
+        for (var vector : vectors) {
+            n += vector.size();
+            bytes = Math.addExact(bytes, vector.offsets[vector.size()]);
+        }
+
+        byte[] data = new byte[bytes];
+        int[] offsets = new int[n + 1];
+        BitSet nullMask = new BitSet(n);
+        int k = 0;
+        for (var vector : vectors) {
+            int base = offsets[k];
+            int m = vector.size();
+            System.arraycopy(vector.data, 0, data, base, vector.offsets[m]);
+            for (int i = 0; i < m; i++) {
+                offsets[k + i + 1] = base + vector.offsets[i + 1];
+                if (vector.nullMask.get(i)) nullMask.set(k + i);
+            }
+            k += m;
+        }
+        return new Utf8Vector(vectors[0].field, data, offsets, nullMask);
+    }
+}
@@ -804,9 +804,9 @@ public interface ValueVector extends Serializable {
      * @param vector the data of vector.
      * @return the vector.
      */
-    static ObjectVector<LocalDateTime> of(String name, LocalDateTime... vector) {
+    static DateTimeVector of(String name, LocalDateTime... vector) {
         var field = new StructField(name, DataTypes.DateTimeType);
-        return new ObjectVector<>(field, vector);
+        return DateTimeVector.of(field, vector);
     }
 
     /**
@@ -828,9 +828,9 @@ public interface ValueVector extends Serializable {
      * @param vector the data of vector.
      * @return the vector.
      */
-    static ObjectVector<LocalDate> of(String name, LocalDate... vector) {
+    static DateVector of(String name, LocalDate... vector) {
         var field = new StructField(name, DataTypes.DateType);
-        return new ObjectVector<>(field, vector);
+        return DateVector.of(field, vector);
     }
 
     /**
@@ -840,9 +840,9 @@ public interface ValueVector extends Serializable {
      * @param vector the data of vector.
      * @return the vector.
      */
-    static ObjectVector<LocalTime> of(String name, LocalTime... vector) {
+    static TimeVector of(String name, LocalTime... vector) {
         var field = new StructField(name, DataTypes.TimeType);
-        return new ObjectVector<>(field, vector);
+        return TimeVector.of(field, vector);
     }
 
     /**
@@ -857,6 +857,212 @@ public interface ValueVector extends Serializable {
         return new ObjectVector<>(field, vector);
     }
 
+    /**
+     * Concatenates vectors of the same data type. The values are copied
+     * column-wise into the storage of new vector. The struct field of
+     * the first vector is used for the new vector.
+     *
+     * @param vectors the vectors to concatenate.
+     * @return the concatenated vector.
+     */
+    static ValueVector concat(ValueVector... vectors) {
+        if (vectors.length == 0) {
+            throw new IllegalArgumentException("Empty vector list");
+        }
+
+        if (vectors.length == 1) {
+            return vectors[0];
+        }
+
+        var field = vectors[0].field();
+        var dtype = field.dtype();
+        int n = 0;
+        for (var vector : vectors) {
+            if (!dtype.equals(vector.dtype())) {
+                throw new IllegalArgumentException("Concatenate vectors of different data types: " + dtype + " vs " + vector.dtype());
+            }
+            n += vector.size();
+        }
+
+        boolean nullable = dtype.isNullable();
+        BitSet nullMask = new BitSet(n);
+        int k = 0;
+        switch (dtype.id()) {
+            case Boolean: {
+                BitSet data = new BitSet(n);
+                for (var vector : vectors) {
+                    for (int i = 0; i < vector.size(); i++, k++) {
+                        if (vector.isNullAt(i)) nullMask.set(k);
+                        else if (vector.getBoolean(i)) data.set(k);
+                    }
+                }
+                return nullable ? new NullableBooleanVector(field, n, data, nullMask) : new BooleanVector(field, n, data);
+            }
+            case Char: {
+                char[] data = new char[n];
+                for (var vector : vectors) {
+                    for (int i = 0; i < vector.size(); i++, k++) {
+                        if (vector.isNullAt(i)) nullMask.set(k);
+                        else data[k] = vector.getChar(i);
+                    }
+                }
+                return nullable ? new NullableCharVector(field, data, nullMask) : new CharVector(field, data);
+            }
+            case Byte: {
+                byte[] data = new byte[n];
+                for (var vector : vectors) {
+                    for (int i = 0; i < vector.size(); i++, k++) {
+                        if (vector.isNullAt(i)) {
+                            nullMask.set(k);
+                            data[k] = Byte.MIN_VALUE;
+                        } else {
+                            data[k] = vector.getByte(i);
+                        }
+                    }
+                }
+                return nullable ? new NullableByteVector(field, data, nullMask) : new ByteVector(field, data);
+            }
+            case Short: {
+                short[] data = new short[n];
+                for (var vector : vectors) {
+                    for (int i = 0; i < vector.size(); i++, k++) {
+                        if (vector.isNullAt(i)) {
+                            nullMask.set(k);
+                            data[k] = Short.MIN_VALUE;
+                        } else {
+                            data[k] = vector.getShort(i);
+                        }
+                    }
+                }
+                return nullable ? new NullableShortVector(field, data, nullMask) : new ShortVector(field, data);
+            }
+            case Int: {
+                int[] data = new int[n];
+                for (var vector : vectors) {
+                    for (int i = 0; i < vector.size(); i++, k++) {
+                        if (vector.isNullAt(i)) {
+                            nullMask.set(k);
+                            data[k] = Integer.MIN_VALUE;
+                        } else {
+                            data[k] = vector.getInt(i);
+                        }
+                    }
+                }
+                return nullable ? new NullableIntVector(field, data, nullMask) : new IntVector(field, data);
+            }
+            case Long: {
+                long[] data = new long[n];
+                for (var vector : vectors) {
+                    for (int i = 0; i < vector.size(); i++, k++) {
+                        if (vector.isNullAt(i)) {
+                            nullMask.set(k);
+                            data[k] = Long.MIN_VALUE;
+                        } else {
+                            data[k] = vector.getLong(i);
+                        }
+                    }
+                }
+                return nullable ? new NullableLongVector(field, data, nullMask) : new LongVector(field, data);
+            }
+            case Float: {
+                float[] data = new float[n];
+                for (var vector : vectors) {
+                    for (int i = 0; i < vector.size(); i++, k++) {
+                        if (vector.isNullAt(i)) {
+                            nullMask.set(k);
+                            data[k] = Float.NaN;
+                        } else {
+                            data[k] = vector.getFloat(i);
+                        }
+                    }
+                }
+                return nullable ? new NullableFloatVector(field, data, nullMask) : new FloatVector(field, data);
+            }
+            case Double: {
+                double[] data = new double[n];
+                for (var vector : vectors) {
+                    for (int i = 0; i < vector.size(); i++, k++) {
+                        if (vector.isNullAt(i)) {
+                            nullMask.set(k);
+                            data[k] = Double.NaN;
+                        } else {
+                            data[k] = vector.getDouble(i);
+                        }
+                    }
+                }
+                return nullable ? new NullableDoubleVector(field, data, nullMask) : new DoubleVector(field, data);
+            }
+            case String: {
+                if (Arrays.stream(vectors).allMatch(vector -> vector instanceof DictionaryVector)) {
+                    return DictionaryVector.concat(Arrays.copyOf(vectors, vectors.length, DictionaryVector[].class));
+                }
+                if (Arrays.stream(vectors).allMatch(vector -> vector instanceof Utf8Vector)) {
+                    return Utf8Vector.concat(Arrays.copyOf(vectors, vectors.length, Utf8Vector[].class));
+                }
+                String[] data = new String[n];
+                for (var vector : vectors) {
+                    for (int i = 0; i < vector.size(); i++, k++) {
+                        data[k] = (String) vector.get(i);
+                    }
+                }
+                return new StringVector(field, data);
+            }
+            case Date: {
+                if (Arrays.stream(vectors).allMatch(vector -> vector instanceof DateVector)) {
+                    return DateVector.concat(Arrays.copyOf(vectors, vectors.length, DateVector[].class));
+                }
+                return DateVector.of(field, concatObjects(n, vectors));
+            }
+            case Time: {
+                if (Arrays.stream(vectors).allMatch(vector -> vector instanceof TimeVector)) {
+                    return TimeVector.concat(Arrays.copyOf(vectors, vectors.length, TimeVector[].class));
+                }
+                return TimeVector.of(field, concatObjects(n, vectors));
+            }
+            case DateTime: {
+                if (Arrays.stream(vectors).allMatch(vector -> vector instanceof DateTimeVector)) {
+                    return DateTimeVector.concat(Arrays.copyOf(vectors, vectors.length, DateTimeVector[].class));
+                }
+                return DateTimeVector.of(field, concatObjects(n, vectors));
+            }
+            case Decimal: {
+                BigDecimal[] data = new BigDecimal[n];
+                for (var vector : vectors) {
+                    for (int i = 0; i < vector.size(); i++, k++) {
+                        data[k] = (BigDecimal) vector.get(i);
+                    }
+                }
+                return new NumberVector<>(field, data);
+            }
+            default: {
+                Object[] data = new Object[n];
+                for (var vector : vectors) {
+                    for (int i = 0; i < vector.size(); i++, k++) {
+                        data[k] = vector.get(i);
+                    }
+                }
+                return new ObjectVector<>(field, data);
+            }
+        }
+    }
+
+    /**
+     * Returns the elements of vectors in an object array.
+     * @param n the total number of elements.
+     * @param vectors the vectors.
+     * @return the elements.
+     */
+    private static Object[] concatObjects(int n, ValueVector... vectors) {
+        Object[] data = new Object[n];
+        int k = 0;
+        for (var vector : vectors) {
+            for (int i = 0; i < vector.size(); i++, k++) {
+                data[k] = vector.get(i);
+            }
+        }
+        return data;
+    }
+
     /**
      * Creates a nominal value vector.
      *
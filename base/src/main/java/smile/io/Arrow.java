@@ -19,6 +19,7 @@ package smile.io;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
 import java.net.URISyntaxException;
 import java.nio.charset.StandardCharsets;
@@ -26,6 +27,7 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.*;
 import java.util.*;
+import java.util.stream.Stream;
 
 import org.apache.arrow.memory.BufferAllocator;
 import org.apache.arrow.memory.RootAllocator;
@@ -141,32 +143,84 @@ public class Arrow {
      * @return the data frame.
      */
     public DataFrame read(InputStream input, int limit) throws IOException {
-        try (BufferAllocator allocator = new RootAllocator(Long.MAX_VALUE);
-             ArrowStreamReader reader = new ArrowStreamReader(input, allocator)) {
-            List<DataFrame> frames = new ArrayList<>();
-            int rowCount = 0;
-            while (reader.loadNextBatch() && rowCount < limit) {
-                try (VectorSchemaRoot root = reader.getVectorSchemaRoot()) {
-                    DataFrame frame = read(root);
-                    frames.add(frame);
-                    rowCount += frames.size();
-                }
-            }
+        return read(input, new ReadOptions().withLimit(limit));
+    }
 
-            if (frames.isEmpty()) {
-                throw new IllegalStateException("No record batch");
-            } else if (frames.size() == 1) {
-                return frames.getFirst();
-            } else {
-                DataFrame df = frames.getFirst();
-                return df.concat(frames.subList(1, frames.size()).toArray(new DataFrame[frames.size() - 1]));
-            }
+    /**
+     * Reads an arrow file with column projection, row filter and limit.
+     *
+     * @param path the input file path.
+     * @param options the read options.
+     * @throws IOException when fails to read the file.
+     * @return the data frame.
+     */
+    public DataFrame read(Path path, ReadOptions options) throws IOException {
+        return read(Files.newInputStream(path), options);
+    }
+
+    /**
+     * Reads an arrow stream with column projection, row filter and limit.
+     * The input stream is closed afterward.
+     *
+     * @param input the input stream.
+     * @param options the read options.
+     * @throws IOException when fails to read the file.
+     * @return the data frame.
+     */
+    public DataFrame read(InputStream input, ReadOptions options) throws IOException {
+        try {
+            return batches(input, options).collect();
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
         }
     }
 
-    static DataFrame read(VectorSchemaRoot root) {
-        List<FieldVector> fieldVectors = root.getFieldVectors();
-        logger.info("read {} rows and {} columns", root.getRowCount(), fieldVectors.size());
+    /**
+     * Returns the record batches of an arrow stream as data frames,
+     * which are read lazily. The stream should be closed after use,
+     * e.g. in a try-with-resources statement, unless it is consumed
+     * to the end.
+     *
+     * @param input the input stream.
+     * @param options the read options.
+     * @return the stream of data frames.
+     */
+    public Stream<DataFrame> stream(InputStream input, ReadOptions options) {
+        return batches(input, options).stream();
+    }
+
+    /**
+     * Returns the iterator of record batches.
+     * @param input the input stream.
+     * @param options the read options.
+     * @return the iterator of record batches.
+     */
+    private static ArrowBatches batches(InputStream input, ReadOptions options) {
+        BufferAllocator allocator = new RootAllocator(Long.MAX_VALUE);
+        ArrowStreamReader reader = new ArrowStreamReader(input, allocator);
+        return new ArrowBatches(reader, options.columns(), options, allocator);
+    }
+
+    /**
+     * Converts a record batch to a data frame. The values are copied
+     * column-wise into the primitive storage of value vectors. The record
+     * batch may be reused by the caller after this method returns.
+     *
+     * @param root the record batch.
+     * @return the data frame.
+     */
+    public static DataFrame read(VectorSchemaRoot root) {
+        return read(root.getFieldVectors());
+    }
+
+    /**
+     * Converts the columns of a record batch to a data frame.
+     *
+     * @param fieldVectors the columns of record batch.
+     * @return the data frame.
+     */
+    static DataFrame read(List<FieldVector> fieldVectors) {
+        logger.info("read {} rows and {} columns", fieldVectors.getFirst().getValueCount(), fieldVectors.size());
 
         smile.data.vector.ValueVector[] vectors = new smile.data.vector.ValueVector[fieldVectors.size()];
         for (int j = 0; j < fieldVectors.size(); j++) {
@@ -268,99 +322,111 @@ public class Arrow {
             final int size = data.size();
             for (int from = 0; from < size; from += batch) {
                 int count = Math.min(batch, size - from);
-                // set the batch row count
-                root.setRowCount(count);
-
-                for (Field field : root.getSchema().getFields()) {
-                    FieldVector vector = root.getVector(field.getName());
-                    DataType type = data.schema().field(field.getName()).dtype();
-                    switch (type.id()) {
-                        case Int:
-                            writeIntField(data, vector, from, count);
-                            break;
-                        case Long:
-                            writeLongField(data, vector, from, count);
-                            break;
-                        case Double:
-                            writeDoubleField(data, vector, from, count);
-                            break;
-                        case Float:
-                            writeFloatField(data, vector, from, count);
-                            break;
-                        case Boolean:
-                            writeBooleanField(data, vector, from, count);
-                            break;
-                        case Byte:
-                            writeByteField(data, vector, from, count);
-                            break;
-                        case Short:
-                            writeShortField(data, vector, from, count);
-                            break;
-                        case Char:
-                            writeCharField(data, vector, from, count);
-                            break;
-                        case String:
-                            writeStringField(data, vector, from, count);
-                            break;
-                        case Date:
-                            writeDateField(data, vector, from, count);
-                            break;
-                        case Time:
-                            writeTimeField(data, vector, from, count);
-                            break;
-                        case DateTime:
-                            writeDateTimeField(data, vector, from, count);
-                            break;
-                        case Object: {
-                            Class<?> clazz = ((ObjectType) type).getObjectClass();
-                            if (clazz == Integer.class) {
-                                writeNullableIntField(data, vector, from, count);
-                            } else if (clazz == Long.class) {
-                                writeNullableLongField(data, vector, from, count);
-                            } else if (clazz == Double.class) {
-                                writeNullableDoubleField(data, vector, from, count);
-                            } else if (clazz == Float.class) {
-                                writeNullableFloatField(data, vector, from, count);
-                            } else if (clazz == Boolean.class) {
-                                writeNullableBooleanField(data, vector, from, count);
-                            } else if (clazz == Byte.class) {
-                                writeNullableByteField(data, vector, from, count);
-                            } else if (clazz == Short.class) {
-                                writeNullableShortField(data, vector, from, count);
-                            } else if (clazz == Character.class) {
-                                writeNullableCharField(data, vector, from, count);
-                            } else if (clazz == BigDecimal.class) {
-                                writeDecimalField(data, vector, from, count);
-                            } else if (clazz == String.class) {
-                                writeStringField(data, vector, from, count);
-                            } else if (clazz == LocalDate.class) {
-                                writeDateField(data, vector, from, count);
-                            } else if (clazz == LocalTime.class) {
-                                writeTimeField(data, vector, from, count);
-                            } else if (clazz == LocalDateTime.class) {
-                                writeDateTimeField(data, vector, from, count);
-                            } else {
-                                throw new UnsupportedOperationException("Unsupported type: " + type);
-                            }
-                            break;
-                        }
-                        case Array: {
-                            DataType etype = ((ArrayType) type).getComponentType();
-                            if (etype.id() == DataType.ID.Byte) {
-                                writeByteArrayField(data, vector, from, count);
-                            } else {
-                                throw new UnsupportedOperationException("Unsupported type: " + type);
-                            }
-                            break;
-                        }
+                write(data, root, from, count);
+                writer.writeBatch();
+                logger.info("write {} rows", count);
+            }
+        }
+    }
 
-                        default:
-                            throw new UnsupportedOperationException("Unsupported type: " + type);
+    /**
+     * Writes a slice of data frame to a record batch. The vectors of
+     * record batch are reallocated for the slice.
+     *
+     * @param data the data frame.
+     * @param root the record batch.
+     * @param from the index of first row to write.
+     * @param count the number of rows to write.
+     */
+    void write(DataFrame data, VectorSchemaRoot root, int from, int count) {
+        // set the batch row count
+        root.setRowCount(count);
+
+        for (Field field : root.getSchema().getFields()) {
+            FieldVector vector = root.getVector(field.getName());
+            DataType type = data.schema().field(field.getName()).dtype();
+            switch (type.id()) {
+                case Int:
+                    writeIntField(data, vector, from, count);
+                    break;
+                case Long:
+                    writeLongField(data, vector, from, count);
+                    break;
+                case Double:
+                    writeDoubleField(data, vector, from, count);
+                    break;
+                case Float:
+                    writeFloatField(data, vector, from, count);
+                    break;
+                case Boolean:
+                    writeBooleanField(data, vector, from, count);
+                    break;
+                case Byte:
+                    writeByteField(data, vector, from, count);
+                    break;
+                case Short:
+                    writeShortField(data, vector, from, count);
+                    break;
+                case Char:
+                    writeCharField(data, vector, from, count);
+                    break;
+                case String:
+                    writeStringField(data, vector, from, count);
+                    break;
+                case Date:
+                    writeDateField(data, vector, from, count);
+                    break;
+                case Time:
+                    writeTimeField(data, vector, from, count);
+                    break;
+                case DateTime:
+                    writeDateTimeField(data, vector, from, count);
+                    break;
+                case Object: {
+                    Class<?> clazz = ((ObjectType) type).getObjectClass();
+                    if (clazz == Integer.class) {
+                        writeNullableIntField(data, vector, from, count);
+                    } else if (clazz == Long.class) {
+                        writeNullableLongField(data, vector, from, count);
+                    } else if (clazz == Double.class) {
+                        writeNullableDoubleField(data, vector, from, count);
+                    } else if (clazz == Float.class) {
+                        writeNullableFloatField(data, vector, from, count);
+                    } else if (clazz == Boolean.class) {
+                        writeNullableBooleanField(data, vector, from, count);
+                    } else if (clazz == Byte.class) {
+                        writeNullableByteField(data, vector, from, count);
+                    } else if (clazz == Short.class) {
+                        writeNullableShortField(data, vector, from, count);
+                    } else if (clazz == Character.class) {
+                        writeNullableCharField(data, vector, from, count);
+                    } else if (clazz == BigDecimal.class) {
+                        writeDecimalField(data, vector, from, count);
+                    } else if (clazz == String.class) {
+                        writeStringField(data, vector, from, count);
+                    } else if (clazz == LocalDate.class) {
+                        writeDateField(data, vector, from, count);
+                    } else if (clazz == LocalTime.class) {
+                        writeTimeField(data, vector, from, count);
+                    } else if (clazz == LocalDateTime.class) {
+                        writeDateTimeField(data, vector, from, count);
+                    } else {
+                        throw new UnsupportedOperationException("Unsupported type: " + type);
                     }
+                    break;
+                }
+                case Array: {
+                    DataType etype = ((ArrayType) type).getComponentType();
+                    if (etype.id() == DataType.ID.Byte) {
+                        writeByteArrayField(data, vector, from, count);
+                    } else {
+                        throw new UnsupportedOperationException("Unsupported type: " + type);
+                    }
+                    break;
                 }
 
-                writer.writeBatch();
-                logger.info("write {} rows", count);
+                default:
+                    throw new UnsupportedOperationException("Unsupported type: " + type);
             }
         }
     }
@@ -571,92 +637,104 @@ public class Arrow {
         return new smile.data.vector.NumberVector<>(field, data);
     }
 
-    /** Reads a date column. */
+    /** Reads a date column into epoch days. */
     static smile.data.vector.ValueVector readDateField(FieldVector fieldVector) {
         int count = fieldVector.getValueCount();
         var name = fieldVector.getField().getName();
-        LocalDate[] data = new LocalDate[count];
-        ZoneOffset zone = OffsetDateTime.now().getOffset();
-        if (fieldVector instanceof DateDayVector vector) {
-            for (int i = 0; i < count; i++) {
-                data[i] = vector.isNull(i) ? null : LocalDate.ofEpochDay(vector.get(i));
+        int[] data = new int[count];
+        BitSet nullMask = new BitSet(count);
+        switch (fieldVector) {
+            case DateDayVector vector -> {
+                for (int i = 0; i < count; i++) {
+                    if (vector.isNull(i)) nullMask.set(i);
+                    else data[i] = vector.get(i);
+                }
             }
-        } else if (fieldVector instanceof DateMilliVector vector) {
-            for (int i = 0; i < count; i++) {
-                data[i] = vector.isNull(i) ? null : LocalDateTime.ofInstant(Instant.ofEpochMilli(vector.get(i)), zone).toLocalDate();
+            case DateMilliVector vector -> {
+                for (int i = 0; i < count; i++) {
+                    if (vector.isNull(i)) nullMask.set(i);
+                    else data[i] = (int) Math.floorDiv(vector.get(i), 86_400_000L);
+                }
             }
+            default -> throw new IllegalArgumentException("Invalid field vector type: " + fieldVector.getMinorType());
         }
 
         var field = new StructField(name, DataTypes.DateType);
-        return new smile.data.vector.ObjectVector<>(field, data);
+        return new smile.data.vector.DateVector(field, data, nullMask);
     }
 
-    /** Reads a time column. */
+    /** Reads a time column into nanoseconds of day. */
     static smile.data.vector.ValueVector readTimeField(FieldVector fieldVector) {
         int count = fieldVector.getValueCount();
         var name = fieldVector.getField().getName();
-        LocalTime[] data = new LocalTime[count];
+        long[] data = new long[count];
+        BitSet nullMask = new BitSet(count);
         switch (fieldVector) {
             case TimeNanoVector vector -> {
                 for (int i = 0; i < count; i++) {
-                    data[i] = vector.isNull(i) ? null : LocalTime.ofNanoOfDay(vector.get(i));
+                    if (vector.isNull(i)) nullMask.set(i);
+                    else data[i] = vector.get(i);
                 }
             }
-            case TimeMilliVector vector -> {
+            case TimeMicroVector vector -> {
                 for (int i = 0; i < count; i++) {
-                    data[i] = vector.isNull(i) ? null : LocalTime.ofNanoOfDay(vector.get(i) * 1000000L);
+                    if (vector.isNull(i)) nullMask.set(i);
+                    else data[i] = vector.get(i) * 1000L;
                 }
             }
-            case TimeMicroVector vector -> {
+            case TimeMilliVector vector -> {
                 for (int i = 0; i < count; i++) {
-                    data[i] = vector.isNull(i) ? null : LocalTime.ofNanoOfDay(vector.get(i) * 1000);
+                    if (vector.isNull(i)) nullMask.set(i);
+                    else data[i] = vector.get(i) * 1000000L;
                 }
             }
             case TimeSecVector vector -> {
                 for (int i = 0; i < count; i++) {
-                    data[i] = vector.isNull(i) ? null : LocalTime.ofSecondOfDay(vector.get(i));
+                    if (vector.isNull(i)) nullMask.set(i);
+                    else data[i] = vector.get(i) * 1000000000L;
                 }
             }
             default -> throw new IllegalArgumentException("Invalid field vector type: " + fieldVector.getMinorType());
         }
 
         var field = new StructField(name, DataTypes.TimeType);
-        return new smile.data.vector.ObjectVector<>(field, data);
+        return new smile.data.vector.TimeVector(field, data, nullMask);
     }
 
-    /** Reads a DateTime column. */
+    /**
+     * Reads a DateTime column into epoch seconds and nanoseconds of local
+     * date-times in the time zone of column, or UTC if not specified.
+     */
     static smile.data.vector.ValueVector readDateTimeField(FieldVector fieldVector) {
         int count = fieldVector.getValueCount();
         var name = fieldVector.getField().getName();
-        LocalDateTime[] data = new LocalDateTime[count];
+        long[] seconds = new long[count];
+        int[] nanos = new int[count];
+        BitSet nullMask = new BitSet(count);
         String timezone = ((ArrowType.Timestamp) fieldVector.getField().getType()).getTimezone();
         ZoneOffset zone = timezone == null ? ZoneOffset.UTC : ZoneOffset.of(timezone);
-        switch (fieldVector) {
-            case TimeStampMilliVector vector -> {
-                for (int i = 0; i < count; i++) {
-                    data[i] = vector.isNull(i) ? null : LocalDateTime.ofInstant(Instant.ofEpochMilli(vector.get(i)), zone);
-                }
-            }
-            case TimeStampNanoVector vector -> {
-                for (int i = 0; i < count; i++) {
-                    data[i] = vector.isNull(i) ? null : LocalDateTime.ofInstant(Instant.ofEpochMilli(vector.get(i) / 1000000), zone);
-                }
-            }
-            case TimeStampMicroVector vector -> {
-                for (int i = 0; i < count; i++) {
-                    data[i] = vector.isNull(i) ? null : LocalDateTime.ofInstant(Instant.ofEpochMilli(vector.get(i) / 1000), zone);
-                }
-            }
-            case TimeStampSecVector vector -> {
-                for (int i = 0; i < count; i++) {
-                    data[i] = vector.isNull(i) ? null : LocalDateTime.ofEpochSecond(vector.get(i), 0, zone);
-                }
+        long offset = zone.getTotalSeconds();
+        TimeStampVector vector = (TimeStampVector) fieldVector;
+        TimeUnit unit = ((ArrowType.Timestamp) fieldVector.getField().getType()).getUnit();
+        long unitsPerSecond = switch (unit) {
+            case SECOND -> 1L;
+            case MILLISECOND -> 1000L;
+            case MICROSECOND -> 1000000L;
+            case NANOSECOND -> 1000000000L;
+        };
+        for (int i = 0; i < count; i++) {
+            if (vector.isNull(i)) {
+                nullMask.set(i);
+                continue;
             }
-            default -> throw new IllegalArgumentException("Invalid field vector type: " + fieldVector.getMinorType());
+
+            long x = vector.get(i);
+            seconds[i] = offset + Math.floorDiv(x, unitsPerSecond);
+            nanos[i] = (int) (Math.floorMod(x, unitsPerSecond) * (1000000000L / unitsPerSecond));
         }
 
         var field = new StructField(name, DataTypes.DateTimeType);
-        return new smile.data.vector.ObjectVector<>(field, data);
+        return new smile.data.vector.DateTimeVector(field, seconds, nanos, nullMask);
     }
 
     /** Reads a byte[] column. */
@@ -686,20 +764,27 @@ public class Arrow {
         return new smile.data.vector.ObjectVector<>(field, data);
     }
 
-    /** Reads a String column. */
+    /**
+     * Reads a String column. The offsets and UTF-8 bytes are copied
+     * in bulk without decoding the strings.
+     */
     static smile.data.vector.ValueVector readStringField(FieldVector fieldVector) {
         int count = fieldVector.getValueCount();
         var name = fieldVector.getField().getName();
         VarCharVector vector = (VarCharVector) fieldVector;
-        String[] data = new String[count];
+        int[] offsets = new int[count + 1];
+        BitSet nullMask = new BitSet(count);
+        var offsetBuffer = vector.getOffsetBuffer();
+        int start = count == 0 ? 0 : offsetBuffer.getInt(0);
         for (int i = 0; i < count; i++) {
-            if (vector.isNull(i))
-                data[i] = null;
-            else
-                data[i] = new String(vector.get(i));
+            offsets[i + 1] = offsetBuffer.getInt((long) (i + 1) * BaseVariableWidthVector.OFFSET_WIDTH) - start;
+            if (vector.isNull(i)) nullMask.set(i);
         }
 
-        return new smile.data.vector.StringVector(name, data);
+        byte[] data = new byte[offsets[count]];
+        vector.getDataBuffer().getBytes(start, data);
+        var field = new StructField(name, DataTypes.StringType);
+        return new smile.data.vector.Utf8Vector(field, data, offsets, nullMask);
     }
 
     /** Writes an int column. */
@@ -729,7 +814,7 @@ public class Arrow {
         IntVector vector = (IntVector) fieldVector;
         smile.data.vector.ValueVector column = df.column(fieldVector.getField().getName());
         for (int i = 0, j = from; i < count; i++, j++) {
-            Integer x = (Integer) column.get(i);
+            Integer x = (Integer) column.get(j);
             if (x == null) {
                 vector.setNull(i);
             } else {
@@ -768,7 +853,7 @@ public class Arrow {
         BitVector vector = (BitVector) fieldVector;
         var column = df.column(fieldVector.getField().getName());
         for (int i = 0, j = from; i < count; i++, j++) {
-            Boolean x = (Boolean) column.get(i);
+            Boolean x = (Boolean) column.get(j);
             if (x == null) {
                 vector.setNull(i);
             } else {
@@ -807,7 +892,7 @@ public class Arrow {
         UInt2Vector vector = (UInt2Vector) fieldVector;
         var column = df.column(fieldVector.getField().getName());
         for (int i = 0, j = from; i < count; i++, j++) {
-            Character x = (Character) column.get(i);
+            Character x = (Character) column.get(j);
             if (x == null) {
                 vector.setNull(i);
             } else {
@@ -846,7 +931,7 @@ public class Arrow {
         TinyIntVector vector = (TinyIntVector) fieldVector;
         var column = df.column(fieldVector.getField().getName());
         for (int i = 0, j = from; i < count; i++, j++) {
-            Byte x = (Byte) column.get(i);
+            Byte x = (Byte) column.get(j);
             if (x == null) {
                 vector.setNull(i);
             } else {
@@ -885,7 +970,7 @@ public class Arrow {
         SmallIntVector vector = (SmallIntVector) fieldVector;
         var column = df.column(fieldVector.getField().getName());
         for (int i = 0, j = from; i < count; i++, j++) {
-            Short x = (Short) column.get(i);
+            Short x = (Short) column.get(j);
             if (x == null) {
                 vector.setNull(i);
             } else {
@@ -924,7 +1009,7 @@ public class Arrow {
         BigIntVector vector = (BigIntVector) fieldVector;
         var column = df.column(fieldVector.getField().getName());
         for (int i = 0, j = from; i < count; i++, j++) {
-            Long x = (Long) column.get(i);
+            Long x = (Long) column.get(j);
             if (x == null) {
                 vector.setNull(i);
             } else {
@@ -963,7 +1048,7 @@ public class Arrow {
         Float4Vector vector  = (Float4Vector) fieldVector;
         var column = df.column(fieldVector.getField().getName());
         for (int i = 0, j = from; i < count; i++, j++) {
-            Float x = (Float) column.get(i);
+            Float x = (Float) column.get(j);
             if (x == null) {
                 vector.setNull(i);
             } else {
@@ -1002,7 +1087,7 @@ public class Arrow {
         Float8Vector vector  = (Float8Vector) fieldVector;
         var column = df.column(fieldVector.getField().getName());
         for (int i = 0, j = from; i < count; i++, j++) {
-            Double x = (Double) column.get(i);
+            Double x = (Double) column.get(j);
             if (x == null) {
                 vector.setNull(i);
             } else {
@@ -1061,13 +1146,24 @@ public class Arrow {
 
         DateDayVector vector = (DateDayVector) fieldVector;
         var column = df.column(fieldVector.getField().getName());
-        for (int i = 0, j = from; i < count; i++, j++) {
-            LocalDate x = (LocalDate) column.get(j);
-            if (x == null) {
-                vector.setNull(i);
-            } else {
-                vector.setIndexDefined(i);
-                vector.setSafe(i, (int) x.toEpochDay());
+        if (column instanceof smile.data.vector.DateVector dates) {
+            for (int i = 0, j = from; i < count; i++, j++) {
+                if (dates.isNullAt(j)) {
+                    vector.setNull(i);
+                } else {
+                    vector.setIndexDefined(i);
+                    vector.setSafe(i, dates.getInt(j));
+                }
+            }
+        } else {
+            for (int i = 0, j = from; i < count; i++, j++) {
+                LocalDate x = (LocalDate) column.get(j);
+                if (x == null) {
+                    vector.setNull(i);
+                } else {
+                    vector.setIndexDefined(i);
+                    vector.setSafe(i, (int) x.toEpochDay());
+                }
             }
         }
 
@@ -1081,13 +1177,24 @@ public class Arrow {
 
         TimeNanoVector vector = (TimeNanoVector) fieldVector;
         var column = df.column(fieldVector.getField().getName());
-        for (int i = 0, j = from; i < count; i++, j++) {
-            LocalTime x = (LocalTime) column.get(j);
-            if (x == null) {
-                vector.setNull(i);
-            } else {
-                vector.setIndexDefined(i);
-                vector.setSafe(i, x.toNanoOfDay());
+        if (column instanceof smile.data.vector.TimeVector times) {
+            for (int i = 0, j = from; i < count; i++, j++) {
+                if (times.isNullAt(j)) {
+                    vector.setNull(i);
+                } else {
+                    vector.setIndexDefined(i);
+                    vector.setSafe(i, times.getLong(j));
+                }
+            }
+        } else {
+            for (int i = 0, j = from; i < count; i++, j++) {
+                LocalTime x = (LocalTime) column.get(j);
+                if (x == null) {
+                    vector.setNull(i);
+                } else {
+                    vector.setIndexDefined(i);
+                    vector.setSafe(i, x.toNanoOfDay());
+                }
             }
         }
 
@@ -1101,13 +1208,27 @@ public class Arrow {
 
         TimeStampMilliTZVector vector = (TimeStampMilliTZVector) fieldVector;
         var column = df.column(fieldVector.getField().getName());
-        for (int i = 0, j = from; i < count; i++, j++) {
-            LocalDateTime x = (LocalDateTime) column.get(j);
-            if (x == null) {
-                vector.setNull(i);
-            } else {
-                vector.setIndexDefined(i);
-                vector.setSafe(i, x.toInstant(OffsetDateTime.now().getOffset()).toEpochMilli());
+        ZoneOffset zone = OffsetDateTime.now().getOffset();
+        if (column instanceof smile.data.vector.DateTimeVector datetimes) {
+            long offset = zone.getTotalSeconds();
+            for (int i = 0, j = from; i < count; i++, j++) {
+                if (datetimes.isNullAt(j)) {
+                    vector.setNull(i);
+                } else {
+                    long millis = Math.multiplyExact(Math.subtractExact(datetimes.getLong(j), offset), 1000L);
+                    vector.setIndexDefined(i);
+                    vector.setSafe(i, Math.addExact(millis, datetimes.nano(j) / 1000000));
+                }
+            }
+        } else {
+            for (int i = 0, j = from; i < count; i++, j++) {
+                LocalDateTime x = (LocalDateTime) column.get(j);
+                if (x == null) {
+                    vector.setNull(i);
+                } else {
+                    vector.setIndexDefined(i);
+                    vector.setSafe(i, x.toInstant(zone).toEpochMilli());
+                }
             }
         }
 
@@ -0,0 +1,202 @@
+/*
+ * Copyright (c) 2010-2025 Haifeng Li. All rights reserved.
+ *
+ * Smile is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Smile is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Smile. If not, see <https://www.gnu.org/licenses/>.
+ */
+package smile.io;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import org.apache.arrow.vector.FieldVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.ipc.ArrowReader;
+import smile.data.DataFrame;
+import smile.util.Index;
+
+/**
+ * An iterator of Arrow record batches as data frames. It decodes only
+ * the selected columns, applies the row filter to each batch and stops
+ * reading once the row limit is reached. The reader and the associated
+ * resources are closed when the iterator is exhausted or closed.
+ *
+ * @author Haifeng Li
+ */
+final class ArrowBatches implements Iterator<DataFrame>, AutoCloseable {
+    /** The reader of record batches. */
+    private final ArrowReader reader;
+    /** The columns to decode, or null to decode all columns of batch. */
+    private final String[] columns;
+    /** The read options. */
+    private final ReadOptions options;
+    /** The resources to close after the reader, in the order of opening. */
+    private final AutoCloseable[] resources;
+    /** The number of rows returned. */
+    private int count;
+    /** The next data frame. */
+    private DataFrame next;
+    /** The first batch of which all rows are rejected by the filter. */
+    private DataFrame empty;
+    /** True if the reader is closed. */
+    private boolean closed;
+
+    /**
+     * Constructor.
+     * @param reader the reader of record batches.
+     * @param columns the columns to decode, or null to decode all columns of batch.
+     * @param options the read options.
+     * @param resources the resources to close after the reader, in the order of opening.
+     */
+    ArrowBatches(ArrowReader reader, String[] columns, ReadOptions options, AutoCloseable... resources) {
+        this.reader = reader;
+        this.columns = columns;
+        this.options = options;
+        this.resources = resources;
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (next == null && !closed) {
+            try {
+                if (count >= options.limit() || !reader.loadNextBatch()) {
+                    close();
+                    break;
+                }
+
+                DataFrame frame = decode(reader.getVectorSchemaRoot());
+                if (options.filter() != null) {
+                    boolean[] mask = new boolean[frame.size()];
+                    for (int i = 0; i < mask.length; i++) {
+                        mask[i] = options.filter().test(frame.get(i));
+                    }
+                    frame = frame.get(mask);
+                }
+
+                if (frame.size() > options.limit() - count) {
+                    frame = frame.get(Index.range(0, options.limit() - count));
+                }
+
+                if (frame.isEmpty()) {
+                    if (empty == null) empty = frame;
+                } else {
+                    count += frame.size();
+                    next = frame;
+                }
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+        return next != null;
+    }
+
+    @Override
+    public DataFrame next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+
+        DataFrame frame = next;
+        next = null;
+        return frame;
+    }
+
+    /**
+     * Decodes the selected columns of a record batch.
+     * @param root the record batch.
+     * @return the data frame.
+     */
+    private DataFrame decode(VectorSchemaRoot root) {
+        if (columns == null) {
+            return Arrow.read(root);
+        }
+
+        List<FieldVector> vectors = new ArrayList<>(columns.length);
+        for (String column : columns) {
+            FieldVector vector = root.getVector(column);
+            if (vector == null) {
+                throw new IllegalArgumentException("Unknown column: " + column);
+            }
+            vectors.add(vector);
+        }
+        return Arrow.read(vectors);
+    }
+
+    @Override
+    public void close() {
+        if (closed) return;
+        closed = true;
+
+        Exception error = null;
+        try {
+            reader.close();
+        } catch (Exception ex) {
+            error = ex;
+        }
+
+        for (int i = resources.length; i-- > 0; ) {
+            try {
+                resources[i].close();
+            } catch (Exception ex) {
+                if (error == null) error = ex;
+                else error.addSuppressed(ex);
+            }
+        }
+
+        if (error != null) {
+            throw new IllegalStateException("Failed to close the reader", error);
+        }
+    }
+
+    /**
+     * Returns the sequential stream of batches, which closes
+     * the iterator when the stream is closed.
+     * @return the stream of batches.
+     */
+    Stream<DataFrame> stream() {
+        Spliterator<DataFrame> spliterator = Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED | Spliterator.NONNULL);
+        return StreamSupport.stream(spliterator, false).onClose(this::close);
+    }
+
+    /**
+     * Reads all batches into a data frame and closes the iterator.
+     * @return the data frame.
+     */
+    DataFrame collect() {
+        try {
+            List<DataFrame> frames = new ArrayList<>();
+            while (hasNext()) {
+                frames.add(next());
+            }
+
+            if (frames.isEmpty()) {
+                if (empty != null) return empty;
+                throw new IllegalStateException("No record batch");
+            } else if (frames.size() == 1) {
+                return frames.getFirst();
+            } else {
+                DataFrame df = frames.getFirst();
+                return df.concat(frames.subList(1, frames.size()).toArray(new DataFrame[frames.size() - 1]));
+            }
+        } finally {
+            close();
+        }
+    }
+}
@@ -17,17 +17,17 @@
 package smile.io;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.io.Reader;
 import java.net.URISyntaxException;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.ArrayList;
-import java.util.Iterator;
-import java.util.List;
-import java.util.Map;
-import java.util.function.Function;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import org.apache.commons.csv.CSVFormat;
 import org.apache.commons.csv.CSVParser;
 import org.apache.commons.csv.CSVPrinter;
@@ -38,20 +38,35 @@ import smile.data.type.DataType;
 import smile.data.type.DataTypes;
 import smile.data.type.StructField;
 import smile.data.type.StructType;
+import smile.data.vector.ValueVector;
 
 /**
  * Reads and writes files in variations of the Comma Separated Value
  * (CSV) format.
+ * <p>
+ * For single-character delimiters, the file is read in chunks of complete
+ * records, which are tokenized in parallel directly into the primitive
+ * column buffers without creating intermediate row objects. If the schema
+ * is not set, it is inferred from the top rows of the first chunk in the
+ * same pass. Other formats are parsed with commons-csv.
  *
  * @author Haifeng Li
  */
 public class CSV {
+    /** The number of characters in the first chunk. */
+    private static final int FIRST_CHUNK_SIZE = 1 << 20;
+    /** The number of characters in a chunk. */
+    private static final int CHUNK_SIZE = 1 << 22;
     /** The schema of data structure. */
     private StructType schema;
     /** The CSV file format. */
     private final CSVFormat format;
     /** Charset of file. */
     private Charset charset = StandardCharsets.UTF_8;
+    /** The number of characters in the first chunk of columnar scanner. */
+    private int firstChunkSize = FIRST_CHUNK_SIZE;
+    /** The number of characters in the other chunks of columnar scanner. */
+    private int chunkSize = CHUNK_SIZE;
 
     /**
      * Constructor.
@@ -90,6 +105,22 @@ public class CSV {
         return this;
     }
 
+    /**
+     * Sets the chunk sizes of columnar scanner. It is mainly for testing
+     * the records that span the chunk boundaries.
+     * @param first the number of characters in the first chunk.
+     * @param size the number of characters in the other chunks.
+     * @return this object.
+     */
+    CSV chunkSize(int first, int size) {
+        if (first <= 0 || size <= 0) {
+            throw new IllegalArgumentException(String.format("Invalid chunk size: %d, %d", first, size));
+        }
+        this.firstChunkSize = first;
+        this.chunkSize = size;
+        return this;
+    }
+
     /**
      * Reads a CSV file.
      * @param path the input file path.
@@ -110,7 +141,7 @@ public class CSV {
      * @return the data frame.
      */
     public DataFrame read(String path, int limit) throws IOException, URISyntaxException {
-        if (schema == null) {
+        if (schema == null && !CSVScanner.supports(format)) {
             // infer the schema from top 1000 rows.
             schema = inferSchema(Input.reader(path, charset), Math.min(1000, limit));
         }
@@ -136,7 +167,7 @@ public class CSV {
      * @return the data frame.
      */
     public DataFrame read(Path path, int limit) throws IOException {
-        if (schema == null) {
+        if (schema == null && !CSVScanner.supports(format)) {
             // infer the schema from top 1000 rows.
             schema = inferSchema(Files.newBufferedReader(path, charset), Math.min(1000, limit));
         }
@@ -144,65 +175,273 @@ public class CSV {
         return read(Files.newBufferedReader(path, charset), limit);
     }
 
+    /**
+     * Reads the records into column vectors.
+     * @param reader the file reader.
+     * @param limit the number of records to read.
+     * @throws IOException when fails to read the file.
+     * @return the data frame.
+     */
     private DataFrame read(Reader reader, int limit) throws IOException {
+        if (CSVScanner.supports(format)) {
+            return scan(reader, limit);
+        }
+
         if (schema == null) {
-            // infer the schema from top 1000 rows.
             throw new IllegalStateException("The schema is not set or inferred.");
         }
 
         var fields = schema.fields();
-        List<Function<String, Object>> parser = schema.parser();
+        int p = fields.size();
+        ColumnBuilder[] columns = new ColumnBuilder[p];
+        for (int j = 0; j < p; j++) {
+            columns[j] = ColumnBuilder.of(fields.get(j), 1024);
+        }
 
         try (CSVParser csv = CSVParser.parse(reader, format)) {
-            List<Tuple> rows = new ArrayList<>();
-            boolean[] missing = new boolean[schema.length()];
-
+            CharSlice slice = new CharSlice();
+            int n = 0;
             for (CSVRecord record : csv) {
-                Object[] row = new Object[fields.size()];
-                for (int i = 0; i < fields.size(); i++) {
-                    String s = record.get(i).trim();
-                    if (!s.isEmpty()) {
-                        row[i] = parser.get(i).apply(s);
+                if (n++ >= limit) break;
+                for (int j = 0; j < p; j++) {
+                    String s = j < record.size() ? record.get(j) : null;
+                    if (s == null) {
+                        columns[j].appendNull();
+                    } else {
+                        slice.set(s.toCharArray(), 0, s.length()).trim();
+                        if (slice.isEmpty()) columns[j].appendNull();
+                        else columns[j].append(slice);
                     }
                 }
+            }
+        }
 
-                // Check any missing values
-                for (int j = 0; j < fields.size(); j++) {
-                    if (row[j] == null) {
-                        missing[j] = true;
+        return frame(new ColumnBuilder[][]{columns}, limit);
+    }
+
+    /**
+     * Reads the records with the columnar scanner. The file is read in
+     * chunks of complete records, which are tokenized and parsed into
+     * column buffers in parallel. If the schema is not set, it is inferred
+     * from the top 1000 rows of the first chunk.
+     * @param reader the file reader.
+     * @param limit the number of records to read.
+     * @throws IOException when fails to read the file.
+     * @return the data frame.
+     */
+    private DataFrame scan(Reader reader, int limit) throws IOException {
+        CSVScanner scanner = new CSVScanner(format);
+        int window = 2 * Runtime.getRuntime().availableProcessors();
+        Deque<Future<ColumnBuilder[]>> pending = new ArrayDeque<>();
+        List<ColumnBuilder[]> chunks = new ArrayList<>();
+        int size = 0;
+
+        try (reader) {
+            char[] carry = new char[0];
+            boolean eof = false;
+            boolean first = true;
+            while (!eof && size < limit) {
+                // The first chunk is small to start quickly on small files.
+                int capacity = Math.max(first ? firstChunkSize : chunkSize, 2 * carry.length);
+                char[] buf = Arrays.copyOf(carry, capacity);
+                int length = carry.length;
+                while (length < capacity) {
+                    int k = reader.read(buf, length, capacity - length);
+                    if (k < 0) {
+                        eof = true;
+                        break;
                     }
+                    length += k;
+                }
+
+                int end = eof ? length : scanner.lastRecordEnd(buf, 0, length);
+                carry = Arrays.copyOfRange(buf, end, length);
+                if (end == 0) {
+                    // A record is longer than the chunk, read more.
+                    continue;
                 }
 
-                rows.add(Tuple.of(schema, row));
-                if (rows.size() >= limit) break;
+                int start = 0;
+                if (first) {
+                    first = false;
+                    start = header(scanner, buf, end, limit);
+                }
+
+                final int from = start;
+                final StructType schema = this.schema;
+                pending.add(CompletableFuture.supplyAsync(() -> parse(schema, buf, from, end)));
+
+                while (!pending.isEmpty() && (pending.size() >= window || pending.peek().isDone())) {
+                    ColumnBuilder[] chunk = join(pending.poll());
+                    chunks.add(chunk);
+                    size += chunk[0].size;
+                }
+            }
+
+            if (first && schema == null) {
+                throw new IOException("Empty file");
             }
 
-            // Set a field to nullable if any missing value in the column.
-            for (int j = 0; j < missing.length; j++) {
-                if (missing[j] && fields.get(j).dtype().isPrimitive()) {
-                    var field = fields.get(j);
-                    if (field.dtype() == DataTypes.IntType) {
-                        fields.set(j, new StructField(field.name(), DataTypes.NullableIntType, field.measure()));
-                    } else if (field.dtype() == DataTypes.LongType) {
-                        fields.set(j, new StructField(field.name(), DataTypes.NullableLongType, field.measure()));
-                    } else if (field.dtype() == DataTypes.FloatType) {
-                        fields.set(j, new StructField(field.name(), DataTypes.NullableFloatType, field.measure()));
-                    } else if (field.dtype() == DataTypes.DoubleType) {
-                        fields.set(j, new StructField(field.name(), DataTypes.NullableDoubleType, field.measure()));
-                    } else if (field.dtype() == DataTypes.BooleanType) {
-                        fields.set(j, new StructField(field.name(), DataTypes.NullableBooleanType, field.measure()));
-                    } else if (field.dtype() == DataTypes.ByteType) {
-                        fields.set(j, new StructField(field.name(), DataTypes.NullableByteType, field.measure()));
-                    } else if (field.dtype() == DataTypes.ShortType) {
-                        fields.set(j, new StructField(field.name(), DataTypes.NullableShortType, field.measure()));
-                    } else if (field.dtype() == DataTypes.CharType) {
-                        fields.set(j, new StructField(field.name(), DataTypes.NullableCharType, field.measure()));
+            if (size >= limit) {
+                // The remaining chunks are beyond the limit.
+                pending.forEach(future -> future.cancel(false));
+            } else {
+                while (!pending.isEmpty()) {
+                    chunks.add(join(pending.poll()));
+                }
+            }
+        }
+
+        return frame(chunks.toArray(new ColumnBuilder[0][]), limit);
+    }
+
+    /**
+     * Skips the header record and infers the schema if it is not set.
+     * @param scanner the CSV scanner.
+     * @param buf the first chunk.
+     * @param end the end position of the chunk.
+     * @param limit the number of records to read.
+     * @return the start position of data records.
+     */
+    private int header(CSVScanner scanner, char[] buf, int end, int limit) {
+        String[] header = format.getHeader();
+        List<String> names = new ArrayList<>();
+        int start = 0;
+        if (header != null && (header.length == 0 || format.getSkipHeaderRecord())) {
+            start = scanner.scan(buf, 0, end, new CSVScanner.RecordConsumer() {
+                @Override
+                public void accept(int index, CharSlice value) {
+                    names.add(value == null ? "" : value.toString());
+                }
+
+                @Override
+                public boolean end(int length) {
+                    return false;
+                }
+            });
+        }
+
+        if (header != null && header.length > 0) {
+            names.clear();
+            Collections.addAll(names, header);
+        }
+
+        if (schema == null) {
+            List<DataType> types = new ArrayList<>();
+            int n = Math.min(1000, limit);
+            scanner.scan(buf, start, end, new CSVScanner.RecordConsumer() {
+                int k = 0;
+                @Override
+                public void accept(int index, CharSlice value) {
+                    DataType type = value == null ? null : DataType.infer(value.toString());
+                    if (index < types.size()) {
+                        types.set(index, DataType.coerce(types.get(index), type));
+                    } else if (k == 0 || !names.isEmpty()) {
+                        // Without header, the first record determines the number of columns.
+                        types.add(type);
                     }
                 }
+
+                @Override
+                public boolean end(int length) {
+                    return ++k < n;
+                }
+            });
+
+            int p = names.isEmpty() ? types.size() : names.size();
+            StructField[] fields = new StructField[p];
+            for (int i = 0; i < p; i++) {
+                String name = names.isEmpty() ? String.format("V%d", i+1) : names.get(i);
+                DataType type = i < types.size() ? types.get(i) : null;
+                fields[i] = new StructField(name, type == null ? DataTypes.StringType : type);
             }
             schema = new StructType(fields);
-            return DataFrame.of(schema, rows);
         }
+        return start;
+    }
+
+    /**
+     * Parses a chunk of records into column buffers.
+     * @param schema the data schema.
+     * @param buf the chunk buffer.
+     * @param start the start position of records.
+     * @param end the end position of records.
+     * @return the column buffers.
+     */
+    private ColumnBuilder[] parse(StructType schema, char[] buf, int start, int end) {
+        var fields = schema.fields();
+        int p = fields.size();
+        ColumnBuilder[] columns = new ColumnBuilder[p];
+        // Rough estimate of rows in the chunk.
+        int capacity = Math.max(16, (end - start) / (4 * p));
+        for (int j = 0; j < p; j++) {
+            columns[j] = ColumnBuilder.of(fields.get(j), capacity);
+        }
+
+        CSVScanner scanner = new CSVScanner(format);
+        scanner.scan(buf, start, end, new CSVScanner.RecordConsumer() {
+            @Override
+            public void accept(int index, CharSlice value) {
+                if (index < p) {
+                    if (value == null) columns[index].appendNull();
+                    else columns[index].append(value);
+                }
+            }
+
+            @Override
+            public boolean end(int length) {
+                // Missing trailing cells are null.
+                for (int j = length; j < p; j++) {
+                    columns[j].appendNull();
+                }
+                return true;
+            }
+        });
+        return columns;
+    }
+
+    /**
+     * Waits for a chunk and rethrows its parsing error if any.
+     * @param future the future of chunk.
+     * @return the column buffers of chunk.
+     */
+    private static ColumnBuilder[] join(Future<ColumnBuilder[]> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(ex.getMessage());
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException e) throw e;
+            throw new IOException(ex.getCause());
+        }
+    }
+
+    /**
+     * Concatenates the column buffers of chunks into a data frame.
+     * Sets a field to nullable if any missing value in the column.
+     * @param chunks the column buffers of chunks.
+     * @param limit the number of records to take.
+     * @return the data frame.
+     */
+    private DataFrame frame(ColumnBuilder[][] chunks, int limit) {
+        var fields = schema.fields();
+        int n = 0;
+        for (var chunk : chunks) {
+            n += chunk[0].size;
+        }
+        n = Math.min(n, limit);
+
+        List<ValueVector> columns = new ArrayList<>(fields.size());
+        for (int j = 0; j < fields.size(); j++) {
+            final int col = j;
+            var column = ColumnBuilder.concat(fields.get(j), Arrays.stream(chunks).map(chunk -> chunk[col]).toList(), n);
+            fields.set(j, column.field());
+            columns.add(column);
+        }
+
+        schema = new StructType(fields);
+        return new DataFrame(schema, columns, null);
     }
 
     /**
@@ -0,0 +1,327 @@
+/*
+ * Copyright (c) 2010-2025 Haifeng Li. All rights reserved.
+ *
+ * Smile is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Smile is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Smile. If not, see <https://www.gnu.org/licenses/>.
+ */
+package smile.io;
+
+import java.util.Arrays;
+import org.apache.commons.csv.CSVFormat;
+
+/**
+ * A tokenizer of CSV records over character buffers. It follows the
+ * delimiter, quote, escape, comment marker, empty line and null string
+ * settings of CSVFormat. Unlike CSVParser, it doesn't create String
+ * objects for cells. Instead, each cell is passed to the consumer as
+ * a slice of the buffer, which makes it possible to split a file into
+ * chunks on record boundaries and tokenize them in parallel.
+ * <p>
+ * As the previous CSV reader, the cell values are trimmed and empty
+ * values are treated as null.
+ * <p>
+ * A scanner is not thread safe. Each thread should use its own scanner.
+ *
+ * @author Haifeng Li
+ */
+final class CSVScanner {
+    /**
+     * The consumer of tokenized records.
+     */
+    interface RecordConsumer {
+        /**
+         * Receives a cell of current record.
+         * @param index the column index of cell.
+         * @param value the cell value, or null if the cell is empty or null.
+         */
+        void accept(int index, CharSlice value);
+
+        /**
+         * Signals the end of current record.
+         * @param length the number of cells in the record.
+         * @return false to stop scanning.
+         */
+        boolean end(int length);
+    }
+
+    /** The field delimiter. */
+    private final char delimiter;
+    /** The quote character, or -1 if quoting is disabled. */
+    private final int quote;
+    /** The escape character, or -1 if escaping is disabled. */
+    private final int escape;
+    /** The comment marker, or -1 if comments are disabled. */
+    private final int comment;
+    /** True if empty lines are skipped. */
+    private final boolean ignoreEmptyLines;
+    /** The string to be treated as null. */
+    private final String nullString;
+    /** The slice of current cell. */
+    private final CharSlice slice = new CharSlice();
+    /** The buffer of unescaped cell. */
+    private char[] scratch = new char[64];
+
+    /**
+     * Constructor.
+     * @param format the CSV file format.
+     */
+    CSVScanner(CSVFormat format) {
+        if (!supports(format)) {
+            throw new IllegalArgumentException("Multi-character delimiter is not supported: " + format.getDelimiterString());
+        }
+
+        delimiter = format.getDelimiterString().charAt(0);
+        Character quoteChar = format.getQuoteCharacter();
+        quote = quoteChar == null ? -1 : quoteChar;
+        Character escapeChar = format.getEscapeCharacter();
+        escape = escapeChar == null ? -1 : escapeChar;
+        Character commentMarker = format.getCommentMarker();
+        comment = commentMarker == null ? -1 : commentMarker;
+        ignoreEmptyLines = format.getIgnoreEmptyLines();
+        nullString = format.getNullString();
+    }
+
+    /**
+     * Returns true if the scanner supports the format.
+     * @param format the CSV file format.
+     * @return true if the scanner supports the format.
+     */
+    static boolean supports(CSVFormat format) {
+        return format.getDelimiterString().length() == 1;
+    }
+
+    /**
+     * Returns the end position of the last complete record in the buffer,
+     * i.e. the position after its line break. Returns start if there is
+     * no complete record.
+     *
+     * @param buf the character buffer.
+     * @param start the start position, which must be the beginning of a record.
+     * @param end the end position (exclusive).
+     * @return the end position of the last complete record.
+     */
+    int lastRecordEnd(char[] buf, int start, int end) {
+        if (quote < 0 && escape < 0) {
+            // Line breaks are always record boundaries.
+            for (int i = end; i-- > start; ) {
+                if (buf[i] == '\n') return i + 1;
+            }
+            return start;
+        }
+
+        int last = start;
+        boolean recordStart = true;
+        boolean fieldStart = true;
+        boolean quoted = false;
+        for (int i = start; i < end; i++) {
+            char c = buf[i];
+            if (quoted) {
+                if (c == escape && escape != quote) {
+                    i++;
+                } else if (c == quote) {
+                    // Cannot tell if it is an escaped quote.
+                    if (i + 1 >= end) return last;
+                    if (buf[i + 1] == quote) i++;
+                    else quoted = false;
+                }
+            } else if (c == '\n') {
+                last = i + 1;
+                recordStart = true;
+                fieldStart = true;
+            } else if (recordStart && c == comment) {
+                while (i < end && buf[i] != '\n') i++;
+                if (i == end) return last;
+                last = i + 1;
+            } else if (c == delimiter) {
+                recordStart = false;
+                fieldStart = true;
+            } else if (c == escape) {
+                i++;
+                recordStart = false;
+                fieldStart = false;
+            } else if (fieldStart && c == quote) {
+                quoted = true;
+                recordStart = false;
+                fieldStart = false;
+            } else if (c > ' ') {
+                recordStart = false;
+                fieldStart = false;
+            }
+        }
+        return last;
+    }
+
+    /**
+     * Tokenizes the records in the buffer.
+     * @param buf the character buffer.
+     * @param start the start position, which must be the beginning of a record.
+     * @param end the end position (exclusive), which must be the end of a record.
+     * @param consumer the consumer of records.
+     * @return the position where the scanning stops.
+     */
+    int scan(char[] buf, int start, int end, RecordConsumer consumer) {
+        int i = start;
+        while (i < end) {
+            char c = buf[i];
+            if (c == comment) {
+                i = nextLine(buf, i, end);
+                continue;
+            }
+
+            if (c == '\n' || (c == '\r' && (i + 1 == end || buf[i + 1] == '\n'))) {
+                i = nextLine(buf, i, end);
+                if (ignoreEmptyLines) continue;
+                consumer.accept(0, null);
+                if (!consumer.end(1)) return i;
+                continue;
+            }
+
+            int length = 0;
+            while (true) {
+                i = cell(buf, i, end);
+                consumer.accept(length++, value());
+                if (i < end && buf[i] == delimiter) {
+                    i++;
+                } else {
+                    break;
+                }
+            }
+
+            i = nextLine(buf, i, end);
+            if (!consumer.end(length)) return i;
+        }
+        return end;
+    }
+
+    /**
+     * Returns the slice of current cell, or null if the cell is empty
+     * or equals the null string.
+     */
+    private CharSlice value() {
+        slice.trim();
+        if (slice.isEmpty()) return null;
+        if (nullString != null && slice.contentEquals(nullString)) return null;
+        return slice;
+    }
+
+    /**
+     * Returns the position after the next line break.
+     */
+    private int nextLine(char[] buf, int i, int end) {
+        while (i < end && buf[i] != '\n') i++;
+        return Math.min(i + 1, end);
+    }
+
+    /**
+     * Tokenizes a cell and sets the slice.
+     * @return the position of the delimiter or line break after the cell.
+     */
+    private int cell(char[] buf, int start, int end) {
+        int i = start;
+        while (i < end && buf[i] <= ' ' && buf[i] != delimiter && buf[i] != '\n') i++;
+        if (i < end && buf[i] == quote) {
+            return quoted(buf, i + 1, end);
+        }
+
+        int from = i;
+        int length = -1;
+        for (; i < end; i++) {
+            char c = buf[i];
+            if (c == delimiter || c == '\n') break;
+            if (c == escape) {
+                if (length < 0) length = copy(buf, from, i, 0);
+                if (++i < end) length = put(length, buf[i]);
+            } else if (length >= 0) {
+                length = put(length, c);
+            }
+        }
+
+        i = Math.min(i, end);
+        if (length < 0) {
+            slice.set(buf, from, i);
+        } else {
+            slice.set(scratch, 0, length);
+        }
+        return i;
+    }
+
+    /**
+     * Tokenizes a quoted cell and sets the slice.
+     * @param start the position after the opening quote.
+     * @return the position of the delimiter or line break after the cell.
+     */
+    private int quoted(char[] buf, int start, int end) {
+        int i = start;
+        int length = -1;
+        for (; i < end; i++) {
+            char c = buf[i];
+            if (c == escape && escape != quote) {
+                if (length < 0) length = copy(buf, start, i, 0);
+                if (++i < end) length = put(length, buf[i]);
+            } else if (c == quote) {
+                if (i + 1 < end && buf[i + 1] == quote) {
+                    if (length < 0) length = copy(buf, start, i, 0);
+                    length = put(length, buf[++i]);
+                } else {
+                    break;
+                }
+            } else if (length >= 0) {
+                length = put(length, c);
+            }
+        }
+
+        int close = i;
+        // Be lenient with the characters between the closing quote
+        // and the delimiter, which are appended to the value.
+        for (i = close + 1; i < end; i++) {
+            char c = buf[i];
+            if (c == delimiter || c == '\n') break;
+            if (c > ' ') {
+                if (length < 0) length = copy(buf, start, close, 0);
+                length = put(length, c);
+            }
+        }
+
+        if (length < 0) {
+            slice.set(buf, start, Math.min(close, end));
+        } else {
+            slice.set(scratch, 0, length);
+        }
+        return Math.min(i, end);
+    }
+
+    /**
+     * Copies buf[from, to) to the scratch buffer at the offset.
+     * @return the length of scratch content.
+     */
+    private int copy(char[] buf, int from, int to, int offset) {
+        int length = offset + to - from;
+        if (length > scratch.length) {
+            scratch = Arrays.copyOf(scratch, Math.max(length, 2 * scratch.length));
+        }
+        System.arraycopy(buf, from, scratch, offset, to - from);
+        return length;
+    }
+
+    /**
+     * Appends a character to the scratch buffer.
+     * @return the length of scratch content.
+     */
+    private int put(int length, char c) {
+        if (length == scratch.length) {
+            scratch = Arrays.copyOf(scratch, 2 * scratch.length);
+        }
+        scratch[length] = c;
+        return length + 1;
+    }
+}
@@ -0,0 +1,275 @@
+/*
+ * Copyright (c) 2010-2025 Haifeng Li. All rights reserved.
+ *
+ * Smile is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Smile is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Smile. If not, see <https://www.gnu.org/licenses/>.
+ */
+package smile.io;
+
+/**
+ * A mutable view of a range of characters in a buffer. The text parsers
+ * reuse a slice for every cell so that numeric values can be parsed
+ * without creating an intermediate String object.
+ *
+ * @author Haifeng Li
+ */
+final class CharSlice implements CharSequence {
+    /** The exact powers of ten representable by double. */
+    private static final double[] POW10 = {
+            1E0, 1E1, 1E2, 1E3, 1E4, 1E5, 1E6, 1E7, 1E8, 1E9, 1E10, 1E11,
+            1E12, 1E13, 1E14, 1E15, 1E16, 1E17, 1E18, 1E19, 1E20, 1E21, 1E22
+    };
+    /** The exact powers of ten representable by float. */
+    private static final float[] POW10F = {
+            1E0f, 1E1f, 1E2f, 1E3f, 1E4f, 1E5f, 1E6f, 1E7f, 1E8f, 1E9f, 1E10f
+    };
+    /** The character buffer. */
+    char[] buf;
+    /** The start index (inclusive). */
+    int start;
+    /** The end index (exclusive). */
+    int end;
+
+    /** Constructor. */
+    CharSlice() {
+
+    }
+
+    /**
+     * Resets the view.
+     * @param buf the character buffer.
+     * @param start the start index (inclusive).
+     * @param end the end index (exclusive).
+     * @return this object.
+     */
+    CharSlice set(char[] buf, int start, int end) {
+        this.buf = buf;
+        this.start = start;
+        this.end = end;
+        return this;
+    }
+
+    /**
+     * Removes the leading and trailing whitespaces as String.trim().
+     * @return this object.
+     */
+    CharSlice trim() {
+        while (start < end && buf[start] <= ' ') start++;
+        while (end > start && buf[end - 1] <= ' ') end--;
+        return this;
+    }
+
+    @Override
+    public int length() {
+        return end - start;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return end == start;
+    }
+
+    @Override
+    public char charAt(int index) {
+        return buf[start + index];
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return new String(buf, this.start + start, end - start);
+    }
+
+    @Override
+    public String toString() {
+        return new String(buf, start, end - start);
+    }
+
+    /**
+     * Returns true if the slice has the same characters as the string.
+     * @param s the string.
+     * @return true if the slice has the same characters as the string.
+     */
+    boolean contentEquals(String s) {
+        int n = length();
+        if (s.length() != n) return false;
+        for (int i = 0; i < n; i++) {
+            if (buf[start + i] != s.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Returns the hash code of content, which is same as String.hashCode().
+     * @return the hash code of content.
+     */
+    int contentHashCode() {
+        int h = 0;
+        for (int i = start; i < end; i++) {
+            h = 31 * h + buf[i];
+        }
+        return h;
+    }
+
+    /**
+     * Parses the slice as a boolean value as Boolean.parseBoolean().
+     * @return the boolean value.
+     */
+    boolean parseBoolean() {
+        return length() == 4
+                && (buf[start]   | 0x20) == 't'
+                && (buf[start+1] | 0x20) == 'r'
+                && (buf[start+2] | 0x20) == 'u'
+                && (buf[start+3] | 0x20) == 'e';
+    }
+
+    /**
+     * Parses the slice as a signed decimal integer.
+     * @throws NumberFormatException if the slice is not a parsable integer.
+     * @return the integer value.
+     */
+    int parseInt() {
+        long x = parseLong();
+        if (x < Integer.MIN_VALUE || x > Integer.MAX_VALUE) {
+            throw new NumberFormatException("For input string: \"" + this + "\"");
+        }
+        return (int) x;
+    }
+
+    /**
+     * Parses the slice as a signed decimal long integer.
+     * @throws NumberFormatException if the slice is not a parsable long.
+     * @return the long value.
+     */
+    long parseLong() {
+        int i = start;
+        boolean negative = false;
+        if (i < end && buf[i] == '-') {
+            negative = true;
+            i++;
+        }
+
+        // At most 18 digits never overflow. Let Long.parseLong
+        // handle the corner cases and report the errors.
+        int n = end - i;
+        if (n == 0 || n > 18) {
+            return Long.parseLong(toString());
+        }
+
+        long x = 0;
+        for (; i < end; i++) {
+            int d = buf[i] - '0';
+            if (d < 0 || d > 9) {
+                return Long.parseLong(toString());
+            }
+            x = x * 10 + d;
+        }
+        return negative ? -x : x;
+    }
+
+    /**
+     * Parses the slice as a double value. Simple decimal numbers are
+     * converted with exact arithmetic (Clinger's fast path), which is
+     * correctly rounded. Other inputs fall back to Double.parseDouble().
+     * @throws NumberFormatException if the slice is not a parsable double.
+     * @return the double value.
+     */
+    double parseDouble() {
+        long m = decimalMantissa();
+        if (m >= 0 && m < (1L << 53) && exponent >= -22 && exponent <= 22) {
+            double x = exponent >= 0 ? m * POW10[exponent] : m / POW10[-exponent];
+            return negative ? -x : x;
+        }
+        return Double.parseDouble(toString());
+    }
+
+    /**
+     * Parses the slice as a float value. Simple decimal numbers are
+     * converted with exact arithmetic (Clinger's fast path), which is
+     * correctly rounded. Other inputs fall back to Float.parseFloat().
+     * @throws NumberFormatException if the slice is not a parsable float.
+     * @return the float value.
+     */
+    float parseFloat() {
+        long m = decimalMantissa();
+        if (m >= 0 && m < (1L << 24) && exponent >= -10 && exponent <= 10) {
+            float x = exponent >= 0 ? m * POW10F[exponent] : m / POW10F[-exponent];
+            return negative ? -x : x;
+        }
+        return Float.parseFloat(toString());
+    }
+
+    /** The sign of last parsed decimal number. */
+    private boolean negative;
+    /** The decimal exponent of last parsed decimal number. */
+    private int exponent;
+
+    /**
+     * Parses the slice of form [-+]?digits[.digits]?([eE][-+]?digits)?
+     * and sets the fields negative and exponent.
+     * @return the mantissa, or -1 if the slice is not a simple decimal
+     *         number or has more than 18 significant digits.
+     */
+    private long decimalMantissa() {
+        int i = start;
+        negative = false;
+        if (i < end && (buf[i] == '-' || buf[i] == '+')) {
+            negative = buf[i] == '-';
+            i++;
+        }
+
+        long m = 0;
+        int digits = 0;
+        int scale = 0;
+        boolean point = false;
+        boolean any = false;
+        for (; i < end; i++) {
+            char c = buf[i];
+            if (c >= '0' && c <= '9') {
+                any = true;
+                if (m != 0 || c != '0') {
+                    if (++digits > 18) return -1;
+                    m = m * 10 + (c - '0');
+                }
+                if (point) scale--;
+            } else if (c == '.' && !point) {
+                point = true;
+            } else {
+                break;
+            }
+        }
+
+        if (!any) return -1;
+
+        if (i < end) {
+            char c = buf[i];
+            if (c != 'e' && c != 'E') return -1;
+            i++;
+            boolean negExp = false;
+            if (i < end && (buf[i] == '-' || buf[i] == '+')) {
+                negExp = buf[i] == '-';
+                i++;
+            }
+            if (i == end || end - i > 3) return -1;
+            int e = 0;
+            for (; i < end; i++) {
+                int d = buf[i] - '0';
+                if (d < 0 || d > 9) return -1;
+                e = e * 10 + d;
+            }
+            scale += negExp ? -e : e;
+        }
+
+        exponent = m == 0 ? 0 : scale;
+        return m;
+    }
+}
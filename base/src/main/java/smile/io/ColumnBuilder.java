@@ -0,0 +1,737 @@
+/*
+ * Copyright (c) 2010-2025 Haifeng Li. All rights reserved.
+ *
+ * Smile is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Smile is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Smile. If not, see <https://www.gnu.org/licenses/>.
+ */
+package smile.io;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import smile.data.type.DataType;
+import smile.data.type.DataTypes;
+import smile.data.type.StructField;
+import smile.data.vector.*;
+
+/**
+ * A growable column buffer that parses text cells directly into the
+ * primitive storage of a value vector. The text readers keep one builder
+ * per column and chunk, and concatenate the chunks at the end, so that
+ * no per-row object is created.
+ *
+ * @author Haifeng Li
+ */
+abstract class ColumnBuilder {
+    /** The struct field of column. */
+    final StructField field;
+    /** The null bitmap. The bit is 1 if the value is null. */
+    final BitSet nulls = new BitSet();
+    /** The number of values. */
+    int size;
+
+    /**
+     * Constructor.
+     * @param field the struct field of column.
+     */
+    ColumnBuilder(StructField field) {
+        this.field = field;
+    }
+
+    /**
+     * Appends a value.
+     * @param s the text of value, which is not empty.
+     */
+    abstract void append(CharSlice s);
+
+    /**
+     * Appends a null value.
+     */
+    abstract void appendNull();
+
+    /**
+     * Appends the first count values of another builder of same type.
+     * @param other the other builder.
+     * @param count the number of values to append.
+     */
+    abstract void appendAll(ColumnBuilder other, int count);
+
+    /**
+     * Returns the value vector. If the column has null values,
+     * primitive data type will be promoted to the nullable type.
+     * @return the value vector.
+     */
+    abstract ValueVector build();
+
+    /**
+     * Returns the capacity for the next growth.
+     * @param capacity the current capacity.
+     * @return the new capacity.
+     */
+    static int grow(int capacity) {
+        return Math.max(16, capacity + (capacity >> 1));
+    }
+
+    /**
+     * Copies the null bits of another builder.
+     * @param other the other builder.
+     * @param count the number of values to copy.
+     */
+    void copyNulls(ColumnBuilder other, int count) {
+        for (int i = other.nulls.nextSetBit(0); i >= 0 && i < count; i = other.nulls.nextSetBit(i + 1)) {
+            nulls.set(size + i);
+        }
+    }
+
+    /**
+     * Returns true if the column should be built as a nullable vector.
+     * @return true if the column should be built as a nullable vector.
+     */
+    boolean nullable() {
+        return field.dtype().isNullable() || !nulls.isEmpty();
+    }
+
+    /**
+     * Returns the struct field with the nullable data type.
+     * @param nullableType the nullable data type.
+     * @return the struct field.
+     */
+    StructField field(DataType nullableType) {
+        return field.dtype() == nullableType ? field : new StructField(field.name(), nullableType, field.measure());
+    }
+
+    /**
+     * Returns a builder for the column.
+     * @param field the struct field of column.
+     * @param capacity the initial capacity.
+     * @return the column builder.
+     */
+    static ColumnBuilder of(StructField field, int capacity) {
+        return switch (field.dtype().id()) {
+            case Boolean -> new BooleanBuilder(field);
+            case Char -> new CharBuilder(field, capacity);
+            case Byte -> new ByteBuilder(field, capacity);
+            case Short -> new ShortBuilder(field, capacity);
+            case Int -> new IntBuilder(field, capacity);
+            case Long -> new LongBuilder(field, capacity);
+            case Float -> new FloatBuilder(field, capacity);
+            case Double -> new DoubleBuilder(field, capacity);
+            case String -> new TextBuilder(field, capacity);
+            case Date, Time, DateTime -> new TemporalBuilder(field, capacity);
+            default -> new ObjectBuilder(field, capacity);
+        };
+    }
+
+    /**
+     * Concatenates the chunks of a column into a value vector.
+     * @param field the struct field of column.
+     * @param chunks the column chunks in order.
+     * @param n the number of values to take from the chunks.
+     * @return the value vector.
+     */
+    static ValueVector concat(StructField field, List<ColumnBuilder> chunks, int n) {
+        if (chunks.size() == 1 && chunks.getFirst().size == n) {
+            return chunks.getFirst().build();
+        }
+
+        ColumnBuilder column = of(field, n);
+        for (var chunk : chunks) {
+            int count = Math.min(chunk.size, n - column.size);
+            if (count <= 0) break;
+            column.appendAll(chunk, count);
+        }
+        return column.build();
+    }
+
+    /** Boolean column builder. */
+    static class BooleanBuilder extends ColumnBuilder {
+        /** The true bits. */
+        final BitSet data = new BitSet();
+
+        BooleanBuilder(StructField field) {
+            super(field);
+        }
+
+        @Override
+        void append(CharSlice s) {
+            if (s.parseBoolean()) data.set(size);
+            size++;
+        }
+
+        @Override
+        void appendNull() {
+            nulls.set(size++);
+        }
+
+        @Override
+        void appendAll(ColumnBuilder other, int count) {
+            BitSet bits = ((BooleanBuilder) other).data;
+            for (int i = bits.nextSetBit(0); i >= 0 && i < count; i = bits.nextSetBit(i + 1)) {
+                data.set(size + i);
+            }
+            copyNulls(other, count);
+            size += count;
+        }
+
+        @Override
+        ValueVector build() {
+            if (nullable()) {
+                return new NullableBooleanVector(field(DataTypes.NullableBooleanType), size, data, nulls);
+            }
+            return new BooleanVector(field, size, data);
+        }
+    }
+
+    /** Char column builder. */
+    static class CharBuilder extends ColumnBuilder {
+        char[] data;
+
+        CharBuilder(StructField field, int capacity) {
+            super(field);
+            data = new char[capacity];
+        }
+
+        private void add(char x) {
+            if (size == data.length) data = Arrays.copyOf(data, grow(size));
+            data[size++] = x;
+        }
+
+        @Override
+        void append(CharSlice s) {
+            add(s.charAt(0));
+        }
+
+        @Override
+        void appendNull() {
+            nulls.set(size);
+            add((char) 0);
+        }
+
+        @Override
+        void appendAll(ColumnBuilder other, int count) {
+            if (size + count > data.length) data = Arrays.copyOf(data, size + count);
+            System.arraycopy(((CharBuilder) other).data, 0, data, size, count);
+            copyNulls(other, count);
+            size += count;
+        }
+
+        @Override
+        ValueVector build() {
+            char[] vector = data.length == size ? data : Arrays.copyOf(data, size);
+            if (nullable()) {
+                return new NullableCharVector(field(DataTypes.NullableCharType), vector, nulls);
+            }
+            return new CharVector(field, vector);
+        }
+    }
+
+    /** Byte column builder. */
+    static class ByteBuilder extends ColumnBuilder {
+        byte[] data;
+
+        ByteBuilder(StructField field, int capacity) {
+            super(field);
+            data = new byte[capacity];
+        }
+
+        private void add(byte x) {
+            if (size == data.length) data = Arrays.copyOf(data, grow(size));
+            data[size++] = x;
+        }
+
+        @Override
+        void append(CharSlice s) {
+            if (field.measure() != null) {
+                add(((Number) field.valueOf(s.toString())).byteValue());
+            } else {
+                int x = s.parseInt();
+                if (x < Byte.MIN_VALUE || x > Byte.MAX_VALUE) {
+                    throw new NumberFormatException("Value out of range. Value:\"" + s + "\"");
+                }
+                add((byte) x);
+            }
+        }
+
+        @Override
+        void appendNull() {
+            nulls.set(size);
+            add(Byte.MIN_VALUE);
+        }
+
+        @Override
+        void appendAll(ColumnBuilder other, int count) {
+            if (size + count > data.length) data = Arrays.copyOf(data, size + count);
+            System.arraycopy(((ByteBuilder) other).data, 0, data, size, count);
+            copyNulls(other, count);
+            size += count;
+        }
+
+        @Override
+        ValueVector build() {
+            byte[] vector = data.length == size ? data : Arrays.copyOf(data, size);
+            if (nullable()) {
+                return new NullableByteVector(field(DataTypes.NullableByteType), vector, nulls);
+            }
+            return new ByteVector(field, vector);
+        }
+    }
+
+    /** Short column builder. */
+    static class ShortBuilder extends ColumnBuilder {
+        short[] data;
+
+        ShortBuilder(StructField field, int capacity) {
+            super(field);
+            data = new short[capacity];
+        }
+
+        private void add(short x) {
+            if (size == data.length) data = Arrays.copyOf(data, grow(size));
+            data[size++] = x;
+        }
+
+        @Override
+        void append(CharSlice s) {
+            if (field.measure() != null) {
+                add(((Number) field.valueOf(s.toString())).shortValue());
+            } else {
+                int x = s.parseInt();
+                if (x < Short.MIN_VALUE || x > Short.MAX_VALUE) {
+                    throw new NumberFormatException("Value out of range. Value:\"" + s + "\"");
+                }
+                add((short) x);
+            }
+        }
+
+        @Override
+        void appendNull() {
+            nulls.set(size);
+            add(Short.MIN_VALUE);
+        }
+
+        @Override
+        void appendAll(ColumnBuilder other, int count) {
+            if (size + count > data.length) data = Arrays.copyOf(data, size + count);
+            System.arraycopy(((ShortBuilder) other).data, 0, data, size, count);
+            copyNulls(other, count);
+            size += count;
+        }
+
+        @Override
+        ValueVector build() {
+            short[] vector = data.length == size ? data : Arrays.copyOf(data, size);
+            if (nullable()) {
+                return new NullableShortVector(field(DataTypes.NullableShortType), vector, nulls);
+            }
+            return new ShortVector(field, vector);
+        }
+    }
+
+    /** Integer column builder. */
+    static class IntBuilder extends ColumnBuilder {
+        int[] data;
+
+        IntBuilder(StructField field, int capacity) {
+            super(field);
+            data = new int[capacity];
+        }
+
+        private void add(int x) {
+            if (size == data.length) data = Arrays.copyOf(data, grow(size));
+            data[size++] = x;
+        }
+
+        @Override
+        void append(CharSlice s) {
+            if (field.measure() != null) {
+                add(((Number) field.valueOf(s.toString())).intValue());
+            } else {
+                add(s.parseInt());
+            }
+        }
+
+        @Override
+        void appendNull() {
+            nulls.set(size);
+            add(Integer.MIN_VALUE);
+        }
+
+        @Override
+        void appendAll(ColumnBuilder other, int count) {
+            if (size + count > data.length) data = Arrays.copyOf(data, size + count);
+            System.arraycopy(((IntBuilder) other).data, 0, data, size, count);
+            copyNulls(other, count);
+            size += count;
+        }
+
+        @Override
+        ValueVector build() {
+            int[] vector = data.length == size ? data : Arrays.copyOf(data, size);
+            if (nullable()) {
+                return new NullableIntVector(field(DataTypes.NullableIntType), vector, nulls);
+            }
+            return new IntVector(field, vector);
+        }
+    }
+
+    /** Long column builder. */
+    static class LongBuilder extends ColumnBuilder {
+        long[] data;
+
+        LongBuilder(StructField field, int capacity) {
+            super(field);
+            data = new long[capacity];
+        }
+
+        private void add(long x) {
+            if (size == data.length) data = Arrays.copyOf(data, grow(size));
+            data[size++] = x;
+        }
+
+        @Override
+        void append(CharSlice s) {
+            if (field.measure() != null) {
+                add(((Number) field.valueOf(s.toString())).longValue());
+            } else {
+                add(s.parseLong());
+            }
+        }
+
+        @Override
+        void appendNull() {
+            nulls.set(size);
+            add(Long.MIN_VALUE);
+        }
+
+        @Override
+        void appendAll(ColumnBuilder other, int count) {
+            if (size + count > data.length) data = Arrays.copyOf(data, size + count);
+            System.arraycopy(((LongBuilder) other).data, 0, data, size, count);
+            copyNulls(other, count);
+            size += count;
+        }
+
+        @Override
+        ValueVector build() {
+            long[] vector = data.length == size ? data : Arrays.copyOf(data, size);
+            if (nullable()) {
+                return new NullableLongVector(field(DataTypes.NullableLongType), vector, nulls);
+            }
+            return new LongVector(field, vector);
+        }
+    }
+
+    /** Float column builder. */
+    static class FloatBuilder extends ColumnBuilder {
+        float[] data;
+
+        FloatBuilder(StructField field, int capacity) {
+            super(field);
+            data = new float[capacity];
+        }
+
+        private void add(float x) {
+            if (size == data.length) data = Arrays.copyOf(data, grow(size));
+            data[size++] = x;
+        }
+
+        @Override
+        void append(CharSlice s) {
+            if (field.measure() != null) {
+                add(((Number) field.valueOf(s.toString())).floatValue());
+            } else {
+                add(s.parseFloat());
+            }
+        }
+
+        @Override
+        void appendNull() {
+            nulls.set(size);
+            add(Float.NaN);
+        }
+
+        @Override
+        void appendAll(ColumnBuilder other, int count) {
+            if (size + count > data.length) data = Arrays.copyOf(data, size + count);
+            System.arraycopy(((FloatBuilder) other).data, 0, data, size, count);
+            copyNulls(other, count);
+            size += count;
+        }
+
+        @Override
+        ValueVector build() {
+            float[] vector = data.length == size ? data : Arrays.copyOf(data, size);
+            if (nullable()) {
+                return new NullableFloatVector(field(DataTypes.NullableFloatType), vector, nulls);
+            }
+            return new FloatVector(field, vector);
+        }
+    }
+
+    /** Double column builder. */
+    static class DoubleBuilder extends ColumnBuilder {
+        double[] data;
+
+        DoubleBuilder(StructField field, int capacity) {
+            super(field);
+            data = new double[capacity];
+        }
+
+        private void add(double x) {
+            if (size == data.length) data = Arrays.copyOf(data, grow(size));
+            data[size++] = x;
+        }
+
+        @Override
+        void append(CharSlice s) {
+            if (field.measure() != null) {
+                add(((Number) field.valueOf(s.toString())).doubleValue());
+            } else {
+                add(s.parseDouble());
+            }
+        }
+
+        @Override
+        void appendNull() {
+            nulls.set(size);
+            add(Double.NaN);
+        }
+
+        @Override
+        void appendAll(ColumnBuilder other, int count) {
+            if (size + count > data.length) data = Arrays.copyOf(data, size + count);
+            System.arraycopy(((DoubleBuilder) other).data, 0, data, size, count);
+            copyNulls(other, count);
+            size += count;
+        }
+
+        @Override
+        ValueVector build() {
+            double[] vector = data.length == size ? data : Arrays.copyOf(data, size);
+            if (nullable()) {
+                return new NullableDoubleVector(field(DataTypes.NullableDoubleType), vector, nulls);
+            }
+            return new DoubleVector(field, vector);
+        }
+    }
+
+    /**
+     * String column builder. The repeated values of low cardinality
+     * columns share the same String object through a small intern table,
+     * which is bypassed once the number of distinct values gets large.
+     * Low cardinality columns are built as dictionary-encoded vectors.
+     */
+    static class TextBuilder extends ColumnBuilder {
+        /** The maximum number of distinct values to intern. */
+        static final int MAX_INTERN = 1 << 16;
+        String[] data;
+        /** Open addressing hash table of interned values. */
+        String[] table = new String[256];
+        /** The number of interned values. */
+        int distinct;
+
+        TextBuilder(StructField field, int capacity) {
+            super(field);
+            data = new String[capacity];
+        }
+
+        private void add(String x) {
+            if (size == data.length) data = Arrays.copyOf(data, grow(size));
+            data[size++] = x;
+        }
+
+        /**
+         * Returns the interned value of the text.
+         * @param s the text.
+         * @return the interned value.
+         */
+        private String intern(CharSlice s) {
+            if (table == null) return s.toString();
+
+            int mask = table.length - 1;
+            int i = s.contentHashCode() & mask;
+            for (String x = table[i]; x != null; x = table[i]) {
+                if (s.contentEquals(x)) return x;
+                i = (i + 1) & mask;
+            }
+
+            String x = s.toString();
+            if (++distinct > MAX_INTERN) {
+                // High cardinality column. Stop interning.
+                table = null;
+                return x;
+            }
+
+            table[i] = x;
+            if (distinct * 2 > table.length) {
+                String[] old = table;
+                table = new String[old.length * 2];
+                mask = table.length - 1;
+                for (String v : old) {
+                    if (v == null) continue;
+                    int j = v.hashCode() & mask;
+                    while (table[j] != null) j = (j + 1) & mask;
+                    table[j] = v;
+                }
+            }
+            return x;
+        }
+
+        @Override
+        void append(CharSlice s) {
+            add(intern(s));
+        }
+
+        @Override
+        void appendNull() {
+            nulls.set(size);
+            add(null);
+        }
+
+        @Override
+        void appendAll(ColumnBuilder other, int count) {
+            if (size + count > data.length) data = Arrays.copyOf(data, size + count);
+            System.arraycopy(((TextBuilder) other).data, 0, data, size, count);
+            if (((TextBuilder) other).table == null) table = null;
+            copyNulls(other, count);
+            size += count;
+        }
+
+        @Override
+        ValueVector build() {
+            String[] vector = data.length == size ? data : Arrays.copyOf(data, size);
+            if (table != null) {
+                return DictionaryVector.encode(field, vector);
+            }
+            return new StringVector(field, vector);
+        }
+    }
+
+    /**
+     * Date/time column builder. The values are stored as epoch days,
+     * nanoseconds of day or epoch seconds plus nanoseconds of second
+     * so that no java.time object is kept per row.
+     */
+    static class TemporalBuilder extends ColumnBuilder {
+        long[] data;
+        /** The nanoseconds of second of date-times, null for other types. */
+        int[] nanos;
+
+        TemporalBuilder(StructField field, int capacity) {
+            super(field);
+            data = new long[capacity];
+            if (field.dtype().id() == DataType.ID.DateTime) {
+                nanos = new int[capacity];
+            }
+        }
+
+        private void add(long x, int nano) {
+            if (size == data.length) {
+                data = Arrays.copyOf(data, grow(size));
+                if (nanos != null) nanos = Arrays.copyOf(nanos, data.length);
+            }
+            if (nanos != null) nanos[size] = nano;
+            data[size++] = x;
+        }
+
+        @Override
+        void append(CharSlice s) {
+            switch (field.valueOf(s.toString())) {
+                case LocalDate date -> add(date.toEpochDay(), 0);
+                case LocalTime time -> add(time.toNanoOfDay(), 0);
+                case LocalDateTime datetime -> add(datetime.toEpochSecond(ZoneOffset.UTC), datetime.getNano());
+                case Object x -> throw new IllegalStateException("Unexpected date/time value: " + x.getClass());
+            }
+        }
+
+        @Override
+        void appendNull() {
+            nulls.set(size);
+            add(0, 0);
+        }
+
+        @Override
+        void appendAll(ColumnBuilder other, int count) {
+            if (size + count > data.length) {
+                data = Arrays.copyOf(data, size + count);
+                if (nanos != null) nanos = Arrays.copyOf(nanos, size + count);
+            }
+            System.arraycopy(((TemporalBuilder) other).data, 0, data, size, count);
+            if (nanos != null) System.arraycopy(((TemporalBuilder) other).nanos, 0, nanos, size, count);
+            copyNulls(other, count);
+            size += count;
+        }
+
+        @Override
+        ValueVector build() {
+            long[] vector = data.length == size ? data : Arrays.copyOf(data, size);
+            return switch (field.dtype().id()) {
+                case Date -> {
+                    int[] days = new int[size];
+                    for (int i = 0; i < size; i++) days[i] = (int) vector[i];
+                    yield new DateVector(field, days, nulls);
+                }
+                case Time -> new TimeVector(field, vector, nulls);
+                default -> new DateTimeVector(field, vector, nanos.length == size ? nanos : Arrays.copyOf(nanos, size), nulls);
+            };
+        }
+    }
+
+    /** The builder of decimal and other object columns. */
+    static class ObjectBuilder extends ColumnBuilder {
+        Object[] data;
+
+        ObjectBuilder(StructField field, int capacity) {
+            super(field);
+            data = field.dtype().id() == DataType.ID.Decimal ? new BigDecimal[capacity] : new Object[capacity];
+        }
+
+        private void add(Object x) {
+            if (size == data.length) data = Arrays.copyOf(data, grow(size));
+            data[size++] = x;
+        }
+
+        @Override
+        void append(CharSlice s) {
+            add(field.valueOf(s.toString()));
+        }
+
+        @Override
+        void appendNull() {
+            nulls.set(size);
+            add(null);
+        }
+
+        @Override
+        void appendAll(ColumnBuilder other, int count) {
+            if (size + count > data.length) data = Arrays.copyOf(data, size + count);
+            System.arraycopy(((ObjectBuilder) other).data, 0, data, size, count);
+            copyNulls(other, count);
+            size += count;
+        }
+
+        @Override
+        ValueVector build() {
+            Object[] vector = data.length == size ? data : Arrays.copyOf(data, size);
+            if (vector instanceof BigDecimal[] decimals) {
+                return new NumberVector<>(field, decimals);
+            }
+            return new ObjectVector<>(field, vector);
+        }
+    }
+}
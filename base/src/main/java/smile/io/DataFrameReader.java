@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2010-2025 Haifeng Li. All rights reserved.
+ *
+ * Smile is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Smile is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Smile. If not, see <https://www.gnu.org/licenses/>.
+ */
+package smile.io;
+
+import java.util.Iterator;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.vector.ipc.ArrowReader;
+import org.apache.arrow.vector.types.pojo.Schema;
+import smile.data.DataFrame;
+import smile.data.type.StructType;
+
+/**
+ * An Arrow reader over a sequence of data frames, which feeds the
+ * data frames to the native dataset writer. The data frames are
+ * converted to record batches of bounded size one at a time.
+ *
+ * @author Haifeng Li
+ */
+final class DataFrameReader extends ArrowReader {
+    /** The schema of data frames. */
+    private final StructType schema;
+    /** The data frames. */
+    private final Iterator<DataFrame> frames;
+    /** The converter of data frames to record batches. */
+    private final Arrow arrow = new Arrow();
+    /** The number of rows in a record batch. */
+    private final int batch;
+    /** The current data frame. */
+    private DataFrame current;
+    /** The index of next row in the current data frame. */
+    private int offset;
+
+    /**
+     * Constructor.
+     * @param allocator the memory allocator of record batches.
+     * @param schema the schema of data frames.
+     * @param frames the data frames.
+     * @param batch the number of rows in a record batch.
+     */
+    DataFrameReader(BufferAllocator allocator, StructType schema, Iterator<DataFrame> frames, int batch) {
+        super(allocator);
+        this.schema = schema;
+        this.frames = frames;
+        this.batch = batch;
+    }
+
+    @Override
+    public boolean loadNextBatch() {
+        while (current == null || offset >= current.size()) {
+            if (!frames.hasNext()) {
+                return false;
+            }
+
+            current = frames.next();
+            offset = 0;
+            if (!schema.equals(current.schema())) {
+                throw new IllegalArgumentException("Incompatible schema: " + current.schema() + " vs " + schema);
+            }
+        }
+
+        prepareLoadNextBatch();
+        int count = Math.min(batch, current.size() - offset);
+        arrow.write(current, getVectorSchemaRoot(), offset, count);
+        offset += count;
+        return true;
+    }
+
+    @Override
+    public long bytesRead() {
+        return 0;
+    }
+
+    @Override
+    protected void closeReadSource() {
+        current = null;
+    }
+
+    @Override
+    protected Schema readSchema() {
+        return Arrow.toArrow(schema);
+    }
+}
@@ -20,11 +20,20 @@ import java.io.IOException;
 import java.net.URISyntaxException;
 import java.nio.file.Path;
 import java.time.*;
-import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
 
 import org.apache.arrow.memory.BufferAllocator;
 import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.dataset.file.DatasetFileWriter;
 import org.apache.arrow.dataset.file.FileFormat;
 import org.apache.arrow.dataset.file.FileSystemDatasetFactory;
 import org.apache.arrow.dataset.jni.NativeMemoryPool;
@@ -32,11 +41,10 @@ import org.apache.arrow.dataset.scanner.Scanner;
 import org.apache.arrow.dataset.scanner.ScanOptions;
 import org.apache.arrow.dataset.source.Dataset;
 import org.apache.arrow.dataset.source.DatasetFactory;
-import org.apache.arrow.vector.VectorSchemaRoot;
 import org.apache.arrow.vector.ipc.ArrowReader;
-import org.apache.arrow.vector.types.pojo.Schema;
 import smile.data.DataFrame;
-import smile.data.type.*;
+import smile.data.type.StructType;
+import smile.util.Index;
 
 /**
  * Apache Parquet is a columnar storage format that supports
@@ -72,11 +80,7 @@ public class Parquet {
      * @return the data frame.
      */
     public static DataFrame read(Path path, int limit) throws Exception {
-        String file = path.toAbsolutePath().toString();
-        // prefix slash on Windows
-        if (!file.startsWith("/")) file = "/" + file;
-        String uri = "file://" + file;
-        return read(uri, limit);
+        return read(uri(path), limit);
     }
 
     /**
@@ -98,33 +102,294 @@ public class Parquet {
      * @return the data frame.
      */
     public static DataFrame read(String uri, int limit) throws Exception {
-        ScanOptions options = new ScanOptions(32768); // batch size
-        try (BufferAllocator allocator = new RootAllocator(Long.MAX_VALUE);
-             DatasetFactory factory = new FileSystemDatasetFactory(allocator, NativeMemoryPool.getDefault(), FileFormat.PARQUET, uri);
-             Dataset dataset = factory.finish();
-             Scanner scanner = dataset.newScan(options);
-             ArrowReader reader = scanner.scanBatches()) {
-
-            int rowCount = 0;
-            Schema schema = factory.inspect();
-            StructType struct = Arrow.toStructType(schema);
-            List<DataFrame> frames = new ArrayList<>();
-            while (reader.loadNextBatch() && rowCount < limit) {
-                try (VectorSchemaRoot root = reader.getVectorSchemaRoot()) {
-                    DataFrame frame = Arrow.read(root);
-                    frames.add(frame);
-                    rowCount += frames.size();
+        return read(uri, new ReadOptions().withLimit(limit));
+    }
+
+    /**
+     * Reads a parquet file with column projection, row filter and limit.
+     * @param path the input file path.
+     * @param options the read options.
+     * @throws Exception when fails to read the file.
+     * @return the data frame.
+     */
+    public static DataFrame read(Path path, ReadOptions options) throws Exception {
+        return read(uri(path), options);
+    }
+
+    /**
+     * Reads a parquet file or a directory of parquet files with column
+     * projection, row filter and limit. Only the selected columns are
+     * read from the storage.
+     * @param uri the input file or directory URI.
+     * @param options the read options.
+     * @throws Exception when fails to read the file.
+     * @return the data frame.
+     */
+    public static DataFrame read(String uri, ReadOptions options) throws Exception {
+        return batches(uri, options).collect();
+    }
+
+    /**
+     * Reads multiple parquet files in parallel. The files are scanned
+     * concurrently and the results are concatenated in the order of files.
+     * The files must have the same schema. The limit applies to the total
+     * number of rows.
+     * @param uris the input file URIs.
+     * @param options the read options.
+     * @throws Exception when fails to read the files.
+     * @return the data frame.
+     */
+    public static DataFrame read(List<String> uris, ReadOptions options) throws Exception {
+        if (uris.isEmpty()) {
+            throw new IllegalArgumentException("Empty file list");
+        }
+
+        DataFrame[] frames;
+        try {
+            frames = uris.parallelStream().map(uri -> {
+                try {
+                    return read(uri, options);
+                } catch (Exception ex) {
+                    throw new CompletionException(ex);
+                }
+            }).toArray(DataFrame[]::new);
+        } catch (CompletionException ex) {
+            throw (Exception) ex.getCause();
+        }
+
+        DataFrame df = frames.length == 1 ? frames[0] : frames[0].concat(Arrays.copyOfRange(frames, 1, frames.length));
+        return df.size() > options.limit() ? df.get(Index.range(0, options.limit())) : df;
+    }
+
+    /**
+     * Returns the record batches of a parquet file as data frames, which
+     * are scanned lazily. The stream should be closed after use, e.g. in
+     * a try-with-resources statement, unless it is consumed to the end.
+     * @param path the input file path.
+     * @param options the read options.
+     * @return the stream of data frames.
+     */
+    public static Stream<DataFrame> stream(Path path, ReadOptions options) {
+        return stream(uri(path), options);
+    }
+
+    /**
+     * Returns the record batches of a parquet file or a directory of
+     * parquet files as data frames, which are scanned lazily. The stream
+     * should be closed after use, e.g. in a try-with-resources statement,
+     * unless it is consumed to the end.
+     * @param uri the input file or directory URI.
+     * @param options the read options.
+     * @return the stream of data frames.
+     */
+    public static Stream<DataFrame> stream(String uri, ReadOptions options) {
+        return batches(uri, options).stream();
+    }
+
+    /**
+     * Returns the URI of a file path.
+     * @param path the file path.
+     * @return the URI.
+     */
+    private static String uri(Path path) {
+        String file = path.toAbsolutePath().toString();
+        // prefix slash on Windows
+        if (!file.startsWith("/")) file = "/" + file;
+        return "file://" + file;
+    }
+
+    /**
+     * Returns the iterator of record batches. The column projection
+     * is pushed into the dataset scanner so that the other columns
+     * are not read.
+     * @param uri the input file or directory URI.
+     * @param options the read options.
+     * @return the iterator of record batches.
+     */
+    private static ArrowBatches batches(String uri, ReadOptions options) {
+        ScanOptions scanOptions = new ScanOptions(options.batch(), Optional.ofNullable(options.columns()));
+        BufferAllocator allocator = new RootAllocator(Long.MAX_VALUE);
+        DatasetFactory factory = null;
+        Dataset dataset = null;
+        Scanner scanner = null;
+        try {
+            factory = new FileSystemDatasetFactory(allocator, NativeMemoryPool.getDefault(), FileFormat.PARQUET, uri);
+            dataset = factory.finish();
+            scanner = dataset.newScan(scanOptions);
+            ArrowReader reader = scanner.scanBatches();
+            return new ArrowBatches(reader, null, options, allocator, factory, dataset, scanner);
+        } catch (RuntimeException ex) {
+            for (AutoCloseable resource : new AutoCloseable[]{scanner, dataset, factory, allocator}) {
+                try {
+                    if (resource != null) resource.close();
+                } catch (Exception e) {
+                    ex.addSuppressed(e);
+                }
+            }
+            throw ex;
+        }
+    }
+
+    /**
+     * Writes a data frame to a directory of parquet files with the
+     * native dataset writer. The data frame is converted to record
+     * batches of bounded size on the fly.
+     * @param data the data frame.
+     * @param dir the output directory.
+     * @param options the write options.
+     * @throws IOException when fails to write the files.
+     */
+    public static void write(DataFrame data, Path dir, WriteOptions options) throws IOException {
+        write(data.schema(), List.of(data).iterator(), dir, options);
+    }
+
+    /**
+     * Returns a writer that appends data frames to a directory of
+     * parquet files. The writer must be closed to finish the files.
+     * @param schema the schema of data frames.
+     * @param dir the output directory.
+     * @param options the write options.
+     * @return the writer.
+     */
+    public static Writer writer(StructType schema, Path dir, WriteOptions options) {
+        return new Writer(schema, dir, options);
+    }
+
+    /**
+     * Writes a sequence of data frames to a directory of parquet files.
+     * @param schema the schema of data frames.
+     * @param frames the data frames.
+     * @param dir the output directory.
+     * @param options the write options.
+     * @throws IOException when fails to write the files.
+     */
+    private static void write(StructType schema, Iterator<DataFrame> frames, Path dir, WriteOptions options) throws IOException {
+        try (BufferAllocator allocator = new RootAllocator(Long.MAX_VALUE)) {
+            // The reader is exported to the native writer,
+            // which closes it when the stream is released.
+            DataFrameReader reader = new DataFrameReader(allocator, schema, frames, options.batch());
+            DatasetFileWriter.write(allocator, reader, FileFormat.PARQUET, uri(dir),
+                    options.partitionBy(), options.maxPartitions(), options.basename());
+        } catch (RuntimeException ex) {
+            throw new IOException("Failed to write parquet files to " + dir, ex);
+        }
+    }
+
+    /**
+     * A writer that appends data frames of the same schema to a directory
+     * of parquet files. The data frames are passed to the native dataset
+     * writer running in a background thread through a bounded queue so
+     * that only a few batches are held in memory at any time.
+     *
+     * @author Haifeng Li
+     */
+    public static class Writer implements AutoCloseable {
+        /** The marker of the end of data. */
+        private static final Object END = new Object();
+        /** The schema of data frames. */
+        private final StructType schema;
+        /** The queue of data frames to write. */
+        private final BlockingQueue<Object> queue = new ArrayBlockingQueue<>(2);
+        /** The background thread of native writer. */
+        private final Thread thread;
+        /** The error of native writer. */
+        private volatile Throwable error;
+        /** True if the writer has been closed. */
+        private boolean closed;
+
+        /**
+         * Constructor.
+         * @param schema the schema of data frames.
+         * @param dir the output directory.
+         * @param options the write options.
+         */
+        Writer(StructType schema, Path dir, WriteOptions options) {
+            this.schema = schema;
+            Iterator<DataFrame> frames = new Iterator<>() {
+                private Object next;
+
+                @Override
+                public boolean hasNext() {
+                    if (next == null) {
+                        try {
+                            next = queue.take();
+                        } catch (InterruptedException ex) {
+                            Thread.currentThread().interrupt();
+                            throw new IllegalStateException("Interrupted while waiting for data", ex);
+                        }
+                    }
+                    return next != END;
+                }
+
+                @Override
+                public DataFrame next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    DataFrame data = (DataFrame) next;
+                    next = null;
+                    return data;
+                }
+            };
+
+            thread = Thread.ofPlatform().name("smile-parquet-writer").daemon().start(() -> {
+                try {
+                    Parquet.write(schema, frames, dir, options);
+                } catch (Throwable t) {
+                    error = t;
+                    queue.clear();
                 }
+            });
+        }
+
+        /**
+         * Appends a data frame.
+         * @param data the data frame.
+         * @throws IOException when fails to write the files.
+         */
+        public void write(DataFrame data) throws IOException {
+            if (closed) {
+                throw new IllegalStateException("Writer is closed");
+            }
+            if (!schema.equals(data.schema())) {
+                throw new IllegalArgumentException("Incompatible schema: " + data.schema() + " vs " + schema);
+            }
+
+            try {
+                while (!queue.offer(data, 100, TimeUnit.MILLISECONDS)) {
+                    if (!thread.isAlive()) break;
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while writing parquet files", ex);
             }
+            checkError();
+        }
 
-            if (frames.isEmpty()) {
-                throw new IllegalStateException("No record batch");
-            } else if (frames.size() == 1) {
-                return frames.getFirst();
-            } else {
-                DataFrame df = frames.getFirst();
-                return df.concat(frames.subList(1, frames.size()).toArray(new DataFrame[frames.size() - 1]));
+        @Override
+        public void close() throws IOException {
+            if (closed) return;
+            closed = true;
+            try {
+                while (!queue.offer(END, 100, TimeUnit.MILLISECONDS)) {
+                    if (!thread.isAlive()) break;
+                }
+                thread.join();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while closing parquet writer", ex);
             }
+            checkError();
+        }
+
+        /**
+         * Throws the error of native writer if any.
+         * @throws IOException the error of native writer.
+         */
+        private void checkError() throws IOException {
+            Throwable t = error;
+            if (t instanceof IOException ex) throw ex;
+            if (t != null) throw new IOException("Failed to write parquet files", t);
         }
     }
 }
@@ -16,6 +16,7 @@
  */
 package smile.io;
 
+import java.io.BufferedInputStream;
 import java.io.BufferedReader;
 import java.io.InputStream;
 import java.io.IOException;
@@ -50,12 +51,9 @@ public interface Read {
      * @throws ClassNotFoundException when fails to load the class.
      */
     static Object object(Path path) throws IOException, ClassNotFoundException {
-        InputStream file = Files.newInputStream(path);
-        ObjectInputStream in = new ObjectInputStream(file);
-        Object o = in.readObject();
-        in.close();
-        file.close();
-        return o;
+        try (var in = new ObjectInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            return in.readObject();
+        }
     }
 
     /**
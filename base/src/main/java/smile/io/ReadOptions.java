@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2010-2025 Haifeng Li. All rights reserved.
+ *
+ * Smile is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Smile is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Smile. If not, see <https://www.gnu.org/licenses/>.
+ */
+package smile.io;
+
+import java.util.function.Predicate;
+import smile.data.Tuple;
+
+/**
+ * The options of columnar file readers such as Parquet and Arrow.
+ *
+ * @param columns the columns to read, or null to read all columns.
+ *                The unselected columns are not decoded. For Parquet
+ *                files, they are not even read from the storage.
+ * @param filter the row filter, or null to keep all rows. The filter
+ *               is evaluated on each record batch right after decoding
+ *               so that the rejected rows are never accumulated. It
+ *               sees only the selected columns.
+ * @param limit the maximum number of rows to read. The reader stops
+ *              scanning once the limit is reached.
+ * @param batch the number of rows in a record batch when scanning
+ *              Parquet files. Arrow IPC streams keep the record
+ *              batches as written.
+ * @author Haifeng Li
+ */
+public record ReadOptions(String[] columns, Predicate<Tuple> filter, int limit, int batch) {
+    /** The default number of rows in a record batch. */
+    public static final int DEFAULT_BATCH = 32768;
+
+    /** Constructor. */
+    public ReadOptions {
+        if (columns != null && columns.length == 0) {
+            throw new IllegalArgumentException("Empty column projection");
+        }
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Invalid limit: " + limit);
+        }
+        if (batch <= 0) {
+            throw new IllegalArgumentException("Invalid batch size: " + batch);
+        }
+    }
+
+    /**
+     * Constructor to read all columns and rows.
+     */
+    public ReadOptions() {
+        this(null, null, Integer.MAX_VALUE, DEFAULT_BATCH);
+    }
+
+    /**
+     * Constructor to read selected columns.
+     * @param columns the columns to read.
+     */
+    public ReadOptions(String... columns) {
+        this(columns, null, Integer.MAX_VALUE, DEFAULT_BATCH);
+    }
+
+    /**
+     * Returns a copy of options with the column projection.
+     * @param columns the columns to read.
+     * @return the new options.
+     */
+    public ReadOptions withColumns(String... columns) {
+        return new ReadOptions(columns, filter, limit, batch);
+    }
+
+    /**
+     * Returns a copy of options with the row filter.
+     * @param filter the row filter.
+     * @return the new options.
+     */
+    public ReadOptions withFilter(Predicate<Tuple> filter) {
+        return new ReadOptions(columns, filter, limit, batch);
+    }
+
+    /**
+     * Returns a copy of options with the row limit.
+     * @param limit the maximum number of rows to read.
+     * @return the new options.
+     */
+    public ReadOptions withLimit(int limit) {
+        return new ReadOptions(columns, filter, limit, batch);
+    }
+
+    /**
+     * Returns a copy of options with the batch size.
+     * @param batch the number of rows in a record batch.
+     * @return the new options.
+     */
+    public ReadOptions withBatch(int batch) {
+        return new ReadOptions(columns, filter, limit, batch);
+    }
+}
@@ -16,9 +16,9 @@
  */
 package smile.io;
 
+import java.io.BufferedOutputStream;
 import java.io.IOException;
 import java.io.ObjectOutputStream;
-import java.io.OutputStream;
 import java.io.Serializable;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -52,11 +52,9 @@ public interface Write {
      * @throws IOException when fails to write the stream.
      */
     static void object(Serializable o, Path path) throws IOException {
-        OutputStream file = Files.newOutputStream(path);
-        ObjectOutputStream out = new ObjectOutputStream(file);
-        out.writeObject(o);
-        out.close();
-        file.close();
+        try (var out = new ObjectOutputStream(new BufferedOutputStream(Files.newOutputStream(path)))) {
+            out.writeObject(o);
+        }
     }
 
     /**
@@ -99,6 +97,30 @@ public interface Write {
         arrow.write(data, path);
     }
 
+    /**
+     * Writes a data frame to a directory of Apache Parquet files.
+     *
+     * @param data the data frame.
+     * @param dir the output directory.
+     * @throws IOException when fails to write the files.
+     */
+    static void parquet(DataFrame data, Path dir) throws IOException {
+        Parquet.write(data, dir, new WriteOptions());
+    }
+
+    /**
+     * Writes a data frame to a directory of Apache Parquet files,
+     * optionally partitioned by columns.
+     *
+     * @param data the data frame.
+     * @param dir the output directory.
+     * @param options the write options.
+     * @throws IOException when fails to write the files.
+     */
+    static void parquet(DataFrame data, Path dir, WriteOptions options) throws IOException {
+        Parquet.write(data, dir, options);
+    }
+
     /**
      * Writes the data frame to an ARFF file.
      *
@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2010-2025 Haifeng Li. All rights reserved.
+ *
+ * Smile is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Smile is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Smile. If not, see <https://www.gnu.org/licenses/>.
+ */
+package smile.io;
+
+/**
+ * The options of Parquet dataset writer.
+ *
+ * @param partitionBy the columns to partition the output by. The rows
+ *                    are written to hive-style directories, e.g.
+ *                    {@code country=US/part-0.parquet}, and the partition
+ *                    columns are not stored in the files. Empty for no
+ *                    partitioning.
+ * @param maxPartitions the maximum number of partitions that a batch
+ *                      may be written into.
+ * @param basename the template of file names, which must contain
+ *                 the placeholder {@code {i}} for the file index.
+ * @param batch the number of rows in a record batch passed to the
+ *              native writer, which bounds the extra memory of writing.
+ * @author Haifeng Li
+ */
+public record WriteOptions(String[] partitionBy, int maxPartitions, String basename, int batch) {
+    /** Constructor. */
+    public WriteOptions {
+        if (partitionBy == null) {
+            partitionBy = new String[0];
+        }
+        if (maxPartitions <= 0) {
+            throw new IllegalArgumentException("Invalid maximum number of partitions: " + maxPartitions);
+        }
+        if (basename == null || !basename.contains("{i}")) {
+            throw new IllegalArgumentException("Invalid file name template: " + basename);
+        }
+        if (batch <= 0) {
+            throw new IllegalArgumentException("Invalid batch size: " + batch);
+        }
+    }
+
+    /**
+     * Constructor with default options.
+     */
+    public WriteOptions() {
+        this(new String[0], 1024, "part-{i}.parquet", ReadOptions.DEFAULT_BATCH);
+    }
+
+    /**
+     * Returns a copy of options with the partition columns.
+     * @param columns the columns to partition the output by.
+     * @return the new options.
+     */
+    public WriteOptions withPartitionBy(String... columns) {
+        return new WriteOptions(columns, maxPartitions, basename, batch);
+    }
+
+    /**
+     * Returns a copy of options with the maximum number of partitions.
+     * @param maxPartitions the maximum number of partitions.
+     * @return the new options.
+     */
+    public WriteOptions withMaxPartitions(int maxPartitions) {
+        return new WriteOptions(partitionBy, maxPartitions, basename, batch);
+    }
+
+    /**
+     * Returns a copy of options with the file name template.
+     * @param basename the template of file names.
+     * @return the new options.
+     */
+    public WriteOptions withBasename(String basename) {
+        return new WriteOptions(partitionBy, maxPartitions, basename, batch);
+    }
+
+    /**
+     * Returns a copy of options with the batch size.
+     * @param batch the number of rows in a record batch.
+     * @return the new options.
+     */
+    public WriteOptions withBatch(int batch) {
+        return new WriteOptions(partitionBy, maxPartitions, basename, batch);
+    }
+}
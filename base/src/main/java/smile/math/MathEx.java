@@ -2750,14 +2750,7 @@ public class MathEx {
             }
         }
 
-        double sum = 0.0;
-        for (int i = 0; i < a.length; i++) {
-            // convert x and y for better precision
-            double d = (double) a[i] - (double) b[i];
-            sum += d * d;
-        }
-
-        return sum;
+        return VectorMath.OPS.squaredDistance(a, b);
     }
 
     /**
@@ -2795,13 +2788,7 @@ public class MathEx {
             }
         }
 
-        double sum = 0.0;
-        for (int i = 0; i < a.length; i++) {
-            double d = a[i] - b[i];
-            sum += d * d;
-        }
-
-        return sum;
+        return VectorMath.OPS.squaredDistance(a, b);
     }
 
     /**
@@ -3362,12 +3349,7 @@ public class MathEx {
             throw new IllegalArgumentException("Arrays have different length.");
         }
 
-        float sum = 0.0F;
-        for (int i = 0; i < a.length; i++) {
-            sum += a[i] * b[i];
-        }
-
-        return sum;
+        return VectorMath.OPS.dot(a, b);
     }
 
     /**
@@ -3381,12 +3363,7 @@ public class MathEx {
             throw new IllegalArgumentException("Arrays have different length.");
         }
 
-        double sum = 0.0;
-        for (int i = 0; i < a.length; i++) {
-            sum += a[i] * b[i];
-        }
-
-        return sum;
+        return VectorMath.OPS.dot(a, b);
     }
 
     /**
@@ -4094,7 +4071,7 @@ public class MathEx {
      * @return the cosine similarity.
      */
     public static float cosine(float[] a, float[] b) {
-        return dot(a, b) / (norm2(a) * norm2(b));
+        return (float) VectorMath.cosine(a, b);
     }
 
     /**
@@ -4104,7 +4081,7 @@ public class MathEx {
      * @return the cosine similarity.
      */
     public static double cosine(double[] a, double[] b) {
-        return dot(a, b) / (norm2(a) * norm2(b));
+        return VectorMath.cosine(a, b);
     }
 
     /**
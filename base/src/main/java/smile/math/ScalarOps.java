@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2010-2025 Haifeng Li. All rights reserved.
+ *
+ * Smile is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Smile is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Smile. If not, see <https://www.gnu.org/licenses/>.
+ */
+package smile.math;
+
+/**
+ * The scalar implementation of vector primitives.
+ *
+ * @author Haifeng Li
+ */
+class ScalarOps implements VectorMath.Ops {
+    /** Constructor. */
+    ScalarOps() {
+
+    }
+
+    @Override
+    public double squaredDistance(double[] a, double[] b) {
+        double sum = 0.0;
+        for (int i = 0; i < a.length; i++) {
+            double d = a[i] - b[i];
+            sum += d * d;
+        }
+        return sum;
+    }
+
+    @Override
+    public double squaredDistance(float[] a, float[] b) {
+        double sum = 0.0;
+        for (int i = 0; i < a.length; i++) {
+            // convert x and y for better precision
+            double d = (double) a[i] - (double) b[i];
+            sum += d * d;
+        }
+        return sum;
+    }
+
+    @Override
+    public double dot(double[] a, double[] b) {
+        double sum = 0.0;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+
+    @Override
+    public float dot(float[] a, float[] b) {
+        float sum = 0.0F;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+
+    @Override
+    public int dot(int[] a, int[] b) {
+        int sum = 0;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+
+    @Override
+    public double l1(double[] a, double[] b) {
+        double sum = 0.0;
+        for (int i = 0; i < a.length; i++) {
+            sum += Math.abs(a[i] - b[i]);
+        }
+        return sum;
+    }
+
+    @Override
+    public double l1(float[] a, float[] b) {
+        double sum = 0.0;
+        for (int i = 0; i < a.length; i++) {
+            sum += Math.abs((double) a[i] - (double) b[i]);
+        }
+        return sum;
+    }
+
+    @Override
+    public double cosine(double[] a, double[] b) {
+        double ab = 0.0, aa = 0.0, bb = 0.0;
+        for (int i = 0; i < a.length; i++) {
+            ab += a[i] * b[i];
+            aa += a[i] * a[i];
+            bb += b[i] * b[i];
+        }
+        return ab / Math.sqrt(aa * bb);
+    }
+
+    @Override
+    public double cosine(float[] a, float[] b) {
+        double ab = 0.0, aa = 0.0, bb = 0.0;
+        for (int i = 0; i < a.length; i++) {
+            ab += (double) a[i] * b[i];
+            aa += (double) a[i] * a[i];
+            bb += (double) b[i] * b[i];
+        }
+        return ab / Math.sqrt(aa * bb);
+    }
+
+    @Override
+    public int hamming(long[] a, long[] b) {
+        int sum = 0;
+        for (int i = 0; i < a.length; i++) {
+            sum += Long.bitCount(a[i] ^ b[i]);
+        }
+        return sum;
+    }
+
+    @Override
+    public void squaredDistance(double[] q, double[][] data, double[] out) {
+        for (int i = 0; i < data.length; i++) {
+            out[i] = squaredDistance(q, data[i]);
+        }
+    }
+
+    @Override
+    public void squaredDistance(float[] q, float[][] data, double[] out) {
+        for (int i = 0; i < data.length; i++) {
+            out[i] = squaredDistance(q, data[i]);
+        }
+    }
+
+    @Override
+    public void dot(double[] q, double[][] data, double[] out) {
+        for (int i = 0; i < data.length; i++) {
+            out[i] = dot(q, data[i]);
+        }
+    }
+
+    @Override
+    public void dot(float[] q, float[][] data, float[] out) {
+        for (int i = 0; i < data.length; i++) {
+            out[i] = dot(q, data[i]);
+        }
+    }
+}
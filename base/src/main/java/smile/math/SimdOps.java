@@ -0,0 +1,465 @@
+/*
+ * Copyright (c) 2010-2025 Haifeng Li. All rights reserved.
+ *
+ * Smile is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Smile is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Smile. If not, see <https://www.gnu.org/licenses/>.
+ */
+package smile.math;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * The implementation of vector primitives with the Java Vector API.
+ * The main loops run on the preferred species of the platform and the
+ * tails are processed by scalar loops. The float vectors are widened to
+ * double lanes for the distances and cosine, which are accumulated in
+ * double precision as the scalar implementation does. Only the float dot
+ * product is accumulated in float lanes. This class must be loaded only
+ * if the incubator module
+ * jdk.incubator.vector is available.
+ *
+ * @author Haifeng Li
+ */
+class SimdOps implements VectorMath.Ops {
+    /** The species of double vectors. */
+    private static final VectorSpecies<Double> D = DoubleVector.SPECIES_PREFERRED;
+    /** The species of float vectors. */
+    private static final VectorSpecies<Float> F = FloatVector.SPECIES_PREFERRED;
+    /** The species of float vectors that are widened to the double species. */
+    private static final VectorSpecies<Float> H = FloatVector.SPECIES_PREFERRED.withShape(VectorShape.forBitSize(D.vectorBitSize() / 2));
+    /** The species of int vectors. */
+    private static final VectorSpecies<Integer> I = IntVector.SPECIES_PREFERRED;
+    /** The species of long vectors. */
+    private static final VectorSpecies<Long> L = LongVector.SPECIES_PREFERRED;
+
+    /** Constructor. */
+    SimdOps() {
+
+    }
+
+    /**
+     * Returns true if the platform has SIMD registers for at least
+     * two double lanes.
+     * @return true if the Vector API is beneficial.
+     */
+    static boolean isSupported() {
+        return D.length() >= 2;
+    }
+
+    /**
+     * Returns the description of preferred species.
+     * @return the description of preferred species.
+     */
+    static String species() {
+        return D.toString();
+    }
+
+    /**
+     * Loads a slice of float array and widens it to a double vector.
+     * @param a the float array.
+     * @param i the index of first element.
+     * @return the double vector.
+     */
+    private static DoubleVector widen(float[] a, int i) {
+        return (DoubleVector) FloatVector.fromArray(H, a, i).convertShape(VectorOperators.F2D, D, 0);
+    }
+
+    @Override
+    public double squaredDistance(double[] a, double[] b) {
+        int n = a.length;
+        int bound = D.loopBound(n);
+        var sum = DoubleVector.zero(D);
+        int i = 0;
+        for (; i < bound; i += D.length()) {
+            var d = DoubleVector.fromArray(D, a, i).sub(DoubleVector.fromArray(D, b, i));
+            sum = sum.add(d.mul(d));
+        }
+
+        double s = sum.reduceLanes(VectorOperators.ADD);
+        for (; i < n; i++) {
+            double d = a[i] - b[i];
+            s += d * d;
+        }
+        return s;
+    }
+
+    @Override
+    public double squaredDistance(float[] a, float[] b) {
+        int n = a.length;
+        int bound = D.loopBound(n);
+        var sum = DoubleVector.zero(D);
+        int i = 0;
+        for (; i < bound; i += D.length()) {
+            var d = widen(a, i).sub(widen(b, i));
+            sum = sum.add(d.mul(d));
+        }
+
+        double s = sum.reduceLanes(VectorOperators.ADD);
+        for (; i < n; i++) {
+            double d = (double) a[i] - (double) b[i];
+            s += d * d;
+        }
+        return s;
+    }
+
+    @Override
+    public double dot(double[] a, double[] b) {
+        int n = a.length;
+        int bound = D.loopBound(n);
+        var sum = DoubleVector.zero(D);
+        int i = 0;
+        for (; i < bound; i += D.length()) {
+            sum = sum.add(DoubleVector.fromArray(D, a, i).mul(DoubleVector.fromArray(D, b, i)));
+        }
+
+        double s = sum.reduceLanes(VectorOperators.ADD);
+        for (; i < n; i++) {
+            s += a[i] * b[i];
+        }
+        return s;
+    }
+
+    @Override
+    public float dot(float[] a, float[] b) {
+        int n = a.length;
+        int bound = F.loopBound(n);
+        var sum = FloatVector.zero(F);
+        int i = 0;
+        for (; i < bound; i += F.length()) {
+            sum = sum.add(FloatVector.fromArray(F, a, i).mul(FloatVector.fromArray(F, b, i)));
+        }
+
+        float s = sum.reduceLanes(VectorOperators.ADD);
+        for (; i < n; i++) {
+            s += a[i] * b[i];
+        }
+        return s;
+    }
+
+    @Override
+    public int dot(int[] a, int[] b) {
+        int n = a.length;
+        int bound = I.loopBound(n);
+        var sum = IntVector.zero(I);
+        int i = 0;
+        for (; i < bound; i += I.length()) {
+            sum = sum.add(IntVector.fromArray(I, a, i).mul(IntVector.fromArray(I, b, i)));
+        }
+
+        int s = sum.reduceLanes(VectorOperators.ADD);
+        for (; i < n; i++) {
+            s += a[i] * b[i];
+        }
+        return s;
+    }
+
+    @Override
+    public double l1(double[] a, double[] b) {
+        int n = a.length;
+        int bound = D.loopBound(n);
+        var sum = DoubleVector.zero(D);
+        int i = 0;
+        for (; i < bound; i += D.length()) {
+            sum = sum.add(DoubleVector.fromArray(D, a, i).sub(DoubleVector.fromArray(D, b, i)).abs());
+        }
+
+        double s = sum.reduceLanes(VectorOperators.ADD);
+        for (; i < n; i++) {
+            s += Math.abs(a[i] - b[i]);
+        }
+        return s;
+    }
+
+    @Override
+    public double l1(float[] a, float[] b) {
+        int n = a.length;
+        int bound = D.loopBound(n);
+        var sum = DoubleVector.zero(D);
+        int i = 0;
+        for (; i < bound; i += D.length()) {
+            sum = sum.add(widen(a, i).sub(widen(b, i)).abs());
+        }
+
+        double s = sum.reduceLanes(VectorOperators.ADD);
+        for (; i < n; i++) {
+            s += Math.abs((double) a[i] - (double) b[i]);
+        }
+        return s;
+    }
+
+    @Override
+    public double cosine(double[] a, double[] b) {
+        int n = a.length;
+        int bound = D.loopBound(n);
+        var ab = DoubleVector.zero(D);
+        var aa = DoubleVector.zero(D);
+        var bb = DoubleVector.zero(D);
+        int i = 0;
+        for (; i < bound; i += D.length()) {
+            var x = DoubleVector.fromArray(D, a, i);
+            var y = DoubleVector.fromArray(D, b, i);
+            ab = ab.add(x.mul(y));
+            aa = aa.add(x.mul(x));
+            bb = bb.add(y.mul(y));
+        }
+
+        double sab = ab.reduceLanes(VectorOperators.ADD);
+        double saa = aa.reduceLanes(VectorOperators.ADD);
+        double sbb = bb.reduceLanes(VectorOperators.ADD);
+        for (; i < n; i++) {
+            sab += a[i] * b[i];
+            saa += a[i] * a[i];
+            sbb += b[i] * b[i];
+        }
+        return sab / Math.sqrt(saa * sbb);
+    }
+
+    @Override
+    public double cosine(float[] a, float[] b) {
+        int n = a.length;
+        int bound = D.loopBound(n);
+        var ab = DoubleVector.zero(D);
+        var aa = DoubleVector.zero(D);
+        var bb = DoubleVector.zero(D);
+        int i = 0;
+        for (; i < bound; i += D.length()) {
+            var x = widen(a, i);
+            var y = widen(b, i);
+            ab = ab.add(x.mul(y));
+            aa = aa.add(x.mul(x));
+            bb = bb.add(y.mul(y));
+        }
+
+        double sab = ab.reduceLanes(VectorOperators.ADD);
+        double saa = aa.reduceLanes(VectorOperators.ADD);
+        double sbb = bb.reduceLanes(VectorOperators.ADD);
+        for (; i < n; i++) {
+            sab += (double) a[i] * b[i];
+            saa += (double) a[i] * a[i];
+            sbb += (double) b[i] * b[i];
+        }
+        return sab / Math.sqrt(saa * sbb);
+    }
+
+    @Override
+    public int hamming(long[] a, long[] b) {
+        int n = a.length;
+        int bound = L.loopBound(n);
+        var sum = LongVector.zero(L);
+        int i = 0;
+        for (; i < bound; i += L.length()) {
+            var x = LongVector.fromArray(L, a, i).lanewise(VectorOperators.XOR, LongVector.fromArray(L, b, i));
+            sum = sum.add(x.lanewise(VectorOperators.BIT_COUNT));
+        }
+
+        int s = (int) sum.reduceLanes(VectorOperators.ADD);
+        for (; i < n; i++) {
+            s += Long.bitCount(a[i] ^ b[i]);
+        }
+        return s;
+    }
+
+    @Override
+    public void squaredDistance(double[] q, double[][] data, double[] out) {
+        int n = q.length;
+        int bound = D.loopBound(n);
+        int m = data.length;
+        int r = 0;
+        // Four vectors at a time so that each slice of query is loaded once.
+        for (; r + 4 <= m; r += 4) {
+            double[] x0 = data[r], x1 = data[r + 1], x2 = data[r + 2], x3 = data[r + 3];
+            var s0 = DoubleVector.zero(D);
+            var s1 = DoubleVector.zero(D);
+            var s2 = DoubleVector.zero(D);
+            var s3 = DoubleVector.zero(D);
+            int i = 0;
+            for (; i < bound; i += D.length()) {
+                var v = DoubleVector.fromArray(D, q, i);
+                var d0 = v.sub(DoubleVector.fromArray(D, x0, i));
+                var d1 = v.sub(DoubleVector.fromArray(D, x1, i));
+                var d2 = v.sub(DoubleVector.fromArray(D, x2, i));
+                var d3 = v.sub(DoubleVector.fromArray(D, x3, i));
+                s0 = s0.add(d0.mul(d0));
+                s1 = s1.add(d1.mul(d1));
+                s2 = s2.add(d2.mul(d2));
+                s3 = s3.add(d3.mul(d3));
+            }
+
+            double t0 = s0.reduceLanes(VectorOperators.ADD);
+            double t1 = s1.reduceLanes(VectorOperators.ADD);
+            double t2 = s2.reduceLanes(VectorOperators.ADD);
+            double t3 = s3.reduceLanes(VectorOperators.ADD);
+            for (; i < n; i++) {
+                double d0 = q[i] - x0[i];
+                double d1 = q[i] - x1[i];
+                double d2 = q[i] - x2[i];
+                double d3 = q[i] - x3[i];
+                t0 += d0 * d0;
+                t1 += d1 * d1;
+                t2 += d2 * d2;
+                t3 += d3 * d3;
+            }
+            out[r] = t0;
+            out[r + 1] = t1;
+            out[r + 2] = t2;
+            out[r + 3] = t3;
+        }
+
+        for (; r < m; r++) {
+            out[r] = squaredDistance(q, data[r]);
+        }
+    }
+
+    @Override
+    public void squaredDistance(float[] q, float[][] data, double[] out) {
+        int n = q.length;
+        int bound = D.loopBound(n);
+        int m = data.length;
+        int r = 0;
+        // Four vectors at a time so that each slice of query is loaded once.
+        for (; r + 4 <= m; r += 4) {
+            float[] x0 = data[r], x1 = data[r + 1], x2 = data[r + 2], x3 = data[r + 3];
+            var s0 = DoubleVector.zero(D);
+            var s1 = DoubleVector.zero(D);
+            var s2 = DoubleVector.zero(D);
+            var s3 = DoubleVector.zero(D);
+            int i = 0;
+            for (; i < bound; i += D.length()) {
+                var v = widen(q, i);
+                var d0 = v.sub(widen(x0, i));
+                var d1 = v.sub(widen(x1, i));
+                var d2 = v.sub(widen(x2, i));
+                var d3 = v.sub(widen(x3, i));
+                s0 = s0.add(d0.mul(d0));
+                s1 = s1.add(d1.mul(d1));
+                s2 = s2.add(d2.mul(d2));
+                s3 = s3.add(d3.mul(d3));
+            }
+
+            double t0 = s0.reduceLanes(VectorOperators.ADD);
+            double t1 = s1.reduceLanes(VectorOperators.ADD);
+            double t2 = s2.reduceLanes(VectorOperators.ADD);
+            double t3 = s3.reduceLanes(VectorOperators.ADD);
+            for (; i < n; i++) {
+                double d0 = (double) q[i] - (double) x0[i];
+                double d1 = (double) q[i] - (double) x1[i];
+                double d2 = (double) q[i] - (double) x2[i];
+                double d3 = (double) q[i] - (double) x3[i];
+                t0 += d0 * d0;
+                t1 += d1 * d1;
+                t2 += d2 * d2;
+                t3 += d3 * d3;
+            }
+            out[r] = t0;
+            out[r + 1] = t1;
+            out[r + 2] = t2;
+            out[r + 3] = t3;
+        }
+
+        for (; r < m; r++) {
+            out[r] = squaredDistance(q, data[r]);
+        }
+    }
+
+    @Override
+    public void dot(double[] q, double[][] data, double[] out) {
+        int n = q.length;
+        int bound = D.loopBound(n);
+        int m = data.length;
+        int r = 0;
+        // Four vectors at a time so that each slice of query is loaded once.
+        for (; r + 4 <= m; r += 4) {
+            double[] x0 = data[r], x1 = data[r + 1], x2 = data[r + 2], x3 = data[r + 3];
+            var s0 = DoubleVector.zero(D);
+            var s1 = DoubleVector.zero(D);
+            var s2 = DoubleVector.zero(D);
+            var s3 = DoubleVector.zero(D);
+            int i = 0;
+            for (; i < bound; i += D.length()) {
+                var v = DoubleVector.fromArray(D, q, i);
+                s0 = s0.add(v.mul(DoubleVector.fromArray(D, x0, i)));
+                s1 = s1.add(v.mul(DoubleVector.fromArray(D, x1, i)));
+                s2 = s2.add(v.mul(DoubleVector.fromArray(D, x2, i)));
+                s3 = s3.add(v.mul(DoubleVector.fromArray(D, x3, i)));
+            }
+
+            double t0 = s0.reduceLanes(VectorOperators.ADD);
+            double t1 = s1.reduceLanes(VectorOperators.ADD);
+            double t2 = s2.reduceLanes(VectorOperators.ADD);
+            double t3 = s3.reduceLanes(VectorOperators.ADD);
+            for (; i < n; i++) {
+                t0 += q[i] * x0[i];
+                t1 += q[i] * x1[i];
+                t2 += q[i] * x2[i];
+                t3 += q[i] * x3[i];
+            }
+            out[r] = t0;
+            out[r + 1] = t1;
+            out[r + 2] = t2;
+            out[r + 3] = t3;
+        }
+
+        for (; r < m; r++) {
+            out[r] = dot(q, data[r]);
+        }
+    }
+
+    @Override
+    public void dot(float[] q, float[][] data, float[] out) {
+        int n = q.length;
+        int bound = F.loopBound(n);
+        int m = data.length;
+        int r = 0;
+        // Four vectors at a time so that each slice of query is loaded once.
+        for (; r + 4 <= m; r += 4) {
+            float[] x0 = data[r], x1 = data[r + 1], x2 = data[r + 2], x3 = data[r + 3];
+            var s0 = FloatVector.zero(F);
+            var s1 = FloatVector.zero(F);
+            var s2 = FloatVector.zero(F);
+            var s3 = FloatVector.zero(F);
+            int i = 0;
+            for (; i < bound; i += F.length()) {
+                var v = FloatVector.fromArray(F, q, i);
+                s0 = s0.add(v.mul(FloatVector.fromArray(F, x0, i)));
+                s1 = s1.add(v.mul(FloatVector.fromArray(F, x1, i)));
+                s2 = s2.add(v.mul(FloatVector.fromArray(F, x2, i)));
+                s3 = s3.add(v.mul(FloatVector.fromArray(F, x3, i)));
+            }
+
+            float t0 = s0.reduceLanes(VectorOperators.ADD);
+            float t1 = s1.reduceLanes(VectorOperators.ADD);
+            float t2 = s2.reduceLanes(VectorOperators.ADD);
+            float t3 = s3.reduceLanes(VectorOperators.ADD);
+            for (; i < n; i++) {
+                t0 += q[i] * x0[i];
+                t1 += q[i] * x1[i];
+                t2 += q[i] * x2[i];
+                t3 += q[i] * x3[i];
+            }
+            out[r] = t0;
+            out[r + 1] = t1;
+            out[r + 2] = t2;
+            out[r + 3] = t3;
+        }
+
+        for (; r < m; r++) {
+            out[r] = dot(q, data[r]);
+        }
+    }
+}
@@ -0,0 +1,311 @@
+/*
+ * Copyright (c) 2010-2025 Haifeng Li. All rights reserved.
+ *
+ * Smile is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Smile is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Smile. If not, see <https://www.gnu.org/licenses/>.
+ */
+package smile.math;
+
+/**
+ * The vectorized primitives of distance and similarity on dense arrays,
+ * which dominate nearest neighbor search, clustering and kernel methods.
+ * If the incubator module {@code jdk.incubator.vector} is available
+ * (e.g. the JVM is started with {@code --add-modules jdk.incubator.vector})
+ * and the hardware has SIMD registers, the primitives are implemented by
+ * the Java Vector API. Otherwise, they fall back to scalar loops. The
+ * implementation is selected once when this class is initialized. The
+ * vectorization can be disabled by the system property
+ * {@code smile.simd=false}.
+ * <p>
+ * The vectorized reductions sum the elements in a different order than
+ * the scalar loops. So the results may differ in the last bits.
+ * <p>
+ * The batch methods compute the distance or similarity between a query
+ * and many vectors. They process several vectors together so that each
+ * slice of query is loaded once per group of vectors.
+ *
+ * @author Haifeng Li
+ */
+public final class VectorMath {
+    private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(VectorMath.class);
+
+    /**
+     * The implementation of primitives. The arguments are validated
+     * by the callers.
+     */
+    interface Ops {
+        /** Returns the squared Euclidean distance. */
+        double squaredDistance(double[] a, double[] b);
+        /** Returns the squared Euclidean distance. */
+        double squaredDistance(float[] a, float[] b);
+        /** Returns the dot product. */
+        double dot(double[] a, double[] b);
+        /** Returns the dot product. */
+        float dot(float[] a, float[] b);
+        /** Returns the dot product. */
+        int dot(int[] a, int[] b);
+        /** Returns the L1 distance. */
+        double l1(double[] a, double[] b);
+        /** Returns the L1 distance. */
+        double l1(float[] a, float[] b);
+        /** Returns the cosine similarity. */
+        double cosine(double[] a, double[] b);
+        /** Returns the cosine similarity. */
+        double cosine(float[] a, float[] b);
+        /** Returns the Hamming distance of packed bits. */
+        int hamming(long[] a, long[] b);
+        /** Computes the squared Euclidean distance between a query and many vectors. */
+        void squaredDistance(double[] q, double[][] data, double[] out);
+        /** Computes the squared Euclidean distance between a query and many vectors. */
+        void squaredDistance(float[] q, float[][] data, double[] out);
+        /** Computes the dot product between a query and many vectors. */
+        void dot(double[] q, double[][] data, double[] out);
+        /** Computes the dot product between a query and many vectors. */
+        void dot(float[] q, float[][] data, float[] out);
+    }
+
+    /** The implementation of primitives. */
+    static final Ops OPS = select();
+
+    /** Private constructor to prevent instance creation. */
+    private VectorMath() {
+
+    }
+
+    /**
+     * Selects the implementation of primitives.
+     * @return the implementation.
+     */
+    private static Ops select() {
+        boolean enabled = Boolean.parseBoolean(System.getProperty("smile.simd", "true"));
+        if (enabled && ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            try {
+                if (SimdOps.isSupported()) {
+                    logger.info("Use Vector API for distance and dot product: {}", SimdOps.species());
+                    return new SimdOps();
+                }
+            } catch (LinkageError e) {
+                logger.debug("Vector API is not available: {}", e.getMessage());
+            }
+        }
+        return new ScalarOps();
+    }
+
+    /**
+     * Returns true if the primitives are implemented by the Vector API.
+     * @return true if the primitives are implemented by the Vector API.
+     */
+    public static boolean isVectorized() {
+        return !(OPS instanceof ScalarOps);
+    }
+
+    /** Throws an exception if the arrays have different length. */
+    private static void check(int n1, int n2) {
+        if (n1 != n2) {
+            throw new IllegalArgumentException(String.format("Arrays have different length: x[%d], y[%d]", n1, n2));
+        }
+    }
+
+    /** Throws an exception if the output array is too short. */
+    private static void check(Object[] data, int length) {
+        if (length < data.length) {
+            throw new IllegalArgumentException(String.format("Output array is too short: %d < %d", length, data.length));
+        }
+    }
+
+    /**
+     * Returns the squared Euclidean distance.
+     * @param a a vector.
+     * @param b a vector.
+     * @return the squared Euclidean distance.
+     */
+    public static double squaredDistance(double[] a, double[] b) {
+        check(a.length, b.length);
+        return OPS.squaredDistance(a, b);
+    }
+
+    /**
+     * Returns the squared Euclidean distance.
+     * @param a a vector.
+     * @param b a vector.
+     * @return the squared Euclidean distance.
+     */
+    public static double squaredDistance(float[] a, float[] b) {
+        check(a.length, b.length);
+        return OPS.squaredDistance(a, b);
+    }
+
+    /**
+     * Returns the dot product.
+     * @param a a vector.
+     * @param b a vector.
+     * @return the dot product.
+     */
+    public static double dot(double[] a, double[] b) {
+        check(a.length, b.length);
+        return OPS.dot(a, b);
+    }
+
+    /**
+     * Returns the dot product.
+     * @param a a vector.
+     * @param b a vector.
+     * @return the dot product.
+     */
+    public static float dot(float[] a, float[] b) {
+        check(a.length, b.length);
+        return OPS.dot(a, b);
+    }
+
+    /**
+     * Returns the dot product of dense integer vectors. Note that
+     * it is different from {@link MathEx#dot(int[], int[])}, which
+     * takes binary sparse arrays. The sum may overflow.
+     * @param a a vector.
+     * @param b a vector.
+     * @return the dot product.
+     */
+    public static int dot(int[] a, int[] b) {
+        check(a.length, b.length);
+        return OPS.dot(a, b);
+    }
+
+    /**
+     * Returns the L<sub>1</sub> (Manhattan) distance.
+     * @param a a vector.
+     * @param b a vector.
+     * @return the L<sub>1</sub> distance.
+     */
+    public static double l1(double[] a, double[] b) {
+        check(a.length, b.length);
+        return OPS.l1(a, b);
+    }
+
+    /**
+     * Returns the L<sub>1</sub> (Manhattan) distance.
+     * @param a a vector.
+     * @param b a vector.
+     * @return the L<sub>1</sub> distance.
+     */
+    public static double l1(float[] a, float[] b) {
+        check(a.length, b.length);
+        return OPS.l1(a, b);
+    }
+
+    /**
+     * Returns the cosine similarity, which is computed in a single pass.
+     * @param a a vector.
+     * @param b a vector.
+     * @return the cosine similarity.
+     */
+    public static double cosine(double[] a, double[] b) {
+        check(a.length, b.length);
+        return OPS.cosine(a, b);
+    }
+
+    /**
+     * Returns the cosine similarity, which is computed in a single pass.
+     * @param a a vector.
+     * @param b a vector.
+     * @return the cosine similarity.
+     */
+    public static double cosine(float[] a, float[] b) {
+        check(a.length, b.length);
+        return OPS.cosine(a, b);
+    }
+
+    /**
+     * Returns the Hamming distance between two bit strings packed
+     * in long arrays, e.g. the output of {@link java.util.BitSet#toLongArray()}.
+     * @param a a bit string.
+     * @param b a bit string.
+     * @return the number of different bits.
+     */
+    public static int hamming(long[] a, long[] b) {
+        check(a.length, b.length);
+        return OPS.hamming(a, b);
+    }
+
+    /**
+     * Returns the Gaussian kernel {@code exp(-gamma * ||a - b||^2)}.
+     * @param a a vector.
+     * @param b a vector.
+     * @param gamma the inverse of kernel width, i.e. {@code 1 / (2 * sigma^2)}.
+     * @return the kernel value.
+     */
+    public static double gaussian(double[] a, double[] b, double gamma) {
+        return Math.exp(-gamma * squaredDistance(a, b));
+    }
+
+    /**
+     * Computes the squared Euclidean distance between a query and many vectors.
+     * @param q the query vector.
+     * @param data the vectors.
+     * @param out the output array of distances.
+     */
+    public static void squaredDistance(double[] q, double[][] data, double[] out) {
+        check(data, out.length);
+        for (double[] x : data) check(q.length, x.length);
+        OPS.squaredDistance(q, data, out);
+    }
+
+    /**
+     * Computes the squared Euclidean distance between a query and many vectors.
+     * @param q the query vector.
+     * @param data the vectors.
+     * @param out the output array of distances.
+     */
+    public static void squaredDistance(float[] q, float[][] data, double[] out) {
+        check(data, out.length);
+        for (float[] x : data) check(q.length, x.length);
+        OPS.squaredDistance(q, data, out);
+    }
+
+    /**
+     * Computes the dot product between a query and many vectors.
+     * @param q the query vector.
+     * @param data the vectors.
+     * @param out the output array of dot products.
+     */
+    public static void dot(double[] q, double[][] data, double[] out) {
+        check(data, out.length);
+        for (double[] x : data) check(q.length, x.length);
+        OPS.dot(q, data, out);
+    }
+
+    /**
+     * Computes the dot product between a query and many vectors.
+     * @param q the query vector.
+     * @param data the vectors.
+     * @param out the output array of dot products.
+     */
+    public static void dot(float[] q, float[][] data, float[] out) {
+        check(data, out.length);
+        for (float[] x : data) check(q.length, x.length);
+        OPS.dot(q, data, out);
+    }
+
+    /**
+     * Computes the Gaussian kernel between a query and many vectors.
+     * @param q the query vector.
+     * @param data the vectors.
+     * @param gamma the inverse of kernel width, i.e. {@code 1 / (2 * sigma^2)}.
+     * @param out the output array of kernel values.
+     */
+    public static void gaussian(double[] q, double[][] data, double gamma, double[] out) {
+        squaredDistance(q, data, out);
+        for (int i = 0; i < data.length; i++) {
+            out[i] = Math.exp(-gamma * out[i]);
+        }
+    }
+}
@@ -18,6 +18,7 @@ package smile.math.distance;
 
 import java.io.Serial;
 import java.util.Arrays;
+import smile.math.VectorMath;
 
 /**
  * Euclidean distance. For float or double arrays, missing values (i.e. NaN)
@@ -112,6 +113,12 @@ public class EuclideanDistance implements Metric<double[]> {
         if (x.length != y.length)
             throw new IllegalArgumentException(String.format("Arrays have different length: x[%d], y[%d]", x.length, y.length));
 
+        if (weight == null && x.length > 0) {
+            // A missing value turns the vectorized sum into NaN.
+            double dist = VectorMath.squaredDistance(x, y);
+            if (!Double.isNaN(dist)) return Math.sqrt(dist);
+        }
+
         int n = x.length;
         int m = 0;
         double dist = 0.0;
@@ -159,6 +166,12 @@ public class EuclideanDistance implements Metric<double[]> {
             throw new IllegalArgumentException(String.format("Arrays have different length: x[%d], y[%d]", x.length, y.length));
         }
 
+        if (weight == null && x.length > 0) {
+            // A missing value turns the vectorized sum into NaN.
+            double dist = VectorMath.squaredDistance(x, y);
+            if (!Double.isNaN(dist)) return Math.sqrt(dist);
+        }
+
         int n = x.length;
         int m = 0;
         double dist = 0.0;
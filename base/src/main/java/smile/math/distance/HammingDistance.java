@@ -16,7 +16,9 @@
  */
 package smile.math.distance;
 
+import java.util.Arrays;
 import java.util.BitSet;
+import smile.math.VectorMath;
 
 /**
  * In information theory, the Hamming distance between two strings of equal
@@ -138,12 +140,18 @@ public class HammingDistance implements Distance<int[]> {
             throw new IllegalArgumentException(String.format("BitSets have different length: x[%d], y[%d]", x.size(), y.size()));
         }
 
-        int dist = 0;
-        for (int i = 0; i < x.size(); i++) {
-            if (x.get(i) != y.get(i))
-                dist++;
-        }
+        // toLongArray() drops the trailing zero words.
+        int words = x.size() / Long.SIZE;
+        return d(Arrays.copyOf(x.toLongArray(), words), Arrays.copyOf(y.toLongArray(), words));
+    }
 
-        return dist;
+    /**
+     * Returns Hamming distance between two bit strings packed in long arrays.
+     * @param x a bit string.
+     * @param y a bit string.
+     * @return the distance.
+     */
+    public static int d(long[] x, long[] y) {
+        return VectorMath.hamming(x, y);
     }
 }
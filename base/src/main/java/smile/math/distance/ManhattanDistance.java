@@ -18,6 +18,7 @@ package smile.math.distance;
 
 import java.io.Serial;
 import java.util.Arrays;
+import smile.math.VectorMath;
 
 /**
  * Manhattan distance, also known as L<sub>1</sub> distance or L<sub>1</sub>
@@ -111,6 +112,12 @@ public class ManhattanDistance implements Metric<double[]> {
         if (x.length != y.length)
             throw new IllegalArgumentException(String.format("Arrays have different length: x[%d], y[%d]", x.length, y.length));
 
+        if (weight == null && x.length > 0) {
+            // A missing value turns the vectorized sum into NaN.
+            double dist = VectorMath.l1(x, y);
+            if (!Double.isNaN(dist)) return dist;
+        }
+
         int n = x.length;
         int m = 0;
         double dist = 0.0;
@@ -151,6 +158,12 @@ public class ManhattanDistance implements Metric<double[]> {
         if (x.length != y.length)
             throw new IllegalArgumentException(String.format("Arrays have different length: x[%d], y[%d]", x.length, y.length));
 
+        if (weight == null && x.length > 0) {
+            // A missing value turns the vectorized sum into NaN.
+            double dist = VectorMath.l1(x, y);
+            if (!Double.isNaN(dist)) return dist;
+        }
+
         int n = x.length;
         int m = 0;
         double dist = 0.0;
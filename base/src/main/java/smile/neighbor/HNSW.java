@@ -0,0 +1,752 @@
+/*
+ * Copyright (c) 2010-2025 Haifeng Li. All rights reserved.
+ *
+ * Smile is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Smile is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Smile. If not, see <https://www.gnu.org/licenses/>.
+ */
+package smile.neighbor;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.stream.IntStream;
+import smile.graph.NearestNeighborGraph;
+import smile.math.MathEx;
+import smile.math.distance.Distance;
+import smile.sort.QuickSort;
+import smile.util.IntArrayList;
+
+/**
+ * Hierarchical Navigable Small World graphs for approximate nearest
+ * neighbor search. HNSW builds a hierarchy of proximity graphs. Each
+ * point is inserted into the bottom layer and, with exponentially
+ * decaying probability, into the upper layers. A search starts at the
+ * top layer, greedily descends to the bottom layer, and then performs
+ * a beam search of width {@code ef} on it. The search time grows
+ * logarithmically with the size of data and high recall is achieved
+ * in high dimensional spaces.
+ * <p>
+ * The main parameters are the number of links per node {@code M} and
+ * the beam width {@code efConstruction} during construction, which
+ * trade off the construction time and memory for the quality of graph,
+ * and the beam width {@code ef} of search, which trades off the query
+ * time for the recall. {@code ef} can be changed at any time.
+ * <p>
+ * The index supports incremental insertions. The insertions are
+ * serialized, but they don't block the concurrent searches.
+ * <p>
+ * By default, the query object (reference equality) is excluded from the
+ * neighborhood.
+ *
+ * <h2>References</h2>
+ * <ol>
+ * <li> Yu. A. Malkov and D. A. Yashunin. Efficient and robust approximate nearest neighbor search using Hierarchical Navigable Small World graphs. IEEE TPAMI, 42(4):824-836, 2020.</li>
+ * </ol>
+ *
+ * @param <K> the type of keys.
+ * @param <E> the type of data objects.
+ *
+ * @author Haifeng Li
+ */
+public class HNSW<K, E> implements KNNSearch<K, E>, RNNSearch<K, E>, Serializable {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The vector spaces.
+     */
+    public enum Space {
+        /** Euclidean distance. */
+        EUCLIDEAN,
+        /** Cosine distance, i.e. 1 - cosine similarity. */
+        COSINE,
+        /**
+         * Negative inner product for maximum inner product search.
+         * Note that it is not a metric and the distance may be negative.
+         */
+        INNER_PRODUCT;
+
+        /**
+         * Returns the distance function on double arrays.
+         * @return the distance function.
+         */
+        public Distance<double[]> float64() {
+            return switch (this) {
+                case EUCLIDEAN -> MathEx::distance;
+                case COSINE -> HNSW::cosine;
+                case INNER_PRODUCT -> (x, y) -> -MathEx.dot(x, y);
+            };
+        }
+
+        /**
+         * Returns the distance function on float arrays.
+         * @return the distance function.
+         */
+        public Distance<float[]> float32() {
+            return switch (this) {
+                case EUCLIDEAN -> MathEx::distance;
+                case COSINE -> HNSW::cosine;
+                case INNER_PRODUCT -> (x, y) -> -MathEx.dot(x, y);
+            };
+        }
+    }
+
+    /**
+     * A node of graph.
+     * @param key the key.
+     * @param value the data object.
+     * @param links the adjacency lists of layers 0, 1, ..., level. A list
+     *              is replaced as a whole when it changes so that the
+     *              concurrent searches always see a consistent list.
+     */
+    private record Node<K, E>(K key, E value, AtomicReferenceArray<int[]> links) {
+        Node(K key, E value, int level) {
+            this(key, value, new AtomicReferenceArray<>(level + 1));
+            for (int l = 0; l <= level; l++) {
+                links.set(l, new int[0]);
+            }
+        }
+
+        int level() {
+            return links.length() - 1;
+        }
+    }
+
+    /**
+     * The entry point of search.
+     * @param node the node at the top layer.
+     * @param level the top layer.
+     */
+    private record Entry(int node, int level) {}
+
+    /** The visited flags of search per thread. */
+    private static final ThreadLocal<Visited> visited = ThreadLocal.withInitial(Visited::new);
+
+    /** The distance function. */
+    private final Distance<K> distance;
+    /** The maximum number of links per node in the upper layers. */
+    private final int M;
+    /** The maximum number of links per node in the bottom layer. */
+    private final int M0;
+    /** The beam width of search during construction. */
+    private final int efConstruction;
+    /** The normalization factor of level generation. */
+    private final double mL;
+    /** The beam width of search. */
+    private volatile int ef;
+    /**
+     * The nodes. The array is replaced when it grows. It must be read
+     * from the field every time as a node may be linked after growing.
+     */
+    private transient volatile Node<K, E>[] nodes;
+    /** The number of nodes. */
+    private transient volatile int size;
+    /** The entry point, or null if the graph is empty. */
+    private transient volatile Entry entry;
+
+    /**
+     * Constructor.
+     * @param distance the distance function.
+     * @param M the maximum number of links per node in the upper layers.
+     *          The bottom layer has up to 2 * M links per node. Typical
+     *          values are between 8 and 64.
+     * @param efConstruction the beam width of search during construction.
+     */
+    @SuppressWarnings("unchecked")
+    public HNSW(Distance<K> distance, int M, int efConstruction) {
+        if (M < 2) {
+            throw new IllegalArgumentException("Invalid M: " + M);
+        }
+        if (efConstruction < 1) {
+            throw new IllegalArgumentException("Invalid efConstruction: " + efConstruction);
+        }
+
+        this.distance = distance;
+        this.M = M;
+        this.M0 = 2 * M;
+        this.efConstruction = efConstruction;
+        this.mL = 1.0 / Math.log(M);
+        this.ef = Math.max(10, efConstruction / 4);
+        this.nodes = (Node<K, E>[]) new Node[16];
+    }
+
+    /**
+     * Builds an index of double arrays with M = 16 and efConstruction = 200.
+     * @param data the data set.
+     * @param space the vector space.
+     * @return the index.
+     */
+    public static HNSW<double[], double[]> of(double[][] data, Space space) {
+        return of(data, space, 16, 200);
+    }
+
+    /**
+     * Builds an index of double arrays.
+     * @param data the data set.
+     * @param space the vector space.
+     * @param M the maximum number of links per node in the upper layers.
+     * @param efConstruction the beam width of search during construction.
+     * @return the index.
+     */
+    public static HNSW<double[], double[]> of(double[][] data, Space space, int M, int efConstruction) {
+        HNSW<double[], double[]> index = new HNSW<>(space.float64(), M, efConstruction);
+        for (double[] x : data) {
+            index.put(x, x);
+        }
+        return index;
+    }
+
+    /**
+     * Builds an index of float arrays with M = 16 and efConstruction = 200.
+     * @param data the data set.
+     * @param space the vector space.
+     * @return the index.
+     */
+    public static HNSW<float[], float[]> of(float[][] data, Space space) {
+        return of(data, space, 16, 200);
+    }
+
+    /**
+     * Builds an index of float arrays.
+     * @param data the data set.
+     * @param space the vector space.
+     * @param M the maximum number of links per node in the upper layers.
+     * @param efConstruction the beam width of search during construction.
+     * @return the index.
+     */
+    public static HNSW<float[], float[]> of(float[][] data, Space space, int M, int efConstruction) {
+        HNSW<float[], float[]> index = new HNSW<>(space.float32(), M, efConstruction);
+        for (float[] x : data) {
+            index.put(x, x);
+        }
+        return index;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("HNSW(size = %d, M = %d, efConstruction = %d, ef = %d)", size, M, efConstruction, ef);
+    }
+
+    /**
+     * Returns the number of data objects.
+     * @return the number of data objects.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the beam width of search.
+     * @return the beam width of search.
+     */
+    public int getEf() {
+        return ef;
+    }
+
+    /**
+     * Sets the beam width of search. The larger value gives the higher
+     * recall at the cost of query time. The beam width of k-nearest
+     * neighbor search is at least k.
+     * @param ef the beam width of search.
+     */
+    public void setEf(int ef) {
+        if (ef < 1) {
+            throw new IllegalArgumentException("Invalid ef: " + ef);
+        }
+        this.ef = ef;
+    }
+
+    /**
+     * Returns the key of a data object.
+     * @param index the index of data object.
+     * @return the key.
+     */
+    public K key(int index) {
+        return node(index).key;
+    }
+
+    /**
+     * Returns a data object.
+     * @param index the index of data object.
+     * @return the data object.
+     */
+    public E get(int index) {
+        return node(index).value;
+    }
+
+    /** Returns a node. */
+    private Node<K, E> node(int index) {
+        return nodes[index];
+    }
+
+    /**
+     * Inserts a data object. The index of data object is the number
+     * of objects inserted before it.
+     * @param key the key.
+     * @param value the data object.
+     */
+    public synchronized void put(K key, E value) {
+        int level = (int) (-Math.log(1.0 - MathEx.random()) * mL);
+        var node = new Node<>(key, value, level);
+        int id = size;
+        if (id == nodes.length) {
+            nodes = Arrays.copyOf(nodes, 2 * id);
+        }
+        nodes[id] = node;
+
+        var top = entry;
+        if (top == null) {
+            size = id + 1;
+            entry = new Entry(id, level);
+            return;
+        }
+
+        int ep = top.node;
+        double epDist = distance.d(key, node(ep).key);
+        for (int l = top.level; l > level; l--) {
+            var nearest = searchLayer(key, ep, epDist, 1, l);
+            ep = nearest.peekId();
+            epDist = -nearest.peekKey();
+        }
+
+        for (int l = Math.min(level, top.level); l >= 0; l--) {
+            var results = searchLayer(key, ep, epDist, efConstruction, l);
+            int n = results.size();
+            int[] ids = new int[n];
+            double[] dists = new double[n];
+            for (int i = n; i-- > 0; ) {
+                dists[i] = -results.peekKey();
+                ids[i] = results.pop();
+            }
+
+            // The links of new node are set before it is linked by others.
+            int[] neighbors = select(ids, dists, M);
+            node.links.set(l, neighbors);
+            int maxLinks = l == 0 ? M0 : M;
+            for (int neighbor : neighbors) {
+                connect(neighbor, id, l, maxLinks);
+            }
+
+            ep = ids[0];
+            epDist = dists[0];
+        }
+
+        size = id + 1;
+        if (level > top.level) {
+            entry = new Entry(id, level);
+        }
+    }
+
+    /**
+     * Selects the neighbors by the heuristic that prefers the diverse
+     * directions. A candidate is selected only if it is closer to the
+     * base point than to any selected neighbor.
+     * @param ids the candidates sorted by the distance to the base point.
+     * @param dists the distances of candidates to the base point.
+     * @param m the maximum number of neighbors.
+     * @return the selected neighbors.
+     */
+    private int[] select(int[] ids, double[] dists, int m) {
+        if (ids.length <= m) return ids;
+
+        int[] selected = new int[m];
+        int count = 0;
+        for (int i = 0; i < ids.length && count < m; i++) {
+            K x = node(ids[i]).key;
+            boolean diverse = true;
+            for (int j = 0; j < count; j++) {
+                if (distance.d(x, node(selected[j]).key) < dists[i]) {
+                    diverse = false;
+                    break;
+                }
+            }
+
+            if (diverse) {
+                selected[count++] = ids[i];
+            }
+        }
+        return Arrays.copyOf(selected, count);
+    }
+
+    /**
+     * Adds a link from a node to the new node. If the node has too many
+     * links, they are pruned by the neighbor selection heuristic.
+     */
+    private void connect(int from, int to, int layer, int maxLinks) {
+        var node = node(from);
+        int[] links = node.links.get(layer);
+        int n = links.length;
+        int[] ids = Arrays.copyOf(links, n + 1);
+        ids[n] = to;
+        if (n < maxLinks) {
+            node.links.set(layer, ids);
+            return;
+        }
+
+        double[] dists = new double[n + 1];
+        for (int i = 0; i <= n; i++) {
+            dists[i] = distance.d(node.key, node(ids[i]).key);
+        }
+        QuickSort.sort(dists, ids);
+        node.links.set(layer, select(ids, dists, maxLinks));
+    }
+
+    /**
+     * Beam search in a layer.
+     * @param q the query.
+     * @param ep the entry point.
+     * @param epDist the distance between the query and the entry point.
+     * @param ef the beam width.
+     * @param layer the layer.
+     * @return the max-heap of nearest nodes by the negative distance.
+     */
+    private Heap searchLayer(K q, int ep, double epDist, int ef, int layer) {
+        var visited = HNSW.visited.get();
+        visited.reset(size);
+        visited.add(ep);
+
+        var candidates = new Heap();
+        var results = new Heap();
+        candidates.push(epDist, ep);
+        results.push(-epDist, ep);
+        while (candidates.size() > 0) {
+            if (candidates.peekKey() > -results.peekKey()) break;
+
+            int c = candidates.pop();
+            for (int e : node(c).links.get(layer)) {
+                if (!visited.add(e)) continue;
+
+                double d = distance.d(q, node(e).key);
+                if (results.size() < ef || d < -results.peekKey()) {
+                    candidates.push(d, e);
+                    results.push(-d, e);
+                    if (results.size() > ef) {
+                        results.pop();
+                    }
+                }
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Searches the bottom layer after greedily descending from the top.
+     * @param q the query.
+     * @param ef the beam width.
+     * @return the max-heap of nearest nodes by the negative distance,
+     *         or null if the graph is empty.
+     */
+    private Heap searchBottom(K q, int ef) {
+        var top = entry;
+        if (top == null) return null;
+
+        int ep = top.node;
+        double epDist = distance.d(q, node(ep).key);
+        for (int l = top.level; l > 0; l--) {
+            var nearest = searchLayer(q, ep, epDist, 1, l);
+            ep = nearest.peekId();
+            epDist = -nearest.peekKey();
+        }
+        return searchLayer(q, ep, epDist, ef, 0);
+    }
+
+    @Override
+    public Neighbor<K, E> nearest(K q) {
+        var neighbors = search(q, 1);
+        return neighbors.length == 0 ? null : neighbors[0];
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Neighbor<K, E>[] search(K q, int k) {
+        if (k < 1) {
+            throw new IllegalArgumentException("Invalid k: " + k);
+        }
+
+        // One more for the query itself.
+        var results = searchBottom(q, Math.max(ef, k + 1));
+        if (results == null) return new Neighbor[0];
+
+        int n = results.size();
+        int[] ids = new int[n];
+        double[] dists = new double[n];
+        for (int i = n; i-- > 0; ) {
+            dists[i] = -results.peekKey();
+            ids[i] = results.pop();
+        }
+
+        var neighbors = new ArrayList<Neighbor<K, E>>(k);
+        for (int i = 0; i < n && neighbors.size() < k; i++) {
+            var node = node(ids[i]);
+            if (node.key != q) {
+                neighbors.add(new Neighbor<>(node.key, node.value, ids[i], dists[i]));
+            }
+        }
+        return neighbors.toArray(new Neighbor[0]);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The neighbors in the radius are searched by the breadth-first
+     * traversal of the bottom layer from the nearest neighbors found
+     * by the beam search. It is approximate as well.
+     */
+    @Override
+    public void search(K q, double radius, List<Neighbor<K, E>> neighbors) {
+        if (radius <= 0.0) {
+            throw new IllegalArgumentException("Invalid radius: " + radius);
+        }
+
+        var results = searchBottom(q, ef);
+        if (results == null) return;
+
+        var visited = HNSW.visited.get();
+        visited.reset(size);
+        var queue = new IntArrayList();
+        while (results.size() > 0) {
+            double d = -results.peekKey();
+            int id = results.pop();
+            if (d <= radius && visited.add(id)) {
+                queue.add(id);
+                add(q, id, d, neighbors);
+            }
+        }
+
+        for (int i = 0; i < queue.size(); i++) {
+            for (int e : node(queue.get(i)).links.get(0)) {
+                if (!visited.add(e)) continue;
+
+                double d = distance.d(q, node(e).key);
+                if (d <= radius) {
+                    queue.add(e);
+                    add(q, e, d, neighbors);
+                }
+            }
+        }
+    }
+
+    /** Adds a neighbor unless it is the query itself. */
+    private void add(K q, int id, double d, List<Neighbor<K, E>> neighbors) {
+        var node = node(id);
+        if (node.key != q) {
+            neighbors.add(new Neighbor<>(node.key, node.value, id, d));
+        }
+    }
+
+    /**
+     * Returns the approximate k-nearest neighbor graph of data.
+     * @param k k-nearest neighbors.
+     * @return k-nearest neighbor graph.
+     */
+    public NearestNeighborGraph toGraph(int k) {
+        int n = size;
+        int[][] neighbors = new int[n][];
+        double[][] distances = new double[n][];
+        IntStream.range(0, n).parallel().forEach(i -> {
+            var knn = search(node(i).key, k);
+            neighbors[i] = Arrays.stream(knn).mapToInt(Neighbor::index).toArray();
+            distances[i] = Arrays.stream(knn).mapToDouble(Neighbor::distance).toArray();
+        });
+        return new NearestNeighborGraph(k, neighbors, distances);
+    }
+
+    /**
+     * Returns the cosine distance between two vectors.
+     */
+    private static double cosine(double[] x, double[] y) {
+        double dot = 0.0, xx = 0.0, yy = 0.0;
+        for (int i = 0; i < x.length; i++) {
+            dot += x[i] * y[i];
+            xx += x[i] * x[i];
+            yy += y[i] * y[i];
+        }
+        return xx == 0.0 || yy == 0.0 ? 1.0 : 1.0 - dot / Math.sqrt(xx * yy);
+    }
+
+    /**
+     * Returns the cosine distance between two vectors.
+     */
+    private static double cosine(float[] x, float[] y) {
+        double dot = 0.0, xx = 0.0, yy = 0.0;
+        for (int i = 0; i < x.length; i++) {
+            dot += x[i] * y[i];
+            xx += x[i] * x[i];
+            yy += y[i] * y[i];
+        }
+        return xx == 0.0 || yy == 0.0 ? 1.0 : 1.0 - dot / Math.sqrt(xx * yy);
+    }
+
+    /**
+     * Writes the graph as the flattened adjacency lists.
+     */
+    @Serial
+    private synchronized void writeObject(ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+        int n = size;
+        var top = entry;
+        out.writeInt(n);
+        out.writeInt(top == null ? -1 : top.node);
+        for (int i = 0; i < n; i++) {
+            var node = node(i);
+            out.writeObject(node.key);
+            out.writeObject(node.value);
+            out.writeInt(node.level());
+            for (int l = 0; l <= node.level(); l++) {
+                int[] links = node.links.get(l);
+                out.writeInt(links.length);
+                for (int link : links) {
+                    out.writeInt(link);
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads the graph from the flattened adjacency lists.
+     */
+    @Serial
+    @SuppressWarnings("unchecked")
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        int n = in.readInt();
+        int ep = in.readInt();
+        var array = (Node<K, E>[]) new Node[Math.max(16, n)];
+        for (int i = 0; i < n; i++) {
+            K key = (K) in.readObject();
+            E value = (E) in.readObject();
+            int level = in.readInt();
+            var node = new Node<>(key, value, level);
+            for (int l = 0; l <= level; l++) {
+                int[] links = new int[in.readInt()];
+                for (int j = 0; j < links.length; j++) {
+                    links[j] = in.readInt();
+                }
+                node.links.set(l, links);
+            }
+            array[i] = node;
+        }
+
+        nodes = array;
+        size = n;
+        entry = ep < 0 ? null : new Entry(ep, array[ep].level());
+    }
+
+    /**
+     * The binary min-heap of (key, id) pairs. A max-heap of distances
+     * is a min-heap of negative distances.
+     */
+    private static class Heap {
+        /** The keys. */
+        private double[] keys = new double[16];
+        /** The ids. */
+        private int[] ids = new int[16];
+        /** The number of elements. */
+        private int size;
+
+        /** Returns the number of elements. */
+        int size() {
+            return size;
+        }
+
+        /** Returns the smallest key. */
+        double peekKey() {
+            return keys[0];
+        }
+
+        /** Returns the id of the smallest key. */
+        int peekId() {
+            return ids[0];
+        }
+
+        /** Adds an element. */
+        void push(double key, int id) {
+            if (size == keys.length) {
+                keys = Arrays.copyOf(keys, 2 * size);
+                ids = Arrays.copyOf(ids, 2 * size);
+            }
+
+            int i = size++;
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (keys[parent] <= key) break;
+                keys[i] = keys[parent];
+                ids[i] = ids[parent];
+                i = parent;
+            }
+            keys[i] = key;
+            ids[i] = id;
+        }
+
+        /** Removes the element of the smallest key and returns its id. */
+        int pop() {
+            int top = ids[0];
+            double key = keys[--size];
+            int id = ids[size];
+            int i = 0;
+            int half = size >>> 1;
+            while (i < half) {
+                int child = 2 * i + 1;
+                if (child + 1 < size && keys[child + 1] < keys[child]) child++;
+                if (key <= keys[child]) break;
+                keys[i] = keys[child];
+                ids[i] = ids[child];
+                i = child;
+            }
+            keys[i] = key;
+            ids[i] = id;
+            return top;
+        }
+    }
+
+    /**
+     * The visited flags of a search, which are reset in O(1)
+     * by incrementing the epoch.
+     */
+    private static class Visited {
+        /** The epoch when a node is visited. */
+        private int[] stamps = new int[0];
+        /** The current epoch. */
+        private int epoch;
+
+        /** Starts a new search. */
+        void reset(int n) {
+            if (stamps.length < n) {
+                stamps = new int[n];
+                epoch = 0;
+            }
+
+            if (++epoch == 0) {
+                Arrays.fill(stamps, 0);
+                epoch = 1;
+            }
+        }
+
+        /** Marks a node visited. Returns false if it was visited. */
+        boolean add(int i) {
+            if (i >= stamps.length) {
+                stamps = Arrays.copyOf(stamps, Math.max(i + 1, 2 * stamps.length));
+            }
+
+            if (stamps[i] == epoch) return false;
+            stamps[i] = epoch;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,457 @@
+/*
+ * Copyright (c) 2010-2025 Haifeng Li. All rights reserved.
+ *
+ * Smile is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Smile is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Smile. If not, see <https://www.gnu.org/licenses/>.
+ */
+package smile.tensor;
+
+import java.io.IOException;
+import java.io.Serial;
+import java.io.Serializable;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import static smile.linalg.UPLO.*;
+
+/**
+ * A tall matrix partitioned into blocks of rows, which is designed for
+ * the matrices that don't fit in memory. The blocks are dense matrices
+ * of the same number of columns, which are usually backed by memory-mapped
+ * files so that only the working set of blocks is resident. The operations
+ * stream over the blocks in parallel and only keep small results, e.g.
+ * the Gram matrix, in memory. The exceptions are the matrix multiplication
+ * {@code A * B}, the orthogonal factor of TSQR and the left singular
+ * vectors of randomized SVD, which are tall matrices whose blocks are
+ * on the heap.
+ * <p>
+ * Besides the Gram matrix accumulation, this class provides the
+ * tall-skinny QR (TSQR) and the randomized SVD. TSQR factorizes each
+ * block independently and then factorizes the stacked R factors of blocks.
+ * The randomized SVD approximates the leading singular triplets from
+ * the range of the product of the matrix and a random Gaussian matrix,
+ * which takes a few passes over the data.
+ *
+ * <h2>References</h2>
+ * <ol>
+ * <li>J. Demmel, L. Grigori, M. Hoemmen, and J. Langou. Communication-optimal parallel and sequential QR and LU factorizations. SIAM Journal on Scientific Computing, 34(1):A206-A239, 2012.</li>
+ * <li>N. Halko, P. G. Martinsson, and J. A. Tropp. Finding structure with randomness: Probabilistic algorithms for constructing approximate matrix decompositions. SIAM Review, 53(2):217-288, 2011.</li>
+ * </ol>
+ *
+ * @author Haifeng Li
+ */
+public class BlockMatrix implements Serializable {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The tall-skinny QR decomposition.
+     * @param Q the orthogonal factor, which is partitioned in the same
+     *          way as the decomposed matrix. It is null if not computed.
+     * @param R the upper triangular factor.
+     */
+    public record TSQR(BlockMatrix Q, DenseMatrix R) implements Serializable {
+
+    }
+
+    /**
+     * The truncated singular value decomposition.
+     * @param s the singular values in descending order.
+     * @param U the left singular vectors, which are partitioned in the same
+     *          way as the decomposed matrix. Its blocks are on the heap.
+     * @param Vt the transpose of right singular vectors.
+     */
+    public record RSVD(Vector s, BlockMatrix U, DenseMatrix Vt) implements Serializable {
+
+    }
+
+    /** The blocks of rows. */
+    private final DenseMatrix[] blocks;
+    /**
+     * The row offset of blocks. The last element is the number of rows.
+     */
+    private final long[] offsets;
+    /** The number of columns. */
+    private final int n;
+
+    /**
+     * Constructor.
+     * @param blocks the blocks of rows, which must have the same number
+     *               of columns and scalar type.
+     */
+    public BlockMatrix(DenseMatrix... blocks) {
+        if (blocks.length == 0) {
+            throw new IllegalArgumentException("Empty block matrix");
+        }
+
+        this.blocks = blocks;
+        this.n = blocks[0].ncol();
+        this.offsets = new long[blocks.length + 1];
+        for (int i = 0; i < blocks.length; i++) {
+            DenseMatrix block = blocks[i];
+            if (block.ncol() != n) {
+                throw new IllegalArgumentException(String.format("Block %d has %d columns, expected %d", i, block.ncol(), n));
+            }
+            if (block.scalarType() != blocks[0].scalarType()) {
+                throw new IllegalArgumentException("Incompatible ScalarType: " + block.scalarType() + " != " + blocks[0].scalarType());
+            }
+            offsets[i + 1] = offsets[i] + block.nrow();
+        }
+    }
+
+    /**
+     * Creates a zero block matrix whose blocks are memory-mapped files
+     * in a directory. The files are named block-00000.mat, block-00001.mat,
+     * and so on.
+     * @param dir the directory of block files.
+     * @param scalarType the scalar type.
+     * @param m the number of rows.
+     * @param n the number of columns.
+     * @param rows the number of rows per block. The last block may be smaller.
+     * @return the block matrix.
+     * @throws IOException if fail to create the files.
+     */
+    public static BlockMatrix mmap(Path dir, ScalarType scalarType, long m, int n, int rows) throws IOException {
+        if (m <= 0 || n <= 0) {
+            throw new IllegalArgumentException(String.format("Invalid matrix size: %d x %d", m, n));
+        }
+        if (rows <= 0) {
+            throw new IllegalArgumentException("Invalid number of rows per block: " + rows);
+        }
+
+        Files.createDirectories(dir);
+        int size = Math.toIntExact((m + rows - 1) / rows);
+        DenseMatrix[] blocks = new DenseMatrix[size];
+        for (int i = 0; i < size; i++) {
+            int k = (int) Math.min(rows, m - (long) i * rows);
+            blocks[i] = DenseMatrix.mmap(dir.resolve(String.format("block-%05d.mat", i)), scalarType, k, n);
+        }
+        return new BlockMatrix(blocks);
+    }
+
+    /**
+     * Opens a block matrix whose blocks are memory-mapped files in
+     * a directory, which are named block-00000.mat, block-00001.mat,
+     * and so on.
+     * @param dir the directory of block files.
+     * @param readOnly true if the files are mapped in read-only mode.
+     * @return the block matrix.
+     * @throws IOException if fail to map the files.
+     */
+    public static BlockMatrix mmap(Path dir, boolean readOnly) throws IOException {
+        Path[] files;
+        try (Stream<Path> stream = Files.list(dir)) {
+            files = stream.filter(file -> file.getFileName().toString().matches("block-\\d+\\.mat"))
+                    .sorted().toArray(Path[]::new);
+        }
+
+        if (files.length == 0) {
+            throw new IOException("No block files in " + dir);
+        }
+
+        DenseMatrix[] blocks = new DenseMatrix[files.length];
+        for (int i = 0; i < files.length; i++) {
+            blocks[i] = DenseMatrix.mmap(files[i], readOnly);
+        }
+        return new BlockMatrix(blocks);
+    }
+
+    /**
+     * Returns the number of rows.
+     * @return the number of rows.
+     */
+    public long nrow() {
+        return offsets[blocks.length];
+    }
+
+    /**
+     * Returns the number of columns.
+     * @return the number of columns.
+     */
+    public int ncol() {
+        return n;
+    }
+
+    /**
+     * Returns the number of blocks.
+     * @return the number of blocks.
+     */
+    public int size() {
+        return blocks.length;
+    }
+
+    /**
+     * Returns the i-th block.
+     * @param i the block index.
+     * @return the block.
+     */
+    public DenseMatrix block(int i) {
+        return blocks[i];
+    }
+
+    /**
+     * Returns the scalar type of matrix elements.
+     * @return the scalar type of matrix elements.
+     */
+    public ScalarType scalarType() {
+        return blocks[0].scalarType();
+    }
+
+    /**
+     * Returns the index of block that contains the row.
+     * @param i the row index.
+     * @return the block index.
+     */
+    private int blockOf(long i) {
+        if (i < 0 || i >= nrow()) {
+            throw new IndexOutOfBoundsException("Row index out of range: " + i);
+        }
+
+        int k = Arrays.binarySearch(offsets, i);
+        return k >= 0 ? k : -k - 2;
+    }
+
+    /**
+     * Returns the element at the specified position.
+     * @param i the row index.
+     * @param j the column index.
+     * @return the element.
+     */
+    public double get(long i, int j) {
+        int k = blockOf(i);
+        return blocks[k].get((int) (i - offsets[k]), j);
+    }
+
+    /**
+     * Sets the element at the specified position.
+     * @param i the row index.
+     * @param j the column index.
+     * @param x the element value.
+     */
+    public void set(long i, int j, double x) {
+        int k = blockOf(i);
+        blocks[k].set((int) (i - offsets[k]), j, x);
+    }
+
+    /**
+     * Returns the stream of block indices, which is parallel
+     * if there are multiple blocks.
+     * @return the stream of block indices.
+     */
+    private IntStream indices() {
+        IntStream stream = IntStream.range(0, blocks.length);
+        return blocks.length > 1 ? stream.parallel() : stream;
+    }
+
+    /**
+     * Checks if another block matrix is partitioned in the same way.
+     * @param B the other block matrix.
+     */
+    private void checkPartition(BlockMatrix B) {
+        if (!Arrays.equals(offsets, B.offsets)) {
+            throw new IllegalArgumentException("The block matrices are partitioned differently");
+        }
+    }
+
+    /**
+     * Returns the sum of each column.
+     * @return the sum of each column.
+     */
+    public Vector colSums() {
+        return indices().mapToObj(i -> blocks[i].colSums())
+                .reduce((a, b) -> {
+                    a.axpy(1.0, b);
+                    return a;
+                })
+                .orElseThrow();
+    }
+
+    /**
+     * Returns the mean of each column.
+     * @return the mean of each column.
+     */
+    public Vector colMeans() {
+        Vector mean = colSums();
+        mean.scale(1.0 / nrow());
+        return mean;
+    }
+
+    /**
+     * Returns {@code A' * A}, which is accumulated over blocks.
+     * @return {@code A' * A}.
+     */
+    public DenseMatrix ata() {
+        return indices().mapToObj(i -> blocks[i].ata())
+                .reduce(DenseMatrix::add)
+                .orElseThrow()
+                .withUplo(LOWER);
+    }
+
+    /**
+     * Returns {@code (A - 1 * c')' * (A - 1 * c')}, i.e. the Gram matrix
+     * of the rows shifted by a vector, which is accumulated over blocks.
+     * The blocks are copied to the heap one by one for shifting so that
+     * this matrix is not modified. When the shift is the column means,
+     * it is the scatter matrix, which is accurate even if the means are
+     * large compared to the deviations. In contrast, the scatter matrix
+     * computed as {@code A' * A - m * mu * mu'} suffers from catastrophic
+     * cancellation in this case.
+     * @param shift the shift of each column.
+     * @return the Gram matrix of shifted rows.
+     */
+    public DenseMatrix ata(Vector shift) {
+        if (shift.size() != n) {
+            throw new IllegalArgumentException(String.format("Invalid shift size: %d != %d", shift.size(), n));
+        }
+
+        return indices().mapToObj(i -> {
+                    DenseMatrix block = blocks[i].copy();
+                    int m = block.nrow();
+                    for (int j = 0; j < n; j++) {
+                        double c = shift.get(j);
+                        for (int k = 0; k < m; k++) {
+                            block.sub(k, j, c);
+                        }
+                    }
+                    return block.ata();
+                })
+                .reduce(DenseMatrix::add)
+                .orElseThrow()
+                .withUplo(LOWER);
+    }
+
+    /**
+     * Matrix multiplication {@code A' * B}, which is accumulated over blocks.
+     * @param B the operand, which must be partitioned in the same way.
+     * @return the multiplication.
+     */
+    public DenseMatrix tm(BlockMatrix B) {
+        checkPartition(B);
+        return indices().mapToObj(i -> blocks[i].tm(B.blocks[i]))
+                .reduce(DenseMatrix::add)
+                .orElseThrow();
+    }
+
+    /**
+     * Matrix multiplication {@code A * B}. The result is partitioned
+     * in the same way as this matrix and its blocks are on the heap.
+     * @param B the operand.
+     * @return the multiplication.
+     */
+    public BlockMatrix mm(DenseMatrix B) {
+        if (n != B.nrow()) {
+            throw new IllegalArgumentException(String.format("Matrix multiplication A * B: %d x %d vs %d x %d", nrow(), n, B.nrow(), B.ncol()));
+        }
+
+        DenseMatrix[] C = new DenseMatrix[blocks.length];
+        indices().forEach(i -> C[i] = blocks[i].mm(B));
+        return new BlockMatrix(C);
+    }
+
+    /**
+     * Tall-skinny QR decomposition. Each block must have at least as
+     * many rows as columns. The blocks are copied to the heap one by one
+     * for factorization so that this matrix is not modified.
+     *
+     * @param vectors the flag whether computing the orthogonal factor Q,
+     *                whose blocks are on the heap.
+     * @return the decomposition.
+     */
+    public TSQR qr(boolean vectors) {
+        for (int i = 0; i < blocks.length; i++) {
+            if (blocks[i].nrow() < n) {
+                throw new IllegalArgumentException(String.format("Block %d is not tall: %d x %d", i, blocks[i].nrow(), n));
+            }
+        }
+
+        // Factorizes the blocks and stacks their R factors.
+        int b = blocks.length;
+        DenseMatrix stack = blocks[0].zeros(b * n, n);
+        DenseMatrix[] Q1 = vectors ? new DenseMatrix[b] : null;
+        indices().forEach(k -> {
+            QR qr = blocks[k].copy().qr();
+            DenseMatrix R = qr.qr();
+            for (int j = 0; j < n; j++) {
+                for (int i = 0; i <= j; i++) {
+                    stack.set(k * n + i, j, R.get(i, j));
+                }
+            }
+            if (vectors) Q1[k] = qr.Q();
+        });
+
+        QR qr = stack.qr();
+        DenseMatrix R = stack.zeros(n, n);
+        for (int j = 0; j < n; j++) {
+            for (int i = 0; i <= j; i++) {
+                R.set(i, j, stack.get(i, j));
+            }
+        }
+
+        if (!vectors) {
+            return new TSQR(null, R);
+        }
+
+        DenseMatrix Q2 = qr.Q();
+        DenseMatrix[] Q = new DenseMatrix[b];
+        indices().forEach(k -> Q[k] = Q1[k].mm(Q2.rows(k * n, (k + 1) * n)));
+        return new TSQR(new BlockMatrix(Q), R);
+    }
+
+    /**
+     * Randomized singular value decomposition. It approximates the k
+     * largest singular values and the corresponding singular vectors.
+     * Besides the passes over this matrix, it keeps a few tall matrices
+     * on the heap, i.e. the orthonormal basis of range of m x (k + p)
+     * during the computation and the left singular vectors of m x k
+     * in the result. So the heap must hold about {@code 2 * m * (k + p)}
+     * values, which is usually much smaller than this matrix.
+     *
+     * @param k the number of singular values.
+     * @param p the oversampling size, e.g. 10.
+     * @param q the number of power iterations, e.g. 2. The power iterations
+     *          improve the accuracy when the singular values decay slowly.
+     * @return the truncated singular value decomposition.
+     */
+    public RSVD svd(int k, int p, int q) {
+        if (k <= 0 || k > n) {
+            throw new IllegalArgumentException("Invalid number of singular values: " + k);
+        }
+        if (p < 0) {
+            throw new IllegalArgumentException("Invalid oversampling size: " + p);
+        }
+        if (q < 0) {
+            throw new IllegalArgumentException("Invalid number of power iterations: " + q);
+        }
+
+        int l = Math.min(k + p, n);
+        DenseMatrix omega = DenseMatrix.randn(scalarType(), n, l);
+        BlockMatrix Q = mm(omega).qr(true).Q();
+        for (int iter = 0; iter < q; iter++) {
+            // Orthonormalizes after each multiplication for numerical stability.
+            DenseMatrix Z = tm(Q).qr().Q();
+            Q = mm(Z).qr(true).Q();
+        }
+
+        // The small matrix B' = A' * Q, whose SVD gives that of B = Q' * A.
+        SVD svd = tm(Q).svd();
+        DenseMatrix V = svd.U();
+        DenseMatrix W = svd.Vt().transpose();
+
+        Vector s = svd.s().slice(0, k).copy();
+        DenseMatrix Vt = V.columns(0, k).transpose();
+        BlockMatrix U = Q.mm(W.columns(0, k));
+        return new RSVD(s, U, Vt);
+    }
+}
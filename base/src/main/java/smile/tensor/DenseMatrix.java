@@ -16,8 +16,10 @@
  */
 package smile.tensor;
 
+import java.io.IOException;
 import java.io.Serializable;
 import java.lang.foreign.MemorySegment;
+import java.nio.file.Path;
 import smile.linalg.*;
 import smile.math.MathEx;
 import smile.stat.distribution.Distribution;
@@ -202,8 +204,18 @@ public abstract class DenseMatrix implements Matrix, Serializable {
         return trans;
     }
 
+    /**
+     * Throws an exception if the matrix values cannot be modified.
+     * The methods that write the matrix memory in place call it
+     * before passing the memory to native routines.
+     */
+    void checkWritable() {
+
+    }
+
     @Override
     public DenseMatrix scale(double alpha) {
+        checkWritable();
         int length = capacity();
         switch(scalarType()) {
             case Float64 -> cblas_dscal(length, alpha, memory, 1);
@@ -629,6 +641,7 @@ public abstract class DenseMatrix implements Matrix, Serializable {
             throw new IllegalArgumentException(String.format("Adds matrix: %d x %d vs %d x %d", m, n, x.nrow(), x.ncol()));
         }
 
+        checkWritable();
         if (scalarType() == x.scalarType() && ld == x.ld) {
             int length = capacity();
             switch (scalarType()) {
@@ -769,6 +782,7 @@ public abstract class DenseMatrix implements Matrix, Serializable {
             throw new IllegalArgumentException("Incompatible ScalarType: " + C.scalarType() + " != " + A.scalarType());
         }
 
+        C.checkWritable();
         int m = C.nrow();
         int n = C.ncol();
         if (A.isSymmetric() && transB == NO_TRANSPOSE && B.order() == C.order()) {
@@ -913,6 +927,7 @@ public abstract class DenseMatrix implements Matrix, Serializable {
             throw new IllegalArgumentException(String.format("Dimensions do not match for rank-1 update: %d x %d vs 1 x %d", nrow(), ncol(), y.size()));
         }
 
+        checkWritable();
         switch(scalarType()) {
             case Float64 -> cblas_dger(order().blas(), m, n, alpha, x.memory, 1, y.memory, 1, memory, ld);
             case Float32 -> cblas_sger(order().blas(), m, n, (float) alpha, x.memory, 1, y.memory, 1, memory, ld);
@@ -988,6 +1003,7 @@ public abstract class DenseMatrix implements Matrix, Serializable {
      * @return LU decomposition.
      */
     public LU lu() {
+        checkWritable();
         DenseMatrix lu = this;
         int[] m = { lu.m };
         int[] n = { lu.n };
@@ -1027,6 +1043,7 @@ public abstract class DenseMatrix implements Matrix, Serializable {
             throw new IllegalArgumentException("The matrix is not symmetric");
         }
 
+        checkWritable();
         DenseMatrix lu = this;
         byte[] uplo = { lu.uplo.lapack() };
         int[] n = { lu.n };
@@ -1057,6 +1074,7 @@ public abstract class DenseMatrix implements Matrix, Serializable {
      * @return QR decomposition.
      */
     public QR qr() {
+        checkWritable();
         DenseMatrix qr = this;
         Vector tau = qr.vector(Math.min(m, n));
         Vector work = vector(1);
@@ -1141,6 +1159,7 @@ public abstract class DenseMatrix implements Matrix, Serializable {
      * @return singular value decomposition.
      */
     public SVD svd(boolean vectors) {
+        checkWritable();
         int k = Math.min(m, n);
         Vector s = vector(k);
         DenseMatrix A = this;
@@ -1229,6 +1248,7 @@ public abstract class DenseMatrix implements Matrix, Serializable {
             throw new IllegalArgumentException(String.format("The matrix is not square: %d x %d", m, n));
         }
 
+        checkWritable();
         DenseMatrix eig = this;
         byte[] vectors = { EVDJob.VECTORS.lapack() };
         byte[] no_vectors = { EVDJob.NO_VECTORS.lapack() };
@@ -1387,6 +1407,35 @@ public abstract class DenseMatrix implements Matrix, Serializable {
         };
     }
 
+    /**
+     * Creates a zero matrix in a memory-mapped file. The file is mapped
+     * in read-write mode and overwritten if it exists. The values are
+     * written back to the file by the operating system, or explicitly
+     * by {@link MappedMatrix#force()}.
+     * @param file the path of matrix file.
+     * @param scalarType the scalar type.
+     * @param m the number of rows.
+     * @param n the number of columns.
+     * @return a zero matrix backed by the file.
+     * @throws IOException if fail to create or map the file.
+     */
+    public static MappedMatrix mmap(Path file, ScalarType scalarType, int m, int n) throws IOException {
+        return MappedMatrix.create(file, scalarType, m, n);
+    }
+
+    /**
+     * Opens a matrix file created by {@link #mmap(Path, ScalarType, int, int)}.
+     * It doesn't load the values, which are paged in on demand.
+     * @param file the path of matrix file.
+     * @param readOnly true if the file is mapped in read-only mode.
+     * @return the matrix backed by the file.
+     * @throws IOException if fail to map the file or the file is not
+     *         a valid matrix file.
+     */
+    public static MappedMatrix mmap(Path file, boolean readOnly) throws IOException {
+        return MappedMatrix.open(file, readOnly);
+    }
+
     /**
      * Returns a zero matrix of the same scalar type as this matrix.
      * @param m the number of rows.
@@ -0,0 +1,442 @@
+/*
+ * Copyright (c) 2010-2025 Haifeng Li. All rights reserved.
+ *
+ * Smile is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Smile is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Smile. If not, see <https://www.gnu.org/licenses/>.
+ */
+package smile.tensor;
+
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.Serial;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import static smile.linalg.blas.cblas_h.*;
+import static smile.tensor.ScalarType.*;
+
+/**
+ * A dense matrix stored in a memory-mapped file. The file starts with a
+ * header of 64 bytes, which describes the scalar type, shape, layout and
+ * leading dimension of matrix, followed by the matrix values in column
+ * major order. The values are in the native byte order so that the
+ * mapped memory can be passed to BLAS and LAPACK routines directly.
+ * The header is padded to 64 bytes to keep the values aligned to cache
+ * lines. The header fields are in big-endian order:
+ * <ul>
+ * <li>bytes 0-7: the magic number "SMILEMAT".</li>
+ * <li>bytes 8-11: the version of file format.</li>
+ * <li>byte 12: the size of scalar in bytes, 4 for Float32 and 8 for Float64.</li>
+ * <li>byte 13: the layout, 0 for column major.</li>
+ * <li>byte 14: the byte order of values, 0 for little-endian and 1 for big-endian.</li>
+ * <li>bytes 16-19, 20-23, 24-27: the number of rows, the number of columns,
+ *     and the leading dimension.</li>
+ * </ul>
+ * <p>
+ * Opening a matrix file doesn't read any data. The pages are loaded
+ * on demand and evicted by the operating system, so that the matrix may
+ * be much larger than the heap and physical memory. Multiple processes
+ * may map the same file and share the page cache. The file is unmapped
+ * when the matrix object is garbage collected.
+ * <p>
+ * The methods that modify a read-only matrix in place, e.g. the element
+ * setters, {@code fill}, {@code scale}, {@code axpy} and the in-place
+ * decompositions, throw {@link UnsupportedOperationException}. The
+ * memory of a read-only matrix must not be passed to native routines
+ * as output directly, which would crash the process.
+ *
+ * @author Haifeng Li
+ */
+public class MappedMatrix extends DenseMatrix {
+    @Serial
+    private static final long serialVersionUID = 1L;
+    /** The magic number of matrix file, i.e. "SMILEMAT" in ASCII. */
+    static final long MAGIC = 0x534D494C454D4154L;
+    /** The version of file format. */
+    static final int VERSION = 1;
+    /** The size of file header in bytes. */
+    static final long HEADER_SIZE = 64;
+    /** The layout of header fields. */
+    private static final ValueLayout.OfLong HEADER_LONG = ValueLayout.JAVA_LONG_UNALIGNED.withOrder(ByteOrder.BIG_ENDIAN);
+    /** The layout of header fields. */
+    private static final ValueLayout.OfInt HEADER_INT = ValueLayout.JAVA_INT_UNALIGNED.withOrder(ByteOrder.BIG_ENDIAN);
+
+    /** The scalar type of matrix values. */
+    private final ScalarType scalarType;
+    /** The path of matrix file. */
+    private final String path;
+    /** The byte offset of matrix values in the file. */
+    private final long position;
+    /** True if the file is mapped in read-only mode. */
+    private final boolean readOnly;
+
+    /**
+     * Constructor.
+     * @param memory the mapped memory of matrix values.
+     * @param scalarType the scalar type of matrix values.
+     * @param path the path of matrix file.
+     * @param position the byte offset of matrix values in the file.
+     * @param readOnly true if the file is mapped in read-only mode.
+     * @param m the number of rows.
+     * @param n the number of columns.
+     * @param ld the leading dimension.
+     */
+    private MappedMatrix(MemorySegment memory, ScalarType scalarType, String path, long position, boolean readOnly, int m, int n, int ld) {
+        super(memory, m, n, ld, null, null);
+        this.scalarType = scalarType;
+        this.path = path;
+        this.position = position;
+        this.readOnly = readOnly;
+    }
+
+    /**
+     * Creates a zero matrix in a new file, which is mapped in read-write mode.
+     * An existing file will be overwritten.
+     * @param file the path of matrix file.
+     * @param scalarType the scalar type, Float32 or Float64.
+     * @param m the number of rows.
+     * @param n the number of columns.
+     * @return the matrix.
+     * @throws IOException if fail to create or map the file.
+     */
+    static MappedMatrix create(Path file, ScalarType scalarType, int m, int n) throws IOException {
+        if (scalarType != Float64 && scalarType != Float32) {
+            throw new UnsupportedOperationException("Unsupported ScalarType: " + scalarType);
+        }
+        if (m <= 0 || n <= 0) {
+            throw new IllegalArgumentException(String.format("Invalid matrix size: %d x %d", m, n));
+        }
+
+        int ld = ld(m);
+        long bytes = HEADER_SIZE + (long) ld * n * scalarType.byteSize();
+        MemorySegment header;
+        MemorySegment memory;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // The file is extended with zeros by the mapping.
+            MemorySegment segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, bytes, Arena.ofAuto());
+            header = segment.asSlice(0, HEADER_SIZE);
+            memory = segment.asSlice(HEADER_SIZE);
+        }
+
+        header.set(HEADER_LONG, 0, MAGIC);
+        header.set(HEADER_INT, 8, VERSION);
+        header.set(ValueLayout.JAVA_BYTE, 12, (byte) scalarType.byteSize());
+        header.set(ValueLayout.JAVA_BYTE, 13, (byte) 0); // COL_MAJOR
+        header.set(ValueLayout.JAVA_BYTE, 14, (byte) (ByteOrder.nativeOrder() == ByteOrder.BIG_ENDIAN ? 1 : 0));
+        header.set(HEADER_INT, 16, m);
+        header.set(HEADER_INT, 20, n);
+        header.set(HEADER_INT, 24, ld);
+        header.force();
+        return new MappedMatrix(memory, scalarType, file.toAbsolutePath().toString(), HEADER_SIZE, false, m, n, ld);
+    }
+
+    /**
+     * Opens a matrix file.
+     * @param file the path of matrix file.
+     * @param readOnly true if the file is mapped in read-only mode.
+     * @return the matrix.
+     * @throws IOException if fail to read or map the file, or the file
+     *         is not a valid matrix file.
+     */
+    static MappedMatrix open(Path file, boolean readOnly) throws IOException {
+        var mode = readOnly ? FileChannel.MapMode.READ_ONLY : FileChannel.MapMode.READ_WRITE;
+        var options = readOnly ?
+                new StandardOpenOption[]{StandardOpenOption.READ} :
+                new StandardOpenOption[]{StandardOpenOption.READ, StandardOpenOption.WRITE};
+
+        try (FileChannel channel = FileChannel.open(file, options);
+             Arena arena = Arena.ofConfined()) {
+            long size = channel.size();
+            if (size < HEADER_SIZE) {
+                throw new IOException("Invalid matrix file: " + file);
+            }
+
+            MemorySegment header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE, arena);
+            if (header.get(HEADER_LONG, 0) != MAGIC) {
+                throw new IOException("Invalid matrix file: " + file);
+            }
+
+            int version = header.get(HEADER_INT, 8);
+            if (version != VERSION) {
+                throw new IOException("Unsupported matrix file version: " + version);
+            }
+
+            ScalarType scalarType = switch (header.get(ValueLayout.JAVA_BYTE, 12)) {
+                case 8 -> Float64;
+                case 4 -> Float32;
+                default -> throw new IOException("Invalid scalar type: " + header.get(ValueLayout.JAVA_BYTE, 12));
+            };
+
+            if (header.get(ValueLayout.JAVA_BYTE, 13) != 0) {
+                throw new IOException("Unsupported matrix layout: ROW_MAJOR");
+            }
+
+            ByteOrder order = header.get(ValueLayout.JAVA_BYTE, 14) == 0 ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN;
+            if (order != ByteOrder.nativeOrder()) {
+                throw new IOException("Incompatible byte order: " + order);
+            }
+
+            int m = header.get(HEADER_INT, 16);
+            int n = header.get(HEADER_INT, 20);
+            int ld = header.get(HEADER_INT, 24);
+            if (m <= 0 || n <= 0 || ld < m) {
+                throw new IOException(String.format("Invalid matrix shape: %d x %d, ld = %d", m, n, ld));
+            }
+
+            long bytes = (long) ld * n * scalarType.byteSize();
+            if (size < HEADER_SIZE + bytes) {
+                throw new IOException(String.format("Truncated matrix file: %d < %d bytes", size, HEADER_SIZE + bytes));
+            }
+
+            MemorySegment memory = channel.map(mode, HEADER_SIZE, bytes, Arena.ofAuto());
+            return new MappedMatrix(memory, scalarType, file.toAbsolutePath().toString(), HEADER_SIZE, readOnly, m, n, ld);
+        }
+    }
+
+    @Serial
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        var mode = readOnly ? FileChannel.MapMode.READ_ONLY : FileChannel.MapMode.READ_WRITE;
+        var options = readOnly ?
+                new StandardOpenOption[]{StandardOpenOption.READ} :
+                new StandardOpenOption[]{StandardOpenOption.READ, StandardOpenOption.WRITE};
+
+        long bytes = (long) ld * n * scalarType.byteSize();
+        try (FileChannel channel = FileChannel.open(Path.of(path), options)) {
+            if (channel.size() < position + bytes) {
+                throw new InvalidObjectException("Truncated matrix file: " + path);
+            }
+            memory = channel.map(mode, position, bytes, Arena.ofAuto());
+        }
+    }
+
+    /**
+     * Returns the path of matrix file.
+     * @return the path of matrix file.
+     */
+    public Path path() {
+        return Path.of(path);
+    }
+
+    /**
+     * Returns true if the file is mapped in read-only mode.
+     * @return true if the file is mapped in read-only mode.
+     */
+    public boolean isReadOnly() {
+        return readOnly;
+    }
+
+    /**
+     * Throws an exception if the file is mapped in read-only mode.
+     * @throws UnsupportedOperationException if the matrix is read-only.
+     */
+    @Override
+    void checkWritable() {
+        if (readOnly) {
+            throw new UnsupportedOperationException("Read-only matrix: " + path);
+        }
+    }
+
+    /**
+     * Writes the modified values back to the file.
+     */
+    public void force() {
+        if (!readOnly) {
+            memory.force();
+        }
+    }
+
+    /**
+     * Returns the linearized index of matrix element. Unlike the on-heap
+     * matrix, the index of a large mapped matrix may exceed the range of int.
+     */
+    private long index(int i, int j) {
+        return (long) j * ld + i;
+    }
+
+    @Override
+    public ScalarType scalarType() {
+        return scalarType;
+    }
+
+    @Override
+    public double get(int i, int j) {
+        long k = index(i, j);
+        return scalarType == Float64 ?
+                memory.getAtIndex(ValueLayout.JAVA_DOUBLE, k) :
+                memory.getAtIndex(ValueLayout.JAVA_FLOAT, k);
+    }
+
+    @Override
+    public void set(int i, int j, double x) {
+        checkWritable();
+        long k = index(i, j);
+        if (scalarType == Float64) {
+            memory.setAtIndex(ValueLayout.JAVA_DOUBLE, k, x);
+        } else {
+            memory.setAtIndex(ValueLayout.JAVA_FLOAT, k, (float) x);
+        }
+    }
+
+    @Override
+    public void add(int i, int j, double x) {
+        checkWritable();
+        set(i, j, get(i, j) + x);
+    }
+
+    @Override
+    public void sub(int i, int j, double x) {
+        checkWritable();
+        set(i, j, get(i, j) - x);
+    }
+
+    @Override
+    public void mul(int i, int j, double x) {
+        checkWritable();
+        set(i, j, get(i, j) * x);
+    }
+
+    @Override
+    public void div(int i, int j, double x) {
+        checkWritable();
+        set(i, j, get(i, j) / x);
+    }
+
+    @Override
+    public void fill(double value) {
+        checkWritable();
+        if (Double.doubleToRawLongBits(value) == 0) {
+            memory.fill((byte) 0);
+        } else {
+            for (int j = 0; j < n; j++) {
+                for (int i = 0; i < m; i++) {
+                    set(i, j, value);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the memory segment of a column.
+     */
+    private MemorySegment column(MemorySegment memory, int j) {
+        return memory.asSlice(index(0, j) * scalarType.byteSize());
+    }
+
+    @Override
+    public DenseMatrix scale(double alpha) {
+        checkWritable();
+        // Column by column as the size of matrix may exceed the range of int.
+        for (int j = 0; j < n; j++) {
+            switch (scalarType) {
+                case Float64 -> cblas_dscal(m, alpha, column(memory, j), 1);
+                case Float32 -> cblas_sscal(m, (float) alpha, column(memory, j), 1);
+                default -> throw new UnsupportedOperationException("Unsupported scalar type: " + scalarType);
+            }
+        }
+        return this;
+    }
+
+    @Override
+    public DenseMatrix axpy(double alpha, DenseMatrix x) {
+        if (m != x.nrow() || n != x.ncol()) {
+            throw new IllegalArgumentException(String.format("Adds matrix: %d x %d vs %d x %d", m, n, x.nrow(), x.ncol()));
+        }
+
+        checkWritable();
+        if (scalarType != x.scalarType()) {
+            return super.axpy(alpha, x);
+        }
+
+        int elementSize = scalarType.byteSize();
+        for (int j = 0; j < n; j++) {
+            MemorySegment xj = x.memory.asSlice((long) j * x.ld * elementSize);
+            switch (scalarType) {
+                case Float64 -> cblas_daxpy(m, alpha, xj, 1, column(memory, j), 1);
+                case Float32 -> cblas_saxpy(m, (float) alpha, xj, 1, column(memory, j), 1);
+                default -> throw new UnsupportedOperationException("Unsupported scalar type: " + scalarType);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Returns a copy of matrix on the heap.
+     * @return a copy of matrix on the heap.
+     */
+    @Override
+    public DenseMatrix copy() {
+        DenseMatrix copy = zeros(m, n);
+        long bytes = (long) m * scalarType.byteSize();
+        for (int j = 0; j < n; j++) {
+            MemorySegment.copy(memory, index(0, j) * scalarType.byteSize(), copy.memory, (long) j * copy.ld * scalarType.byteSize(), bytes);
+        }
+        copy.uplo = uplo;
+        copy.diag = diag;
+        return copy;
+    }
+
+    /**
+     * Returns a copy of the j-th column on the heap.
+     * @param j the column index.
+     * @return the column.
+     */
+    @Override
+    public Vector column(int j) {
+        if (j < 0) j = n + j;
+        Vector x = vector(m);
+        MemorySegment.copy(memory, index(0, j) * scalarType.byteSize(), x.memory, 0, (long) m * scalarType.byteSize());
+        return x;
+    }
+
+    /**
+     * Returns the submatrix which top left at (i, j) and bottom right at
+     * (k, l). If the submatrix starts at the first row, it is a view of
+     * the mapped memory. Otherwise, it is a copy on the heap.
+     *
+     * @param i the beginning row, inclusive.
+     * @param j the beginning column, inclusive,
+     * @param k the ending row, exclusive.
+     * @param l the ending column, exclusive.
+     * @return the submatrix.
+     */
+    @Override
+    public DenseMatrix submatrix(int i, int j, int k, int l) {
+        if (i < 0 || i > m || k <= i || k > m || j < 0 || j > n || l <= j || l > n) {
+            throw new IllegalArgumentException(String.format("Invalid submatrix range (%d:%d, %d:%d) of %d x %d", i, k, j, l, m, n));
+        }
+
+        if (i == 0) {
+            int elementSize = scalarType.byteSize();
+            long offset = index(0, j) * elementSize;
+            MemorySegment slice = memory.asSlice(offset, (long) ld * (l - j) * elementSize);
+            return new MappedMatrix(slice, scalarType, path, position + offset, readOnly, k, l - j, ld);
+        } else {
+            int nrow = k - i;
+            int ncol = l - j;
+            DenseMatrix sub = zeros(nrow, ncol);
+            for (int q = 0; q < ncol; q++) {
+                for (int p = 0; p < nrow; p++) {
+                    sub.set(p, q, get(p + i, q + j));
+                }
+            }
+            return sub;
+        }
+    }
+}
@@ -368,4 +368,159 @@ public class DataFrameTest {
         assertEquals(1, output[2][3], 1E-10);
         assertEquals(1, output[3][3], 1E-10);
     }
+
+    @Test
+    public void testGroupBy() {
+        System.out.println("groupBy");
+        var group = df.groupBy("gender");
+        assertEquals(2, group.size());
+        var agg = group.agg(Aggregate.count(), Aggregate.count("salary"),
+                Aggregate.sum("age"), Aggregate.mean("age"), Aggregate.min("age"),
+                Aggregate.max("age"), Aggregate.var("age"), Aggregate.median("age"),
+                Aggregate.mean("salary").as("avg_salary"));
+        System.out.println(agg);
+        assertEquals(2, agg.size());
+        assertEquals("Male", agg.getString(0, 0));
+        assertEquals(2L, agg.getLong(0, 1));
+        assertEquals(1L, agg.getLong(0, 2));
+        assertEquals(61L, agg.getLong(0, 3));
+        assertTrue(agg.column(3).dtype().isLong());
+        assertTrue(agg.column(5).dtype().isLong());
+        assertEquals(30.5, agg.getDouble(0, 4), 1E-10);
+        assertEquals(23, agg.getDouble(0, 5), 1E-10);
+        assertEquals(38, agg.getDouble(0, 6), 1E-10);
+        assertEquals(112.5, agg.getDouble(0, 7), 1E-10);
+        assertEquals(30.5, agg.getDouble(0, 8), 1E-10);
+        assertEquals(10000, agg.getDouble(0, 9), 1E-10);
+        assertEquals(230000, agg.getDouble(1, 9), 1E-10);
+        assertEquals("avg_salary", agg.names()[9]);
+    }
+
+    @Test
+    public void testGroupByLarge() {
+        System.out.println("groupBy large");
+        int n = 200000;
+        int[] key1 = new int[n];
+        String[] key2 = new String[n];
+        double[] x = new double[n];
+        for (int i = 0; i < n; i++) {
+            key1[i] = i % 7;
+            key2[i] = i % 2 == 0 ? "even" : "odd";
+            x[i] = i;
+        }
+
+        var data = new DataFrame(
+                new smile.data.vector.IntVector("key1", key1),
+                new StringVector("key2", key2),
+                new smile.data.vector.DoubleVector("x", x));
+        var agg = data.groupBy("key1", "key2").agg(Aggregate.count(), Aggregate.sum("x"), Aggregate.sd("x"));
+        assertEquals(14, agg.size());
+        long count = 0;
+        double sum = 0.0;
+        for (int i = 0; i < agg.size(); i++) {
+            count += agg.getLong(i, 2);
+            sum += agg.getDouble(i, 3);
+            assertTrue(agg.getDouble(i, 4) > 0);
+        }
+        assertEquals(n, count);
+        assertEquals((double) n * (n - 1) / 2, sum, 1E-3);
+    }
+
+    @Test
+    public void testGroupByLong() {
+        System.out.println("groupBy long");
+        // The values are not exact as doubles.
+        long base = (1L << 60) + 1;
+        var data = new DataFrame(
+                new smile.data.vector.IntVector("key", new int[]{0, 1, 0, 1, 2}),
+                new smile.data.vector.LongVector("x", new long[]{base, base + 2, 3, base + 4, 5}),
+                new smile.data.vector.NullableIntVector("y", new int[]{1, 2, 3, 4, 5}, java.util.BitSet.valueOf(new long[]{0b10000})));
+        var agg = data.groupBy("key").agg(Aggregate.sum("x"), Aggregate.min("x"), Aggregate.max("x"), Aggregate.max("y"));
+        System.out.println(agg);
+        assertEquals(base + 3, agg.getLong(0, 1));
+        assertEquals(2 * base + 6, agg.getLong(1, 1));
+        assertEquals(3, agg.getLong(0, 2));
+        assertEquals(base + 2, agg.getLong(1, 2));
+        assertEquals(base, agg.getLong(0, 3));
+        assertEquals(base + 4, agg.getLong(1, 3));
+        assertEquals(3, agg.getLong(0, 4));
+        assertEquals(4, agg.getLong(1, 4));
+        assertTrue(agg.isNullAt(2, 4));
+
+        var overflow = new DataFrame(
+                new smile.data.vector.IntVector("key", new int[]{0, 0}),
+                new smile.data.vector.LongVector("x", new long[]{Long.MAX_VALUE, 1}));
+        assertThrows(ArithmeticException.class, () -> overflow.groupBy("key").agg(Aggregate.sum("x")));
+    }
+
+    @Test
+    public void testSort() {
+        System.out.println("sort");
+        var sorted = df.sort("age");
+        System.out.println(sorted);
+        assertEquals("Amy", sorted.getString(0, 3));
+        assertEquals("Jane", sorted.getString(3, 3));
+
+        sorted = df.sort(new String[]{"gender", "age"}, new boolean[]{true, false});
+        System.out.println(sorted);
+        assertEquals("Alex", sorted.getString(0, 3));
+        assertEquals("Bob", sorted.getString(1, 3));
+        assertEquals("Jane", sorted.getString(2, 3));
+        assertEquals("Amy", sorted.getString(3, 3));
+
+        // Nulls are last in both orders.
+        sorted = df.sort(new String[]{"salary"}, new boolean[]{false});
+        assertEquals("Jane", sorted.getString(0, 3));
+        assertEquals("Alex", sorted.getString(1, 3));
+        assertTrue(sorted.isNullAt(2, 4));
+        assertTrue(sorted.isNullAt(3, 4));
+    }
+
+    @Test
+    public void testHashJoin() {
+        System.out.println("join");
+        var dept = new DataFrame(
+                new StringVector("name", new String[]{"Alex", "Jane", "Alex", "Zoe"}),
+                new StringVector("dept", new String[]{"R&D", "Sales", "Ops", "HR"}));
+
+        var inner = df.innerJoin(dept, "name");
+        System.out.println(inner);
+        assertEquals(3, inner.size());
+        assertEquals(6, inner.ncol());
+        assertEquals("R&D", inner.getString(0, 5));
+        assertEquals("Ops", inner.getString(1, 5));
+        assertEquals("Sales", inner.getString(2, 5));
+
+        var left = df.leftJoin(dept, "name");
+        System.out.println(left);
+        assertEquals(5, left.size());
+        assertEquals("Bob", left.getString(2, 3));
+        assertTrue(left.isNullAt(2, 5));
+        assertTrue(left.isNullAt(4, 5));
+
+        var ages = new DataFrame(
+                new smile.data.vector.IntVector("age", new int[]{38, 13, 99}),
+                new smile.data.vector.IntVector("bonus", new int[]{1, 2, 3}));
+        left = df.leftJoin(ages, "age");
+        assertEquals(4, left.size());
+        assertTrue(left.schema().field("bonus").dtype().isNullable());
+        assertEquals(1, left.getInt(0, 5));
+        assertTrue(left.isNullAt(1, 5));
+        assertEquals(2, left.getInt(3, 5));
+
+        // The integral and floating keys are matched by values.
+        var longAges = new DataFrame(
+                new smile.data.vector.LongVector("age", new long[]{38, 13, 99}),
+                new smile.data.vector.IntVector("bonus", new int[]{1, 2, 3}));
+        assertEquals(2, df.innerJoin(longAges, "age").size());
+        var doubleAges = new DataFrame(
+                new smile.data.vector.DoubleVector("age", new double[]{38.0, 13.5, 99}),
+                new smile.data.vector.IntVector("bonus", new int[]{1, 2, 3}));
+        assertEquals(1, df.innerJoin(doubleAges, "age").size());
+
+        var stringAges = new DataFrame(
+                new StringVector("age", new String[]{"38", "13"}),
+                new smile.data.vector.IntVector("bonus", new int[]{1, 2}));
+        assertThrows(IllegalArgumentException.class, () -> df.innerJoin(stringAges, "age"));
+    }
 }
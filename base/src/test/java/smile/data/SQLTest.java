@@ -86,4 +86,39 @@ public class SQLTest {
         assertEquals(17, join.columns().size());
         sql.close();
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testArrowBatches() throws SQLException {
+        System.out.println("Arrow batches");
+        try (SQL sql = new SQL()) {
+            sql.execute("""
+                    CREATE TABLE t AS
+                    SELECT i::INTEGER AS id, (i / 2)::DOUBLE AS x,
+                           CASE WHEN i % 10 = 0 THEN NULL ELSE 'v' || (i % 3) END AS s
+                    FROM range(200000) r(i)""");
+
+            DataFrame df = sql.query("SELECT * FROM t ORDER BY id");
+            System.out.println(df);
+            assertEquals(200000, df.size());
+            assertEquals(3, df.ncol());
+            assertEquals(123456, df.getInt(123456, 0));
+            assertEquals(61728.0, df.getDouble(123456, 1), 1E-10);
+            assertNull(df.get(123450, 2));
+            assertEquals("v1", df.get(123451, 2));
+
+            long rows = 0;
+            try (var batches = sql.stream("SELECT * FROM t", 50000)) {
+                for (var batch : batches.toList()) {
+                    assertTrue(batch.size() <= 50000);
+                    assertEquals(3, batch.ncol());
+                    rows += batch.size();
+                }
+            }
+            assertEquals(200000, rows);
+
+            DataFrame empty = sql.query("SELECT * FROM t WHERE id < 0");
+            assertEquals(0, empty.size());
+            assertEquals(3, empty.ncol());
+        }
+    }
+}
@@ -16,11 +16,14 @@
  */
 package smile.data.formula;
 
+import java.time.LocalDateTime;
 import org.junit.jupiter.api.*;
 import smile.data.DataFrame;
 import smile.data.measure.NominalScale;
 import smile.data.type.DataTypes;
 import smile.data.type.StructType;
+import smile.data.vector.DateTimeVector;
+import smile.data.vector.ValueVector;
 import smile.io.Read;
 import smile.io.Paths;
 import static org.junit.jupiter.api.Assertions.*;
@@ -95,4 +98,28 @@ public class DateFeatureTest {
         assertEquals("TUESDAY", output.getScale(0, 3));
         assertEquals("THURSDAY", output.getScale(1, 3));
     }
+
+    @Test
+    public void testTemporalVector() throws Exception {
+        System.out.println("temporal vector");
+        var start = LocalDateTime.of(1899, 12, 25, 23, 59, 58);
+        LocalDateTime[] values = new LocalDateTime[1000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = i % 97 == 0 ? null : start.plusHours(1237L * i).plusSeconds(i);
+        }
+
+        var data = new DataFrame(ValueVector.of("timestamp", values));
+        assertTrue(data.column(0) instanceof DateTimeVector);
+        assertEquals(values[1], data.get(1, 0));
+
+        DateFeature[] features = DateFeature.values();
+        Formula formula = Formula.rhs(date("timestamp", features));
+        DataFrame output = formula.frame(data);
+        for (int j = 0; j < features.length; j++) {
+            Feature feature = new Date("timestamp", features[j]).bind(data.schema()).getFirst();
+            for (int i = 0; i < values.length; i++) {
+                assertEquals(feature.applyAsInt(data.get(i)), output.getInt(i, j), features[j] + " of " + values[i]);
+            }
+        }
+    }
 }
@@ -19,13 +19,16 @@ package smile.data.formula;
 import org.junit.jupiter.api.*;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
 import smile.data.DataFrame;
+import smile.data.Tuple;
 import smile.data.measure.Measure;
 import smile.data.measure.NominalScale;
 import smile.data.type.DataTypes;
 import smile.data.type.StructField;
 import smile.data.type.StructType;
+import smile.data.vector.*;
 import smile.io.Read;
 import smile.io.Paths;
 import smile.tensor.Matrix;
@@ -174,6 +177,54 @@ public class FormulaTest {
         assertEquals(2, matrix.ncol());
     }
 
+    @Test
+    public void testColumnEvaluation() {
+        System.out.println("column evaluation");
+        int n = 3 * Vectors.CHUNK + 17;
+        int[] a = new int[n];
+        long[] b = new long[n];
+        double[] c = new double[n];
+        byte[] u = new byte[n];
+        byte[] v = new byte[n];
+        BitSet nulls = new BitSet(n);
+        for (int i = 0; i < n; i++) {
+            a[i] = i - n / 2;
+            b[i] = 3L * i + 1;
+            c[i] = (i % 11) * 0.75 + 0.1;
+            u[i] = (byte) (i % 2);
+            v[i] = (byte) (i % 3);
+            if (i % 7 == 0) nulls.set(i);
+        }
+
+        DataFrame data = new DataFrame(
+                new IntVector("a", a),
+                new LongVector("b", b),
+                new NullableDoubleVector("c", c, nulls),
+                new ByteVector(new StructField("u", DataTypes.ByteType, new NominalScale("lo", "hi")), u),
+                new ByteVector(new StructField("v", DataTypes.ByteType, new NominalScale("x", "y", "z")), v)
+        );
+
+        Formula formula = Formula.rhs(add("a", "b"), sub("a", val(3)), mul("b", "c"), div("a", val(7)),
+                abs("a"), abs("c"), round("c"), log("c"), interact("u", "v"));
+        DataFrame output = formula.frame(data);
+        assertEquals(n, output.size());
+        assertEquals(9, output.shape(1));
+        assertEquals(formula.bind(data.schema()), output.schema());
+
+        for (int i = 0; i < n; i++) {
+            Tuple row = formula.apply(data.get(i));
+            for (int j = 0; j < output.shape(1); j++) {
+                Object expected = row.get(j);
+                Object actual = output.get(i, j);
+                if (expected == null) {
+                    assertNull(actual);
+                } else {
+                    assertEquals(((Number) expected).doubleValue(), ((Number) actual).doubleValue(), 0.0);
+                }
+            }
+        }
+    }
+
     @Test
     public void testInteraction() {
         System.out.println("interaction");
@@ -17,8 +17,10 @@
 package smile.data.vector;
 
 import java.time.*;
+import java.util.BitSet;
 import smile.data.measure.NominalScale;
 import smile.data.type.DataTypes;
+import smile.data.type.StructField;
 import smile.util.Index;
 import org.junit.jupiter.api.*;
 import static org.junit.jupiter.api.Assertions.*;
@@ -79,4 +81,183 @@ public class ValueVectorTest {
         var arrayVector = ObjectVector.of("E", Index.range(0, 4).toArray(), new int[]{3, 3, 3, 3});
         assertEquals(DataTypes.IntArrayType, arrayVector.dtype());
     }
+
+    @Test
+    public void testDictionaryVector() {
+        System.out.println("dictionary");
+        var vector = DictionaryVector.encode("A", "train", null, "test", "train", "valid");
+        assertEquals(5, vector.size());
+        assertArrayEquals(new String[]{"test", "train", "valid"}, vector.dictionary());
+        assertEquals("train", vector.get(0));
+        assertTrue(vector.isNullAt(1));
+        assertEquals(1, vector.getNullCount());
+        assertEquals(0, vector.code(2));
+
+        var factor = vector.factorize();
+        assertTrue(factor instanceof ByteVector);
+        assertTrue(factor.measure() instanceof NominalScale);
+        assertEquals(1, factor.getInt(0));
+        assertEquals(-1, factor.getInt(1));
+        assertEquals("valid", factor.getScale(4));
+
+        var slice = vector.get(Index.of(4, 0));
+        assertEquals("valid", slice.get(0));
+        assertEquals("train", slice.get(1));
+
+        var other = DictionaryVector.encode("A", "alpha", "train");
+        var concat = ValueVector.concat(vector, other);
+        assertTrue(concat instanceof DictionaryVector);
+        assertEquals(7, concat.size());
+        assertEquals("alpha", concat.get(5));
+        assertEquals("train", concat.get(3));
+        assertNull(concat.get(1));
+    }
+
+    @Test
+    public void testDictionaryVectorSet() {
+        System.out.println("dictionary set");
+        var vector = new DictionaryVector(new StructField("A", DataTypes.StringType),
+                new String[]{"valid", "test", "train"}, new int[]{2, -1, 1, 0});
+        assertArrayEquals(new String[]{"test", "train", "valid"}, vector.dictionary());
+        assertEquals("train", vector.get(0));
+        assertEquals("test", vector.get(2));
+        assertEquals("valid", vector.get(3));
+        assertArrayEquals(vector.dictionary(), vector.nominal().levels());
+
+        var factor = vector.factorize();
+        vector.set(1, "alpha");
+        vector.set(0, "test");
+        assertArrayEquals(new String[]{"alpha", "test", "train", "valid"}, vector.dictionary());
+        assertEquals("test", vector.get(0));
+        assertEquals("alpha", vector.get(1));
+        assertEquals("test", vector.get(2));
+        assertEquals("valid", vector.get(3));
+        // the nominal vector is not affected by the writes.
+        assertEquals(1, factor.getInt(0));
+        assertEquals(-1, factor.getInt(1));
+
+        String[] values = new String[200];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = "v" + i;
+            vector.set(i % 4, values[i]);
+        }
+        assertEquals(204, vector.dictionary().length);
+        assertTrue(vector.factorize() instanceof ShortVector);
+        assertEquals("v199", vector.get(3));
+        assertEquals("v196", vector.get(0));
+        vector.set(0, null);
+        assertTrue(vector.isNullAt(0));
+
+        assertThrows(IllegalArgumentException.class, () ->
+                new DictionaryVector(new StructField("A", DataTypes.StringType),
+                        new String[]{"b", "a", "b"}, new int[]{0}));
+    }
+
+    @Test
+    public void testUtf8Vector() {
+        System.out.println("utf8");
+        var vector = Utf8Vector.of("A", "hello", null, "", "\u00e9t\u00e9");
+        assertEquals(4, vector.size());
+        assertEquals("hello", vector.get(0));
+        assertNull(vector.get(1));
+        assertEquals("", vector.get(2));
+        assertEquals("\u00e9t\u00e9", vector.get(3));
+        assertEquals(5, vector.length(3));
+        assertEquals(1, vector.getNullCount());
+
+        var slice = vector.get(Index.of(3, 1, 0));
+        assertEquals("\u00e9t\u00e9", slice.get(0));
+        assertTrue(slice.isNullAt(1));
+        assertEquals("hello", slice.get(2));
+
+        var concat = ValueVector.concat(vector, slice);
+        assertTrue(concat instanceof Utf8Vector);
+        assertEquals(7, concat.size());
+        assertEquals("hello", concat.get(6));
+
+        var dict = vector.encode();
+        assertArrayEquals(new String[]{"", "hello", "\u00e9t\u00e9"}, dict.dictionary());
+    }
+
+    @Test
+    public void testUtf8VectorSet() {
+        System.out.println("utf8 set");
+        var vector = Utf8Vector.of("A", "hello", null, "world");
+        var copy = vector.withName("B");
+        vector.set(1, "\u00e9t\u00e9");
+        vector.set(0, null);
+        assertEquals(3, vector.size());
+        assertNull(vector.get(0));
+        assertEquals("\u00e9t\u00e9", vector.get(1));
+        assertEquals(5, vector.length(1));
+        assertEquals(1, vector.getNullCount());
+        assertTrue(vector.isNullAt(0));
+        // the copy is not affected by the writes.
+        assertEquals("hello", copy.get(0));
+        assertNull(copy.get(1));
+
+        var slice = vector.get(Index.of(2, 1));
+        assertEquals("world", slice.get(0));
+        assertEquals("\u00e9t\u00e9", slice.get(1));
+
+        var concat = ValueVector.concat(vector, copy);
+        assertTrue(concat instanceof Utf8Vector);
+        assertEquals(6, concat.size());
+        assertEquals("\u00e9t\u00e9", concat.get(1));
+        assertEquals("hello", concat.get(3));
+    }
+
+    @Test
+    public void testTemporalVector() {
+        System.out.println("temporal");
+        var dates = ValueVector.of("A", LocalDate.of(2024, 2, 29), null, LocalDate.of(1969, 12, 31));
+        assertEquals(DataTypes.DateType, dates.dtype());
+        assertEquals(LocalDate.of(2024, 2, 29), dates.get(0));
+        assertNull(dates.get(1));
+        assertEquals(-1, dates.getInt(2));
+        assertEquals(1, dates.getNullCount());
+
+        var times = ValueVector.of("B", LocalTime.of(23, 59, 59, 123456789), null);
+        assertEquals(LocalTime.of(23, 59, 59, 123456789), times.get(0));
+        assertTrue(times.isNullAt(1));
+
+        var datetime = LocalDateTime.of(1950, 6, 1, 12, 30, 15, 250000000);
+        var datetimes = ValueVector.of("C", datetime, null);
+        assertEquals(datetime, datetimes.get(0));
+        assertEquals(LocalDate.of(1950, 6, 1).toEpochDay(), datetimes.epochDay(0));
+        assertEquals(datetime.toLocalTime().toNanoOfDay(), datetimes.nanoOfDay(0));
+
+        var concat = ValueVector.concat(datetimes, datetimes.get(Index.of(1, 0)));
+        assertTrue(concat instanceof DateTimeVector);
+        assertEquals(4, concat.size());
+        assertTrue(concat.isNullAt(2));
+        assertEquals(datetime, concat.get(3));
+    }
+
+    @Test
+    public void testDateTimeVectorPrecision() {
+        System.out.println("datetime precision");
+        var nanos = LocalDateTime.of(1969, 12, 31, 23, 59, 59, 123456789);
+        var vector = ValueVector.of("A", nanos, LocalDateTime.MIN, LocalDateTime.MAX, null);
+        assertEquals(nanos, vector.get(0));
+        assertEquals(123456789, vector.nano(0));
+        assertEquals(-1, vector.getLong(0));
+        assertEquals(nanos.toLocalTime().toNanoOfDay(), vector.nanoOfDay(0));
+        assertEquals(LocalDateTime.MIN, vector.get(1));
+        assertEquals(LocalDateTime.MAX, vector.get(2));
+        assertEquals(LocalDate.MIN.toEpochDay(), vector.epochDay(1));
+        assertEquals(LocalDate.MAX.toEpochDay(), vector.epochDay(2));
+        assertEquals(LocalTime.MAX.toNanoOfDay(), vector.nanoOfDay(2));
+        assertTrue(vector.isNullAt(3));
+
+        vector.set(3, LocalDateTime.of(2024, 1, 1, 0, 0, 0, 1));
+        assertEquals(LocalDateTime.of(2024, 1, 1, 0, 0, 0, 1), vector.get(3));
+
+        var slice = vector.get(Index.of(2, 0));
+        assertEquals(LocalDateTime.MAX, slice.get(0));
+        assertEquals(nanos, slice.get(1));
+
+        assertThrows(IllegalArgumentException.class, () ->
+                new DateTimeVector("B", new long[]{0}, new int[]{1_000_000_000}, new BitSet()));
+    }
 }
@@ -22,6 +22,7 @@ import smile.data.type.StructField;
 import smile.data.type.StructType;
 import smile.tensor.Matrix;
 import java.io.File;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.sql.*;
 import org.junit.jupiter.api.*;
@@ -92,6 +93,28 @@ public class ArrowTest {
         assertEquals(6, df.shape(1));
     }
 
+    @Test
+    public void testReadOptions() throws Exception {
+        System.out.println("read options");
+        Arrow writer = new Arrow(100);
+        Path path = File.createTempFile("chinook", "arrow").toPath();
+        writer.write(df, path);
+
+        DataFrame data = writer.read(path, new ReadOptions("Country", "Total").withLimit(150));
+        assertEquals(150, data.size());
+        assertEquals(2, data.ncol());
+        assertEquals(df.getString(149, 4), data.getString(149, 0));
+
+        long expected = df.stream().filter(t -> t.getDouble("Total") > 10).count();
+        data = writer.read(path, new ReadOptions().withFilter(t -> t.getDouble("Total") > 10));
+        assertEquals(expected, data.size());
+        assertEquals(6, data.ncol());
+
+        try (var stream = writer.stream(Files.newInputStream(path), new ReadOptions("Total"))) {
+            assertEquals(412, stream.mapToInt(DataFrame::size).sum());
+        }
+    }
+
     /**
      * Test of schema method, of class DataFrame.
      */
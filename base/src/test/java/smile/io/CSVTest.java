@@ -276,4 +276,101 @@ public class CSVTest {
         assertEquals("Internal Auditor", df.getString(0, 11));
         assertEquals("1E+02", df.getString(0, 12));
     }
+
+    @Test
+    public void testQuotedAndMissing() throws Exception {
+        System.out.println("quoted and missing values");
+
+        var path = java.nio.file.Files.createTempFile("smile-csv-", ".csv");
+        path.toFile().deleteOnExit();
+        java.nio.file.Files.writeString(path, """
+                name,age,score,comment
+                "Smith, John",42,3.5,"He said ""hi""\"
+                Jane,,-1.25e2,
+                # a comment line
+                "Multi
+                Line",7,,"x"\r
+                Bob,8,0.1""");
+
+        CSVFormat format = CSVFormat.Builder.create()
+                .setHeader()
+                .setSkipHeaderRecord(true)
+                .setCommentMarker('#')
+                .get();
+        DataFrame df = new CSV(format).read(path);
+        System.out.println(df);
+
+        assertEquals(4, df.size());
+        assertEquals(4, df.ncol());
+        StructType schema = new StructType(
+                new StructField("name", DataTypes.StringType),
+                new StructField("age", DataTypes.NullableIntType),
+                new StructField("score", DataTypes.NullableDoubleType),
+                new StructField("comment", DataTypes.StringType)
+        );
+        assertEquals(schema, df.schema());
+
+        assertEquals("Smith, John", df.getString(0, 0));
+        assertEquals(42, df.getInt(0, 1));
+        assertEquals(3.5, df.getDouble(0, 2), 1E-10);
+        assertEquals("He said \"hi\"", df.get(0, 3));
+        assertTrue(df.isNullAt(1, 1));
+        assertEquals(-125.0, df.getDouble(1, 2), 1E-10);
+        assertTrue(df.isNullAt(1, 3));
+        assertEquals("Multi\nLine", df.get(2, 0));
+        assertTrue(df.isNullAt(2, 2));
+        assertEquals("x", df.get(2, 3));
+        assertEquals("Bob", df.get(3, 0));
+        assertEquals(0.1, df.getDouble(3, 2), 1E-10);
+
+        DataFrame top = new CSV(format).read(path, 2);
+        assertEquals(2, top.size());
+        assertEquals("Jane", top.get(1, 0));
+    }
+
+    @Test
+    public void testChunkBoundary() throws Exception {
+        System.out.println("chunk boundary");
+        int n = 500;
+        String[] text = new String[n];
+        StringBuilder sb = new StringBuilder("id,text,value\n");
+        for (int i = 0; i < n; i++) {
+            text[i] = switch (i % 5) {
+                case 0 -> "name " + i;
+                case 1 -> "a, b " + i;
+                case 2 -> "say \"hi\" " + i;
+                case 3 -> "line\nbreak " + i;
+                default -> "carriage\r\nreturn, \"quoted\"\n" + i;
+            };
+            String quoted = i % 5 == 0 ? text[i] : '"' + text[i].replace("\"", "\"\"") + '"';
+            sb.append(i).append(',').append(quoted).append(',').append(0.25 + i).append(i % 7 == 0 ? "\r\n" : "\n");
+        }
+
+        var path = java.nio.file.Files.createTempFile("smile-chunk", ".csv");
+        path.toFile().deleteOnExit();
+        java.nio.file.Files.writeString(path, sb);
+
+        CSVFormat format = CSVFormat.Builder.create()
+                .setHeader()
+                .setSkipHeaderRecord(true)
+                .get();
+        // The whole file is in one chunk.
+        DataFrame whole = new CSV(format).read(path);
+        assertEquals(n, whole.size());
+        // Odd tiny chunks split the records and quoted fields at various
+        // positions, and some records are longer than a chunk.
+        for (int size : new int[]{7, 13, 64, 97}) {
+            DataFrame df = new CSV(format).chunkSize(size, size).read(path);
+            assertEquals(whole.schema(), df.schema());
+            assertEquals(n, df.size());
+            for (int i = 0; i < n; i++) {
+                assertEquals(i, df.getInt(i, 0));
+                assertEquals(text[i], df.getString(i, 1));
+                assertEquals(0.25 + i, df.getDouble(i, 2), 1E-10);
+                assertEquals(whole.getString(i, 1), df.getString(i, 1));
+            }
+        }
+
+        assertThrows(IllegalArgumentException.class, () -> new CSV(format).chunkSize(0, 16));
+    }
 }
@@ -16,12 +16,17 @@
  */
 package smile.io;
 
+import java.nio.file.Files;
 import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
 import smile.data.DataFrame;
+import smile.data.type.DataType;
 import smile.data.type.DataTypes;
 import smile.data.type.StructField;
 import smile.data.type.StructType;
 import smile.tensor.Matrix;
+import smile.util.Index;
 import org.junit.jupiter.api.*;
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -70,6 +75,85 @@ public class ParquetTest {
         assertEquals(13, df.ncol());
     }
 
+    @Test
+    public void testReadOptions() throws Exception {
+        System.out.println("read options");
+        var path = Paths.getTestData("kylo/userdata1.parquet");
+        DataFrame data = Parquet.read(path, new ReadOptions("id", "salary").withLimit(100));
+        assertEquals(100, data.size());
+        assertEquals(2, data.ncol());
+        assertEquals("id", data.schema().field(0).name());
+        assertEquals("salary", data.schema().field(1).name());
+        assertEquals(df.getInt(99, 1), data.getInt(99, 0));
+
+        long expected = df.stream().filter(t -> !t.isNullAt("salary") && t.getDouble("salary") > 200000).count();
+        var options = new ReadOptions("salary").withFilter(t -> !t.isNullAt(0) && t.getDouble(0) > 200000);
+        data = Parquet.read(path, options);
+        assertEquals(expected, data.size());
+
+        data = Parquet.read(List.of(path.toUri().toString(), path.toUri().toString()), options.withLimit(2000));
+        assertEquals(2 * expected, data.size());
+    }
+
+    @Test
+    public void testStream() throws Exception {
+        System.out.println("stream");
+        var path = Paths.getTestData("kylo/userdata1.parquet");
+        try (var stream = Parquet.stream(path, new ReadOptions("id").withBatch(300))) {
+            int[] sizes = stream.mapToInt(DataFrame::size).toArray();
+            assertEquals(1000, Arrays.stream(sizes).sum());
+            assertTrue(sizes.length > 1);
+        }
+    }
+
+    @Test
+    public void testWrite() throws Exception {
+        System.out.println("write");
+        var dir = Files.createTempDirectory("smile-parquet-");
+        Write.parquet(df, dir, new WriteOptions().withBatch(300));
+        DataFrame data = Parquet.read(dir);
+        assertEquals(df.size(), data.size());
+        assertEquals(df.ncol(), data.ncol());
+        assertSameValues(df, data);
+
+        var partitioned = Files.createTempDirectory("smile-parquet-");
+        Write.parquet(df, partitioned, new WriteOptions().withPartitionBy("gender"));
+        assertTrue(Files.isDirectory(partitioned.resolve("gender=Female")));
+        data = Parquet.read(partitioned.resolve("gender=Female"));
+        assertEquals(df.stream().filter(t -> "Female".equals(t.getString("gender"))).count(), data.size());
+    }
+
+    @Test
+    public void testWriter() throws Exception {
+        System.out.println("writer");
+        var dir = Files.createTempDirectory("smile-parquet-");
+        try (var writer = Parquet.writer(df.schema(), dir, new WriteOptions().withBatch(128))) {
+            writer.write(df.get(Index.range(0, 400)));
+            writer.write(df.get(Index.range(400, 1000)));
+        }
+        DataFrame data = Parquet.read(dir);
+        assertEquals(1000, data.size());
+        assertSameValues(df, data);
+    }
+
+    /**
+     * Asserts that the data frames have the same rows, which are
+     * matched by id. The timestamps are skipped as they are written
+     * in the local time zone.
+     */
+    private static void assertSameValues(DataFrame expected, DataFrame actual) {
+        expected = expected.sort("id");
+        actual = actual.sort("id");
+        for (int j = 0; j < expected.ncol(); j++) {
+            var field = expected.schema().field(j);
+            if (field.dtype().id() == DataType.ID.DateTime) continue;
+            int k = actual.schema().indexOf(field.name());
+            for (int i = 0; i < expected.size(); i++) {
+                assertEquals(expected.get(i, j), actual.get(i, k), field.name() + "[" + i + "]");
+            }
+        }
+    }
+
     /**
      * Test of schema method, of class DataFrame.
      */
@@ -0,0 +1,168 @@
+/*
+ * Copyright (c) 2010-2025 Haifeng Li. All rights reserved.
+ *
+ * Smile is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Smile is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Smile. If not, see <https://www.gnu.org/licenses/>.
+ */
+package smile.math;
+
+import java.util.BitSet;
+import smile.math.distance.HammingDistance;
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author Haifeng Li
+ */
+public class VectorMathTest {
+    java.util.Random rng = new java.util.Random(19650218);
+    ScalarOps scalar = new ScalarOps();
+
+    public VectorMathTest() {
+    }
+
+    @BeforeAll
+    public static void setUpClass() throws Exception {
+    }
+
+    @AfterAll
+    public static void tearDownClass() throws Exception {
+    }
+
+    @BeforeEach
+    public void setUp() {
+    }
+
+    @AfterEach
+    public void tearDown() {
+    }
+
+    /** Returns a random vector. */
+    private double[] random(int n) {
+        double[] x = new double[n];
+        for (int i = 0; i < n; i++) {
+            x[i] = rng.nextGaussian();
+        }
+        return x;
+    }
+
+    /** Converts a double array to float array. */
+    private static float[] toFloat(double[] x) {
+        float[] y = new float[x.length];
+        for (int i = 0; i < x.length; i++) {
+            y[i] = (float) x[i];
+        }
+        return y;
+    }
+
+    @Test
+    public void testPrimitives() {
+        System.out.println("Vectorized: " + VectorMath.isVectorized());
+        // Covers the lengths shorter than, equal to and not multiple of lanes.
+        for (int n = 1; n <= 67; n++) {
+            double[] a = random(n);
+            double[] b = random(n);
+            float[] fa = toFloat(a);
+            float[] fb = toFloat(b);
+            int[] ia = new int[n];
+            int[] ib = new int[n];
+            for (int i = 0; i < n; i++) {
+                ia[i] = rng.nextInt(100) - 50;
+                ib[i] = rng.nextInt(100) - 50;
+            }
+
+            assertEquals(scalar.squaredDistance(a, b), VectorMath.squaredDistance(a, b), 1E-10);
+            assertEquals(scalar.squaredDistance(fa, fb), VectorMath.squaredDistance(fa, fb), 1E-10);
+            assertEquals(scalar.dot(a, b), VectorMath.dot(a, b), 1E-10);
+            assertEquals(scalar.dot(fa, fb), VectorMath.dot(fa, fb), 1E-4);
+            assertEquals(scalar.dot(ia, ib), VectorMath.dot(ia, ib));
+            assertEquals(scalar.l1(a, b), VectorMath.l1(a, b), 1E-10);
+            assertEquals(scalar.l1(fa, fb), VectorMath.l1(fa, fb), 1E-10);
+            assertEquals(scalar.cosine(a, b), VectorMath.cosine(a, b), 1E-10);
+            assertEquals(scalar.cosine(fa, fb), VectorMath.cosine(fa, fb), 1E-10);
+            assertEquals(Math.exp(-0.5 * scalar.squaredDistance(a, b)), VectorMath.gaussian(a, b, 0.5), 1E-10);
+        }
+    }
+
+    @Test
+    public void testBatch() {
+        System.out.println("Batch");
+        for (int n : new int[]{3, 8, 33, 256}) {
+            double[] q = random(n);
+            double[][] data = new double[11][];
+            for (int i = 0; i < data.length; i++) {
+                data[i] = random(n);
+            }
+
+            float[] fq = toFloat(q);
+            float[][] fdata = new float[data.length][];
+            for (int i = 0; i < data.length; i++) {
+                fdata[i] = toFloat(data[i]);
+            }
+
+            double[] out = new double[data.length];
+            float[] fout = new float[data.length];
+            VectorMath.squaredDistance(q, data, out);
+            for (int i = 0; i < data.length; i++) {
+                assertEquals(scalar.squaredDistance(q, data[i]), out[i], 1E-10);
+            }
+
+            VectorMath.squaredDistance(fq, fdata, out);
+            for (int i = 0; i < data.length; i++) {
+                assertEquals(scalar.squaredDistance(fq, fdata[i]), out[i], 1E-10);
+            }
+
+            VectorMath.dot(q, data, out);
+            for (int i = 0; i < data.length; i++) {
+                assertEquals(scalar.dot(q, data[i]), out[i], 1E-10);
+            }
+
+            VectorMath.dot(fq, fdata, fout);
+            for (int i = 0; i < data.length; i++) {
+                assertEquals(scalar.dot(fq, fdata[i]), fout[i], 1E-3);
+            }
+
+            VectorMath.gaussian(q, data, 0.1, out);
+            for (int i = 0; i < data.length; i++) {
+                assertEquals(Math.exp(-0.1 * scalar.squaredDistance(q, data[i])), out[i], 1E-10);
+            }
+        }
+    }
+
+    @Test
+    public void testHamming() {
+        System.out.println("Hamming");
+        BitSet x = new BitSet(1000);
+        BitSet y = new BitSet(1000);
+        int expected = 0;
+        for (int i = 0; i < 1000; i++) {
+            boolean b1 = rng.nextBoolean();
+            boolean b2 = rng.nextBoolean();
+            x.set(i, b1);
+            y.set(i, b2);
+            if (b1 != b2) expected++;
+        }
+
+        assertEquals(expected, VectorMath.hamming(x.toLongArray(), y.toLongArray()));
+        assertEquals(expected, new HammingDistance().d(x, y), 1E-10);
+        assertEquals(3, HammingDistance.d(new long[]{0b1011L, 0L}, new long[]{0L, 0L}));
+    }
+
+    @Test
+    public void testLength() {
+        System.out.println("Length");
+        assertThrows(IllegalArgumentException.class, () -> VectorMath.dot(new double[3], new double[4]));
+        assertThrows(IllegalArgumentException.class, () -> VectorMath.squaredDistance(new double[3], new double[2][4], new double[2]));
+    }
+}
@@ -0,0 +1,294 @@
+/*
+ * Copyright (c) 2010-2025 Haifeng Li. All rights reserved.
+ *
+ * Smile is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Smile is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Smile. If not, see <https://www.gnu.org/licenses/>.
+ */
+package smile.neighbor;
+
+import java.util.ArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import smile.datasets.USPS;
+import smile.io.Read;
+import smile.io.Write;
+import smile.math.MathEx;
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author Haifeng Li
+ */
+public class HNSWTest {
+    double[][] x;
+    double[][] testx;
+    HNSW<double[], double[]> hnsw;
+    LinearSearch<double[], double[]> naive;
+
+    public HNSWTest() throws Exception {
+        MathEx.setSeed(19650218); // to get repeatable results.
+        var usps = new USPS();
+        x = usps.x();
+        testx = usps.testx();
+        hnsw = HNSW.of(x, HNSW.Space.EUCLIDEAN, 16, 100);
+        naive = LinearSearch.of(x, MathEx::distance);
+    }
+
+    @BeforeAll
+    public static void setUpClass() throws Exception {
+    }
+
+    @AfterAll
+    public static void tearDownClass() throws Exception {
+    }
+
+    @BeforeEach
+    public void setUp() {
+    }
+
+    @AfterEach
+    public void tearDown() {
+    }
+
+    /** Returns the number of true neighbors found. */
+    private static int recall(Neighbor<?, ?>[] truth, Neighbor<?, ?>[] neighbors) {
+        int hit = 0;
+        for (var m2 : truth) {
+            for (var m1 : neighbors) {
+                if (m1.index() == m2.index()) {
+                    hit++;
+                    break;
+                }
+            }
+        }
+        return hit;
+    }
+
+    /** Converts a double array to float array. */
+    private static float[] toFloat(double[] x) {
+        float[] y = new float[x.length];
+        for (int i = 0; i < x.length; i++) {
+            y[i] = (float) x[i];
+        }
+        return y;
+    }
+
+    @Test
+    public void testNearest() {
+        System.out.println("nearest");
+
+        int hit = 0;
+        for (double[] xi : testx) {
+            var n1 = hnsw.nearest(xi);
+            var n2 = naive.nearest(xi);
+            if (n1.index() == n2.index()) {
+                assertEquals(n2.distance(), n1.distance(), 1E-7);
+                hit++;
+            }
+        }
+
+        System.out.format("recall is %.2f%%%n", 100.0 * hit / testx.length);
+        assertTrue(hit > 0.98 * testx.length);
+
+        // The query object itself is excluded.
+        var n = hnsw.nearest(x[10]);
+        assertNotEquals(10, n.index());
+    }
+
+    @Test
+    public void testKnn() {
+        System.out.println("knn");
+
+        hnsw.setEf(50);
+        int k = 10;
+        int[] recall = new int[testx.length];
+        for (int i = 0; i < testx.length; i++) {
+            var n1 = hnsw.search(testx[i], k);
+            var n2 = naive.search(testx[i], k);
+            assertEquals(k, n1.length);
+            for (int j = 1; j < k; j++) {
+                assertTrue(n1[j - 1].distance() <= n1[j].distance());
+            }
+            recall[i] = recall(n2, n1);
+        }
+
+        System.out.format("q1     of recall is %d%n", MathEx.q1(recall));
+        System.out.format("median of recall is %d%n", MathEx.median(recall));
+        System.out.format("mean   of recall is %.2f%n", MathEx.mean(recall));
+        assertEquals(10, MathEx.median(recall));
+        assertTrue(MathEx.mean(recall) > 9.5);
+    }
+
+    @Test
+    public void testRange() {
+        System.out.println("range");
+
+        int found = 0;
+        int total = 0;
+        for (double[] xi : testx) {
+            var n1 = new ArrayList<Neighbor<double[], double[]>>();
+            var n2 = new ArrayList<Neighbor<double[], double[]>>();
+            hnsw.search(xi, 8.0, n1);
+            naive.search(xi, 8.0, n2);
+            for (var m1 : n1) {
+                assertTrue(m1.distance() <= 8.0);
+            }
+            found += recall(n2.toArray(new Neighbor[0]), n1.toArray(new Neighbor[0]));
+            total += n2.size();
+        }
+
+        System.out.format("recall is %.2f%%%n", 100.0 * found / total);
+        assertTrue(found > 0.95 * total);
+    }
+
+    @Test
+    public void testCosine() {
+        System.out.println("cosine");
+
+        float[][] data = new float[x.length][];
+        for (int i = 0; i < x.length; i++) {
+            data[i] = toFloat(x[i]);
+        }
+        var index = HNSW.of(data, HNSW.Space.COSINE);
+        var distance = HNSW.Space.COSINE.float32();
+        var truth = LinearSearch.of(data, distance);
+        int k = 10;
+        int hit = 0;
+        for (double[] q : testx) {
+            float[] xi = toFloat(q);
+            hit += recall(truth.search(xi, k), index.search(xi, k));
+        }
+
+        System.out.format("recall is %.2f%%%n", 100.0 * hit / (k * testx.length));
+        assertTrue(hit > 0.95 * k * testx.length);
+    }
+
+    @Test
+    public void testIncremental() {
+        System.out.println("incremental");
+
+        var index = new HNSW<double[], Integer>(HNSW.Space.EUCLIDEAN.float64(), 16, 100);
+        assertEquals(0, index.search(testx[0], 5).length);
+        assertNull(index.nearest(testx[0]));
+        for (int i = 0; i < x.length; i++) {
+            index.put(x[i], i);
+        }
+
+        assertEquals(x.length, index.size());
+        var neighbors = index.search(testx[0], 5);
+        for (var neighbor : neighbors) {
+            assertEquals(neighbor.index(), neighbor.value().intValue());
+            assertSame(x[neighbor.index()], neighbor.key());
+        }
+    }
+
+    @Test
+    public void testConcurrentReaders() throws Exception {
+        System.out.println("concurrent readers");
+
+        var index = new HNSW<double[], Integer>(HNSW.Space.EUCLIDEAN.float64(), 16, 100);
+        var done = new AtomicBoolean(false);
+        var searches = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(5);
+        try {
+            var writer = executor.submit(() -> {
+                try {
+                    for (int i = 0; i < x.length; i++) {
+                        index.put(x[i], i);
+                    }
+                } finally {
+                    done.set(true);
+                }
+            });
+
+            var readers = new ArrayList<Future<?>>();
+            for (int t = 0; t < 4; t++) {
+                final int offset = t;
+                readers.add(executor.submit(() -> {
+                    for (int r = offset; !done.get(); r = (r + 4) % testx.length) {
+                        double[] q = testx[r];
+                        for (var neighbor : index.search(q, 5)) {
+                            // Only inserted entries are visible.
+                            assertSame(x[neighbor.index()], neighbor.key());
+                            assertEquals(neighbor.index(), neighbor.value().intValue());
+                        }
+
+                        var nearest = index.nearest(q);
+                        if (nearest != null) {
+                            assertSame(x[nearest.index()], nearest.key());
+                        }
+                        searches.incrementAndGet();
+                    }
+                }));
+            }
+
+            // Future.get rethrows any exception or assertion failure of tasks.
+            writer.get();
+            for (var reader : readers) {
+                reader.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        System.out.format("%d searches during insertion%n", searches.get());
+        assertEquals(x.length, index.size());
+        int hit = 0;
+        for (double[] xi : testx) {
+            if (index.nearest(xi).index() == naive.nearest(xi).index()) {
+                hit++;
+            }
+        }
+
+        System.out.format("recall is %.2f%%%n", 100.0 * hit / testx.length);
+        assertTrue(hit > 0.98 * testx.length);
+    }
+
+    @Test
+    public void testGraph() {
+        System.out.println("graph");
+
+        var graph = hnsw.toGraph(7);
+        int[][] neighbors = graph.neighbors();
+        double[][] distances = graph.distances();
+        assertEquals(x.length, neighbors.length);
+        assertEquals(distances[0][0], MathEx.distance(x[0], x[neighbors[0][0]]), 1E-7);
+        assertEquals(distances[100][2], MathEx.distance(x[100], x[neighbors[100][2]]), 1E-7);
+        for (int i = 0; i < x.length; i++) {
+            assertEquals(7, neighbors[i].length);
+        }
+    }
+
+    @Test
+    public void testSerialize() throws Exception {
+        System.out.println("serialize");
+
+        java.nio.file.Path temp = Write.object(hnsw);
+        @SuppressWarnings("unchecked")
+        var index = (HNSW<double[], double[]>) Read.object(temp);
+        assertEquals(hnsw.size(), index.size());
+        assertEquals(hnsw.getEf(), index.getEf());
+        for (int i = 0; i < 100; i++) {
+            var n1 = hnsw.search(testx[i], 5);
+            var n2 = index.search(testx[i], 5);
+            for (int j = 0; j < 5; j++) {
+                assertEquals(n1[j].index(), n2[j].index());
+                assertEquals(n1[j].distance(), n2[j].distance(), 1E-10);
+            }
+        }
+    }
+}
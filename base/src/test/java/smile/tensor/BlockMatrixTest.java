@@ -0,0 +1,158 @@
+/*
+ * Copyright (c) 2010-2025 Haifeng Li. All rights reserved.
+ *
+ * Smile is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Smile is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Smile. If not, see <https://www.gnu.org/licenses/>.
+ */
+package smile.tensor;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import smile.math.MathEx;
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+import static smile.tensor.ScalarType.*;
+
+/**
+ * Test BlockMatrix.
+ *
+ * @author Haifeng Li
+ */
+public class BlockMatrixTest {
+    DenseMatrix A;
+    BlockMatrix B;
+
+    public BlockMatrixTest() {
+    }
+
+    @BeforeAll
+    public static void setUpClass() throws Exception {
+    }
+
+    @AfterAll
+    public static void tearDownClass() throws Exception {
+    }
+
+    @BeforeEach
+    public void setUp() {
+        MathEx.setSeed(19650218); // to get repeatable results.
+        A = DenseMatrix.randn(Float64, 100, 8);
+        B = new BlockMatrix(A.rows(0, 30), A.rows(30, 60), A.rows(60, 100));
+    }
+
+    @AfterEach
+    public void tearDown() {
+    }
+
+    @Test
+    public void testGet() {
+        System.out.println("get");
+        assertEquals(100, B.nrow());
+        assertEquals(8, B.ncol());
+        assertEquals(3, B.size());
+        for (int i = 0; i < 100; i++) {
+            for (int j = 0; j < 8; j++) {
+                assertEquals(A.get(i, j), B.get(i, j), 1E-15);
+            }
+        }
+    }
+
+    @Test
+    public void testAtA() {
+        System.out.println("ata");
+        assertEquals(A.ata(), B.ata());
+        assertEquals(A.tm(A), B.tm(B));
+        assertEquals(A.colMeans(), B.colMeans());
+
+        Vector mu = A.colMeans();
+        DenseMatrix C = A.copy();
+        for (int i = 0; i < C.nrow(); i++) {
+            for (int j = 0; j < C.ncol(); j++) {
+                C.sub(i, j, mu.get(j));
+            }
+        }
+        DenseMatrix expected = C.ata();
+        DenseMatrix actual = B.ata(mu);
+        for (int i = 0; i < 8; i++) {
+            for (int j = 0; j <= i; j++) {
+                assertEquals(expected.get(i, j), actual.get(i, j), 1E-10);
+            }
+        }
+    }
+
+    @Test
+    public void testTSQR() {
+        System.out.println("TSQR");
+        BlockMatrix.TSQR qr = B.qr(true);
+        DenseMatrix R = qr.R();
+        assertEquals(A.ata(), R.tm(R));
+        assertEquals(DenseMatrix.eye(Float64, 8), qr.Q().ata());
+
+        BlockMatrix QR = qr.Q().mm(R);
+        for (int i = 0; i < 100; i++) {
+            for (int j = 0; j < 8; j++) {
+                assertEquals(A.get(i, j), QR.get(i, j), 1E-10);
+            }
+        }
+    }
+
+    @Test
+    public void testRandomizedSVD() {
+        System.out.println("randomized SVD");
+        // A rank 3 matrix
+        DenseMatrix X = DenseMatrix.randn(Float64, 100, 3).mm(DenseMatrix.randn(Float64, 3, 8));
+        BlockMatrix Y = new BlockMatrix(X.rows(0, 50), X.rows(50, 100));
+        BlockMatrix.RSVD svd = Y.svd(3, 2, 1);
+        SVD expected = X.copy().svd();
+        for (int i = 0; i < 3; i++) {
+            assertEquals(expected.s().get(i), svd.s().get(i), 1E-8);
+        }
+
+        BlockMatrix US = svd.U().mm(svd.s().diagflat());
+        DenseMatrix approx = DenseMatrix.zeros(Float64, 100, 8);
+        for (int i = 0; i < 100; i++) {
+            for (int j = 0; j < 8; j++) {
+                double x = 0.0;
+                for (int k = 0; k < 3; k++) {
+                    x += US.get(i, k) * svd.Vt().get(k, j);
+                }
+                approx.set(i, j, x);
+            }
+        }
+        assertEquals(X, approx);
+    }
+
+    @Test
+    public void testMemoryMapped() throws Exception {
+        System.out.println("memory mapped");
+        Path dir = Files.createTempDirectory("smile-block");
+        BlockMatrix mapped = BlockMatrix.mmap(dir, Float64, 100, 8, 40);
+        assertEquals(3, mapped.size());
+        for (int i = 0; i < 100; i++) {
+            for (int j = 0; j < 8; j++) {
+                mapped.set(i, j, A.get(i, j));
+            }
+        }
+
+        BlockMatrix opened = BlockMatrix.mmap(dir, true);
+        assertEquals(100, opened.nrow());
+        assertEquals(8, opened.ncol());
+        assertEquals(A.ata(), opened.ata());
+        assertEquals(A.ata(), opened.qr(false).R().ata());
+
+        try (var files = Files.list(dir)) {
+            files.forEach(file -> file.toFile().deleteOnExit());
+        }
+        dir.toFile().deleteOnExit();
+    }
+}
@@ -73,6 +73,56 @@ public class DenseMatrixTest {
         b.mv(v);
     }
 
+    @Test
+    public void testMemoryMapped() throws Exception {
+        System.out.println("memory mapped");
+        java.nio.file.Path file = java.nio.file.Files.createTempFile("smile-matrix", ".bin");
+        file.toFile().deleteOnExit();
+
+        MappedMatrix a = DenseMatrix.mmap(file, Float64, 3, 3);
+        for (int i = 0; i < 3; i++) {
+            for (int j = 0; j < 3; j++) {
+                a.set(i, j, A[i][j]);
+            }
+        }
+        a.force();
+        assertEquals(matrix, a);
+        assertEquals(matrix.mv(v), a.mv(v));
+        assertEquals(matrix.mm(matrix), a.mm(a));
+
+        MappedMatrix b = DenseMatrix.mmap(file, true);
+        assertTrue(b.isReadOnly());
+        assertEquals(Float64, b.scalarType());
+        assertEquals(3, b.nrow());
+        assertEquals(3, b.ncol());
+        assertEquals(matrix, b);
+        assertEquals(matrix.submatrix(0, 0, 3, 2), b.submatrix(0, 0, 3, 2));
+        assertEquals(matrix.column(2), b.submatrix(0, 1, 3, 3).column(1));
+        assertEquals(matrix, b.copy());
+
+        // A read-only matrix cannot be modified in place.
+        assertThrows(UnsupportedOperationException.class, () -> b.set(0, 0, 1.0));
+        assertThrows(UnsupportedOperationException.class, () -> b.add(0, 0, 1.0));
+        assertThrows(UnsupportedOperationException.class, () -> b.fill(1.0));
+        assertThrows(UnsupportedOperationException.class, () -> b.scale(2.0));
+        assertThrows(UnsupportedOperationException.class, () -> b.axpy(1.0, matrix));
+        assertThrows(UnsupportedOperationException.class, () -> b.sub(matrix));
+        assertThrows(UnsupportedOperationException.class, () -> b.ger(1.0, v, v));
+        assertThrows(UnsupportedOperationException.class, b::lu);
+        assertThrows(UnsupportedOperationException.class, () -> DenseMatrix.mm(1.0, NO_TRANSPOSE, matrix, NO_TRANSPOSE, matrix, 0.0, b));
+        assertThrows(UnsupportedOperationException.class, () -> b.submatrix(0, 0, 3, 2).scale(2.0));
+        assertEquals(matrix, b);
+
+        // Changes through a writable mapping are visible to others.
+        a.scale(2.0);
+        assertEquals(matrix.copy().scale(2.0), b);
+
+        java.nio.file.Path temp = Write.object(b);
+        DenseMatrix c = (DenseMatrix) Read.object(temp);
+        assertInstanceOf(MappedMatrix.class, c);
+        assertEquals(b, c);
+    }
+
     @Test
     public void testNrows() {
         System.out.println("nrow");
@@ -0,0 +1,29 @@
+plugins {
+    id("buildlogic.java-common-conventions")
+    id("me.champeau.jmh") version "0.7.3"
+}
+
+dependencies {
+    jmh(project(":core"))
+}
+
+// Run a subset of benchmarks with -Pjmh.includes=<regex>, e.g.
+//   ./gradlew :bench:jmh -Pjmh.includes='MatrixBenchmark.mm'
+// The results are written in JSON to bench/build/results/jmh/results.json.
+jmh {
+    jmhVersion = "1.37"
+    providers.gradleProperty("jmh.includes").orNull?.let { includes = listOf(it) }
+    providers.gradleProperty("jmh.params").orNull?.let { params ->
+        // -Pjmh.params='n=1000000;d=16'
+        benchmarkParameters = params.split(';').associate { param ->
+            val (key, values) = param.split('=', limit = 2)
+            key to objects.listProperty(String::class.java).value(values.split(','))
+        }
+    }
+    fork = 1
+    warmupIterations = 3
+    iterations = 5
+    resultFormat = "JSON"
+    resultsFile = layout.buildDirectory.file("results/jmh/results.json")
+    jvmArgs = listOf("-Xmx8G", "-XX:+UseG1GC", "--add-opens=java.base/java.nio=ALL-UNNAMED", "--enable-native-access=ALL-UNNAMED", "--add-modules=jdk.incubator.vector")
+}
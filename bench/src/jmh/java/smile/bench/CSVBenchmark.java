@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2010-2025 Haifeng Li. All rights reserved.
+ *
+ * Smile is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Smile is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Smile. If not, see <https://www.gnu.org/licenses/>.
+ */
+package smile.bench;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.csv.CSVFormat;
+import org.openjdk.jmh.annotations.*;
+import smile.data.DataFrame;
+import smile.io.CSV;
+import smile.math.MathEx;
+
+/**
+ * CSV reader benchmark. The file is generated in setup with a mix of
+ * numeric and string columns, of which the shape is parameterized.
+ *
+ * @author Haifeng Li
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class CSVBenchmark {
+    /** The number of rows. */
+    @Param({"100000", "1000000"})
+    public int rows;
+    /** The number of columns. */
+    @Param({"10", "100"})
+    public int cols;
+
+    private Path path;
+    private CSV csv;
+
+    @Setup
+    public void setup() throws IOException {
+        MathEx.setSeed(19650218);
+        path = Files.createTempFile("smile-bench-", ".csv");
+        try (BufferedWriter writer = Files.newBufferedWriter(path)) {
+            for (int j = 0; j < cols; j++) {
+                if (j > 0) writer.write(',');
+                writer.write("V" + (j + 1));
+            }
+            writer.newLine();
+
+            for (int i = 0; i < rows; i++) {
+                for (int j = 0; j < cols; j++) {
+                    if (j > 0) writer.write(',');
+                    switch (j % 4) {
+                        case 0 -> writer.write(Integer.toString(MathEx.randomInt(1000000)));
+                        case 1, 2 -> writer.write(Double.toString(MathEx.random()));
+                        default -> writer.write("level" + MathEx.randomInt(100));
+                    }
+                }
+                writer.newLine();
+            }
+        }
+
+        csv = new CSV(CSVFormat.DEFAULT.builder().setHeader().setSkipHeaderRecord(true).get());
+    }
+
+    @TearDown
+    public void teardown() throws IOException {
+        Files.deleteIfExists(path);
+    }
+
+    @Benchmark
+    public DataFrame read() throws IOException {
+        return csv.read(path);
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2010-2025 Haifeng Li. All rights reserved.
+ *
+ * Smile is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Smile is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Smile. If not, see <https://www.gnu.org/licenses/>.
+ */
+package smile.bench;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import smile.math.MathEx;
+
+/**
+ * Benchmark of the distance and dot product kernels in MathEx, which
+ * are in the inner loops of nearest neighbor search, clustering and
+ * manifold learning.
+ *
+ * @author Haifeng Li
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class DistanceBenchmark {
+    /** The dimension of vectors. */
+    @Param({"16", "128", "1024"})
+    public int d;
+
+    private double[] x64;
+    private double[] y64;
+    private float[] x32;
+    private float[] y32;
+
+    @Setup
+    public void setup() {
+        MathEx.setSeed(19650218);
+        x64 = new double[d];
+        y64 = new double[d];
+        x32 = new float[d];
+        y32 = new float[d];
+        for (int i = 0; i < d; i++) {
+            x64[i] = MathEx.random();
+            y64[i] = MathEx.random();
+            x32[i] = (float) x64[i];
+            y32[i] = (float) y64[i];
+        }
+    }
+
+    @Benchmark
+    public double distance64() {
+        return MathEx.distance(x64, y64);
+    }
+
+    @Benchmark
+    public double squaredDistance64() {
+        return MathEx.squaredDistance(x64, y64);
+    }
+
+    @Benchmark
+    public double dot64() {
+        return MathEx.dot(x64, y64);
+    }
+
+    @Benchmark
+    public double distance32() {
+        return MathEx.distance(x32, y32);
+    }
+
+    @Benchmark
+    public double squaredDistance32() {
+        return MathEx.squaredDistance(x32, y32);
+    }
+
+    @Benchmark
+    public double dot32() {
+        return MathEx.dot(x32, y32);
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2010-2025 Haifeng Li. All rights reserved.
+ *
+ * Smile is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Smile is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Smile. If not, see <https://www.gnu.org/licenses/>.
+ */
+package smile.bench;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import smile.math.MathEx;
+import smile.neighbor.KDTree;
+
+/**
+ * K-nearest neighbor search benchmark of KDTree. Each invocation
+ * searches a batch of queries drawn from the same distribution as
+ * the data.
+ *
+ * @author Haifeng Li
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class KDTreeBenchmark {
+    /** The number of data points. */
+    @Param({"10000", "1000000"})
+    public int n;
+    /** The dimension of data. */
+    @Param({"2", "8", "16"})
+    public int d;
+    /** The number of neighbors. */
+    @Param({"1", "10"})
+    public int k;
+
+    private KDTree<double[]> tree;
+    private double[][] queries;
+
+    @Setup
+    public void setup() {
+        MathEx.setSeed(19650218);
+        tree = KDTree.of(random(n, d));
+        queries = random(1000, d);
+    }
+
+    private static double[][] random(int n, int d) {
+        double[][] data = new double[n][d];
+        for (double[] x : data) {
+            for (int j = 0; j < d; j++) {
+                x[j] = MathEx.random();
+            }
+        }
+        return data;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(1000)
+    public void search(Blackhole bh) {
+        if (k == 1) {
+            for (double[] q : queries) {
+                bh.consume(tree.nearest(q));
+            }
+        } else {
+            for (double[] q : queries) {
+                bh.consume(tree.search(q, k));
+            }
+        }
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright (c) 2010-2025 Haifeng Li. All rights reserved.
+ *
+ * Smile is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Smile is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Smile. If not, see <https://www.gnu.org/licenses/>.
+ */
+package smile.bench;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import smile.tensor.DenseMatrix;
+import smile.tensor.ScalarType;
+
+/**
+ * Dense matrix multiplication benchmark. The sizes cover the small
+ * matrices that are dominated by the call overhead and the large ones
+ * that are bound by the BLAS kernel.
+ *
+ * @author Haifeng Li
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MatrixBenchmark {
+    /** The scalar type of matrices. */
+    @Param({"Float32", "Float64"})
+    public ScalarType type;
+    /** The size of square matrices. */
+    @Param({"64", "1024"})
+    public int n;
+
+    private DenseMatrix A;
+    private DenseMatrix B;
+
+    @Setup
+    public void setup() {
+        A = DenseMatrix.rand(type, n, n);
+        B = DenseMatrix.rand(type, n, n);
+    }
+
+    @Benchmark
+    public DenseMatrix mm() {
+        return A.mm(B);
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2010-2025 Haifeng Li. All rights reserved.
+ *
+ * Smile is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Smile is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Smile. If not, see <https://www.gnu.org/licenses/>.
+ */
+package smile.bench;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import smile.classification.RandomForest;
+import smile.data.DataFrame;
+import smile.data.Tuple;
+import smile.data.formula.Formula;
+import smile.data.vector.IntVector;
+import smile.math.MathEx;
+
+/**
+ * Random forest inference benchmark on a synthetic binary classification
+ * problem. It measures both the row-by-row prediction of tuples and the
+ * batch prediction of a data frame.
+ *
+ * @author Haifeng Li
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class RandomForestBenchmark {
+    /** The number of rows to predict. */
+    @Param({"1000", "100000"})
+    public int rows;
+    /** The number of predictors. */
+    @Param({"10", "100"})
+    public int cols;
+    /** The number of trees. */
+    @Param({"100", "500"})
+    public int ntrees;
+
+    private RandomForest model;
+    private DataFrame data;
+
+    @Setup
+    public void setup() {
+        MathEx.setSeed(19650218);
+        int n = 10000;
+        DataFrame train = random(n, cols);
+        model = RandomForest.fit(Formula.lhs("y"), train, new RandomForest.Options(ntrees));
+        data = random(rows, cols).drop("y");
+    }
+
+    /**
+     * Returns a random data frame, of which the response depends on
+     * a few predictors with noise.
+     */
+    private static DataFrame random(int n, int p) {
+        double[][] x = new double[n][p];
+        int[] y = new int[n];
+        for (int i = 0; i < n; i++) {
+            double[] xi = x[i];
+            for (int j = 0; j < p; j++) {
+                xi[j] = MathEx.random();
+            }
+            double f = xi[0] + xi[1] * xi[2] - xi[p - 1] + 0.2 * MathEx.random();
+            y[i] = f > 0.6 ? 1 : 0;
+        }
+        return DataFrame.of(x).add(new IntVector("y", y));
+    }
+
+    @Benchmark
+    public void predictTuple(Blackhole bh) {
+        for (int i = 0; i < rows; i++) {
+            Tuple xi = data.get(i);
+            bh.consume(model.predict(xi));
+        }
+    }
+
+    @Benchmark
+    public int[] predictDataFrame() {
+        return model.predict(data);
+    }
+}
@@ -12,6 +12,7 @@ tasks.withType<Test>().all {
     jvmArgs("-Xmx6G", "-XX:+UseG1GC", "-XX:MaxMetaspaceSize=1024M", "-Xss4M")
     jvmArgs("--add-opens=java.base/java.nio=ALL-UNNAMED",)
     jvmArgs("--enable-native-access=ALL-UNNAMED")
+    jvmArgs("--add-modules=jdk.incubator.vector")
 }
 
 tasks.withType<Jar>().all {
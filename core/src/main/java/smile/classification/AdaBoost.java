@@ -26,6 +26,8 @@ import smile.data.vector.ValueVector;
 import smile.feature.importance.TreeSHAP;
 import smile.math.MathEx;
 import smile.model.cart.CART;
+import smile.model.cart.FlatForest;
+import smile.model.cart.FlatTree;
 import smile.model.cart.SplitRule;
 import smile.util.IntSet;
 import smile.util.IterativeAlgorithmController;
@@ -97,6 +99,11 @@ public class AdaBoost extends AbstractClassifier<Tuple> implements DataFrameClas
      */
     private final double[] importance;
 
+    /**
+     * The compiled forest for fast inference, which is built on demand.
+     */
+    private transient volatile FlatForest forest;
+
     /**
      * Constructor.
      *
@@ -408,6 +415,7 @@ public class AdaBoost extends AbstractClassifier<Tuple> implements DataFrameClas
             trees = Arrays.copyOf(trees, ntrees);
             alpha = Arrays.copyOf(alpha, ntrees);
             error = Arrays.copyOf(error, ntrees);
+            forest = null;
         }
     }
 
@@ -416,15 +424,22 @@ public class AdaBoost extends AbstractClassifier<Tuple> implements DataFrameClas
         return true;
     }
 
+    /**
+     * Returns the compiled forest for fast inference.
+     * @return the compiled forest.
+     */
+    private FlatForest forest() {
+        if (forest == null) {
+            forest = new FlatForest(trees);
+        }
+        return forest;
+    }
+
     @Override
     public int predict(Tuple x) {
-        Tuple xt = formula.x(x);
+        FlatForest forest = forest();
         double[] y = new double[k];
-
-        for (int i = 0; i < trees.length; i++) {
-            y[trees[i].predict(xt)] += alpha[i];
-        }
-            
+        forest.vote(forest.toArray(formula.x(x)), alpha, y);
         return classes.valueOf(MathEx.whichMax(y));
     }
 
@@ -434,12 +449,9 @@ public class AdaBoost extends AbstractClassifier<Tuple> implements DataFrameClas
      */
     @Override
     public int predict(Tuple x, double[] posteriori) {
-        Tuple xt = formula.x(x);
+        FlatForest forest = forest();
         Arrays.fill(posteriori, 0.0);
-
-        for (int i = 0; i < trees.length; i++) {
-            posteriori[trees[i].predict(xt)] += alpha[i];
-        }
+        forest.vote(forest.toArray(formula.x(x)), alpha, posteriori);
 
         double sum = MathEx.sum(posteriori);
         for (int i = 0; i < k; i++) {
@@ -448,6 +460,29 @@ public class AdaBoost extends AbstractClassifier<Tuple> implements DataFrameClas
 
         return classes.valueOf(MathEx.whichMax(posteriori));
     }
+
+    @Override
+    public int[] predict(DataFrame data) {
+        FlatForest forest = forest();
+        double[][] votes = forest.vote(forest.toArray(formula.x(data)), k, alpha);
+        return Arrays.stream(votes).mapToInt(y -> classes.valueOf(MathEx.whichMax(y))).toArray();
+    }
+
+    @Override
+    public int[] predict(DataFrame data, List<double[]> posteriori) {
+        FlatForest forest = forest();
+        double[][] prob = forest.vote(forest.toArray(formula.x(data)), k, alpha);
+        int[] y = new int[prob.length];
+        for (int i = 0; i < prob.length; i++) {
+            double sum = MathEx.sum(prob[i]);
+            for (int j = 0; j < k; j++) {
+                prob[i][j] /= sum;
+            }
+            y[i] = classes.valueOf(MathEx.whichMax(prob[i]));
+        }
+        Collections.addAll(posteriori, prob);
+        return y;
+    }
     
     /**
      * Test the model on a validation dataset.
@@ -455,18 +490,19 @@ public class AdaBoost extends AbstractClassifier<Tuple> implements DataFrameClas
      * @return the predictions with first 1, 2, ..., decision trees.
      */
     public int[][] test(DataFrame data) {
-        DataFrame x = formula.x(data);
+        FlatForest forest = forest();
+        FlatTree[] trees = forest.trees();
+        double[][] x = forest.toArray(formula.x(data));
 
-        int n = x.size();
+        int n = x.length;
         int ntrees = trees.length;
         int[][] prediction = new int[ntrees][n];
         double[] p = new double[k];
 
         for (int j = 0; j < n; j++) {
-            Tuple xj = x.get(j);
             Arrays.fill(p, 0);
             for (int i = 0; i < ntrees; i++) {
-                p[trees[i].predict(xj)] += alpha[i];
+                p[(int) trees[i].predict(x[j])] += alpha[i];
                 prediction[i][j] = MathEx.whichMax(p);
             }
         }
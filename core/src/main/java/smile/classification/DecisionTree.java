@@ -236,6 +236,74 @@ public class DecisionTree extends CART implements Classifier<Tuple>, DataFrameCl
         return Optional.ofNullable(split);
     }
 
+    @Override
+    protected double[] histogram(int j, int lo, int hi) {
+        // The class counts per bin.
+        byte[] codes = bins.codes(j);
+        double[] histogram = new double[k * bins.size(j)];
+        for (int i = lo; i < hi; i++) {
+            int o = index[i];
+            histogram[k * (codes[o] & 0xFF) + y[o]] += samples[o];
+        }
+        return histogram;
+    }
+
+    @Override
+    protected Optional<Split> findBestSplit(LeafNode leaf, int j, double impurity, int lo, int hi, double[] histogram) {
+        DecisionNode node = (DecisionNode) leaf;
+        int m = histogram.length / k;
+        int[] trueCount = new int[k];
+        int[] falseCount = new int[k];
+
+        int splitBin = -1;
+        double splitScore = 0.0;
+        int splitTrueCount = 0;
+        int splitFalseCount = 0;
+
+        int tc = 0;
+        for (int b = 0; b < m - 1; b++) {
+            int count = 0;
+            for (int l = 0; l < k; l++) {
+                int c = (int) histogram[b * k + l];
+                trueCount[l] += c;
+                count += c;
+            }
+
+            // An empty bin gives the same split as the previous one.
+            if (count == 0) continue;
+
+            tc += count;
+            int fc = node.size() - tc;
+
+            // If either side is too small, skip this value.
+            if (tc < nodeSize || fc < nodeSize) {
+                continue;
+            }
+
+            for (int l = 0; l < k; l++) {
+                falseCount[l] = node.count()[l] - trueCount[l];
+            }
+
+            double gain = impurity - (double) tc / node.size() * DecisionNode.impurity(rule, tc, trueCount) - (double) fc / node.size() * DecisionNode.impurity(rule, fc, falseCount);
+
+            // new best split
+            if (gain > splitScore) {
+                splitBin = b;
+                splitTrueCount = tc;
+                splitFalseCount = fc;
+                splitScore = gain;
+            }
+        }
+
+        if (splitScore > 0.0) {
+            final int bin = splitBin;
+            final byte[] codes = bins.codes(j);
+            return Optional.of(new OrdinalSplit(leaf, j, bins.cut(j, bin), splitScore, lo, hi, splitTrueCount, splitFalseCount, (int o) -> (codes[o] & 0xFF) <= bin));
+        }
+
+        return Optional.empty();
+    }
+
     /**
      * Constructor. Fits a classification tree for AdaBoost and Random Forest.
      * @param x the data frame of the explanatory variable.
@@ -255,7 +323,33 @@ public class DecisionTree extends CART implements Classifier<Tuple>, DataFrameCl
      *              that only numeric attributes need be sorted.
      */
     public DecisionTree(DataFrame x, int[] y, StructField response, int k, SplitRule rule, int maxDepth, int maxNodes, int nodeSize, int mtry, int[] samples, int[][] order) {
-        super(x, response, maxDepth, maxNodes, nodeSize, mtry, samples, order);
+        this(x, y, response, k, rule, maxDepth, maxNodes, nodeSize, mtry, samples, order, null);
+    }
+
+    /**
+     * Constructor. Fits a classification tree for AdaBoost and Random Forest.
+     * @param x the data frame of the explanatory variable.
+     * @param y the response variables.
+     * @param response the metadata of response variable.
+     * @param k the number of classes.
+     * @param maxDepth the maximum depth of the tree.
+     * @param maxNodes the maximum number of leaf nodes in the tree.
+     * @param nodeSize the minimum size of leaf nodes.
+     * @param mtry the number of input variables to pick to split on at each
+     *             node. It seems that sqrt(p) give generally good performance,
+     *             where p is the number of variables.
+     * @param rule the splitting rule.
+     * @param samples the sample set of instances for stochastic learning.
+     *               samples[i] is the number of sampling for instance i.
+     * @param order the index of training values in ascending order. Note
+     *              that only numeric attributes need be sorted. It is
+     *              ignored if bins is not null.
+     * @param bins the quantized ordinal columns for histogram-based
+     *             split finding. If null, the exact split finding on
+     *             sorted values is employed.
+     */
+    public DecisionTree(DataFrame x, int[] y, StructField response, int k, SplitRule rule, int maxDepth, int maxNodes, int nodeSize, int mtry, int[] samples, int[][] order, Bins bins) {
+        super(x, response, maxDepth, maxNodes, nodeSize, mtry, samples, order, bins);
         this.k = k;
         this.y = y;
         this.rule = rule;
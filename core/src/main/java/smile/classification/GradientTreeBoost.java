@@ -18,6 +18,8 @@ package smile.classification;
 
 import java.io.Serial;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Properties;
 import java.util.stream.IntStream;
 import smile.data.DataFrame;
@@ -142,6 +144,17 @@ public class GradientTreeBoost extends AbstractClassifier<Tuple> implements Data
      */
     private final double shrinkage;
 
+    /**
+     * The compiled forests for fast inference, one per row of trees,
+     * which are built on demand.
+     */
+    private transient volatile FlatForest[] forests;
+
+    /**
+     * The weights of trees in the compiled forests, i.e. the shrinkage.
+     */
+    private transient double[] weights;
+
     /**
      * Constructor of binary class.
      *
@@ -223,12 +236,16 @@ public class GradientTreeBoost extends AbstractClassifier<Tuple> implements Data
      * @param maxNodes the maximum number of leaf nodes in the tree.
      * @param nodeSize the minimum size of leaf nodes.
      *                 Setting nodeSize = 5 generally gives good results.
+     * @param maxBins the maximum number of bins to quantize each ordinal
+     *                column into for histogram-based split finding, which
+     *                is at most 256. If 0, the exact split finding on
+     *                sorted values is employed.
      * @param shrinkage the shrinkage parameter in (0, 1] controls the learning rate of procedure.
      * @param subsample the sampling fraction for stochastic tree boosting.
      * @param test the optional test data for validation per epoch.
      * @param controller the optional training controller.
      */
-    public record Options(int ntrees, int maxDepth, int maxNodes, int nodeSize, double shrinkage, double subsample,
+    public record Options(int ntrees, int maxDepth, int maxNodes, int nodeSize, int maxBins, double shrinkage, double subsample,
                           DataFrame test, IterativeAlgorithmController<TrainingStatus> controller) {
         /** Constructor. */
         public Options {
@@ -248,6 +265,10 @@ public class GradientTreeBoost extends AbstractClassifier<Tuple> implements Data
                 throw new IllegalArgumentException("Invalid node size: " + nodeSize);
             }
 
+            if (maxBins != 0 && (maxBins < 2 || maxBins > Bins.MAX_BINS)) {
+                throw new IllegalArgumentException("Invalid maximum number of bins: " + maxBins);
+            }
+
             if (shrinkage <= 0 || shrinkage > 1) {
                 throw new IllegalArgumentException("Invalid shrinkage: " + shrinkage);
             }
@@ -257,6 +278,23 @@ public class GradientTreeBoost extends AbstractClassifier<Tuple> implements Data
             }
         }
 
+        /**
+         * Constructor with the exact split finding.
+         * @param ntrees the number of iterations (trees).
+         * @param maxDepth the maximum depth of the tree.
+         * @param maxNodes the maximum number of leaf nodes in the tree.
+         * @param nodeSize the minimum size of leaf nodes.
+         *                 Setting nodeSize = 5 generally gives good results.
+         * @param shrinkage the shrinkage parameter in (0, 1] controls the learning rate of procedure.
+         * @param subsample the sampling fraction for stochastic tree boosting.
+         * @param test the optional test data for validation per epoch.
+         * @param controller the optional training controller.
+         */
+        public Options(int ntrees, int maxDepth, int maxNodes, int nodeSize, double shrinkage, double subsample,
+                       DataFrame test, IterativeAlgorithmController<TrainingStatus> controller) {
+            this(ntrees, maxDepth, maxNodes, nodeSize, 0, shrinkage, subsample, test, controller);
+        }
+
         /**
          * Constructor.
          * @param ntrees the number of trees.
@@ -275,6 +313,7 @@ public class GradientTreeBoost extends AbstractClassifier<Tuple> implements Data
             props.setProperty("smile.gradient_boost.max_depth", Integer.toString(maxDepth));
             props.setProperty("smile.gradient_boost.max_nodes", Integer.toString(maxNodes));
             props.setProperty("smile.gradient_boost.node_size", Integer.toString(nodeSize));
+            props.setProperty("smile.gradient_boost.max_bins", Integer.toString(maxBins));
             props.setProperty("smile.gradient_boost.shrinkage", Double.toString(shrinkage));
             props.setProperty("smile.gradient_boost.sampling_rate", Double.toString(subsample));
             return props;
@@ -291,9 +330,10 @@ public class GradientTreeBoost extends AbstractClassifier<Tuple> implements Data
             int maxDepth = Integer.parseInt(props.getProperty("smile.gradient_boost.max_depth", "20"));
             int maxNodes = Integer.parseInt(props.getProperty("smile.gradient_boost.max_nodes", "6"));
             int nodeSize = Integer.parseInt(props.getProperty("smile.gradient_boost.node_size", "5"));
+            int maxBins = Integer.parseInt(props.getProperty("smile.gradient_boost.max_bins", "0"));
             double shrinkage = Double.parseDouble(props.getProperty("smile.gradient_boost.shrinkage", "0.05"));
             double subsample = Double.parseDouble(props.getProperty("smile.gradient_boost.sampling_rate", "0.7"));
-            return new Options(ntrees, maxDepth, maxNodes, nodeSize, shrinkage, subsample, null, null);
+            return new Options(ntrees, maxDepth, maxNodes, nodeSize, maxBins, shrinkage, subsample, null, null);
         }
     }
 
@@ -321,13 +361,14 @@ public class GradientTreeBoost extends AbstractClassifier<Tuple> implements Data
         DataFrame x = formula.x(data);
         ValueVector y = formula.y(data);
 
-        int[][] order = CART.order(x);
+        Bins bins = options.maxBins > 0 ? new Bins(x, options.maxBins) : null;
+        int[][] order = bins == null ? CART.order(x) : null;
         ClassLabels codec = ClassLabels.fit(y);
 
         if (codec.k == 2) {
-            return train2(formula, x, codec, order, options);
+            return train2(formula, x, codec, order, bins, options);
         } else {
-            return traink(formula, x, codec, order, options);
+            return traink(formula, x, codec, order, bins, options);
         }
     }
 
@@ -357,7 +398,7 @@ public class GradientTreeBoost extends AbstractClassifier<Tuple> implements Data
     /**
      * Train L2 tree boost.
      */
-    private static GradientTreeBoost train2(Formula formula, DataFrame x, ClassLabels codec, int[][] order, Options options) {
+    private static GradientTreeBoost train2(Formula formula, DataFrame x, ClassLabels codec, int[][] order, Bins bins, Options options) {
         long startTime = System.nanoTime();
         int n = x.nrow();
         int p = x.ncol();
@@ -395,7 +436,7 @@ public class GradientTreeBoost extends AbstractClassifier<Tuple> implements Data
         for (int t = 0; t < ntrees; t++) {
             sampling(samples, permutation, nc, y, options.subsample);
 
-            RegressionTree tree = new RegressionTree(x, loss, field, options.maxDepth, options.maxNodes, options.nodeSize, p, samples, order);
+            RegressionTree tree = new RegressionTree(x, loss, field, options.maxDepth, options.maxNodes, options.nodeSize, p, samples, order, bins);
             trees[t] = tree;
 
             for (int i = 0; i < n; i++) {
@@ -443,7 +484,7 @@ public class GradientTreeBoost extends AbstractClassifier<Tuple> implements Data
     /**
      * Train L-k tree boost.
      */
-    private static GradientTreeBoost traink(Formula formula, DataFrame x, ClassLabels codec, int[][] order, Options options) {
+    private static GradientTreeBoost traink(Formula formula, DataFrame x, ClassLabels codec, int[][] order, Bins bins, Options options) {
         long startTime = System.nanoTime();
         int n = x.size();
         int p = x.ncol();
@@ -493,7 +534,7 @@ public class GradientTreeBoost extends AbstractClassifier<Tuple> implements Data
             for (int j = 0; j < k; j++) {
                 sampling(samples, permutation, nc, y, options.subsample);
 
-                RegressionTree tree = new RegressionTree(x, loss[j], field, options.maxDepth, options.maxNodes, options.nodeSize, p, samples, order);
+                RegressionTree tree = new RegressionTree(x, loss[j], field, options.maxDepth, options.maxNodes, options.nodeSize, p, samples, order, bins);
                 forest[j][t] = tree;
 
                 double[] hj = h[j];
@@ -624,25 +665,31 @@ public class GradientTreeBoost extends AbstractClassifier<Tuple> implements Data
         }
     }
 
+    /**
+     * Returns the compiled forests for fast inference.
+     * @return the compiled forests.
+     */
+    private FlatForest[] forests() {
+        if (forests == null) {
+            weights = new double[trees[0].length];
+            Arrays.fill(weights, shrinkage);
+            forests = Arrays.stream(trees).map(FlatForest::new).toArray(FlatForest[]::new);
+        }
+        return forests;
+    }
+
     @Override
     public int predict(Tuple x) {
-        Tuple xt = formula.x(x);
+        FlatForest[] forests = forests();
+        double[] xt = forests[0].toArray(formula.x(x));
         if (k == 2) {
-            double y = b;
-            for (RegressionTree tree : trees[0]) {
-                y += shrinkage * tree.predict(xt);
-            }
-
+            double y = forests[0].sum(xt, b, weights);
             return classes.valueOf(y > 0 ? 1 : 0);
         } else {
             double max = Double.NEGATIVE_INFINITY;
             int y = -1;
             for (int j = 0; j < k; j++) {
-                double yj = 0.0;
-                for (RegressionTree tree : trees[j]) {
-                    yj += shrinkage * tree.predict(xt);
-                }
-
+                double yj = forests[j].sum(xt, 0.0, weights);
                 if (yj > max) {
                     max = yj;
                     y = j;
@@ -664,45 +711,125 @@ public class GradientTreeBoost extends AbstractClassifier<Tuple> implements Data
             throw new IllegalArgumentException(String.format("Invalid posteriori vector size: %d, expected: %d", posteriori.length, k));
         }
 
-        Tuple xt = formula.x(x);
+        FlatForest[] forests = forests();
+        double[] xt = forests[0].toArray(formula.x(x));
         if (k == 2) {
-            double y = b;
-            for (RegressionTree tree : trees[0]) {
-                y += shrinkage * tree.predict(xt);
-            }
-
-            posteriori[0] = 1.0 / (1.0 + Math.exp(2 * y));
-            posteriori[1] = 1.0 - posteriori[0];
-
-            return classes.valueOf(y > 0 ? 1 : 0);
+            return logistic(forests[0].sum(xt, b, weights), posteriori);
         } else {
-            double max = Double.NEGATIVE_INFINITY;
-            int y = -1;
             for (int j = 0; j < k; j++) {
-                posteriori[j] = 0.0;
+                posteriori[j] = forests[j].sum(xt, 0.0, weights);
+            }
+            return softmax(posteriori);
+        }
+    }
 
-                for (RegressionTree tree : trees[j]) {
-                    posteriori[j] += shrinkage * tree.predict(xt);
+    @Override
+    public int[] predict(DataFrame data) {
+        FlatForest[] forests = forests();
+        double[][] x = forests[0].toArray(formula.x(data));
+        int n = x.length;
+        int[] y = new int[n];
+        if (k == 2) {
+            double[] score = forests[0].sum(x, b, weights);
+            for (int i = 0; i < n; i++) {
+                y[i] = classes.valueOf(score[i] > 0 ? 1 : 0);
+            }
+        } else {
+            double[][] score = scores(forests, x);
+            for (int i = 0; i < n; i++) {
+                double max = Double.NEGATIVE_INFINITY;
+                int yi = -1;
+                for (int j = 0; j < k; j++) {
+                    if (score[j][i] > max) {
+                        max = score[j][i];
+                        yi = j;
+                    }
                 }
+                y[i] = classes.valueOf(yi);
+            }
+        }
+        return y;
+    }
 
-                if (posteriori[j] > max) {
-                    max = posteriori[j];
-                    y = j;
+    @Override
+    public int[] predict(DataFrame data, List<double[]> posteriori) {
+        FlatForest[] forests = forests();
+        double[][] x = forests[0].toArray(formula.x(data));
+        int n = x.length;
+        int[] y = new int[n];
+        double[][] prob = new double[n][k];
+        if (k == 2) {
+            double[] score = forests[0].sum(x, b, weights);
+            for (int i = 0; i < n; i++) {
+                y[i] = logistic(score[i], prob[i]);
+            }
+        } else {
+            double[][] score = scores(forests, x);
+            for (int i = 0; i < n; i++) {
+                for (int j = 0; j < k; j++) {
+                    prob[i][j] = score[j][i];
                 }
+                y[i] = softmax(prob[i]);
             }
+        }
+        Collections.addAll(posteriori, prob);
+        return y;
+    }
 
-            double Z = 0.0;
-            for (int i = 0; i < k; i++) {
-                posteriori[i] = Math.exp(posteriori[i] - max);
-                Z += posteriori[i];
-            }
+    /**
+     * Returns the scores of instances for each class.
+     * @param forests the compiled forests.
+     * @param x the instances.
+     * @return the scores, one row per class.
+     */
+    private double[][] scores(FlatForest[] forests, double[][] x) {
+        double[][] score = new double[k][];
+        for (int j = 0; j < k; j++) {
+            score[j] = forests[j].sum(x, 0.0, weights);
+        }
+        return score;
+    }
 
-            for (int i = 0; i < k; i++) {
-                posteriori[i] /= Z;
+    /**
+     * Computes the posteriori probabilities of binary classification.
+     * @param y the score.
+     * @param posteriori the output posteriori probabilities.
+     * @return the predicted class label.
+     */
+    private int logistic(double y, double[] posteriori) {
+        posteriori[0] = 1.0 / (1.0 + Math.exp(2 * y));
+        posteriori[1] = 1.0 - posteriori[0];
+        return classes.valueOf(y > 0 ? 1 : 0);
+    }
+
+    /**
+     * Computes the posteriori probabilities of multi-class classification
+     * in place by softmax.
+     * @param posteriori the scores on input and the posteriori probabilities
+     *                   on output.
+     * @return the predicted class label.
+     */
+    private int softmax(double[] posteriori) {
+        double max = Double.NEGATIVE_INFINITY;
+        int y = -1;
+        for (int j = 0; j < k; j++) {
+            if (posteriori[j] > max) {
+                max = posteriori[j];
+                y = j;
             }
+        }
 
-            return classes.valueOf(y);
+        double Z = 0.0;
+        for (int i = 0; i < k; i++) {
+            posteriori[i] = Math.exp(posteriori[i] - max);
+            Z += posteriori[i];
         }
+
+        for (int i = 0; i < k; i++) {
+            posteriori[i] /= Z;
+        }
+
+        return classes.valueOf(y);
     }
 
     /**
@@ -712,29 +839,29 @@ public class GradientTreeBoost extends AbstractClassifier<Tuple> implements Data
      * @return the predictions with first 1, 2, ..., decision trees.
      */
     public int[][] test(DataFrame data) {
-        DataFrame x = formula.x(data);
+        FlatForest[] forests = forests();
+        double[][] x = forests[0].toArray(formula.x(data));
 
-        int n = x.size();
+        int n = x.length;
         int ntrees = trees[0].length;
         int[][] prediction = new int[ntrees][n];
 
         if (k == 2) {
+            FlatTree[] forest = forests[0].trees();
             for (int j = 0; j < n; j++) {
-                Tuple xj = x.get(j);
                 double base = 0;
                 for (int i = 0; i < ntrees; i++) {
-                    base += shrinkage * trees[0][i].predict(xj);
+                    base += shrinkage * forest[i].predict(x[j]);
                     prediction[i][j] = base > 0 ? 1 : 0;
                 }
             }
         } else {
             double[] p = new double[k];
             for (int j = 0; j < n; j++) {
-                Tuple xj = x.get(j);
                 Arrays.fill(p, 0);
                 for (int i = 0; i < ntrees; i++) {
                     for (int l = 0; l < k; l++) {
-                        p[l] += shrinkage * trees[l][i].predict(xj);
+                        p[l] += shrinkage * forests[l].trees()[i].predict(x[j]);
                     }
                     prediction[i][j] = MathEx.whichMax(p);
                 }
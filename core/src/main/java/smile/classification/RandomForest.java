@@ -27,7 +27,10 @@ import smile.data.type.StructType;
 import smile.data.vector.ValueVector;
 import smile.feature.importance.TreeSHAP;
 import smile.math.MathEx;
+import smile.model.cart.Bins;
 import smile.model.cart.CART;
+import smile.model.cart.FlatForest;
+import smile.model.cart.FlatTree;
 import smile.model.cart.SplitRule;
 import smile.util.IntSet;
 import smile.util.IterativeAlgorithmController;
@@ -135,6 +138,16 @@ public class RandomForest extends AbstractClassifier<Tuple> implements DataFrame
      */
     private final double[] importance;
 
+    /**
+     * The compiled forest for fast inference, which is built on demand.
+     */
+    private transient volatile FlatForest forest;
+
+    /**
+     * The weights of trees in the compiled forest.
+     */
+    private transient double[] weights;
+
     /**
      * Constructor.
      *
@@ -187,6 +200,10 @@ public class RandomForest extends AbstractClassifier<Tuple> implements DataFrame
      * @param maxNodes the maximum number of leaf nodes in the tree.
      * @param nodeSize the minimum size of leaf nodes.
      *                 Setting nodeSize = 5 generally gives good results.
+     * @param maxBins the maximum number of bins to quantize each ordinal
+     *                column into for histogram-based split finding, which
+     *                is at most 256. If 0, the exact split finding on
+     *                sorted values is employed.
      * @param subsample the sampling rate for training tree. 1.0 means sampling with
      *                  replacement. {@code < 1.0} means sampling without replacement.
      * @param classWeight Priors of the classes. The weight of each class
@@ -198,7 +215,7 @@ public class RandomForest extends AbstractClassifier<Tuple> implements DataFrame
      * @param seeds optional RNG seeds for each decision tree.
      * @param controller the optional training controller.
      */
-    public record Options(int ntrees, int mtry, SplitRule rule, int maxDepth, int maxNodes, int nodeSize, double subsample,
+    public record Options(int ntrees, int mtry, SplitRule rule, int maxDepth, int maxNodes, int nodeSize, int maxBins, double subsample,
                           int[] classWeight, long[] seeds, IterativeAlgorithmController<TrainingStatus> controller) {
         /** Constructor. */
         public Options {
@@ -214,6 +231,10 @@ public class RandomForest extends AbstractClassifier<Tuple> implements DataFrame
                 throw new IllegalArgumentException("Invalid node size: " + nodeSize);
             }
 
+            if (maxBins != 0 && (maxBins < 2 || maxBins > Bins.MAX_BINS)) {
+                throw new IllegalArgumentException("Invalid maximum number of bins: " + maxBins);
+            }
+
             if (subsample <= 0 || subsample > 1) {
                 throw new IllegalArgumentException("Invalid sampling rate: " + subsample);
             }
@@ -223,6 +244,28 @@ public class RandomForest extends AbstractClassifier<Tuple> implements DataFrame
             }
         }
 
+        /**
+         * Constructor with the exact split finding.
+         * @param ntrees the number of trees.
+         * @param mtry the number of input variables to be used to determine the
+         *             decision at a node of the tree. p/3 generally give good
+         *             performance, where p is the number of variables.
+         * @param rule Decision tree split rule.
+         * @param maxDepth the maximum depth of the tree.
+         * @param maxNodes the maximum number of leaf nodes in the tree.
+         * @param nodeSize the minimum size of leaf nodes.
+         *                 Setting nodeSize = 5 generally gives good results.
+         * @param subsample the sampling rate for training tree. 1.0 means sampling with
+         *                  replacement. {@code < 1.0} means sampling without replacement.
+         * @param classWeight Priors of the classes.
+         * @param seeds optional RNG seeds for each decision tree.
+         * @param controller the optional training controller.
+         */
+        public Options(int ntrees, int mtry, SplitRule rule, int maxDepth, int maxNodes, int nodeSize, double subsample,
+                       int[] classWeight, long[] seeds, IterativeAlgorithmController<TrainingStatus> controller) {
+            this(ntrees, mtry, rule, maxDepth, maxNodes, nodeSize, 0, subsample, classWeight, seeds, controller);
+        }
+
         /**
          * Constructor.
          * @param ntrees the number of trees.
@@ -258,6 +301,7 @@ public class RandomForest extends AbstractClassifier<Tuple> implements DataFrame
             props.setProperty("smile.random_forest.max_depth", Integer.toString(maxDepth));
             props.setProperty("smile.random_forest.max_nodes", Integer.toString(maxNodes));
             props.setProperty("smile.random_forest.node_size", Integer.toString(nodeSize));
+            props.setProperty("smile.random_forest.max_bins", Integer.toString(maxBins));
             props.setProperty("smile.random_forest.sampling_rate", Double.toString(subsample));
             if (classWeight != null) {
                 props.setProperty("smile.random_forest.class_weight", Arrays.toString(classWeight));
@@ -278,9 +322,10 @@ public class RandomForest extends AbstractClassifier<Tuple> implements DataFrame
             int maxDepth = Integer.parseInt(props.getProperty("smile.random_forest.max_depth", "20"));
             int maxNodes = Integer.parseInt(props.getProperty("smile.random_forest.max_nodes", "0"));
             int nodeSize = Integer.parseInt(props.getProperty("smile.random_forest.node_size", "5"));
+            int maxBins = Integer.parseInt(props.getProperty("smile.random_forest.max_bins", "0"));
             double subsample = Double.parseDouble(props.getProperty("smile.random_forest.sampling_rate", "1.0"));
             int[] classWeight = Strings.parseIntArray(props.getProperty("smile.random_forest.class_weight"));
-            return new Options(ntrees, mtry, rule, maxDepth, maxNodes, nodeSize, subsample, classWeight, null, null);
+            return new Options(ntrees, mtry, rule, maxDepth, maxNodes, nodeSize, maxBins, subsample, classWeight, null, null);
         }
     }
 
@@ -324,7 +369,8 @@ public class RandomForest extends AbstractClassifier<Tuple> implements DataFrame
 
         final int[] weight = options.classWeight != null ? options.classWeight : Collections.nCopies(k, 1).stream().mapToInt(i -> i).toArray();
 
-        final int[][] order = CART.order(x);
+        final Bins bins = options.maxBins > 0 ? new Bins(x, options.maxBins) : null;
+        final int[][] order = bins == null ? CART.order(x) : null;
         final int[][] prediction = new int[n][k]; // out-of-bag prediction
 
         // # of samples in each class
@@ -379,7 +425,7 @@ public class RandomForest extends AbstractClassifier<Tuple> implements DataFrame
             }
 
             long start = System.nanoTime();
-            DecisionTree tree = new DecisionTree(x, codec.y, y.field(), k, options.rule, options.maxDepth, maxNodes, options.nodeSize, mtry, samples, order);
+            DecisionTree tree = new DecisionTree(x, codec.y, y.field(), k, options.rule, options.maxDepth, maxNodes, options.nodeSize, mtry, samples, order, bins);
             double fitTime = (System.nanoTime() - start) / 1E6;
 
             // estimate OOB metrics
@@ -531,6 +577,8 @@ public class RandomForest extends AbstractClassifier<Tuple> implements DataFrame
         }
 
         Arrays.sort(models);
+        // The order of trees has changed.
+        forest = null;
 
         // The OOB metrics are still the old one
         // as we don't access to the training data here.
@@ -576,15 +624,23 @@ public class RandomForest extends AbstractClassifier<Tuple> implements DataFrame
         return new RandomForest(formula, k, forest, mergedMetrics, mergedImportance, classes);
     }
 
+    /**
+     * Returns the compiled forest for fast inference.
+     * @return the compiled forest.
+     */
+    private FlatForest forest() {
+        if (forest == null) {
+            weights = Arrays.stream(models).mapToDouble(Model::weight).toArray();
+            forest = new FlatForest(trees());
+        }
+        return forest;
+    }
+
     @Override
     public int predict(Tuple x) {
-        Tuple xt = formula.x(x);
-        int[] y = new int[k];
-        
-        for (Model model : models) {
-            y[model.tree.predict(xt)]++;
-        }
-        
+        FlatForest forest = forest();
+        double[] y = new double[k];
+        forest.vote(forest.toArray(formula.x(x)), null, y);
         return classes.valueOf(MathEx.whichMax(y));
     }
 
@@ -599,21 +655,33 @@ public class RandomForest extends AbstractClassifier<Tuple> implements DataFrame
             throw new IllegalArgumentException(String.format("Invalid posteriori vector size: %d, expected: %d", posteriori.length, k));
         }
 
-        Tuple xt = formula.x(x);
-
-        double[] prob = new double[k];
+        FlatForest forest = forest();
         Arrays.fill(posteriori, 0.0);
-        for (Model model : models) {
-            model.tree.predict(xt, prob);
-            for (int i = 0; i < k; i++) {
-                posteriori[i] += model.weight * prob[i];
-            }
-        }
-
+        forest.posteriori(forest.toArray(formula.x(x)), weights, posteriori);
         MathEx.unitize1(posteriori);
         return classes.valueOf(MathEx.whichMax(posteriori));
     }
 
+    @Override
+    public int[] predict(DataFrame data) {
+        FlatForest forest = forest();
+        double[][] votes = forest.vote(forest.toArray(formula.x(data)), k, null);
+        return Arrays.stream(votes).mapToInt(y -> classes.valueOf(MathEx.whichMax(y))).toArray();
+    }
+
+    @Override
+    public int[] predict(DataFrame data, List<double[]> posteriori) {
+        FlatForest forest = forest();
+        double[][] prob = forest.posteriori(forest.toArray(formula.x(data)), k, weights);
+        int[] y = new int[prob.length];
+        for (int i = 0; i < prob.length; i++) {
+            MathEx.unitize1(prob[i]);
+            y[i] = classes.valueOf(MathEx.whichMax(prob[i]));
+        }
+        Collections.addAll(posteriori, prob);
+        return y;
+    }
+
     /**
      * Predict and estimate the probability by voting.
      *
@@ -626,12 +694,9 @@ public class RandomForest extends AbstractClassifier<Tuple> implements DataFrame
             throw new IllegalArgumentException(String.format("Invalid posteriori vector size: %d, expected: %d", posteriori.length, k));
         }
 
-        Tuple xt = formula.x(x);
+        FlatForest forest = forest();
         Arrays.fill(posteriori, 0.0);
-        for (Model model : models) {
-            posteriori[model.tree.predict(xt)]++;
-        }
-
+        forest.vote(forest.toArray(formula.x(x)), null, posteriori);
         MathEx.unitize1(posteriori);
         return classes.valueOf(MathEx.whichMax(posteriori));
     }
@@ -643,18 +708,19 @@ public class RandomForest extends AbstractClassifier<Tuple> implements DataFrame
      * @return the predictions with first 1, 2, ..., decision trees.
      */
     public int[][] test(DataFrame data) {
-        DataFrame x = formula.x(data);
+        FlatForest forest = forest();
+        FlatTree[] trees = forest.trees();
+        double[][] x = forest.toArray(formula.x(data));
 
-        int n = x.size();
-        int ntrees = models.length;
+        int n = x.length;
+        int ntrees = trees.length;
         int[] p = new int[k];
         int[][] prediction = new int[ntrees][n];
 
         for (int j = 0; j < n; j++) {
-            Tuple xj = x.get(j);
             Arrays.fill(p, 0);
             for (int i = 0; i < ntrees; i++) {
-                p[models[i].tree.predict(xj)]++;
+                p[(int) trees[i].predict(x[j])]++;
                 prediction[i][j] = MathEx.whichMax(p);
             }
         }
@@ -18,12 +18,20 @@ package smile.clustering;
 
 import java.io.Serial;
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Queue;
+import java.util.stream.IntStream;
 import smile.clustering.linkage.Linkage;
 import smile.clustering.linkage.UPGMCLinkage;
 import smile.clustering.linkage.WPGMCLinkage;
 import smile.clustering.linkage.WardLinkage;
+import smile.graph.Graph;
+import smile.math.MathEx;
+import smile.math.distance.Distance;
 import smile.sort.IntHeapSelect;
 
 /**
@@ -43,6 +51,12 @@ import smile.sort.IntHeapSelect;
  * Hierarchical clustering has the distinct advantage that any valid measure
  * of distance can be used. In fact, the observations themselves are not
  * required: all that is used is a matrix of distances.
+ * <p>
+ * The proximity matrix takes O(n<sup>2</sup>) memory. For large data, the
+ * nearest-neighbor chain algorithm works with a proximity matrix in a
+ * memory-mapped file, or on the cluster centroids for Ward's linkage.
+ * Single linkage clustering can be derived from a minimum spanning tree
+ * with O(n) memory.
  * 
  * <h2>References</h2>
  * <ol>
@@ -109,6 +123,328 @@ public record HierarchicalClustering(int[][] tree, double[] height) implements S
         return new HierarchicalClustering(merge, height);
     }
 
+    /**
+     * Fits the Agglomerative Hierarchical Clustering with the nearest-neighbor
+     * chain algorithm. It follows a chain of nearest neighbors from a cluster
+     * until it reaches a pair of reciprocal nearest neighbors, which are
+     * merged. It takes O(n<sup>2</sup>) time and no memory beyond the
+     * proximity matrix of linkage, which may be a memory-mapped file.
+     * The algorithm is only valid for reducible linkages, i.e. single,
+     * complete, UPGMA, WPGMA and Ward's linkages. For these linkages,
+     * the result is the same as that of {@link #fit(Linkage)} up to ties.
+     *
+     * <h2>References</h2>
+     * <ol>
+     * <li>Fionn Murtagh. A survey of recent advances in hierarchical clustering algorithms. The Computer Journal, 1983.</li>
+     * <li>Daniel Mullner. Modern hierarchical, agglomerative clustering algorithms. arXiv:1109.2378, 2011.</li>
+     * </ol>
+     *
+     * @param linkage a reducible linkage method to merge clusters. The linkage
+     *                object includes the proximity matrix of data.
+     * @return the model.
+     */
+    public static HierarchicalClustering nnChain(Linkage linkage) {
+        if (linkage instanceof UPGMCLinkage || linkage instanceof WPGMCLinkage) {
+            throw new IllegalArgumentException("NN-chain algorithm doesn't support non-reducible " + linkage);
+        }
+
+        int n = linkage.size();
+        boolean[] merged = new boolean[n];
+        int[] chain = new int[n];
+        int length = 0;
+
+        int[] a = new int[n - 1];
+        int[] b = new int[n - 1];
+        double[] height = new double[n - 1];
+        for (int step = 0, next = 0; step < n - 1; ) {
+            if (length == 0) {
+                while (merged[next]) next++;
+                chain[length++] = next;
+            }
+
+            int i = chain[length - 1];
+            // Prefer the previous cluster in the chain in case of ties.
+            int nearest = length > 1 ? chain[length - 2] : -1;
+            double d = nearest >= 0 ? linkage.d(i, nearest) : Double.MAX_VALUE;
+            for (int j = 0; j < n; j++) {
+                if (j != i && !merged[j]) {
+                    double dij = linkage.d(i, j);
+                    if (dij < d) {
+                        d = dij;
+                        nearest = j;
+                    }
+                }
+            }
+
+            if (length > 1 && nearest == chain[length - 2]) {
+                // Reciprocal nearest neighbors. The cluster of smaller
+                // index keeps the merged cluster.
+                length -= 2;
+                int p = Math.min(i, nearest);
+                int q = Math.max(i, nearest);
+                linkage.merge(p, q);
+                merged[q] = true;
+                a[step] = p;
+                b[step] = q;
+                height[step++] = d;
+            } else {
+                chain[length++] = nearest;
+            }
+        }
+
+        if (linkage instanceof WardLinkage) {
+            for (int i = 0; i < height.length; i++) {
+                height[i] = Math.sqrt(height[i]);
+            }
+        }
+
+        return dendrogram(a, b, height);
+    }
+
+    /**
+     * Fits the Agglomerative Hierarchical Clustering with Ward's linkage
+     * on Euclidean distance. It runs the nearest-neighbor chain algorithm
+     * on the centroids of clusters, without the proximity matrix. It takes
+     * O(n<sup>2</sup> d) time and O(n d) memory. The result is the same as
+     * that of {@link #fit(Linkage)} with {@link WardLinkage} up to ties and
+     * rounding errors.
+     *
+     * @param data the data points.
+     * @return the model.
+     */
+    public static HierarchicalClustering ward(double[][] data) {
+        int n = data.length;
+        int d = data[0].length;
+        double[][] centroids = new double[n][];
+        int[] size = new int[n];
+        for (int i = 0; i < n; i++) {
+            centroids[i] = data[i].clone();
+            size[i] = 1;
+        }
+
+        boolean[] merged = new boolean[n];
+        int[] chain = new int[n];
+        int length = 0;
+        // The dissimilarity to the cluster at the end of chain.
+        double[] dist = new double[n];
+
+        int[] a = new int[n - 1];
+        int[] b = new int[n - 1];
+        double[] height = new double[n - 1];
+        for (int step = 0, next = 0; step < n - 1; ) {
+            if (length == 0) {
+                while (merged[next]) next++;
+                chain[length++] = next;
+            }
+
+            final int i = chain[length - 1];
+            final double[] ci = centroids[i];
+            final int ni = size[i];
+            IntStream.range(0, n).parallel().forEach(j -> {
+                dist[j] = j == i || merged[j] ? Double.MAX_VALUE : ward(ci, ni, centroids[j], size[j]);
+            });
+
+            // Prefer the previous cluster in the chain in case of ties.
+            int nearest = length > 1 ? chain[length - 2] : -1;
+            double dmin = nearest >= 0 ? dist[nearest] : Double.MAX_VALUE;
+            for (int j = 0; j < n; j++) {
+                if (dist[j] < dmin) {
+                    dmin = dist[j];
+                    nearest = j;
+                }
+            }
+
+            if (length > 1 && nearest == chain[length - 2]) {
+                // Reciprocal nearest neighbors. The cluster of smaller
+                // index keeps the merged cluster.
+                length -= 2;
+                int p = Math.min(i, nearest);
+                int q = Math.max(i, nearest);
+                double[] cp = centroids[p];
+                double[] cq = centroids[q];
+                int np = size[p];
+                int nq = size[q];
+                for (int l = 0; l < d; l++) {
+                    cp[l] = (np * cp[l] + nq * cq[l]) / (np + nq);
+                }
+                size[p] += nq;
+                centroids[q] = null;
+                merged[q] = true;
+                a[step] = p;
+                b[step] = q;
+                height[step++] = Math.sqrt(dmin);
+            } else {
+                chain[length++] = nearest;
+            }
+        }
+
+        return dendrogram(a, b, height);
+    }
+
+    /**
+     * Returns Ward's dissimilarity of two clusters, which is consistent
+     * with the Lance-Williams update of {@link WardLinkage} on squared
+     * Euclidean distance.
+     */
+    private static double ward(double[] x, int nx, double[] y, int ny) {
+        return 2.0 * nx * ny / (nx + ny) * MathEx.squaredDistance(x, y);
+    }
+
+    /**
+     * Fits the single linkage clustering with the minimum spanning tree
+     * of data by Prim's algorithm. The distances are computed on the fly
+     * so that it takes O(n<sup>2</sup>) time and O(n) memory.
+     *
+     * <h2>References</h2>
+     * <ol>
+     * <li>J. C. Gower and G. J. S. Ross. Minimum spanning trees and single linkage cluster analysis. Applied Statistics, 1969.</li>
+     * </ol>
+     *
+     * @param data the data points.
+     * @param distance the distance function.
+     * @param <T> the data type of points.
+     * @return the model.
+     */
+    public static <T> HierarchicalClustering singleLinkage(T[] data, Distance<T> distance) {
+        int n = data.length;
+        // The distance to the tree and the nearest vertex in the tree.
+        double[] dist = new double[n];
+        int[] parent = new int[n];
+        boolean[] inTree = new boolean[n];
+        Arrays.fill(dist, Double.POSITIVE_INFINITY);
+
+        int[] a = new int[n - 1];
+        int[] b = new int[n - 1];
+        double[] height = new double[n - 1];
+        int current = 0;
+        inTree[0] = true;
+        for (int step = 0; step < n - 1; step++) {
+            final T x = data[current];
+            final int u = current;
+            IntStream.range(0, n).parallel().forEach(j -> {
+                if (!inTree[j]) {
+                    double d = distance.d(x, data[j]);
+                    if (d < dist[j]) {
+                        dist[j] = d;
+                        parent[j] = u;
+                    }
+                }
+            });
+
+            int next = -1;
+            for (int j = 0; j < n; j++) {
+                if (!inTree[j] && (next < 0 || dist[j] < dist[next])) {
+                    next = j;
+                }
+            }
+
+            inTree[next] = true;
+            a[step] = parent[next];
+            b[step] = next;
+            height[step] = dist[next];
+            current = next;
+        }
+
+        return dendrogram(a, b, height);
+    }
+
+    /**
+     * Fits the single linkage clustering with the minimum spanning forest
+     * of a sparse graph, e.g. a k-nearest neighbor graph, by Kruskal's
+     * algorithm. It takes O(E log E) time and O(n + E) memory. The result
+     * is exact if the graph contains a minimum spanning tree of complete
+     * graph, which is usually the case for a k-nearest neighbor graph
+     * with moderate k. If the graph is not connected, the components
+     * are merged at the infinite height in the end.
+     *
+     * @param graph the graph of which the edge weights are the distances.
+     * @return the model.
+     */
+    public static HierarchicalClustering singleLinkage(Graph graph) {
+        int n = graph.getVertexCount();
+        List<Graph.Edge> edges = new ArrayList<>();
+        for (int v = 0; v < n; v++) {
+            edges.addAll(graph.getEdges(v));
+        }
+        edges.sort(Comparator.comparingDouble(Graph.Edge::weight));
+
+        int[] root = IntStream.range(0, n).toArray();
+        int[] a = new int[n - 1];
+        int[] b = new int[n - 1];
+        double[] height = new double[n - 1];
+        int step = 0;
+        for (var edge : edges) {
+            if (step == n - 1) break;
+            int u = find(root, edge.u());
+            int v = find(root, edge.v());
+            if (u != v) {
+                root[v] = u;
+                a[step] = edge.u();
+                b[step] = edge.v();
+                height[step++] = edge.weight();
+            }
+        }
+
+        // Connect the components.
+        for (int v = 1; v < n && step < n - 1; v++) {
+            int u = find(root, 0);
+            int w = find(root, v);
+            if (u != w) {
+                root[w] = u;
+                a[step] = 0;
+                b[step] = v;
+                height[step++] = Double.POSITIVE_INFINITY;
+            }
+        }
+
+        return dendrogram(a, b, height);
+    }
+
+    /**
+     * Returns the root of a point in the union-find forest with path halving.
+     */
+    private static int find(int[] root, int i) {
+        while (root[i] != i) {
+            root[i] = root[root[i]];
+            i = root[i];
+        }
+        return i;
+    }
+
+    /**
+     * Returns the cluster tree of merges, which may be out of order.
+     * The merges are sorted by height (stably) and relabeled in the
+     * order so that the cluster formed at step i has the id n + i.
+     * @param a a point in one of the merged clusters.
+     * @param b a point in the other merged cluster.
+     * @param height the merge height.
+     * @return the model.
+     */
+    private static HierarchicalClustering dendrogram(int[] a, int[] b, double[] height) {
+        int n = a.length + 1;
+        Integer[] order = new Integer[n - 1];
+        for (int i = 0; i < order.length; i++) order[i] = i;
+        Arrays.sort(order, Comparator.comparingDouble(i -> height[i]));
+
+        int[] root = IntStream.range(0, n).toArray();
+        // The id of cluster of which the point is the root.
+        int[] id = IntStream.range(0, n).toArray();
+        int[][] merge = new int[n - 1][2];
+        double[] h = new double[n - 1];
+        for (int step = 0; step < n - 1; step++) {
+            int k = order[step];
+            int p = find(root, a[k]);
+            int q = find(root, b[k]);
+            merge[step][0] = Math.min(id[p], id[q]);
+            merge[step][1] = Math.max(id[p], id[q]);
+            h[step] = height[k];
+            root[q] = p;
+            id[p] = n + step;
+        }
+
+        return new HierarchicalClustering(merge, h);
+    }
+
     /**
      * Cuts a tree into several groups by specifying the desired number.
      * @param k the number of clusters.
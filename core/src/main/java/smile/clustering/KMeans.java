@@ -16,7 +16,9 @@
  */
 package smile.clustering;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.function.ToDoubleBiFunction;
 import java.util.stream.IntStream;
 import smile.math.MathEx;
@@ -54,7 +56,11 @@ import smile.util.AlgoStatus;
  * that is O(log k) competitive to the optimal k-means solution.
  * <p>
  * We also use k-d trees to speed up each k-means step as described in the filter
- * algorithm by Kanungo, et al.
+ * algorithm by Kanungo, et al. For high dimensional data, Hamerly's algorithm
+ * avoids most distance calculations with the triangle inequality. For very
+ * large data, mini-batch k-means updates the centroids with small random
+ * batches, and k-means|| selects the initial centroids in a few parallel
+ * passes over the data.
  * <p>
  * K-means is a hard clustering method, i.e. each observation is assigned to
  * a specific cluster. In contrast, soft clustering, e.g. the
@@ -218,6 +224,434 @@ public class KMeans {
         return clustering;
     }
 
+    /**
+     * Fits k-means clustering with Hamerly's algorithm. It computes the
+     * same result as Lloyd's algorithm with the same initial centroids,
+     * but skips most distance calculations of the assignment step by
+     * the triangle inequality. For each data point, it maintains an upper
+     * bound of the distance to the assigned centroid and a lower bound
+     * of the distance to the second nearest one. The bounds are updated
+     * by the movement of centroids. The point keeps its assignment without
+     * any distance calculation if the upper bound is less than the lower
+     * bound or half the distance from the assigned centroid to its
+     * nearest other centroid. It needs only O(n) additional memory and
+     * works well for high dimensional data, where the BBD-tree isn't
+     * effective.
+     * <p>
+     * The initial centroids are selected by k-means||. The algorithm
+     * stops when no data point changes its cluster or the maximum number
+     * of iterations is reached. The objective value reported to the
+     * controller is an upper bound of the distortion.
+     *
+     * <h2>References</h2>
+     * <ol>
+     * <li> Greg Hamerly. Making k-means even faster. SDM, 2010.</li>
+     * </ol>
+     *
+     * @param data the input data of which each row is an observation.
+     * @param k the number of clusters.
+     * @param maxIter the maximum number of iterations.
+     * @return the model.
+     */
+    public static CentroidClustering<double[], double[]> hamerly(double[][] data, int k, int maxIter) {
+        return hamerly(data, new Clustering.Options(k, maxIter));
+    }
+
+    /**
+     * Fits k-means clustering with Hamerly's algorithm.
+     * @param data the input data of which each row is an observation.
+     * @param options the hyperparameters.
+     * @return the model.
+     * @see #hamerly(double[][], int, int)
+     */
+    public static CentroidClustering<double[], double[]> hamerly(double[][] data, Clustering.Options options) {
+        int k = options.k();
+        int maxIter = options.maxIter();
+        var controller = options.controller();
+        int n = data.length;
+        int d = data[0].length;
+
+        double[][] centroids = seed(data, k);
+        int[] group = new int[n];
+        // The upper bound of distance to the assigned centroid.
+        double[] upper = new double[n];
+        // The lower bound of distance to the second nearest centroid.
+        double[] lower = new double[n];
+        IntStream.range(0, n).parallel().forEach(i -> nearest(data[i], centroids, i, group, upper, lower));
+
+        double[][] previous = new double[k][d];
+        double[] move = new double[k];
+        double[] half = new double[k];
+        for (int iter = 1; iter <= maxIter; iter++) {
+            for (int j = 0; j < k; j++) {
+                System.arraycopy(centroids[j], 0, previous[j], 0, d);
+            }
+            updateCentroids(data, group, centroids);
+
+            // The largest and the second largest movements.
+            int r = 0;
+            double max = 0.0, max2 = 0.0;
+            for (int j = 0; j < k; j++) {
+                move[j] = MathEx.distance(previous[j], centroids[j]);
+                if (move[j] > max) {
+                    max2 = max;
+                    max = move[j];
+                    r = j;
+                } else if (move[j] > max2) {
+                    max2 = move[j];
+                }
+            }
+
+            // Half the distance from each centroid to its nearest other centroid.
+            IntStream.range(0, k).parallel().forEach(j -> {
+                double nearest = Double.MAX_VALUE;
+                for (int l = 0; l < k; l++) {
+                    if (l != j) {
+                        nearest = Math.min(nearest, MathEx.squaredDistance(centroids[j], centroids[l]));
+                    }
+                }
+                half[j] = 0.5 * Math.sqrt(nearest);
+            });
+
+            final int farthest = r;
+            final double shift = max, shift2 = max2;
+            long changes = IntStream.range(0, n).parallel().filter(i -> {
+                int label = group[i];
+                upper[i] += move[label];
+                lower[i] -= label == farthest ? shift2 : shift;
+
+                double bound = Math.max(half[label], lower[i]);
+                if (upper[i] <= bound) return false;
+                // Tighten the upper bound.
+                upper[i] = MathEx.distance(data[i], centroids[label]);
+                if (upper[i] <= bound) return false;
+                nearest(data[i], centroids, i, group, upper, lower);
+                return group[i] != label;
+            }).count();
+
+            if (controller != null || logger.isInfoEnabled()) {
+                double distortion = IntStream.range(0, n).parallel().mapToDouble(i -> upper[i] * upper[i]).sum() / n;
+                logger.info("Iteration {}: distortion <= {}, changes = {}", iter, distortion, changes);
+                if (controller != null) {
+                    controller.submit(new AlgoStatus(iter, distortion));
+                    if (controller.isInterrupted()) break;
+                }
+            }
+
+            if (changes == 0) break;
+        }
+
+        // The assignments may have changed in the last iteration.
+        updateCentroids(data, group, centroids);
+        double[] proximity = new double[n];
+        IntStream.range(0, n).parallel().forEach(i -> proximity[i] = MathEx.squaredDistance(data[i], centroids[group[i]]));
+        return new CentroidClustering<>("K-Means", centroids, new EuclideanDistance(), group, proximity);
+    }
+
+    /**
+     * Assigns a data point to the nearest centroid and sets the distance
+     * bounds to the exact distances to the nearest and the second nearest
+     * centroids.
+     */
+    private static void nearest(double[] x, double[][] centroids, int i, int[] group, double[] upper, double[] lower) {
+        int label = 0;
+        double nearest = Double.MAX_VALUE;
+        double second = Double.MAX_VALUE;
+        for (int j = 0; j < centroids.length; j++) {
+            double dist = MathEx.squaredDistance(x, centroids[j]);
+            if (dist < nearest) {
+                second = nearest;
+                nearest = dist;
+                label = j;
+            } else if (dist < second) {
+                second = dist;
+            }
+        }
+        group[i] = label;
+        upper[i] = Math.sqrt(nearest);
+        lower[i] = Math.sqrt(second);
+    }
+
+    /**
+     * Calculates the centroids of clusters in parallel. The data are split
+     * into a part per processor, of which the partial sums are merged.
+     * The centroid of an empty cluster is not changed.
+     */
+    private static void updateCentroids(double[][] data, int[] group, double[][] centroids) {
+        int n = data.length;
+        int k = centroids.length;
+        int d = centroids[0].length;
+        int parts = Math.min(n, Runtime.getRuntime().availableProcessors());
+        double[][] sum = new double[k][d];
+        long[] size = new long[k];
+        IntStream.range(0, parts).parallel().forEach(part -> {
+            double[][] partialSum = new double[k][d];
+            long[] partialSize = new long[k];
+            int from = (int) ((long) n * part / parts);
+            int to = (int) ((long) n * (part + 1) / parts);
+            for (int i = from; i < to; i++) {
+                int label = group[i];
+                partialSize[label]++;
+                double[] x = data[i];
+                double[] s = partialSum[label];
+                for (int j = 0; j < d; j++) {
+                    s[j] += x[j];
+                }
+            }
+
+            synchronized (sum) {
+                for (int c = 0; c < k; c++) {
+                    size[c] += partialSize[c];
+                    for (int j = 0; j < d; j++) {
+                        sum[c][j] += partialSum[c][j];
+                    }
+                }
+            }
+        });
+
+        for (int c = 0; c < k; c++) {
+            if (size[c] > 0) {
+                for (int j = 0; j < d; j++) {
+                    centroids[c][j] = sum[c][j] / size[c];
+                }
+            }
+        }
+    }
+
+    /**
+     * Fits mini-batch k-means clustering. Each iteration updates the
+     * centroids with a batch of data points sampled at random. It stops
+     * early when the exponentially weighted average of the batch
+     * distortion has not improved by the relative tolerance for 10
+     * consecutive batches. The initial centroids are selected by k-means||.
+     *
+     * @param data the input data of which each row is an observation.
+     * @param batch the mini-batch size.
+     * @param options the hyperparameters. The maximum number of
+     *                iterations is the number of mini-batches.
+     * @return the model.
+     * @see MiniBatchKMeans
+     */
+    public static CentroidClustering<double[], double[]> miniBatch(double[][] data, int batch, Clustering.Options options) {
+        if (batch <= 0) {
+            throw new IllegalArgumentException("Invalid mini-batch size: " + batch);
+        }
+
+        int maxIter = options.maxIter();
+        double tol = options.tol();
+        var controller = options.controller();
+        int n = data.length;
+
+        var model = new MiniBatchKMeans(seed(data, options.k()));
+        double[][] x = new double[Math.min(batch, n)][];
+        double alpha = Math.min(1.0, 2.0 * x.length / (n + 1));
+        double average = Double.NaN;
+        double best = Double.MAX_VALUE;
+        int noImprovement = 0;
+        for (int iter = 1; iter <= maxIter; iter++) {
+            for (int i = 0; i < x.length; i++) {
+                x[i] = data[MathEx.randomInt(n)];
+            }
+
+            double distortion = model.update(x);
+            average = Double.isNaN(average) ? distortion : alpha * distortion + (1 - alpha) * average;
+            logger.debug("Iteration {}: batch distortion = {}", iter, distortion);
+            if (controller != null) {
+                controller.submit(new AlgoStatus(iter, average));
+                if (controller.isInterrupted()) break;
+            }
+
+            if (average < best * (1 - tol)) {
+                best = average;
+                noImprovement = 0;
+            } else if (++noImprovement >= 10) {
+                logger.info("Converged after {} batches: distortion = {}", iter, average);
+                break;
+            }
+        }
+
+        return model.clustering(data);
+    }
+
+    /**
+     * Selects the initial centroids by k-means|| with 5 rounds and
+     * oversampling factor 2.
+     * @param data the input data of which each row is an observation.
+     * @param k the number of clusters.
+     * @return the initial centroids, which are copies of data points.
+     * @see #seed(double[][], int, int, double)
+     */
+    public static double[][] seed(double[][] data, int k) {
+        return seed(data, k, 5, 2.0);
+    }
+
+    /**
+     * Selects the initial centroids by k-means||, the scalable k-means++.
+     * Instead of sampling one center per pass over the data as k-means++
+     * does, each round samples about {@code oversampling * k} candidates
+     * independently with probability proportional to the squared distance
+     * to the nearest candidate so far. The sampling and distance updates
+     * run in parallel. After the rounds, the candidates are weighted by
+     * the number of data points closest to them and reclustered into k
+     * centroids by weighted k-means++ and a few Lloyd iterations.
+     * <p>
+     * The result is determined by the seed of {@link MathEx} regardless
+     * of the number of threads.
+     *
+     * <h2>References</h2>
+     * <ol>
+     * <li> B. Bahmani, B. Moseley, A. Vattani, R. Kumar, and S. Vassilvitskii. Scalable k-means++. VLDB, 2012.</li>
+     * </ol>
+     *
+     * @param data the input data of which each row is an observation.
+     * @param k the number of clusters.
+     * @param rounds the number of sampling rounds.
+     * @param oversampling the oversampling factor.
+     * @return the initial centroids, which are copies of data points.
+     */
+    public static double[][] seed(double[][] data, int k, int rounds, double oversampling) {
+        int n = data.length;
+        if (k < 2 || k > n) {
+            throw new IllegalArgumentException("Invalid number of clusters: " + k);
+        }
+
+        if (rounds <= 0) {
+            throw new IllegalArgumentException("Invalid number of rounds: " + rounds);
+        }
+
+        if (oversampling <= 0) {
+            throw new IllegalArgumentException("Invalid oversampling factor: " + oversampling);
+        }
+
+        List<double[]> candidates = new ArrayList<>();
+        candidates.add(data[MathEx.randomInt(n)]);
+        // The squared distance to and the index of the nearest candidate.
+        double[] cost = new double[n];
+        int[] nearest = new int[n];
+        Arrays.fill(cost, Double.MAX_VALUE);
+        updateCost(data, candidates, 0, cost, nearest);
+
+        final int chunk = 4096;
+        int nchunks = (n + chunk - 1) / chunk;
+        double l = oversampling * k;
+        for (int round = 0; round < rounds; round++) {
+            double psi = Arrays.stream(cost).parallel().sum();
+            if (psi == 0.0) break;
+
+            // Each chunk has its own generator for reproducible results.
+            long seed = MathEx.randomLong();
+            int[] sampled = IntStream.range(0, nchunks).parallel().flatMap(c -> {
+                var rng = new smile.math.Random(seed + c);
+                int from = c * chunk;
+                int to = Math.min(from + chunk, n);
+                return IntStream.range(from, to).filter(i -> rng.nextDouble() < l * cost[i] / psi);
+            }).toArray();
+
+            int from = candidates.size();
+            for (int i : sampled) {
+                candidates.add(data[i]);
+            }
+            updateCost(data, candidates, from, cost, nearest);
+        }
+
+        int m = candidates.size();
+        double[][] points = candidates.toArray(new double[m][]);
+        double[][] centroids = new double[k][];
+        if (m <= k) {
+            // Too few distinct candidates. Fill up with random data points.
+            for (int j = 0; j < k; j++) {
+                centroids[j] = (j < m ? points[j] : data[MathEx.randomInt(n)]).clone();
+            }
+            return centroids;
+        }
+
+        double[] weight = new double[m];
+        for (int i = 0; i < n; i++) {
+            weight[nearest[i]]++;
+        }
+
+        // Weighted k-means++ on candidates.
+        double[] proximity = new double[m];
+        double[] probability = new double[m];
+        Arrays.fill(proximity, Double.MAX_VALUE);
+        System.arraycopy(weight, 0, probability, 0, m);
+        for (int j = 0; j < k; j++) {
+            // All candidates may coincide with the chosen centers.
+            double[] center = data[MathEx.randomInt(n)];
+            if (MathEx.sum(probability) > 0.0) {
+                MathEx.unitize1(probability);
+                center = points[MathEx.random(probability)];
+            }
+            centroids[j] = center.clone();
+            for (int i = 0; i < m; i++) {
+                proximity[i] = Math.min(proximity[i], MathEx.squaredDistance(points[i], center));
+                probability[i] = weight[i] * proximity[i];
+            }
+        }
+
+        // Weighted Lloyd iterations on candidates.
+        int d = data[0].length;
+        int[] group = new int[m];
+        double[][] sum = new double[k][d];
+        double[] size = new double[k];
+        for (int iter = 0; iter < 10; iter++) {
+            boolean changed = false;
+            for (int i = 0; i < m; i++) {
+                int label = 0;
+                double dist = Double.MAX_VALUE;
+                for (int j = 0; j < k; j++) {
+                    double dj = MathEx.squaredDistance(points[i], centroids[j]);
+                    if (dj < dist) {
+                        dist = dj;
+                        label = j;
+                    }
+                }
+                changed |= iter == 0 || group[i] != label;
+                group[i] = label;
+            }
+            if (!changed) break;
+
+            for (double[] s : sum) Arrays.fill(s, 0.0);
+            Arrays.fill(size, 0.0);
+            for (int i = 0; i < m; i++) {
+                int label = group[i];
+                size[label] += weight[i];
+                for (int j = 0; j < d; j++) {
+                    sum[label][j] += weight[i] * points[i][j];
+                }
+            }
+
+            for (int c = 0; c < k; c++) {
+                if (size[c] > 0) {
+                    for (int j = 0; j < d; j++) {
+                        centroids[c][j] = sum[c][j] / size[c];
+                    }
+                }
+            }
+        }
+
+        return centroids;
+    }
+
+    /**
+     * Updates the squared distance of data points to the nearest
+     * candidate with the new candidates.
+     * @param from the index of first new candidate.
+     */
+    private static void updateCost(double[][] data, List<double[]> candidates, int from, double[] cost, int[] nearest) {
+        int m = candidates.size();
+        if (from == m) return;
+        IntStream.range(0, data.length).parallel().forEach(i -> {
+            for (int j = from; j < m; j++) {
+                double dist = MathEx.squaredDistance(data[i], candidates.get(j));
+                if (dist < cost[i]) {
+                    cost[i] = dist;
+                    nearest[i] = j;
+                }
+            }
+        });
+    }
+
     /**
      * Calculates the new centroids in the new clusters.
      */
@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) 2010-2025 Haifeng Li. All rights reserved.
+ *
+ * Smile is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Smile is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Smile. If not, see <https://www.gnu.org/licenses/>.
+ */
+package smile.clustering;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.stream.IntStream;
+import smile.math.MathEx;
+import smile.math.distance.EuclideanDistance;
+
+/**
+ * Mini-batch k-means clustering. Instead of the whole data set, each
+ * iteration assigns a small random batch of data points to the nearest
+ * centroids and moves the centroids toward them. Each centroid has its
+ * own learning rate, which is the inverse of the number of points
+ * assigned to it so far. So a centroid is the running mean of the
+ * points that it has received. The model can be updated from a stream
+ * of batches so that the data doesn't have to fit in memory. The result
+ * is usually slightly worse than that of batch k-means, at a fraction
+ * of the cost.
+ * <p>
+ * This class is not thread safe. The assignment step of a batch runs
+ * in parallel.
+ *
+ * <h2>References</h2>
+ * <ol>
+ * <li> D. Sculley. Web-Scale K-Means Clustering. WWW, 2010.</li>
+ * </ol>
+ *
+ * @see KMeans#miniBatch(double[][], int, Clustering.Options)
+ * @author Haifeng Li
+ */
+public class MiniBatchKMeans implements Serializable {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    /** The centroids. */
+    private final double[][] centroids;
+    /** The number of data points assigned to each centroid so far. */
+    private final long[] counts;
+
+    /**
+     * Constructor.
+     * @param centroids the initial centroids, e.g. by {@link KMeans#seed(double[][], int)}.
+     *                  The array is updated in place.
+     */
+    public MiniBatchKMeans(double[][] centroids) {
+        if (centroids.length < 2) {
+            throw new IllegalArgumentException("Invalid number of clusters: " + centroids.length);
+        }
+
+        this.centroids = centroids;
+        this.counts = new long[centroids.length];
+    }
+
+    /**
+     * Returns the number of clusters.
+     * @return the number of clusters.
+     */
+    public int k() {
+        return centroids.length;
+    }
+
+    /**
+     * Returns the centroids.
+     * @return the centroids.
+     */
+    public double[][] centers() {
+        return centroids;
+    }
+
+    /**
+     * Returns the number of data points that have been assigned
+     * to a cluster.
+     * @param i the index of cluster.
+     * @return the number of data points assigned to the cluster.
+     */
+    public long count(int i) {
+        return counts[i];
+    }
+
+    /**
+     * Classifies a new observation.
+     * @param x a new observation.
+     * @return the cluster label.
+     */
+    public int predict(double[] x) {
+        int label = 0;
+        double nearest = Double.MAX_VALUE;
+        for (int j = 0; j < centroids.length; j++) {
+            double dist = MathEx.squaredDistance(x, centroids[j]);
+            if (dist < nearest) {
+                nearest = dist;
+                label = j;
+            }
+        }
+        return label;
+    }
+
+    /**
+     * Updates the centroids with a batch of data points.
+     * @param batch the batch of data points.
+     * @return the average squared distance of the batch to the nearest
+     *         centroids before the update.
+     */
+    public double update(double[][] batch) {
+        int n = batch.length;
+        int[] group = new int[n];
+        double cost = IntStream.range(0, n).parallel().mapToDouble(i -> {
+            int label = predict(batch[i]);
+            group[i] = label;
+            return MathEx.squaredDistance(batch[i], centroids[label]);
+        }).sum();
+
+        // The centroids are updated in the order of points
+        // so that the result is deterministic.
+        for (int i = 0; i < n; i++) {
+            int j = group[i];
+            double eta = 1.0 / ++counts[j];
+            double[] x = batch[i];
+            double[] centroid = centroids[j];
+            for (int l = 0; l < centroid.length; l++) {
+                centroid[l] += eta * (x[l] - centroid[l]);
+            }
+        }
+        return cost / n;
+    }
+
+    /**
+     * Assigns the data points to the nearest centroids. The clustering
+     * holds a copy of the current centroids, which is not affected by
+     * later updates.
+     * @param data the data points.
+     * @return the clustering of data.
+     */
+    public CentroidClustering<double[], double[]> clustering(double[][] data) {
+        int n = data.length;
+        int[] group = new int[n];
+        double[] proximity = new double[n];
+        IntStream.range(0, n).parallel().forEach(i -> {
+            int label = predict(data[i]);
+            group[i] = label;
+            proximity[i] = MathEx.squaredDistance(data[i], centroids[label]);
+        });
+        return new CentroidClustering<>("Mini-Batch K-Means", MathEx.clone(centroids), new EuclideanDistance(), group, proximity);
+    }
+}
@@ -16,12 +16,25 @@
  */
 package smile.clustering.linkage;
 
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.stream.IntStream;
 import smile.math.MathEx;
 import smile.math.distance.Distance;
 
 /**
  * A measure of dissimilarity between clusters (i.e. sets of observations).
+ * <p>
+ * The linkage keeps the proximity matrix of n(n+1)/2 floats, which is
+ * limited to 65535 data points for an on-heap array. For larger data,
+ * the proximity matrix can be stored in a memory-mapped file, which is
+ * paged in and out by the operating system.
  * 
  * <h2>References</h2>
  * <ol>
@@ -45,6 +58,16 @@ public abstract class Linkage {
      * of merged clusters.
      */
     float[] proximity;
+    /**
+     * The linearized proximity matrix in a memory segment, e.g. a
+     * memory-mapped file. It is null if the matrix is an array.
+     */
+    MemorySegment segment;
+    /** The number of elements of linearized proximity matrix. */
+    long length;
+
+    /** The layout of proximity matrix elements in memory segment. */
+    private static final ValueLayout.OfFloat FLOAT = ValueLayout.JAVA_FLOAT_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
 
     /**
      * Constructor.
@@ -56,8 +79,8 @@ public abstract class Linkage {
         if (size > 65535) {
             throw new IllegalArgumentException("Data size " + size + " > 65535");
         }
-        int length = (int) ((long) size * (size+1) / 2);
-        this.proximity = new float[length];
+        this.length = (long) size * (size+1) / 2;
+        this.proximity = new float[(int) length];
 
         // row wise
         //for (int i = 0, k = 0; i < size; i++) {
@@ -91,6 +114,27 @@ public abstract class Linkage {
 
         this.size = size;
         this.proximity = proximity;
+        this.length = proximity.length;
+    }
+
+    /**
+     * Constructor.
+     * @param size the data size.
+     * @param proximity the column-wise linearized proximity matrix that stores
+     *                  only the lower half in little-endian floats, e.g. a
+     *                  memory-mapped file by {@link #proximity(Object[], Distance, Path)}.
+     *                  The byte size of proximity should be 4 * size * (size+1) / 2.
+     *                  The elements may be modified.
+     */
+    public Linkage(int size, MemorySegment proximity) {
+        long length = (long) size * (size+1) / 2;
+        if (proximity.byteSize() != length * Float.BYTES) {
+            throw new IllegalArgumentException(String.format("The byte size of proximity is %d, expected %d", proximity.byteSize(), length * Float.BYTES));
+        }
+
+        this.size = size;
+        this.segment = proximity;
+        this.length = length;
     }
 
     /**
@@ -100,11 +144,11 @@ public abstract class Linkage {
      * @param j the column index.
      * @return the linearized index.
      */
-    int index(int i, int j) {
+    long index(int i, int j) {
         // row wise
         // return i > j ? i*(i+1)/2 + j : j*(j+1)/2 + i;
         // column wise
-        return i > j ? proximity.length - (size-j)*(size-j+1)/2 + i - j : proximity.length - (size-i)*(size-i+1)/2 + j - i;
+        return i > j ? length - (long) (size-j)*(size-j+1)/2 + i - j : length - (long) (size-i)*(size-i+1)/2 + j - i;
     }
 
     /**
@@ -124,7 +168,51 @@ public abstract class Linkage {
      * @return the distance/dissimilarity.
      */
     public float d(int i, int j) {
-        return proximity[index(i, j)];
+        return get(index(i, j));
+    }
+
+    /**
+     * Sets the distance/dissimilarity between two clusters/objects.
+     *
+     * @param i the row index of proximity matrix.
+     * @param j the column index of proximity matrix.
+     * @param d the distance/dissimilarity.
+     */
+    void set(int i, int j, float d) {
+        set(index(i, j), d);
+    }
+
+    /**
+     * Returns an element of linearized proximity matrix.
+     * @param k the linearized index.
+     * @return the element.
+     */
+    float get(long k) {
+        return segment == null ? proximity[(int) k] : segment.getAtIndex(FLOAT, k);
+    }
+
+    /**
+     * Sets an element of linearized proximity matrix.
+     * @param k the linearized index.
+     * @param d the element value.
+     */
+    void set(long k, float d) {
+        if (segment == null) {
+            proximity[(int) k] = d;
+        } else {
+            segment.setAtIndex(FLOAT, k, d);
+        }
+    }
+
+    /**
+     * Squares the elements of proximity matrix, for the linkages that
+     * work on squared distances.
+     */
+    void square() {
+        for (long k = 0; k < length; k++) {
+            float d = get(k);
+            set(k, d * d);
+        }
     }
 
     /**
@@ -171,4 +259,39 @@ public abstract class Linkage {
 
         return proximity;
     }
+
+    /**
+     * Computes the proximity matrix (linearized in column major) and
+     * stores it in a memory-mapped file. It supports more than 65535
+     * data points. The file is created or truncated.
+     *
+     * @param data the data points.
+     * @param distance the distance function.
+     * @param file the file path of proximity matrix.
+     * @param <T> the data type of points.
+     * @return the memory segment of proximity matrix.
+     * @throws IOException if fail to create or map the file.
+     */
+    public static <T> MemorySegment proximity(T[] data, Distance<T> distance, Path file) throws IOException {
+        int n = data.length;
+        long length = (long) n * (n+1) / 2;
+
+        MemorySegment proximity;
+        try (var channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            // The mapping is released when the segment is garbage collected.
+            proximity = channel.map(FileChannel.MapMode.READ_WRITE, 0, length * Float.BYTES, Arena.ofAuto());
+        }
+
+        // Columns are contiguous. The diagonal elements are zero.
+        IntStream.range(0, n).parallel().forEach(j -> {
+            long offset = length - (long) (n-j)*(n-j+1)/2 - j;
+            for (int i = j; i < n; i++) {
+                float d = i == j ? 0.0f : (float) distance.d(data[i], data[j]);
+                proximity.setAtIndex(FLOAT, offset + i, d);
+            }
+        });
+
+        return proximity;
+    }
 }
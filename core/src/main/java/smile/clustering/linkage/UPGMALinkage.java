@@ -16,6 +16,7 @@
  */
 package smile.clustering.linkage;
 
+import java.lang.foreign.MemorySegment;
 import java.util.Arrays;
 import smile.math.distance.Distance;
 
@@ -62,6 +63,20 @@ public class UPGMALinkage extends Linkage {
         init();
     }
 
+    /**
+     * Constructor. Initialize the linkage with the lower triangular proximity
+     * matrix in a memory segment, e.g. a memory-mapped file.
+     * @param size the data size.
+     * @param proximity the column-wise linearized proximity matrix that stores
+     *                  only the lower half in little-endian floats. The byte size
+     *                  of proximity should be 4 * size * (size+1) / 2.
+     *                  The elements may be modified.
+     */
+    public UPGMALinkage(int size, MemorySegment proximity) {
+        super(size, proximity);
+        init();
+    }
+
     /** Initialize sample size. */
     private void init() {
         n = new int[size];
@@ -100,11 +115,11 @@ public class UPGMALinkage extends Linkage {
         float sum = n[i] + n[j];
 
         for (int k = 0; k < i; k++) {
-            proximity[index(i, k)] = d(i, k) * n[i] / sum + d(j, k) * n[j] / sum;
+            set(i, k, d(i, k) * n[i] / sum + d(j, k) * n[j] / sum);
         }
 
         for (int k = i+1; k < size; k++) {
-            proximity[index(k, i)] = d(k, i) * n[i] / sum + d(j, k) * n[j] / sum;
+            set(k, i, d(k, i) * n[i] / sum + d(j, k) * n[j] / sum);
         }
 
         n[i] += n[j];
@@ -16,6 +16,7 @@
  */
 package smile.clustering.linkage;
 
+import java.lang.foreign.MemorySegment;
 import smile.math.distance.Distance;
 
 /**
@@ -53,6 +54,19 @@ public class WPGMALinkage extends Linkage {
         super(size, proximity);
     }
 
+    /**
+     * Constructor. Initialize the linkage with the lower triangular proximity
+     * matrix in a memory segment, e.g. a memory-mapped file.
+     * @param size the data size.
+     * @param proximity the column-wise linearized proximity matrix that stores
+     *                  only the lower half in little-endian floats. The byte size
+     *                  of proximity should be 4 * size * (size+1) / 2.
+     *                  The elements may be modified.
+     */
+    public WPGMALinkage(int size, MemorySegment proximity) {
+        super(size, proximity);
+    }
+
     /**
      * Computes the proximity and the linkage.
      *
@@ -83,11 +97,11 @@ public class WPGMALinkage extends Linkage {
     @Override
     public void merge(int i, int j) {
         for (int k = 0; k < i; k++) {
-            proximity[index(i, k)] = (d(i, k) + d(j, k)) / 2;
+            set(i, k, (d(i, k) + d(j, k)) / 2);
         }
 
         for (int k = i+1; k < size; k++) {
-            proximity[index(k, i)] = (d(k, i) + d(j, k)) / 2;
+            set(k, i, (d(k, i) + d(j, k)) / 2);
         }
     }
 }
@@ -16,6 +16,7 @@
  */
 package smile.clustering.linkage;
 
+import java.lang.foreign.MemorySegment;
 import smile.math.distance.Distance;
 
 /**
@@ -50,11 +51,23 @@ public class WPGMCLinkage extends Linkage {
         init();
     }
 
+    /**
+     * Constructor. Initialize the linkage with the lower triangular proximity
+     * matrix in a memory segment, e.g. a memory-mapped file.
+     * @param size the data size.
+     * @param proximity the column-wise linearized proximity matrix that stores
+     *                  only the lower half in little-endian floats. The byte size
+     *                  of proximity should be 4 * size * (size+1) / 2.
+     *                  The elements may be modified.
+     */
+    public WPGMCLinkage(int size, MemorySegment proximity) {
+        super(size, proximity);
+        init();
+    }
+
     /** Initialize proximity. */
     private void init() {
-        for (int i = 0; i < proximity.length; i++) {
-            proximity[i] *= proximity[i];
-        }
+        square();
     }
 
     /**
@@ -87,15 +100,15 @@ public class WPGMCLinkage extends Linkage {
     @Override
     public void merge(int i, int j) {
         for (int k = 0; k < i; k++) {
-            proximity[index(i, k)] = (d(i, k) + d(j, k)) / 2 - d(j, i) / 4;
+            set(i, k, (d(i, k) + d(j, k)) / 2 - d(j, i) / 4);
         }
 
         for (int k = i+1; k < j; k++) {
-            proximity[index(k, i)] = (d(k, i) + d(j, k)) / 2 - d(j, i) / 4;
+            set(k, i, (d(k, i) + d(j, k)) / 2 - d(j, i) / 4);
         }
 
         for (int k = j+1; k < size; k++) {
-            proximity[index(k, i)] = (d(k, i) + d(k, j)) / 2 - d(j, i) / 4;
+            set(k, i, (d(k, i) + d(k, j)) / 2 - d(j, i) / 4);
         }
     }
 }
@@ -16,6 +16,7 @@
  */
 package smile.clustering.linkage;
 
+import java.lang.foreign.MemorySegment;
 import java.util.Arrays;
 import smile.math.distance.Distance;
 
@@ -59,14 +60,26 @@ public class WardLinkage extends Linkage {
         init();
     }
 
+    /**
+     * Constructor. Initialize the linkage with the lower triangular proximity
+     * matrix in a memory segment, e.g. a memory-mapped file.
+     * @param size the data size.
+     * @param proximity the column-wise linearized proximity matrix that stores
+     *                  only the lower half in little-endian floats. The byte size
+     *                  of proximity should be 4 * size * (size+1) / 2.
+     *                  The elements may be modified.
+     */
+    public WardLinkage(int size, MemorySegment proximity) {
+        super(size, proximity);
+        init();
+    }
+
     /** Initialize sample size. */
     private void init() {
         n = new int[size];
         Arrays.fill(n, 1);
 
-        for (int i = 0; i < proximity.length; i++) {
-            proximity[i] *= proximity[i];
-        }
+        square();
     }
 
     /**
@@ -101,15 +114,15 @@ public class WardLinkage extends Linkage {
         float nij = n[i] + n[j];
 
         for (int k = 0; k < i; k++) {
-            proximity[index(i, k)] = (d(i, k) * (n[i] + n[k]) + d(j, k) * (n[j] + n[k]) - d(j, i) * n[k]) / (nij + n[k]);
+            set(i, k, (d(i, k) * (n[i] + n[k]) + d(j, k) * (n[j] + n[k]) - d(j, i) * n[k]) / (nij + n[k]));
         }
 
         for (int k = i+1; k < j; k++) {
-            proximity[index(k, i)] = (d(k, i) * (n[i] + n[k]) + d(j, k) * (n[j] + n[k]) - d(j, i) * n[k]) / (nij + n[k]);
+            set(k, i, (d(k, i) * (n[i] + n[k]) + d(j, k) * (n[j] + n[k]) - d(j, i) * n[k]) / (nij + n[k]));
         }
 
         for (int k = j+1; k < size; k++) {
-            proximity[index(k, i)] = (d(k, i) * (n[i] + n[k]) + d(k, j) * (n[j] + n[k]) - d(j, i) * n[k]) / (nij + n[k]);
+            set(k, i, (d(k, i) * (n[i] + n[k]) + d(k, j) * (n[j] + n[k]) - d(j, i) * n[k]) / (nij + n[k]));
         }
 
         n[i] += n[j];
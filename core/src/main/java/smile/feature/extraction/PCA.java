@@ -19,6 +19,7 @@ package smile.feature.extraction;
 import java.io.Serial;
 import smile.data.DataFrame;
 import smile.math.MathEx;
+import smile.tensor.BlockMatrix;
 import smile.tensor.DenseMatrix;
 import smile.tensor.EVD;
 import smile.tensor.SVD;
@@ -201,6 +202,33 @@ public class PCA extends Projection {
         return new PCA(mu, eigvalues, eigvectors, projection, columns);
     }
 
+    /**
+     * Fits principal component analysis with covariance matrix on the
+     * data that may not fit in memory. The covariance matrix is computed
+     * from the Gram matrix of centered data, which is accumulated over the
+     * blocks of data in parallel. It takes two passes over the data, one
+     * for the column means and the other for the Gram matrix. The data
+     * are not modified.
+     * @param data training data of which each row is a sample.
+     * @param columns the columns to transform when applied on Tuple/DataFrame.
+     * @return the model.
+     */
+    public static PCA fit(BlockMatrix data, String... columns) {
+        long m = data.nrow();
+        Vector mu = data.colMeans();
+        // The centered Gram matrix avoids the catastrophic
+        // cancellation of A'A / m - mu * mu'.
+        DenseMatrix cov = data.ata(mu);
+        // divide m instead of m-1 for S-PLUS compatibility
+        cov.scale(1.0 / m);
+        EVD eigen = cov.eigen().sort();
+
+        Vector eigvalues = eigen.wr();
+        DenseMatrix eigvectors = eigen.Vr();
+        DenseMatrix projection = getProjection(eigvalues, eigvectors, 0.95);
+        return new PCA(mu, eigvalues, eigvectors, projection, columns);
+    }
+
     /**
      * Fits principal component analysis with correlation matrix.
      * @param data training data of which each row is a sample.
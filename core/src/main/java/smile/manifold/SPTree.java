@@ -0,0 +1,290 @@
+/*
+ * Copyright (c) 2010-2025 Haifeng Li. All rights reserved.
+ *
+ * Smile is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Smile is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Smile. If not, see <https://www.gnu.org/licenses/>.
+ */
+package smile.manifold;
+
+import java.util.Arrays;
+import smile.math.MathEx;
+
+/**
+ * The space-partitioning tree for Barnes-Hut approximation of the
+ * repulsive forces in t-SNE. It is the quadtree in two dimensions and
+ * the octree in three dimensions. Each cell is split into 2<sup>d</sup>
+ * children at its center until it holds a single point. The nodes are
+ * stored in parallel arrays and the points of a node are a contiguous
+ * range of the permutation array, so that the tree can be rebuilt in
+ * every iteration without allocating node objects.
+ * <p>
+ * When a cell is small compared to its distance to a point, i.e.
+ * {@code size / distance < theta}, the interactions of the point with
+ * the points in the cell are approximated by the interaction with the
+ * center of mass of the cell.
+ *
+ * @author Haifeng Li
+ */
+class SPTree {
+    /**
+     * The maximum depth of tree. The cells of duplicate points
+     * can't be split. They become leaves at the maximum depth.
+     */
+    private static final int MAX_DEPTH = 32;
+
+    /** The dimension of space. */
+    private final int d;
+    /** The number of children of internal nodes, i.e. 2^d. */
+    private final int m;
+    /** The point indices ordered by the leaves of tree. */
+    private final int[] index;
+    /** The buffer of partitioning. */
+    private final int[] buffer;
+    /** The quadrant code of points in partitioning. */
+    private final int[] code;
+    /** The coordinates of points in the latest build. */
+    private double[][] Y;
+    /** The number of nodes. */
+    private int size;
+    /** The start of point range of nodes. */
+    private int[] lo;
+    /** The end (exclusive) of point range of nodes. */
+    private int[] hi;
+    /** The first child of nodes, or -1 for leaf nodes. */
+    private int[] child;
+    /** The number of children of internal nodes. */
+    private int[] nchild;
+    /** The side length of cells. */
+    private double[] width;
+    /** The center of mass of nodes, stored row by row. */
+    private double[] com;
+
+    /**
+     * Constructor.
+     * @param n the number of points.
+     * @param d the dimension of space.
+     */
+    SPTree(int n, int d) {
+        this.d = d;
+        this.m = 1 << d;
+        this.index = new int[n];
+        this.buffer = new int[n];
+        this.code = new int[n];
+        int capacity = 2 * n + 1;
+        lo = new int[capacity];
+        hi = new int[capacity];
+        child = new int[capacity];
+        nchild = new int[capacity];
+        width = new double[capacity];
+        com = new double[capacity * d];
+    }
+
+    /**
+     * Builds the tree of points.
+     * @param Y the coordinates of points.
+     */
+    void build(double[][] Y) {
+        this.Y = Y;
+        int n = Y.length;
+        double[] min = new double[d];
+        double[] max = new double[d];
+        Arrays.fill(min, Double.POSITIVE_INFINITY);
+        Arrays.fill(max, Double.NEGATIVE_INFINITY);
+        for (int i = 0; i < n; i++) {
+            index[i] = i;
+            double[] yi = Y[i];
+            for (int k = 0; k < d; k++) {
+                min[k] = Math.min(min[k], yi[k]);
+                max[k] = Math.max(max[k], yi[k]);
+            }
+        }
+
+        double[] center = new double[d];
+        double w = 0.0;
+        for (int k = 0; k < d; k++) {
+            center[k] = (min[k] + max[k]) / 2;
+            w = Math.max(w, max[k] - min[k]);
+        }
+
+        size = 1;
+        split(0, 0, n, center, w, 0);
+    }
+
+    /**
+     * Sets up a node and splits it recursively.
+     * @param node the node index.
+     * @param from the start of point range.
+     * @param to the end (exclusive) of point range.
+     * @param center the center of cell.
+     * @param w the side length of cell.
+     * @param depth the depth of node.
+     */
+    private void split(int node, int from, int to, double[] center, double w, int depth) {
+        lo[node] = from;
+        hi[node] = to;
+        width[node] = w;
+        child[node] = -1;
+        nchild[node] = 0;
+
+        int offset = node * d;
+        for (int k = 0; k < d; k++) {
+            com[offset + k] = 0.0;
+        }
+        for (int i = from; i < to; i++) {
+            double[] yi = Y[index[i]];
+            for (int k = 0; k < d; k++) {
+                com[offset + k] += yi[k];
+            }
+        }
+        int count = to - from;
+        for (int k = 0; k < d; k++) {
+            com[offset + k] /= count;
+        }
+
+        if (count == 1 || depth == MAX_DEPTH) return;
+
+        // Counting sort of points by quadrant.
+        int[] start = new int[m + 1];
+        for (int i = from; i < to; i++) {
+            double[] yi = Y[index[i]];
+            int q = 0;
+            for (int k = 0; k < d; k++) {
+                if (yi[k] > center[k]) q |= 1 << k;
+            }
+            code[i] = q;
+            start[q + 1]++;
+        }
+
+        int nonempty = 0;
+        for (int q = 0; q < m; q++) {
+            if (start[q + 1] > 0) nonempty++;
+            start[q + 1] += start[q];
+        }
+
+        int[] pos = Arrays.copyOf(start, m);
+        for (int i = from; i < to; i++) {
+            buffer[from + pos[code[i]]++] = index[i];
+        }
+        System.arraycopy(buffer, from, index, from, count);
+
+        // The children are allocated before the recursion
+        // so that the siblings are contiguous.
+        int first = size;
+        ensureCapacity(size + nonempty);
+        size += nonempty;
+        child[node] = first;
+        nchild[node] = nonempty;
+
+        double half = w / 2;
+        double[] c = new double[d];
+        int next = first;
+        for (int q = 0; q < m; q++) {
+            if (start[q + 1] > start[q]) {
+                for (int k = 0; k < d; k++) {
+                    c[k] = (q & (1 << k)) != 0 ? center[k] + half / 2 : center[k] - half / 2;
+                }
+                split(next++, from + start[q], from + start[q + 1], c, half, depth + 1);
+            }
+        }
+    }
+
+    /** Grows the node arrays if necessary. */
+    private void ensureCapacity(int capacity) {
+        if (capacity > lo.length) {
+            capacity = Math.max(capacity, 2 * lo.length);
+            lo = Arrays.copyOf(lo, capacity);
+            hi = Arrays.copyOf(hi, capacity);
+            child = Arrays.copyOf(child, capacity);
+            nchild = Arrays.copyOf(nchild, capacity);
+            width = Arrays.copyOf(width, capacity);
+            com = Arrays.copyOf(com, capacity * d);
+        }
+    }
+
+    /**
+     * Computes the repulsive force on a point, i.e.
+     * {@code sum_j q_ij^2 (y_i - y_j)} with the unnormalized Student
+     * t kernel {@code q_ij = 1 / (1 + ||y_i - y_j||^2)}.
+     * This method is thread safe once the tree is built.
+     *
+     * @param i the point index.
+     * @param theta the accuracy/speed trade-off of Barnes-Hut approximation.
+     * @param force the output repulsive force.
+     * @return the sum of kernel {@code sum_j q_ij}, which is part of the
+     *         normalization constant.
+     */
+    double repulsion(int i, double theta, double[] force) {
+        // A node pushes at most 2^d children to the stack at each depth.
+        int[] stack = new int[(MAX_DEPTH + 1) * m];
+        double[] yi = Y[i];
+        double theta2 = theta * theta;
+        Arrays.fill(force, 0.0);
+
+        double sum = 0.0;
+        int top = 0;
+        stack[top++] = 0;
+        while (top > 0) {
+            int node = stack[--top];
+            int offset = node * d;
+            double dist = 0.0;
+            for (int k = 0; k < d; k++) {
+                double diff = yi[k] - com[offset + k];
+                dist += diff * diff;
+            }
+
+            int count = hi[node] - lo[node];
+            boolean leaf = child[node] < 0;
+            if (leaf && count == 1) {
+                if (index[lo[node]] == i) continue;
+            } else if (dist == 0.0 || width[node] * width[node] >= theta2 * dist) {
+                if (leaf) {
+                    // Duplicate points, which are evaluated one by one.
+                    for (int p = lo[node]; p < hi[node]; p++) {
+                        int j = index[p];
+                        if (j != i) {
+                            sum += interact(yi, Y[j], force);
+                        }
+                    }
+                } else {
+                    for (int c = child[node], end = c + nchild[node]; c < end; c++) {
+                        stack[top++] = c;
+                    }
+                }
+                continue;
+            }
+
+            // The cell is summarized by its center of mass.
+            double q = 1.0 / (1.0 + dist);
+            double mult = count * q;
+            sum += mult;
+            mult *= q;
+            for (int k = 0; k < d; k++) {
+                force[k] += mult * (yi[k] - com[offset + k]);
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * Accumulates the repulsive force between two points.
+     * @return the kernel value.
+     */
+    private double interact(double[] yi, double[] yj, double[] force) {
+        double q = 1.0 / (1.0 + MathEx.squaredDistance(yi, yj));
+        double mult = q * q;
+        for (int k = 0; k < d; k++) {
+            force[k] += mult * (yi[k] - yj[k]);
+        }
+        return q;
+    }
+}
@@ -21,7 +21,9 @@ import java.io.Serializable;
 import java.util.Arrays;
 import java.util.Properties;
 import java.util.stream.IntStream;
+import smile.graph.NearestNeighborGraph;
 import smile.math.MathEx;
+import smile.sort.QuickSort;
 import smile.stat.distribution.GaussianDistribution;
 import smile.util.AlgoStatus;
 import smile.util.IterativeAlgorithmController;
@@ -45,6 +47,13 @@ import smile.util.IterativeAlgorithmController;
  * of the points in the map. Note that while the original algorithm uses
  * the Euclidean distance between objects as the base of its similarity
  * metric, this should be changed as appropriate.
+ * <p>
+ * The exact algorithm takes O(n<sup>2</sup>) time and memory, which limits
+ * it to tens of thousands of samples. With the Barnes-Hut approximation
+ * (see {@link Options#theta()}), the input similarities are sparse on the
+ * k-nearest neighbor graph and the repulsive forces are approximated with
+ * a quadtree (or octree in three dimensions), which takes O(n log n) time
+ * and O(n) memory.
  *
  * <h2>References</h2>
  * <ol>
@@ -71,6 +80,8 @@ public record TSNE(double cost, double[][] coordinates) implements Serializable
     @Serial
     private static final long serialVersionUID = 3L;
     private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(TSNE.class);
+    /** The data size threshold to use approximate nearest neighbor graph. */
+    private static final int LARGE_DATA_SIZE = 10000;
 
     /**
      * The t-SNE hyperparameters.
@@ -104,12 +115,21 @@ public record TSNE(double cost, double[][] coordinates) implements Serializable
      * @param momentumSwitchIter the number of iterations at which switch the
      *                           momentum to finalMomentum.
      * @param minGain the floor of gain.
+     * @param theta the accuracy/speed trade-off of Barnes-Hut approximation.
+     *              If theta is 0, the exact gradient is computed in O(n<sup>2</sup>)
+     *              time and memory. Otherwise, the input similarities are
+     *              computed only on the (approximate) k-nearest neighbors with
+     *              k = 3 * perplexity, and the repulsive forces are approximated
+     *              with a space-partitioning tree in O(n log n) time. Larger
+     *              theta is faster but less accurate. A typical value is 0.5.
+     *              The Barnes-Hut approximation supports only 2 or 3
+     *              dimensional embedding.
      * @param controller the optional training controller.
      */
     public record Options(int d, double perplexity, double eta, double earlyExaggeration,
                           int maxIter, int maxIterWithoutProgress, double tol,
                           double momentum, double finalMomentum, int momentumSwitchIter,
-                          double minGain, IterativeAlgorithmController<AlgoStatus> controller) {
+                          double minGain, double theta, IterativeAlgorithmController<AlgoStatus> controller) {
         /** Constructor. */
         public Options {
             if (d < 2) {
@@ -145,6 +165,37 @@ public record TSNE(double cost, double[][] coordinates) implements Serializable
             if (minGain <= 0) {
                 throw new IllegalArgumentException("Invalid minimum gain: " + minGain);
             }
+            if (theta < 0) {
+                throw new IllegalArgumentException("Invalid theta: " + theta);
+            }
+            if (theta > 0 && d > 3) {
+                throw new IllegalArgumentException("Barnes-Hut approximation supports only 2 or 3 dimensional embedding: " + d);
+            }
+        }
+
+        /**
+         * Constructor.
+         * @param d the dimension of embedding space.
+         * @param perplexity the perplexity of the conditional distribution.
+         * @param eta the learning rate.
+         * @param earlyExaggeration the early exaggeration factor.
+         * @param maxIter the maximum number of iterations.
+         * @param maxIterWithoutProgress Maximum number of iterations without progress
+         *                               before aborting the optimization.
+         * @param tol the tolerance of convergence test.
+         * @param momentum the momentum factor.
+         * @param finalMomentum the momentum in later stage.
+         * @param momentumSwitchIter the number of iterations at which switch the
+         *                           momentum to finalMomentum.
+         * @param minGain the floor of gain.
+         * @param controller the optional training controller.
+         */
+        public Options(int d, double perplexity, double eta, double earlyExaggeration,
+                       int maxIter, int maxIterWithoutProgress, double tol,
+                       double momentum, double finalMomentum, int momentumSwitchIter,
+                       double minGain, IterativeAlgorithmController<AlgoStatus> controller) {
+            this(d, perplexity, eta, earlyExaggeration, maxIter, maxIterWithoutProgress, tol,
+                 momentum, finalMomentum, momentumSwitchIter, minGain, 0.0, controller);
         }
 
         /**
@@ -169,7 +220,21 @@ public record TSNE(double cost, double[][] coordinates) implements Serializable
          * @param maxIter the maximum number of iterations. Should be at least 250.
          */
         public Options(int d, double perplexity, double eta, double earlyExaggeration, int maxIter) {
-            this(d, perplexity, eta, earlyExaggeration, maxIter, 50, 1E-7, 0.5, 0.8, 250, 0.01, null);
+            this(d, perplexity, eta, earlyExaggeration, maxIter, 0.0);
+        }
+
+        /**
+         * Constructor.
+         * @param d the dimension of embedding space.
+         * @param perplexity the perplexity of the conditional distribution.
+         * @param eta the learning rate.
+         * @param earlyExaggeration the early exaggeration factor.
+         * @param maxIter the maximum number of iterations. Should be at least 250.
+         * @param theta the accuracy/speed trade-off of Barnes-Hut approximation.
+         *              If theta is 0, the exact gradient is computed.
+         */
+        public Options(int d, double perplexity, double eta, double earlyExaggeration, int maxIter, double theta) {
+            this(d, perplexity, eta, earlyExaggeration, maxIter, 50, 1E-7, 0.5, 0.8, 250, 0.01, theta, null);
         }
 
         /**
@@ -189,6 +254,7 @@ public record TSNE(double cost, double[][] coordinates) implements Serializable
             props.setProperty("smile.t_sne.final_momentum", Double.toString(finalMomentum));
             props.setProperty("smile.t_sne.momentum_switch", Integer.toString(momentumSwitchIter));
             props.setProperty("smile.t_sne.min_gain", Double.toString(minGain));
+            props.setProperty("smile.t_sne.theta", Double.toString(theta));
             return props;
         }
 
@@ -209,9 +275,10 @@ public record TSNE(double cost, double[][] coordinates) implements Serializable
             double momentum = Double.parseDouble(props.getProperty("smile.t_sne.momentum"));
             double finalMomentum = Double.parseDouble(props.getProperty("smile.t_sne.final_momentum"));
             int momentumSwitchIter = Integer.parseInt(props.getProperty("smile.t_sne.momentum_switch"));
-            double minGain = Double.parseDouble(props.getProperty("smile.t_sne.momentum_switch"));
+            double minGain = Double.parseDouble(props.getProperty("smile.t_sne.min_gain"));
+            double theta = Double.parseDouble(props.getProperty("smile.t_sne.theta", "0"));
             return new Options(d, perplexity, eta, earlyExaggeration, maxIter, maxIterWithoutProgress, tol,
-                    momentum, finalMomentum, momentumSwitchIter, minGain, null);
+                    momentum, finalMomentum, momentumSwitchIter, minGain, theta, null);
         }
     }
 
@@ -239,14 +306,6 @@ public record TSNE(double cost, double[][] coordinates) implements Serializable
         int n = X.length;
         int d = options.d;
 
-        double[][] D;
-        if (X.length == X[0].length) {
-            D = X;
-        } else {
-            D = new double[n][n];
-            MathEx.pdist(X, D, MathEx::squaredDistance);
-        }
-
         double[][] coordinates = new double[n][d];
         double[][] gains = new double[n][d]; // adjust learning rate for each point
 
@@ -260,33 +319,16 @@ public record TSNE(double cost, double[][] coordinates) implements Serializable
             }
         }
 
-        // Large tolerance to speed up the search of Gaussian kernel width
-        // A small difference of kernel width is not important.
-        double[][] P = expd(D, options.perplexity, 1E-3);
-        double[][] Q = new double[n][n];
+        Gradient gradient = options.theta > 0 ? new BarnesHut(X, options) : new Exact(X, options);
         double[][] dY = new double[n][d];
         double[][] dC = new double[n][d];
 
-        // Make P symmetric
-        // sum(P) = 2 * n as each row of P is normalized
-        double Psum = 2 * n;
-        for (int i = 0; i < n; i++) {
-            double[] Pi = P[i];
-            for (int j = 0; j < i; j++) {
-                double p = 12.0 * (Pi[j] + P[j][i]) / Psum;
-                if (Double.isNaN(p) || p < 1E-16) p = 1E-16;
-                Pi[j] = p;
-                P[j][i] = p;
-            }
-        }
-
         double cost = Double.MAX_VALUE;
         double bestCost = cost;
         int bestIter = 0;
         double momentum = options.momentum;
         for (int iter = 1; iter <= options.maxIter; iter++) {
-            double Qsum = computeQ(coordinates, Q);
-            IntStream.range(0, n).parallel().forEach(i -> sne(i, coordinates, P, Q, gains, dY[i], dC[i], Qsum, options.minGain));
+            gradient.compute(coordinates, dC);
 
             // gradient update with momentum and gains
             final double mu = momentum;
@@ -297,6 +339,8 @@ public record TSNE(double cost, double[][] coordinates) implements Serializable
                 double[] g = gains[i];
                 double norm = 0;
                 for (int k = 0; k < d; k++) {
+                    g[k] = (Math.signum(dCi[k]) != Math.signum(dYi[k])) ? (g[k] + .2) : (g[k] * .8);
+                    if (g[k] < options.minGain) g[k] = options.minGain;
                     dYi[k] = mu * dYi[k] - eta * g[k] * dCi[k];
                     Yi[k] += dYi[k];
                     norm = Math.max(norm, Math.abs(dYi[k] * g[k]));
@@ -306,17 +350,12 @@ public record TSNE(double cost, double[][] coordinates) implements Serializable
 
             if (iter == options.momentumSwitchIter) {
                 momentum = options.finalMomentum;
-                for (int i = 0; i < n; i++) {
-                    double[] Pi = P[i];
-                    for (int j = 0; j < n; j++) {
-                        Pi[j] /= options.earlyExaggeration;
-                    }
-                }
+                gradient.stopExaggeration(options.earlyExaggeration);
             }
 
             // Compute current value of cost function
             if (iter % 10 == 0 || iter == options.maxIter) {
-                cost = computeCost(P, Q, Qsum);
+                cost = gradient.cost(coordinates);
                 logger.info("Iteration {}: error = {}", iter, cost);
 
                 if (cost < bestCost) {
@@ -355,8 +394,277 @@ public record TSNE(double cost, double[][] coordinates) implements Serializable
         return new TSNE(cost, coordinates);
     }
 
-    /** Computes the gradients and updates the coordinates. */
-    private static void sne(int i, double[][] Y, double[][] P, double[][] Q, double[][] gains, double[] dY, double[] dC, double Qsum, double minGain) {
+    /**
+     * The gradient of the cost function with respect to the embedding.
+     */
+    private interface Gradient {
+        /**
+         * Computes the gradient.
+         * @param Y the embedding coordinates.
+         * @param dC the output gradient.
+         */
+        void compute(double[][] Y, double[][] dC);
+
+        /**
+         * Removes the early exaggeration of input similarities.
+         * @param earlyExaggeration the early exaggeration factor.
+         */
+        void stopExaggeration(double earlyExaggeration);
+
+        /**
+         * Returns the cost function value, i.e. the Kullback–Leibler
+         * divergence, with the output similarities of the latest
+         * gradient computation.
+         * @param Y the embedding coordinates.
+         * @return the cost function value.
+         */
+        double cost(double[][] Y);
+    }
+
+    /**
+     * The exact gradient with dense input and output similarities.
+     * It takes O(n<sup>2</sup>) time and memory.
+     */
+    private static class Exact implements Gradient {
+        /** The input similarities. */
+        final double[][] P;
+        /** The unnormalized output similarities. */
+        final double[][] Q;
+        /** The sum of output similarities. */
+        double Qsum;
+
+        /**
+         * Constructor.
+         * @param X the input data or the squared distance matrix.
+         * @param options the hyperparameters.
+         */
+        Exact(double[][] X, Options options) {
+            int n = X.length;
+            double[][] D;
+            if (X.length == X[0].length) {
+                D = X;
+            } else {
+                D = new double[n][n];
+                MathEx.pdist(X, D, MathEx::squaredDistance);
+            }
+
+            // Large tolerance to speed up the search of Gaussian kernel width
+            // A small difference of kernel width is not important.
+            P = expd(D, options.perplexity, 1E-3);
+            Q = new double[n][n];
+
+            // Make P symmetric
+            // sum(P) = 2 * n as each row of P is normalized
+            double Psum = 2 * n;
+            for (int i = 0; i < n; i++) {
+                double[] Pi = P[i];
+                for (int j = 0; j < i; j++) {
+                    double p = 12.0 * (Pi[j] + P[j][i]) / Psum;
+                    if (Double.isNaN(p) || p < 1E-16) p = 1E-16;
+                    Pi[j] = p;
+                    P[j][i] = p;
+                }
+            }
+        }
+
+        @Override
+        public void compute(double[][] Y, double[][] dC) {
+            Qsum = computeQ(Y, Q);
+            IntStream.range(0, Y.length).parallel().forEach(i -> sne(i, Y, P, Q, dC[i], Qsum));
+        }
+
+        @Override
+        public void stopExaggeration(double earlyExaggeration) {
+            for (double[] Pi : P) {
+                for (int j = 0; j < Pi.length; j++) {
+                    Pi[j] /= earlyExaggeration;
+                }
+            }
+        }
+
+        @Override
+        public double cost(double[][] Y) {
+            return computeCost(P, Q, Qsum);
+        }
+    }
+
+    /**
+     * The Barnes-Hut approximation of gradient. The input similarities
+     * are sparse on the k-nearest neighbor graph. So the attractive
+     * forces take O(n k) time. The repulsive forces are approximated
+     * with a space-partitioning tree in O(n log n) time. The memory
+     * usage is linear in n.
+     */
+    private static class BarnesHut implements Gradient {
+        /** The accuracy/speed trade-off of Barnes-Hut approximation. */
+        final double theta;
+        /** The row pointers of sparse input similarities. */
+        final int[] rowIndex;
+        /** The column indices of sparse input similarities. */
+        final int[] colIndex;
+        /** The sparse input similarities. */
+        final double[] P;
+        /** The space-partitioning tree of embedding. */
+        final SPTree tree;
+        /** The repulsive forces. */
+        final double[][] repulsion;
+        /** The sum of unnormalized output similarities of each point. */
+        final double[] Z;
+        /** The sum of unnormalized output similarities. */
+        double Zsum;
+
+        /**
+         * Constructor.
+         * @param X the input data or the squared distance matrix.
+         * @param options the hyperparameters.
+         */
+        BarnesHut(double[][] X, Options options) {
+            int n = X.length;
+            int k = Math.min(n - 1, (int) (3 * options.perplexity));
+            theta = options.theta;
+            tree = new SPTree(n, options.d);
+            repulsion = new double[n][options.d];
+            Z = new double[n];
+
+            // Squared distances to the nearest neighbors.
+            NearestNeighborGraph nng;
+            double[][] D;
+            if (X.length == X[0].length) {
+                Integer[] index = IntStream.range(0, n).boxed().toArray(Integer[]::new);
+                nng = NearestNeighborGraph.of(index, (i, j) -> X[i][j], k);
+                D = nng.distances();
+            } else {
+                nng = n <= LARGE_DATA_SIZE ?
+                        NearestNeighborGraph.of(X, k) :
+                        NearestNeighborGraph.descent(X, k);
+                D = nng.distances();
+                IntStream.range(0, n).parallel().forEach(i -> {
+                    double[] Di = D[i];
+                    for (int j = 0; j < Di.length; j++) {
+                        Di[j] *= Di[j];
+                    }
+                });
+            }
+
+            int[][] neighbors = nng.neighbors();
+            double[][] conditional = new double[n][];
+            IntStream.range(0, n).parallel().forEach(i -> conditional[i] = expd(D[i], options.perplexity, 1E-5));
+
+            // Make P symmetric. Each pair is added to both rows
+            // and then the duplicates are merged.
+            int[] start = new int[n + 1];
+            for (int i = 0; i < n; i++) {
+                for (int j : neighbors[i]) {
+                    if (j != i) {
+                        start[i + 1]++;
+                        start[j + 1]++;
+                    }
+                }
+            }
+            for (int i = 0; i < n; i++) {
+                start[i + 1] += start[i];
+            }
+
+            int[] cols = new int[start[n]];
+            double[] values = new double[start[n]];
+            int[] pos = Arrays.copyOf(start, n);
+            for (int i = 0; i < n; i++) {
+                int[] Ni = neighbors[i];
+                double[] Pi = conditional[i];
+                for (int t = 0; t < Ni.length; t++) {
+                    int j = Ni[t];
+                    if (j != i) {
+                        cols[pos[i]] = j;
+                        values[pos[i]++] = Pi[t];
+                        cols[pos[j]] = i;
+                        values[pos[j]++] = Pi[t];
+                    }
+                }
+            }
+
+            // sum(P) = 2 * n as each row of conditional P is normalized
+            double scale = options.earlyExaggeration / (2 * n);
+            int[] length = new int[n];
+            IntStream.range(0, n).parallel().forEach(i -> {
+                int[] c = Arrays.copyOfRange(cols, start[i], start[i + 1]);
+                double[] v = Arrays.copyOfRange(values, start[i], start[i + 1]);
+                QuickSort.sort(c, v, c.length);
+                int m = 0;
+                for (int t = 0; t < c.length; t++) {
+                    if (m > 0 && c[t] == cols[start[i] + m - 1]) {
+                        values[start[i] + m - 1] += v[t] * scale;
+                    } else {
+                        cols[start[i] + m] = c[t];
+                        values[start[i] + m++] = v[t] * scale;
+                    }
+                }
+                length[i] = m;
+            });
+
+            rowIndex = new int[n + 1];
+            for (int i = 0; i < n; i++) {
+                rowIndex[i + 1] = rowIndex[i] + length[i];
+            }
+            colIndex = new int[rowIndex[n]];
+            P = new double[rowIndex[n]];
+            for (int i = 0; i < n; i++) {
+                System.arraycopy(cols, start[i], colIndex, rowIndex[i], length[i]);
+                System.arraycopy(values, start[i], P, rowIndex[i], length[i]);
+            }
+        }
+
+        @Override
+        public void compute(double[][] Y, double[][] dC) {
+            int n = Y.length;
+            int d = Y[0].length;
+            tree.build(Y);
+            IntStream.range(0, n).parallel().forEach(i -> Z[i] = tree.repulsion(i, theta, repulsion[i]));
+            Zsum = MathEx.sum(Z);
+
+            IntStream.range(0, n).parallel().forEach(i -> {
+                double[] Yi = Y[i];
+                double[] dCi = dC[i];
+                Arrays.fill(dCi, 0.0);
+                for (int p = rowIndex[i]; p < rowIndex[i + 1]; p++) {
+                    double[] Yj = Y[colIndex[p]];
+                    double z = P[p] / (1.0 + MathEx.squaredDistance(Yi, Yj));
+                    for (int k = 0; k < d; k++) {
+                        dCi[k] += (Yi[k] - Yj[k]) * z;
+                    }
+                }
+
+                double[] Fi = repulsion[i];
+                for (int k = 0; k < d; k++) {
+                    dCi[k] = 4.0 * (dCi[k] - Fi[k] / Zsum);
+                }
+            });
+        }
+
+        @Override
+        public void stopExaggeration(double earlyExaggeration) {
+            for (int i = 0; i < P.length; i++) {
+                P[i] /= earlyExaggeration;
+            }
+        }
+
+        @Override
+        public double cost(double[][] Y) {
+            double[] rowCost = IntStream.range(0, Y.length).parallel().mapToDouble(i -> {
+                double[] Yi = Y[i];
+                double C = 0.0;
+                for (int p = rowIndex[i]; p < rowIndex[i + 1]; p++) {
+                    double q = 1.0 / (1.0 + MathEx.squaredDistance(Yi, Y[colIndex[p]])) / Zsum;
+                    if (q < 1E-16) q = 1E-16;
+                    C += P[p] * MathEx.log2(P[p] / q);
+                }
+                return C;
+            }).toArray();
+            return MathEx.sum(rowCost);
+        }
+    }
+
+    /** Computes the exact gradient of a point. */
+    private static void sne(int i, double[][] Y, double[][] P, double[][] Q, double[] dC, double Qsum) {
         int n = Y.length;
         int d = Y[0].length;
 
@@ -365,7 +673,6 @@ public record TSNE(double cost, double[][] coordinates) implements Serializable
         double[] Yi = Y[i];
         double[] Pi = P[i];
         double[] Qi = Q[i];
-        double[] g = gains[i];
 
         Arrays.fill(dC, 0.0);
         for (int j = 0; j < n; j++) {
@@ -378,12 +685,64 @@ public record TSNE(double cost, double[][] coordinates) implements Serializable
                 }
             }
         }
+    }
+
+    /**
+     * Computes the Gaussian kernel on the squared distances to the
+     * nearest neighbors (search the width for given perplexity).
+     * @param D the squared distances to the nearest neighbors.
+     * @return the normalized conditional probabilities.
+     */
+    private static double[] expd(double[] D, double perplexity, double tol) {
+        int k = D.length;
+        double[] P = new double[k];
+        double logU = MathEx.log2(perplexity);
+
+        // Use sqrt(1 / avg of distance) to initialize beta
+        double beta = Math.sqrt(k / MathEx.sum(D));
+        if (Double.isNaN(beta) || Double.isInfinite(beta)) beta = 1.0;
+        double betamin = 0.0;
+        double betamax = Double.POSITIVE_INFINITY;
+
+        double Psum = 0.0;
+        for (int iter = 0; iter < 100; iter++) {
+            Psum = 0.0;
+            double H = 0.0;
+            for (int j = 0; j < k; j++) {
+                double d = beta * D[j];
+                double p = Math.exp(-d);
+                P[j] = p;
+                Psum += p;
+                H += p * d;
+            }
+
+            if (Psum == 0.0) {
+                // beta is too large so that all probabilities underflow.
+                betamax = beta;
+                beta = (beta + betamin) / 2;
+                continue;
+            }
+
+            H = MathEx.log2(Psum) + H / Psum;
+            double Hdiff = H - logU;
+            if (Math.abs(Hdiff) <= tol) break;
+
+            if (Hdiff > 0) {
+                betamin = beta;
+                if (Double.isInfinite(betamax))
+                    beta *= 2.0;
+                else
+                    beta = (beta + betamax) / 2;
+            } else {
+                betamax = beta;
+                beta = (beta + betamin) / 2;
+            }
+        }
 
-        // Update gains
-        for (int k = 0; k < d; k++) {
-            g[k] = (Math.signum(dC[k]) != Math.signum(dY[k])) ? (g[k] + .2) : (g[k] * .8);
-            if (g[k] < minGain) g[k] = minGain;
+        for (int j = 0; j < k; j++) {
+            P[j] = Psum > 0.0 ? P[j] / Psum : 1.0 / k;
         }
+        return P;
     }
 
     /** Computes the Gaussian kernel (search the width for given perplexity). */
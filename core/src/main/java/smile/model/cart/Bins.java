@@ -0,0 +1,186 @@
+/*
+ * Copyright (c) 2010-2025 Haifeng Li. All rights reserved.
+ *
+ * Smile is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Smile is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Smile. If not, see <https://www.gnu.org/licenses/>.
+ */
+package smile.model.cart;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+import smile.data.DataFrame;
+import smile.data.measure.NominalScale;
+import smile.data.type.StructType;
+
+/**
+ * The quantized ordinal columns for histogram-based tree learning. Each
+ * ordinal column is discretized once into at most 256 bins by quantiles,
+ * and the bin codes are stored in a byte array. With binned data, the
+ * split finding of a node accumulates the per-bin statistics (e.g. class
+ * counts or sum of responses) and scans the bins instead of the sorted
+ * samples. It needs neither the O(n * p) integer index of sorted values
+ * nor the per-tree filtering of it.
+ * <p>
+ * If a column has no more distinct values than the number of bins, every
+ * distinct value gets its own bin and the split candidates are exactly the
+ * same as those of the exact algorithm. The missing values (NaN) fall into
+ * the last bin, which is always in the false branch.
+ * <p>
+ * Nominal columns are not quantized. They are handled by the exact
+ * algorithm, which doesn't need the sorted index either.
+ *
+ * @author Haifeng Li
+ */
+public class Bins {
+    /** The maximum number of bins per column. */
+    public static final int MAX_BINS = 256;
+
+    /**
+     * The bin codes of ordinal columns. The codes are unsigned bytes.
+     * It is null for nominal columns.
+     */
+    private final byte[][] codes;
+    /**
+     * The upper bounds of bins of ordinal columns, which are the
+     * split values between adjacent bins. The last bin has no upper
+     * bound. It is null for nominal columns.
+     */
+    private final double[][] cuts;
+
+    /**
+     * Constructor.
+     * @param x the predictors.
+     * @param maxBins the maximum number of bins per column.
+     */
+    public Bins(DataFrame x, int maxBins) {
+        if (maxBins < 2 || maxBins > MAX_BINS) {
+            throw new IllegalArgumentException("Invalid maximum number of bins: " + maxBins);
+        }
+
+        int p = x.ncol();
+        StructType schema = x.schema();
+        codes = new byte[p][];
+        cuts = new double[p][];
+        IntStream.range(0, p).parallel().forEach(j -> {
+            if (!(schema.field(j).measure() instanceof NominalScale)) {
+                double[] a = x.column(j).toDoubleArray();
+                cuts[j] = cuts(a, maxBins);
+                codes[j] = encode(a, cuts[j]);
+            }
+        });
+    }
+
+    /**
+     * Returns the split values between bins by quantiles.
+     * @param a the column values.
+     * @param maxBins the maximum number of bins.
+     * @return the upper bounds of bins except the last one.
+     */
+    private static double[] cuts(double[] a, int maxBins) {
+        double[] sorted = a.clone();
+        Arrays.sort(sorted);
+
+        // NaN values are sorted to the end.
+        int n = sorted.length;
+        while (n > 0 && Double.isNaN(sorted[n - 1])) n--;
+
+        // distinct values and their counts
+        double[] values = new double[n];
+        int[] count = new int[n];
+        int m = 0;
+        for (int i = 0; i < n; i++) {
+            if (m == 0 || sorted[i] != values[m - 1]) {
+                values[m++] = sorted[i];
+            }
+            count[m - 1]++;
+        }
+
+        if (m <= maxBins) {
+            double[] cuts = new double[Math.max(0, m - 1)];
+            for (int i = 0; i < cuts.length; i++) {
+                cuts[i] = (values[i] + values[i + 1]) / 2;
+            }
+            return cuts;
+        }
+
+        double[] cuts = new double[maxBins - 1];
+        int size = 0;
+        int cumsum = 0;
+        int bin = 1;
+        for (int i = 0; i < m - 1 && size < cuts.length; i++) {
+            cumsum += count[i];
+            if (cumsum >= (long) bin * n / maxBins) {
+                cuts[size++] = (values[i] + values[i + 1]) / 2;
+                // A heavy value may cover several quantiles.
+                while (bin < maxBins && cumsum >= (long) bin * n / maxBins) bin++;
+            }
+        }
+        return Arrays.copyOf(cuts, size);
+    }
+
+    /**
+     * Returns the bin codes of column values.
+     * @param a the column values.
+     * @param cuts the upper bounds of bins.
+     * @return the bin codes.
+     */
+    private static byte[] encode(double[] a, double[] cuts) {
+        byte[] codes = new byte[a.length];
+        for (int i = 0; i < a.length; i++) {
+            // x <= cuts[b] and x > cuts[b-1] in bin b.
+            // NaN is after all cuts in the binary search.
+            int b = Arrays.binarySearch(cuts, a[i]);
+            codes[i] = (byte) (b >= 0 ? b : -b - 1);
+        }
+        return codes;
+    }
+
+    /**
+     * Returns true if the column is quantized.
+     * @param j the column index.
+     * @return true if the column is quantized.
+     */
+    public boolean isBinned(int j) {
+        return codes[j] != null;
+    }
+
+    /**
+     * Returns the number of bins of an ordinal column.
+     * @param j the column index.
+     * @return the number of bins.
+     */
+    public int size(int j) {
+        return cuts[j].length + 1;
+    }
+
+    /**
+     * Returns the bin codes of an ordinal column. The codes
+     * are unsigned bytes, i.e. {@code codes[i] & 0xFF}.
+     * @param j the column index.
+     * @return the bin codes.
+     */
+    public byte[] codes(int j) {
+        return codes[j];
+    }
+
+    /**
+     * Returns the split value between a bin and the next one. The values
+     * in bins 0, 1, ..., b are less than or equal to the split value.
+     * @param j the column index.
+     * @param b the bin index, which must not be the last bin.
+     * @return the split value.
+     */
+    public double cut(int j, int b) {
+        return cuts[j][b];
+    }
+}
@@ -108,6 +108,13 @@ public abstract class CART implements SHAP<Tuple>, Serializable {
      */
     protected transient int[][] order;
 
+    /**
+     * The quantized ordinal columns for histogram-based split finding.
+     * If it is not null, the ordinal columns are not sorted and
+     * {@link #order} is not used.
+     */
+    protected transient Bins bins;
+
     /**
      * The working buffer for reordering {@link #index} array.
      */
@@ -150,6 +157,29 @@ public abstract class CART implements SHAP<Tuple>, Serializable {
      *              that only numeric attributes need be sorted.
      */
     public CART(DataFrame x, StructField y, int maxDepth, int maxNodes, int nodeSize, int mtry, int[] samples, int[][] order) {
+        this(x, y, maxDepth, maxNodes, nodeSize, mtry, samples, order, null);
+    }
+
+    /**
+     * Constructor.
+     * @param x the data frame of the explanatory variable.
+     * @param y the response variables.
+     * @param maxDepth the maximum depth of the tree.
+     * @param maxNodes the maximum number of leaf nodes in the tree.
+     * @param nodeSize the minimum size of leaf nodes.
+     * @param mtry the number of input variables to pick to split on at each
+     *             node. It seems that sqrt(p) give generally good performance,
+     *             where p is the number of variables.
+     * @param samples the sample set of instances for stochastic learning.
+     *               samples[i] is the number of sampling for instance i.
+     * @param order the index of training values in ascending order. Note
+     *              that only numeric attributes need be sorted. It is
+     *              ignored if bins is not null.
+     * @param bins the quantized ordinal columns for histogram-based
+     *             split finding. If null, the exact split finding on
+     *             sorted values is employed.
+     */
+    public CART(DataFrame x, StructField y, int maxDepth, int maxNodes, int nodeSize, int mtry, int[] samples, int[][] order, Bins bins) {
         int n = x.nrow();
         int p = x.ncol();
 
@@ -191,7 +221,10 @@ public abstract class CART implements SHAP<Tuple>, Serializable {
 
         buffer  = new int[index.length];
 
-        if (order == null) {
+        this.bins = bins;
+        if (bins != null) {
+            this.order = new int[p][];
+        } else if (order == null) {
             this.order = order(x);
         } else {
             this.order = new int[order.length][];
@@ -258,6 +291,7 @@ public abstract class CART implements SHAP<Tuple>, Serializable {
         this.index = null;
         this.samples = null;
         this.buffer = null;
+        this.bins = null;
     }
 
     /**
@@ -303,8 +337,25 @@ public abstract class CART implements SHAP<Tuple>, Serializable {
 
         shuffle(split.lo, mid, split.hi, trues);
 
-        Optional<Split> trueSplit = findBestSplit(trueChild, split.lo, mid, split.unsplittable.clone());
-        Optional<Split> falseSplit = findBestSplit(falseChild, mid, split.hi, split.unsplittable); // reuse parent's array
+        Histogram trueHistogram = null;
+        Histogram falseHistogram = null;
+        if (bins != null) {
+            int p = schema.length();
+            trueHistogram = new Histogram(this, split.lo, mid, p);
+            falseHistogram = new Histogram(this, mid, split.hi, p);
+            if (split.histogram != null) {
+                Histogram.link(split.histogram, trueHistogram, falseHistogram);
+            }
+        }
+
+        Optional<Split> trueSplit = findBestSplit(trueChild, split.lo, mid, split.unsplittable.clone(), trueHistogram);
+        Optional<Split> falseSplit = findBestSplit(falseChild, mid, split.hi, split.unsplittable, falseHistogram); // reuse parent's array
+
+        if (split.histogram != null) {
+            trueHistogram.unlink();
+            falseHistogram.unlink();
+            split.histogram = null;
+        }
 
         // Prune the branch if both children are leaf nodes and of same output value.
         if (trueChild.equals(falseChild) && trueSplit.isEmpty() && falseSplit.isEmpty()) {
@@ -348,6 +399,21 @@ public abstract class CART implements SHAP<Tuple>, Serializable {
      * @return the best split candidate.
      */
     protected Optional<Split> findBestSplit(LeafNode node, int lo, int hi, boolean[] unsplittable) {
+        Histogram histogram = bins == null ? null : new Histogram(this, lo, hi, schema.length());
+        return findBestSplit(node, lo, hi, unsplittable, histogram);
+    }
+
+    /**
+     * Finds the best attribute to split on a set of samples. at the current node. Returns
+     * <code>Optional.empty</code> if a split doesn't exist to reduce the impurity.
+     * @param node the leaf node to split.
+     * @param lo the inclusive lower bound of the data partition in the reordered sample index array.
+     * @param hi the exclusive upper bound of the data partition in the reordered sample index array.
+     * @param unsplittable unsplittable[j] is true if the column j cannot be split further in the node.
+     * @param histogram the histograms of binned columns in the node, or null if not binned.
+     * @return the best split candidate.
+     */
+    private Optional<Split> findBestSplit(LeafNode node, int lo, int hi, boolean[] unsplittable, Histogram histogram) {
         if (node.size() < 2 * nodeSize) {
             return Optional.empty(); // one child will have less than nodeSize samples.
         }
@@ -369,7 +435,9 @@ public abstract class CART implements SHAP<Tuple>, Serializable {
         IntStream stream = Arrays.stream(columns).limit(mtry);
         Optional<Split> split = (mtry < p ? stream : stream.parallel()) // random forest is in parallel already
                 .mapToObj(j -> {
-                    Optional<Split> s = findBestSplit(node, j, impurity, lo, hi);
+                    Optional<Split> s = histogram != null && bins.isBinned(j) ?
+                            findBestSplit(node, j, impurity, lo, hi, histogram.get(j)) :
+                            findBestSplit(node, j, impurity, lo, hi);
                     if (s.isEmpty()) unsplittable[j] = true;
                     return s;
                 })
@@ -377,7 +445,13 @@ public abstract class CART implements SHAP<Tuple>, Serializable {
                 .map(Optional::get)
                 .max(Split.comparator);
 
-        split.ifPresent(s -> s.unsplittable = unsplittable);
+        split.ifPresent(s -> {
+            s.unsplittable = unsplittable;
+            // Keep the histograms for the subtraction trick in children.
+            // For small nodes, building the histograms from the samples
+            // is cheap and the memory of pending leaves is bounded.
+            if (hi - lo > 4 * Bins.MAX_BINS) s.histogram = histogram;
+        });
         return split;
     }
 
@@ -406,6 +480,30 @@ public abstract class CART implements SHAP<Tuple>, Serializable {
      */
     protected abstract Optional<Split> findBestSplit(LeafNode node, int column, double impurity, int lo, int hi);
 
+    /**
+     * Returns the histogram of a binned column in a node, i.e. the
+     * statistics (e.g. class counts or sum of responses) of samples
+     * per bin. The statistics of bin b are stored contiguously, and
+     * the histogram of a node must be the sum of those of its children.
+     * @param column the binned column.
+     * @param lo the lower bound of sample index in the node.
+     * @param hi the upper bound of sample index in the node.
+     * @return the histogram.
+     */
+    protected abstract double[] histogram(int column, int lo, int hi);
+
+    /**
+     * Finds the best split for given binned column by scanning its histogram.
+     * @param node the node to split.
+     * @param column the column to split on.
+     * @param impurity the impurity of node.
+     * @param lo the lower bound of sample index in the node.
+     * @param hi the upper bound of sample index in the node.
+     * @param histogram the histogram of column in the node.
+     * @return the best split.
+     */
+    protected abstract Optional<Split> findBestSplit(LeafNode node, int column, double impurity, int lo, int hi, double[] histogram);
+
     /**
      * Returns the variable importance. Every time a split of a node is made
      * on variable the (GINI, information gain, etc.) impurity criterion for
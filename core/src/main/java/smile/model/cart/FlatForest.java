@@ -0,0 +1,261 @@
+/*
+ * Copyright (c) 2010-2025 Haifeng Li. All rights reserved.
+ *
+ * Smile is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Smile is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Smile. If not, see <https://www.gnu.org/licenses/>.
+ */
+package smile.model.cart;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+import smile.data.DataFrame;
+import smile.data.Tuple;
+import smile.data.measure.NominalScale;
+import smile.data.type.StructType;
+import smile.data.vector.ValueVector;
+
+/**
+ * A compiled ensemble of trees for fast inference. Each tree is flattened
+ * into a {@link FlatTree}. The batch methods evaluate the instances in
+ * blocks. For each block, the trees are applied one after another so that
+ * the arrays of a tree stay in cache while it is applied to the block of
+ * instances. The blocks are processed in parallel.
+ * <p>
+ * The outputs of trees are accumulated in the order of trees for every
+ * instance, so that the results are identical to those of evaluating the
+ * trees one by one.
+ *
+ * @author Haifeng Li
+ */
+public class FlatForest implements Serializable {
+    @Serial
+    private static final long serialVersionUID = 1L;
+    /** The number of instances in a block. */
+    private static final int BLOCK = 64;
+
+    /** The flattened trees. */
+    private final FlatTree[] trees;
+    /** The flag if a predictor is nominal. */
+    private final boolean[] nominal;
+
+    /**
+     * Constructor.
+     * @param trees the decision trees or regression trees, which
+     *              should share the same predictor schema.
+     */
+    public FlatForest(CART... trees) {
+        if (trees.length == 0) {
+            throw new IllegalArgumentException("Empty forest");
+        }
+
+        this.trees = Arrays.stream(trees).map(FlatTree::new).toArray(FlatTree[]::new);
+        StructType schema = trees[0].schema;
+        this.nominal = new boolean[schema.length()];
+        for (int j = 0; j < nominal.length; j++) {
+            nominal[j] = schema.field(j).measure() instanceof NominalScale;
+        }
+    }
+
+    /**
+     * Returns the number of trees.
+     * @return the number of trees.
+     */
+    public int size() {
+        return trees.length;
+    }
+
+    /**
+     * Returns the flattened trees.
+     * @return the flattened trees.
+     */
+    public FlatTree[] trees() {
+        return trees;
+    }
+
+    /**
+     * Returns the predictors of an instance as a double array.
+     * The values of nominal predictors are the integer codes of levels.
+     * @param x the predictors.
+     * @return the predictor array.
+     */
+    public double[] toArray(Tuple x) {
+        double[] a = new double[nominal.length];
+        for (int j = 0; j < a.length; j++) {
+            a[j] = nominal[j] ? x.getInt(j) : x.getDouble(j);
+        }
+        return a;
+    }
+
+    /**
+     * Returns the predictors of a data frame as a row-major double matrix.
+     * The values of nominal predictors are the integer codes of levels.
+     * @param x the predictors.
+     * @return the predictor matrix.
+     */
+    public double[][] toArray(DataFrame x) {
+        int n = x.size();
+        double[][] a = new double[n][nominal.length];
+        for (int j = 0; j < nominal.length; j++) {
+            ValueVector column = x.column(j);
+            if (nominal[j]) {
+                for (int i = 0; i < n; i++) {
+                    a[i][j] = column.getInt(i);
+                }
+            } else {
+                for (int i = 0; i < n; i++) {
+                    a[i][j] = column.getDouble(i);
+                }
+            }
+        }
+        return a;
+    }
+
+    /**
+     * Returns the weighted sum of tree outputs.
+     * @param x the instance.
+     * @param bias the initial value of sum.
+     * @param weights the weights of trees, or null for unit weights.
+     * @return the weighted sum of tree outputs.
+     */
+    public double sum(double[] x, double bias, double[] weights) {
+        double y = bias;
+        if (weights == null) {
+            for (FlatTree tree : trees) {
+                y += tree.predict(x);
+            }
+        } else {
+            for (int t = 0; t < trees.length; t++) {
+                y += weights[t] * trees[t].predict(x);
+            }
+        }
+        return y;
+    }
+
+    /**
+     * Returns the weighted sum of tree outputs for a batch of instances.
+     * @param x the instances.
+     * @param bias the initial value of sum.
+     * @param weights the weights of trees, or null for unit weights.
+     * @return the weighted sum of tree outputs.
+     */
+    public double[] sum(double[][] x, double bias, double[] weights) {
+        int n = x.length;
+        double[] y = new double[n];
+        Arrays.fill(y, bias);
+        blocks(n).forEach(b -> {
+            int from = b * BLOCK;
+            int to = Math.min(from + BLOCK, n);
+            for (int t = 0; t < trees.length; t++) {
+                FlatTree tree = trees[t];
+                if (weights == null) {
+                    for (int i = from; i < to; i++) {
+                        y[i] += tree.predict(x[i]);
+                    }
+                } else {
+                    double w = weights[t];
+                    for (int i = from; i < to; i++) {
+                        y[i] += w * tree.predict(x[i]);
+                    }
+                }
+            }
+        });
+        return y;
+    }
+
+    /**
+     * Accumulates the weighted votes of decision trees.
+     * @param x the instance.
+     * @param weights the weights of trees, or null for unit weights.
+     * @param votes the accumulator of votes.
+     */
+    public void vote(double[] x, double[] weights, double[] votes) {
+        for (int t = 0; t < trees.length; t++) {
+            votes[(int) trees[t].predict(x)] += weights == null ? 1 : weights[t];
+        }
+    }
+
+    /**
+     * Returns the weighted votes of decision trees for a batch of instances.
+     * @param x the instances.
+     * @param k the number of classes.
+     * @param weights the weights of trees, or null for unit weights.
+     * @return the votes of instances.
+     */
+    public double[][] vote(double[][] x, int k, double[] weights) {
+        int n = x.length;
+        double[][] votes = new double[n][k];
+        blocks(n).forEach(b -> {
+            int from = b * BLOCK;
+            int to = Math.min(from + BLOCK, n);
+            for (int t = 0; t < trees.length; t++) {
+                FlatTree tree = trees[t];
+                double w = weights == null ? 1 : weights[t];
+                for (int i = from; i < to; i++) {
+                    votes[i][(int) tree.predict(x[i])] += w;
+                }
+            }
+        });
+        return votes;
+    }
+
+    /**
+     * Accumulates the weighted posteriori probabilities of decision trees.
+     * @param x the instance.
+     * @param weights the weights of trees, or null for unit weights.
+     * @param prob the accumulator of posteriori probabilities.
+     */
+    public void posteriori(double[] x, double[] weights, double[] prob) {
+        for (int t = 0; t < trees.length; t++) {
+            FlatTree tree = trees[t];
+            tree.posteriori(tree.leaf(x), weights == null ? 1 : weights[t], prob);
+        }
+    }
+
+    /**
+     * Returns the weighted posteriori probabilities of decision trees
+     * for a batch of instances. The probabilities are not normalized.
+     * @param x the instances.
+     * @param k the number of classes.
+     * @param weights the weights of trees, or null for unit weights.
+     * @return the accumulated posteriori probabilities of instances.
+     */
+    public double[][] posteriori(double[][] x, int k, double[] weights) {
+        int n = x.length;
+        double[][] prob = new double[n][k];
+        blocks(n).forEach(b -> {
+            int from = b * BLOCK;
+            int to = Math.min(from + BLOCK, n);
+            for (int t = 0; t < trees.length; t++) {
+                FlatTree tree = trees[t];
+                double w = weights == null ? 1 : weights[t];
+                for (int i = from; i < to; i++) {
+                    tree.posteriori(tree.leaf(x[i]), w, prob[i]);
+                }
+            }
+        });
+        return prob;
+    }
+
+    /**
+     * Returns the stream of block indices.
+     * @param n the number of instances.
+     * @return the stream of block indices.
+     */
+    private static IntStream blocks(int n) {
+        int nblocks = (n + BLOCK - 1) / BLOCK;
+        IntStream blocks = IntStream.range(0, nblocks);
+        return nblocks > 1 ? blocks.parallel() : blocks;
+    }
+}
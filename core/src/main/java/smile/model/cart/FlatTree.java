@@ -0,0 +1,225 @@
+/*
+ * Copyright (c) 2010-2025 Haifeng Li. All rights reserved.
+ *
+ * Smile is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Smile is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Smile. If not, see <https://www.gnu.org/licenses/>.
+ */
+package smile.model.cart;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+/**
+ * A compiled decision tree for fast inference. The nodes of tree are
+ * flattened into parallel arrays (struct of arrays) in depth-first
+ * order so that the true branch child usually sits next to its parent.
+ * Evaluating an instance is a tight loop over primitive arrays instead
+ * of virtual calls on node objects and the Tuple interface.
+ * <p>
+ * The instances are given as double arrays, where the values of nominal
+ * features are the integer codes of levels.
+ *
+ * @author Haifeng Li
+ */
+public class FlatTree implements Serializable {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The index of root node. If the tree has only a leaf node,
+     * it is the encoded leaf index ~0.
+     */
+    private final int root;
+    /**
+     * The split feature of internal nodes. The index of nominal
+     * feature is encoded as ~feature.
+     */
+    private final int[] feature;
+    /**
+     * The split value of internal nodes.
+     */
+    private final double[] value;
+    /**
+     * The true branch child of internal nodes. A leaf child
+     * is encoded as ~leaf.
+     */
+    private final int[] trueChild;
+    /**
+     * The false branch child of internal nodes. A leaf child
+     * is encoded as ~leaf.
+     */
+    private final int[] falseChild;
+    /**
+     * The output of leaf nodes, i.e. the class index of decision
+     * tree or the fitted value of regression tree.
+     */
+    private final double[] output;
+    /**
+     * The posteriori probabilities of leaf nodes of decision tree,
+     * stored row by row. It is null for regression tree.
+     */
+    private final double[] posteriori;
+    /**
+     * The number of classes of decision tree, or 0 for regression tree.
+     */
+    private final int k;
+    /** The number of internal nodes added during flattening. */
+    private transient int nnodes;
+    /** The number of leaf nodes added during flattening. */
+    private transient int nleaves;
+
+    /**
+     * Constructor.
+     * @param tree the decision tree or regression tree.
+     */
+    public FlatTree(CART tree) {
+        this(tree.root());
+    }
+
+    /**
+     * Constructor.
+     * @param root the root node of tree.
+     */
+    public FlatTree(Node root) {
+        int m = root.leaves();
+        feature = new int[m - 1];
+        value = new double[m - 1];
+        trueChild = new int[m - 1];
+        falseChild = new int[m - 1];
+        output = new double[m];
+
+        LeafNode first = first(root);
+        if (first instanceof DecisionNode leaf) {
+            k = leaf.count().length;
+            posteriori = new double[m * k];
+        } else {
+            k = 0;
+            posteriori = null;
+        }
+
+        this.root = add(root);
+    }
+
+    /** Returns the leftmost leaf node. */
+    private static LeafNode first(Node node) {
+        while (node instanceof InternalNode parent) {
+            node = parent.trueChild;
+        }
+        return (LeafNode) node;
+    }
+
+    /**
+     * Adds a node in depth-first order.
+     * @return the index of internal node or the encoded index of leaf node.
+     */
+    private int add(Node node) {
+        return switch (node) {
+            case InternalNode parent -> {
+                int i = nnodes++;
+                switch (parent) {
+                    case OrdinalNode split -> {
+                        feature[i] = split.feature;
+                        value[i] = split.value;
+                    }
+                    case NominalNode split -> {
+                        feature[i] = ~split.feature;
+                        value[i] = split.value;
+                    }
+                    default -> throw new IllegalStateException("Unsupported node type: " + parent.getClass());
+                }
+                trueChild[i] = add(parent.trueChild);
+                falseChild[i] = add(parent.falseChild);
+                yield i;
+            }
+            case DecisionNode leaf -> {
+                int i = nleaves++;
+                output[i] = leaf.output();
+                double[] prob = DecisionNode.posteriori(leaf.count(), new double[k]);
+                System.arraycopy(prob, 0, posteriori, i * k, k);
+                yield ~i;
+            }
+            case RegressionNode leaf -> {
+                int i = nleaves++;
+                output[i] = leaf.output();
+                yield ~i;
+            }
+            default -> throw new IllegalStateException("Unsupported node type: " + node.getClass());
+        };
+    }
+
+    /**
+     * Returns the number of leaf nodes.
+     * @return the number of leaf nodes.
+     */
+    public int leaves() {
+        return output.length;
+    }
+
+    /**
+     * Returns the number of classes of decision tree,
+     * or 0 for regression tree.
+     * @return the number of classes.
+     */
+    public int numClasses() {
+        return k;
+    }
+
+    /**
+     * Returns the index of leaf node that the instance falls into.
+     * @param x the instance.
+     * @return the index of leaf node.
+     */
+    public int leaf(double[] x) {
+        int i = root;
+        while (i >= 0) {
+            int f = feature[i];
+            boolean branch = f >= 0 ? x[f] <= value[i] : x[~f] == value[i];
+            i = branch ? trueChild[i] : falseChild[i];
+        }
+        return ~i;
+    }
+
+    /**
+     * Returns the output of a leaf node.
+     * @param leaf the index of leaf node.
+     * @return the class index of decision tree or the fitted value
+     *         of regression tree.
+     */
+    public double output(int leaf) {
+        return output[leaf];
+    }
+
+    /**
+     * Adds the weighted posteriori probabilities of a leaf node
+     * of decision tree to the accumulator.
+     * @param leaf the index of leaf node.
+     * @param weight the weight.
+     * @param prob the accumulator of posteriori probabilities.
+     */
+    public void posteriori(int leaf, double weight, double[] prob) {
+        int offset = leaf * k;
+        for (int i = 0; i < k; i++) {
+            prob[i] += weight * posteriori[offset + i];
+        }
+    }
+
+    /**
+     * Predicts the output of an instance.
+     * @param x the instance.
+     * @return the class index of decision tree or the fitted value
+     *         of regression tree.
+     */
+    public double predict(double[] x) {
+        return output[leaf(x)];
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2010-2025 Haifeng Li. All rights reserved.
+ *
+ * Smile is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Smile is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Smile. If not, see <https://www.gnu.org/licenses/>.
+ */
+package smile.model.cart;
+
+/**
+ * The histograms of binned columns in a node. The histogram of a column
+ * is built on demand. If the parent node has the histogram of the same
+ * column, only the histogram of the smaller child is built from the
+ * samples. The histogram of its sibling is derived by subtracting it
+ * from the parent's.
+ *
+ * @author Haifeng Li
+ */
+class Histogram {
+    /** The tree in training. */
+    private final CART tree;
+    /** The inclusive lower bound of the node in the sample index array. */
+    private final int lo;
+    /** The exclusive upper bound of the node in the sample index array. */
+    private final int hi;
+    /** The histograms of columns, which are null if not built yet. */
+    private final double[][] columns;
+    /** The histograms of parent node, or null for the root. */
+    private Histogram parent;
+    /** The histograms of sibling node, or null for the root. */
+    private Histogram sibling;
+
+    /**
+     * Constructor.
+     * @param tree the tree in training.
+     * @param lo the inclusive lower bound of the node in the sample index array.
+     * @param hi the exclusive upper bound of the node in the sample index array.
+     * @param p the number of columns.
+     */
+    Histogram(CART tree, int lo, int hi, int p) {
+        this.tree = tree;
+        this.lo = lo;
+        this.hi = hi;
+        this.columns = new double[p][];
+    }
+
+    /**
+     * Links the histograms of sibling nodes to their parent.
+     * @param parent the histograms of parent node.
+     * @param trueChild the histograms of true branch child.
+     * @param falseChild the histograms of false branch child.
+     */
+    static void link(Histogram parent, Histogram trueChild, Histogram falseChild) {
+        trueChild.parent = parent;
+        trueChild.sibling = falseChild;
+        falseChild.parent = parent;
+        falseChild.sibling = trueChild;
+    }
+
+    /**
+     * Releases the references to parent and sibling once both children
+     * have been searched, so that the parent's histograms can be
+     * garbage collected.
+     */
+    void unlink() {
+        parent = null;
+        sibling = null;
+    }
+
+    /**
+     * Returns the histogram of a column. Different columns may be
+     * requested concurrently.
+     * @param j the column index.
+     * @return the histogram.
+     */
+    double[] get(int j) {
+        if (columns[j] == null) {
+            double[] whole = parent == null ? null : parent.columns[j];
+            if (whole == null) {
+                columns[j] = tree.histogram(j, lo, hi);
+            } else {
+                // Histogram subtraction trick
+                Histogram small = hi - lo <= sibling.hi - sibling.lo ? this : sibling;
+                Histogram large = small == this ? sibling : this;
+                double[] h = tree.histogram(j, small.lo, small.hi);
+                double[] diff = new double[h.length];
+                for (int i = 0; i < h.length; i++) {
+                    diff[i] = whole[i] - h[i];
+                }
+                small.columns[j] = h;
+                large.columns[j] = diff;
+            }
+        }
+        return columns[j];
+    }
+}
@@ -84,6 +84,12 @@ public abstract class Split {
     /** The depth of node in the tree. */
     int depth = 1;
 
+    /**
+     * The histograms of binned columns in the node, which are kept
+     * for the histogram subtraction in children. It may be null.
+     */
+    Histogram histogram;
+
     /**
      * Constructor.
      * @param leaf the node to split.
@@ -138,6 +138,16 @@ public class GradientTreeBoost implements DataFrameRegression, TreeSHAP {
      */
     private final double shrinkage;
 
+    /**
+     * The compiled forest for fast inference, which is built on demand.
+     */
+    private transient volatile FlatForest forest;
+
+    /**
+     * The weights of trees in the compiled forest, i.e. the shrinkage.
+     */
+    private transient double[] weights;
+
     /**
      * Constructor. Fits a gradient tree boosting for regression.
      *
@@ -174,12 +184,16 @@ public class GradientTreeBoost implements DataFrameRegression, TreeSHAP {
      * @param maxNodes the maximum number of leaf nodes in the tree.
      * @param nodeSize the minimum size of leaf nodes.
      *                 Setting nodeSize = 5 generally gives good results.
+     * @param maxBins the maximum number of bins to quantize each ordinal
+     *                column into for histogram-based split finding, which
+     *                is at most 256. If 0, the exact split finding on
+     *                sorted values is employed.
      * @param shrinkage the shrinkage parameter in (0, 1] controls the learning rate of procedure.
      * @param subsample the sampling fraction for stochastic tree boosting.
      * @param test the optional test data for validation per epoch.
      * @param controller the optional training controller.
      */
-    public record Options(Loss loss, int ntrees, int maxDepth, int maxNodes, int nodeSize, double shrinkage, double subsample,
+    public record Options(Loss loss, int ntrees, int maxDepth, int maxNodes, int nodeSize, int maxBins, double shrinkage, double subsample,
                           DataFrame test, IterativeAlgorithmController<TrainingStatus> controller) {
         /** Constructor. */
         public Options {
@@ -199,6 +213,10 @@ public class GradientTreeBoost implements DataFrameRegression, TreeSHAP {
                 throw new IllegalArgumentException("Invalid node size: " + nodeSize);
             }
 
+            if (maxBins != 0 && (maxBins < 2 || maxBins > Bins.MAX_BINS)) {
+                throw new IllegalArgumentException("Invalid maximum number of bins: " + maxBins);
+            }
+
             if (shrinkage <= 0 || shrinkage > 1) {
                 throw new IllegalArgumentException("Invalid shrinkage: " + shrinkage);
             }
@@ -208,6 +226,24 @@ public class GradientTreeBoost implements DataFrameRegression, TreeSHAP {
             }
         }
 
+        /**
+         * Constructor with the exact split finding.
+         * @param loss loss function for regression.
+         * @param ntrees the number of iterations (trees).
+         * @param maxDepth the maximum depth of the tree.
+         * @param maxNodes the maximum number of leaf nodes in the tree.
+         * @param nodeSize the minimum size of leaf nodes.
+         *                 Setting nodeSize = 5 generally gives good results.
+         * @param shrinkage the shrinkage parameter in (0, 1] controls the learning rate of procedure.
+         * @param subsample the sampling fraction for stochastic tree boosting.
+         * @param test the optional test data for validation per epoch.
+         * @param controller the optional training controller.
+         */
+        public Options(Loss loss, int ntrees, int maxDepth, int maxNodes, int nodeSize, double shrinkage, double subsample,
+                       DataFrame test, IterativeAlgorithmController<TrainingStatus> controller) {
+            this(loss, ntrees, maxDepth, maxNodes, nodeSize, 0, shrinkage, subsample, test, controller);
+        }
+
         /**
          * Constructor with the least absolute deviation loss.
          * @param ntrees the number of iterations (trees).
@@ -236,6 +272,7 @@ public class GradientTreeBoost implements DataFrameRegression, TreeSHAP {
             props.setProperty("smile.gradient_boost.max_depth", Integer.toString(maxDepth));
             props.setProperty("smile.gradient_boost.max_nodes", Integer.toString(maxNodes));
             props.setProperty("smile.gradient_boost.node_size", Integer.toString(nodeSize));
+            props.setProperty("smile.gradient_boost.max_bins", Integer.toString(maxBins));
             props.setProperty("smile.gradient_boost.shrinkage", Double.toString(shrinkage));
             props.setProperty("smile.gradient_boost.sampling_rate", Double.toString(subsample));
             return props;
@@ -253,9 +290,10 @@ public class GradientTreeBoost implements DataFrameRegression, TreeSHAP {
             int maxDepth = Integer.parseInt(props.getProperty("smile.gradient_boost.max_depth", "20"));
             int maxNodes = Integer.parseInt(props.getProperty("smile.gradient_boost.max_nodes", "6"));
             int nodeSize = Integer.parseInt(props.getProperty("smile.gradient_boost.node_size", "5"));
+            int maxBins = Integer.parseInt(props.getProperty("smile.gradient_boost.max_bins", "0"));
             double shrinkage = Double.parseDouble(props.getProperty("smile.gradient_boost.shrinkage", "0.05"));
             double subsample = Double.parseDouble(props.getProperty("smile.gradient_boost.sampling_rate", "0.7"));
-            return new Options(loss, ntrees, maxDepth, maxNodes, nodeSize, shrinkage, subsample, null, null);
+            return new Options(loss, ntrees, maxDepth, maxNodes, nodeSize, maxBins, shrinkage, subsample, null, null);
         }
     }
 
@@ -289,7 +327,8 @@ public class GradientTreeBoost implements DataFrameRegression, TreeSHAP {
         var shrinkage = options.shrinkage;
         final int n = x.size();
         final int N = (int) Math.round(n * options.subsample);
-        final int[][] order = CART.order(x);
+        final Bins bins = options.maxBins > 0 ? new Bins(x, options.maxBins) : null;
+        final int[][] order = bins == null ? CART.order(x) : null;
 
         int[] permutation = IntStream.range(0, n).toArray();
         int[] samples = new int[n];
@@ -316,7 +355,7 @@ public class GradientTreeBoost implements DataFrameRegression, TreeSHAP {
                 samples[permutation[i]]++;
             }
 
-            trees[t] = new RegressionTree(x, loss, field, options.maxDepth, options.maxNodes, options.nodeSize, x.ncol(), samples, order);
+            trees[t] = new RegressionTree(x, loss, field, options.maxDepth, options.maxNodes, options.nodeSize, x.ncol(), samples, order, bins);
 
             for (int i = 0; i < n; i++) {
                 residual[i] -= shrinkage * trees[t].predict(x.get(i));
@@ -416,15 +455,29 @@ public class GradientTreeBoost implements DataFrameRegression, TreeSHAP {
         return new GradientTreeBoost(formula, Arrays.copyOf(trees, ntrees), b, shrinkage, importance);
     }
     
+    /**
+     * Returns the compiled forest for fast inference.
+     * @return the compiled forest.
+     */
+    private FlatForest forest() {
+        if (forest == null) {
+            weights = new double[trees.length];
+            Arrays.fill(weights, shrinkage);
+            forest = new FlatForest(trees);
+        }
+        return forest;
+    }
+
     @Override
     public double predict(Tuple x) {
-        Tuple xt = formula.x(x);
-        double y = b;
-        for (RegressionTree tree : trees) {
-            y += shrinkage * tree.predict(xt);
-        }
-        
-        return y;
+        FlatForest forest = forest();
+        return forest.sum(forest.toArray(formula.x(x)), b, weights);
+    }
+
+    @Override
+    public double[] predict(DataFrame data) {
+        FlatForest forest = forest();
+        return forest.sum(forest.toArray(formula.x(data)), b, weights);
     }
 
     /**
@@ -434,17 +487,18 @@ public class GradientTreeBoost implements DataFrameRegression, TreeSHAP {
      * @return the predictions with first 1, 2, ..., regression trees.
      */
     public double[][] test(DataFrame data) {
-        DataFrame x = formula.x(data);
+        FlatForest forest = forest();
+        FlatTree[] trees = forest.trees();
+        double[][] x = forest.toArray(formula.x(data));
 
-        int n = x.size();
+        int n = x.length;
         int ntrees = trees.length;
         double[][] prediction = new double[ntrees][n];
 
         for (int j = 0; j < n; j++) {
-            Tuple xj = x.get(j);
             double base = b;
             for (int i = 0; i < ntrees; i++) {
-                base += shrinkage * trees[i].predict(xj);
+                base += shrinkage * trees[i].predict(x[j]);
                 prediction[i][j] = base;
             }
         }
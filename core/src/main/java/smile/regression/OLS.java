@@ -17,9 +17,12 @@
 package smile.regression;
 
 import java.util.Properties;
+import java.util.stream.IntStream;
 import smile.data.DataFrame;
 import smile.data.formula.Formula;
 import smile.data.type.StructType;
+import smile.linalg.Transpose;
+import smile.linalg.UPLO;
 import smile.math.special.Beta;
 import smile.tensor.*;
 
@@ -199,4 +202,47 @@ public class OLS {
 
         return model;
     }
+
+    /**
+     * Solves the least squares problem min || y - X * w || on the data that
+     * may not fit in memory. It uses the corrected semi-normal equations
+     * with the R factor of tall-skinny QR decomposition of X, which is as
+     * accurate as the QR decomposition for well-conditioned problems but
+     * doesn't need the orthogonal factor. The data are passed over three
+     * times and are not modified.
+     *
+     * @param X the design matrix. Include a constant column of 1s for bias.
+     * @param y the response variable as a column matrix, which must be
+     *          partitioned in the same way as X.
+     * @return the coefficients.
+     */
+    public static Vector solve(BlockMatrix X, BlockMatrix y) {
+        long n = X.nrow();
+        int p = X.ncol();
+        if (n <= p) {
+            throw new IllegalArgumentException(String.format("The input matrix is not over determined: %d rows, %d columns", n, p));
+        }
+        if (y.ncol() != 1) {
+            throw new IllegalArgumentException("The response is not a column matrix: " + y.ncol() + " columns");
+        }
+
+        // R'R = X'X
+        DenseMatrix L = X.qr(false).R().transpose();
+        L.withUplo(UPLO.LOWER);
+        Cholesky cholesky = new Cholesky(L);
+
+        DenseMatrix w = X.tm(y);
+        cholesky.solve(w);
+
+        // One step of iterative refinement with the residuals r = y - Xw.
+        DenseMatrix xr = IntStream.range(0, X.size()).parallel().mapToObj(i -> {
+            DenseMatrix r = y.block(i).copy();
+            DenseMatrix.mm(-1.0, Transpose.NO_TRANSPOSE, X.block(i), Transpose.NO_TRANSPOSE, w, 1.0, r);
+            return X.block(i).tm(r);
+        }).reduce(DenseMatrix::add).orElseThrow();
+        cholesky.solve(xr);
+        w.add(xr);
+
+        return w.column(0);
+    }
 }
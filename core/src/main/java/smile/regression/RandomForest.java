@@ -29,7 +29,10 @@ import smile.data.type.StructType;
 import smile.data.vector.ValueVector;
 import smile.feature.importance.TreeSHAP;
 import smile.math.MathEx;
+import smile.model.cart.Bins;
 import smile.model.cart.CART;
+import smile.model.cart.FlatForest;
+import smile.model.cart.FlatTree;
 import smile.model.cart.Loss;
 import smile.util.IterativeAlgorithmController;
 import smile.validation.RegressionMetrics;
@@ -117,6 +120,11 @@ public class RandomForest implements DataFrameRegression, TreeSHAP {
      */
     private final double[] importance;
 
+    /**
+     * The compiled forest for fast inference, which is built on demand.
+     */
+    private transient volatile FlatForest forest;
+
     /**
      * Constructor.
      * @param formula a symbolic description of the model to be fitted.
@@ -150,12 +158,16 @@ public class RandomForest implements DataFrameRegression, TreeSHAP {
      * @param maxNodes the maximum number of leaf nodes in the tree.
      * @param nodeSize the minimum size of leaf nodes.
      *                 Setting nodeSize = 5 generally gives good results.
+     * @param maxBins the maximum number of bins to quantize each ordinal
+     *                column into for histogram-based split finding, which
+     *                is at most 256. If 0, the exact split finding on
+     *                sorted values is employed.
      * @param subsample the sampling rate for training tree. 1.0 means sampling with
      *                  replacement. {@code < 1.0} means sampling without replacement.
      * @param seeds optional RNG seeds for each regression tree.
      * @param controller the optional training controller.
      */
-    public record Options(int ntrees, int mtry, int maxDepth, int maxNodes, int nodeSize, double subsample,
+    public record Options(int ntrees, int mtry, int maxDepth, int maxNodes, int nodeSize, int maxBins, double subsample,
                           long[] seeds, IterativeAlgorithmController<TrainingStatus> controller) {
         /** Constructor. */
         public Options {
@@ -171,6 +183,10 @@ public class RandomForest implements DataFrameRegression, TreeSHAP {
                 throw new IllegalArgumentException("Invalid node size: " + nodeSize);
             }
 
+            if (maxBins != 0 && (maxBins < 2 || maxBins > Bins.MAX_BINS)) {
+                throw new IllegalArgumentException("Invalid maximum number of bins: " + maxBins);
+            }
+
             if (subsample <= 0 || subsample > 1) {
                 throw new IllegalArgumentException("Invalid sampling rate: " + subsample);
             }
@@ -180,6 +196,26 @@ public class RandomForest implements DataFrameRegression, TreeSHAP {
             }
         }
 
+        /**
+         * Constructor with the exact split finding.
+         * @param ntrees the number of trees.
+         * @param mtry the number of input variables to be used to determine the
+         *             decision at a node of the tree. p/3 generally give good
+         *             performance, where p is the number of variables.
+         * @param maxDepth the maximum depth of the tree.
+         * @param maxNodes the maximum number of leaf nodes in the tree.
+         * @param nodeSize the minimum size of leaf nodes.
+         *                 Setting nodeSize = 5 generally gives good results.
+         * @param subsample the sampling rate for training tree. 1.0 means sampling with
+         *                  replacement. {@code < 1.0} means sampling without replacement.
+         * @param seeds optional RNG seeds for each regression tree.
+         * @param controller the optional training controller.
+         */
+        public Options(int ntrees, int mtry, int maxDepth, int maxNodes, int nodeSize, double subsample,
+                       long[] seeds, IterativeAlgorithmController<TrainingStatus> controller) {
+            this(ntrees, mtry, maxDepth, maxNodes, nodeSize, 0, subsample, seeds, controller);
+        }
+
         /**
          * Constructor.
          * @param ntrees the number of trees.
@@ -210,6 +246,7 @@ public class RandomForest implements DataFrameRegression, TreeSHAP {
             props.setProperty("smile.random_forest.max_depth", Integer.toString(maxDepth));
             props.setProperty("smile.random_forest.max_nodes", Integer.toString(maxNodes));
             props.setProperty("smile.random_forest.node_size", Integer.toString(nodeSize));
+            props.setProperty("smile.random_forest.max_bins", Integer.toString(maxBins));
             props.setProperty("smile.random_forest.sampling_rate", Double.toString(subsample));
             return props;
         }
@@ -226,8 +263,9 @@ public class RandomForest implements DataFrameRegression, TreeSHAP {
             int maxDepth = Integer.parseInt(props.getProperty("smile.random_forest.max_depth", "20"));
             int maxNodes = Integer.parseInt(props.getProperty("smile.random_forest.max_nodes", "0"));
             int nodeSize = Integer.parseInt(props.getProperty("smile.random_forest.node_size", "5"));
+            int maxBins = Integer.parseInt(props.getProperty("smile.random_forest.max_bins", "0"));
             double subsample = Double.parseDouble(props.getProperty("smile.random_forest.sampling_rate", "1.0"));
-            return new Options(ntrees, mtry, maxDepth, maxNodes, nodeSize, subsample, null, null);
+            return new Options(ntrees, mtry, maxDepth, maxNodes, nodeSize, maxBins, subsample, null, null);
         }
     }
 
@@ -269,7 +307,8 @@ public class RandomForest implements DataFrameRegression, TreeSHAP {
         final int n = x.size();
         double[] prediction = new double[n];
         int[] oob = new int[n];
-        final int[][] order = CART.order(x);
+        final Bins bins = options.maxBins > 0 ? new Bins(x, options.maxBins) : null;
+        final int[][] order = bins == null ? CART.order(x) : null;
 
         // train trees with parallel stream
         Model[] models = IntStream.range(0, ntrees).parallel().mapToObj(t -> {
@@ -292,7 +331,7 @@ public class RandomForest implements DataFrameRegression, TreeSHAP {
             }
 
             long start = System.nanoTime();
-            RegressionTree tree = new RegressionTree(x, Loss.ls(y), field, options.maxDepth, maxNodes, options.nodeSize, mtry, samples, order);
+            RegressionTree tree = new RegressionTree(x, Loss.ls(y), field, options.maxDepth, maxNodes, options.nodeSize, mtry, samples, order, bins);
             double fitTime = (System.nanoTime() - start) / 1E6;
 
             // estimate OOB metrics
@@ -432,6 +471,8 @@ public class RandomForest implements DataFrameRegression, TreeSHAP {
         }
 
         Arrays.sort(models);
+        // The order of trees has changed.
+        forest = null;
         return new RandomForest(formula, Arrays.copyOf(models, ntrees), metrics, importance);
     }
 
@@ -470,15 +511,31 @@ public class RandomForest implements DataFrameRegression, TreeSHAP {
         return new RandomForest(formula, forest, mergedMetrics, mergedImportance);
     }
 
+    /**
+     * Returns the compiled forest for fast inference.
+     * @return the compiled forest.
+     */
+    private FlatForest forest() {
+        if (forest == null) {
+            forest = new FlatForest(trees());
+        }
+        return forest;
+    }
+
     @Override
     public double predict(Tuple x) {
-        Tuple xt = formula.x(x);
-        double y = 0;
-        for (Model model : models) {
-            y += model.tree.predict(xt);
+        FlatForest forest = forest();
+        return forest.sum(forest.toArray(formula.x(x)), 0.0, null) / models.length;
+    }
+
+    @Override
+    public double[] predict(DataFrame data) {
+        FlatForest forest = forest();
+        double[] y = forest.sum(forest.toArray(formula.x(data)), 0.0, null);
+        for (int i = 0; i < y.length; i++) {
+            y[i] /= models.length;
         }
-        
-        return y / models.length;
+        return y;
     }
 
     /**
@@ -488,17 +545,18 @@ public class RandomForest implements DataFrameRegression, TreeSHAP {
      * @return the predictions with first 1, 2, ..., regression trees.
      */
     public double[][] test(DataFrame data) {
-        DataFrame x = formula.x(data);
+        FlatForest forest = forest();
+        FlatTree[] trees = forest.trees();
+        double[][] x = forest.toArray(formula.x(data));
 
-        int n = x.size();
-        int ntrees = models.length;
+        int n = x.length;
+        int ntrees = trees.length;
         double[][] prediction = new double[ntrees][n];
 
         for (int j = 0; j < n; j++) {
-            Tuple xj = x.get(j);
             double base = 0;
             for (int i = 0; i < ntrees; i++) {
-                base = base + models[i].tree.predict(xj);
+                base = base + trees[i].predict(x[j]);
                 prediction[i][j] = base / (i+1);
             }
         }
@@ -241,6 +241,75 @@ public class RegressionTree extends CART implements DataFrameRegression {
         return Optional.ofNullable(split);
     }
 
+    @Override
+    protected double[] histogram(int j, int lo, int hi) {
+        // The count and the sum of responses per bin.
+        byte[] codes = bins.codes(j);
+        double[] histogram = new double[2 * bins.size(j)];
+        for (int i = lo; i < hi; i++) {
+            int o = index[i];
+            int b = 2 * (codes[o] & 0xFF);
+            histogram[b] += samples[o];
+            histogram[b + 1] += y[o] * samples[o];
+        }
+        return histogram;
+    }
+
+    @Override
+    protected Optional<Split> findBestSplit(LeafNode leaf, int j, double impurity, int lo, int hi, double[] histogram) {
+        RegressionNode node = (RegressionNode) leaf;
+        int m = histogram.length / 2;
+
+        double sum = 0;
+        for (int b = 0; b < m; b++) {
+            sum += histogram[2 * b + 1];
+        }
+        double nodeMeanSquared = node.size() * node.mean() * node.mean();
+
+        int splitBin = -1;
+        double splitScore = 0.0;
+        int splitTrueCount = 0;
+        int splitFalseCount = 0;
+
+        double trueSum = 0.0;
+        int tc = 0;
+        for (int b = 0; b < m - 1; b++) {
+            int count = (int) histogram[2 * b];
+            // An empty bin gives the same split as the previous one.
+            if (count == 0) continue;
+
+            tc += count;
+            trueSum += histogram[2 * b + 1];
+            int fc = node.size() - tc;
+
+            // If either side is too small, skip this value.
+            if (tc < nodeSize || fc < nodeSize) {
+                continue;
+            }
+
+            double trueMean = trueSum / tc;
+            double falseMean = (sum - trueSum) / fc;
+
+            double gain = (tc * trueMean * trueMean + fc * falseMean * falseMean) - nodeMeanSquared;
+
+            // new best split
+            if (gain > splitScore) {
+                splitBin = b;
+                splitTrueCount = tc;
+                splitFalseCount = fc;
+                splitScore = gain;
+            }
+        }
+
+        if (splitScore > 0.0) {
+            final int bin = splitBin;
+            final byte[] codes = bins.codes(j);
+            return Optional.of(new OrdinalSplit(leaf, j, bins.cut(j, bin), splitScore, lo, hi, splitTrueCount, splitFalseCount, (int o) -> (codes[o] & 0xFF) <= bin));
+        }
+
+        return Optional.empty();
+    }
+
     /**
      * Constructor. Fits a regression tree for AdaBoost and Random Forest.
      * @param x the data frame of the explanatory variable.
@@ -258,7 +327,31 @@ public class RegressionTree extends CART implements DataFrameRegression {
      *              that only numeric attributes need be sorted.
      */
     public RegressionTree(DataFrame x, Loss loss, StructField response, int maxDepth, int maxNodes, int nodeSize, int mtry, int[] samples, int[][] order) {
-        super(x, response, maxDepth, maxNodes, nodeSize, mtry, samples, order);
+        this(x, loss, response, maxDepth, maxNodes, nodeSize, mtry, samples, order, null);
+    }
+
+    /**
+     * Constructor. Fits a regression tree for AdaBoost and Random Forest.
+     * @param x the data frame of the explanatory variable.
+     * @param loss the loss function.
+     * @param response the metadata of response variable.
+     * @param maxDepth the maximum depth of the tree.
+     * @param maxNodes the maximum number of leaf nodes in the tree.
+     * @param nodeSize the minimum size of leaf nodes.
+     * @param mtry the number of input variables to pick to split on at each
+     *             node. It seems that sqrt(p) give generally good performance,
+     *             where p is the number of variables.
+     * @param samples the sample set of instances for stochastic learning.
+     *               samples[i] is the number of sampling for instance i.
+     * @param order the index of training values in ascending order. Note
+     *              that only numeric attributes need be sorted. It is
+     *              ignored if bins is not null.
+     * @param bins the quantized ordinal columns for histogram-based
+     *             split finding. If null, the exact split finding on
+     *             sorted values is employed.
+     */
+    public RegressionTree(DataFrame x, Loss loss, StructField response, int maxDepth, int maxNodes, int nodeSize, int mtry, int[] samples, int[][] order, Bins bins) {
+        super(x, response, maxDepth, maxNodes, nodeSize, mtry, samples, order, bins);
         this.loss = loss;
         this.y = loss.response();
 
@@ -0,0 +1,717 @@
+/*
+ * Copyright (c) 2010-2025 Haifeng Li. All rights reserved.
+ *
+ * Smile is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Smile is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Smile. If not, see <https://www.gnu.org/licenses/>.
+ */
+package smile.vq;
+
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Properties;
+import java.util.stream.IntStream;
+import smile.clustering.KMeans;
+import smile.math.MathEx;
+import smile.math.VectorMath;
+import smile.neighbor.KNNSearch;
+import smile.neighbor.Neighbor;
+import smile.sort.QuickSort;
+
+/**
+ * Inverted file index with product quantization (IVFADC) for approximate
+ * nearest neighbor search in very large data sets. The space is
+ * partitioned by a coarse k-means quantizer into inverted lists. The
+ * residual of a vector to its coarse centroid is encoded by a product
+ * quantizer into a few bytes. A query probes the nearest inverted lists
+ * and scans their codes with the asymmetric distance tables.
+ * <p>
+ * The vector ids and codes, and the optional raw vectors for exact
+ * re-ranking, are stored off-heap in memory segments. A saved index is
+ * memory-mapped by {@link #open(Path)} instead of being deserialized,
+ * so that the operating system pages in the inverted lists on demand.
+ * <p>
+ * The vector id is the order of insertion. The search results carry the
+ * id as the index and value of neighbors. The key of neighbors is the
+ * raw vector if the index keeps them for re-ranking, otherwise null.
+ * The insertions are not thread safe and shouldn't run concurrently with
+ * searches. The searches can run concurrently.
+ *
+ * <h2>References</h2>
+ * <ol>
+ * <li> H. Jegou, M. Douze, and C. Schmid. Product quantization for nearest neighbor search. IEEE TPAMI, 33(1):117-128, 2011.</li>
+ * </ol>
+ *
+ * @see ProductQuantizer
+ *
+ * @author Haifeng Li
+ */
+public class IVFPQ implements KNNSearch<double[], Integer> {
+    /** The magic number of index file. */
+    private static final int MAGIC = 0x49564651;
+    /** The version of index file. */
+    private static final int VERSION = 1;
+    /** The number of bytes of the fixed fields at the beginning of index file. */
+    static final int FIXED_HEADER = 8 * Integer.BYTES;
+    /** The number of codes copied to heap per scan. */
+    private static final int CHUNK = 4096;
+    /** The maximum number of code bytes buffered per batch of insertion. */
+    private static final int BATCH_BYTES = 1 << 24;
+    /** The layout of vector ids. */
+    private static final ValueLayout.OfInt ID = ValueLayout.JAVA_INT_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+    /** The layout of raw vector elements. */
+    private static final ValueLayout.OfFloat RAW = ValueLayout.JAVA_FLOAT_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+    /** The layout of centroids and codebooks in the header. */
+    private static final ValueLayout.OfDouble REAL = ValueLayout.JAVA_DOUBLE_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+    /** The layout of inverted list offsets in the header. */
+    private static final ValueLayout.OfLong OFFSET = ValueLayout.JAVA_LONG_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+
+    /**
+     * The hyperparameters of IVF-PQ index.
+     * @param nlist the number of inverted lists, i.e. coarse centroids.
+     * @param m the number of subspaces of product quantizer, i.e. the
+     *          code length in bytes.
+     * @param ksub the number of centroids per subspace, at most 256.
+     * @param maxIter the maximum number of k-means iterations.
+     * @param rerank true if the raw vectors are kept (as float) for
+     *               exact re-ranking.
+     */
+    public record Options(int nlist, int m, int ksub, int maxIter, boolean rerank) {
+        /** Constructor. */
+        public Options {
+            if (nlist < 2) {
+                throw new IllegalArgumentException("Invalid number of inverted lists: " + nlist);
+            }
+
+            if (m <= 0) {
+                throw new IllegalArgumentException("Invalid number of subspaces: " + m);
+            }
+
+            if (ksub < 2 || ksub > ProductQuantizer.MAX_CENTROIDS) {
+                throw new IllegalArgumentException("Invalid number of centroids per subspace: " + ksub);
+            }
+
+            if (maxIter <= 0) {
+                throw new IllegalArgumentException("Invalid maximum number of iterations: " + maxIter);
+            }
+        }
+
+        /**
+         * Constructor with 256 centroids per subspace.
+         * @param nlist the number of inverted lists.
+         * @param m the number of subspaces of product quantizer.
+         */
+        public Options(int nlist, int m) {
+            this(nlist, m, 256, 25, false);
+        }
+
+        /**
+         * Returns the persistent set of hyperparameters.
+         * @return the persistent set.
+         */
+        public Properties toProperties() {
+            Properties props = new Properties();
+            props.setProperty("smile.ivfpq.nlist", Integer.toString(nlist));
+            props.setProperty("smile.ivfpq.m", Integer.toString(m));
+            props.setProperty("smile.ivfpq.ksub", Integer.toString(ksub));
+            props.setProperty("smile.ivfpq.iterations", Integer.toString(maxIter));
+            props.setProperty("smile.ivfpq.rerank", Boolean.toString(rerank));
+            return props;
+        }
+
+        /**
+         * Returns the options from properties.
+         *
+         * @param props the hyperparameters.
+         * @return the options.
+         */
+        public static Options of(Properties props) {
+            int nlist = Integer.parseInt(props.getProperty("smile.ivfpq.nlist", "1024"));
+            int m = Integer.parseInt(props.getProperty("smile.ivfpq.m", "8"));
+            int ksub = Integer.parseInt(props.getProperty("smile.ivfpq.ksub", "256"));
+            int maxIter = Integer.parseInt(props.getProperty("smile.ivfpq.iterations", "25"));
+            boolean rerank = Boolean.parseBoolean(props.getProperty("smile.ivfpq.rerank", "false"));
+            return new Options(nlist, m, ksub, maxIter, rerank);
+        }
+    }
+
+    /**
+     * An inverted list of which the ids, codes and raw vectors are in
+     * off-heap memory. The segments grow by doubling.
+     */
+    private static class InvertedList {
+        /** The vector ids. */
+        MemorySegment ids;
+        /** The codes. */
+        MemorySegment codes;
+        /** The raw vectors, or null if not kept. */
+        MemorySegment raw;
+        /** The number of vectors. */
+        int size;
+        /** The capacity of segments in vectors. */
+        int capacity;
+
+        /** Returns a segment of the given size with the content of old one. */
+        static MemorySegment grow(MemorySegment old, long bytes) {
+            var segment = Arena.ofAuto().allocate(bytes, 8);
+            if (old != null) {
+                MemorySegment.copy(old, 0, segment, 0, old.byteSize());
+            }
+            return segment;
+        }
+
+        /** Appends a vector. */
+        void add(int id, byte[] code, int offset, int m, double[] x) {
+            if (size == capacity) {
+                capacity = Math.max(16, 2 * capacity);
+                ids = grow(ids, capacity * ID.byteSize());
+                codes = grow(codes, (long) capacity * m);
+                if (x != null) {
+                    raw = grow(raw, (long) capacity * x.length * RAW.byteSize());
+                }
+            }
+
+            ids.setAtIndex(ID, size, id);
+            MemorySegment.copy(code, offset, codes, ValueLayout.JAVA_BYTE, (long) size * m, m);
+            if (x != null) {
+                long base = (long) size * x.length;
+                for (int i = 0; i < x.length; i++) {
+                    raw.setAtIndex(RAW, base + i, (float) x[i]);
+                }
+            }
+            size++;
+        }
+    }
+
+    /** The dimension of vectors. */
+    private final int d;
+    /** The coarse centroids. */
+    private final double[][] centroids;
+    /** The product quantizer of residuals. */
+    private final ProductQuantizer pq;
+    /** The inverted lists. */
+    private final InvertedList[] lists;
+    /** True if the raw vectors are kept for re-ranking. */
+    private final boolean rerank;
+    /** The number of vectors. */
+    private int size;
+    /** The number of inverted lists to probe. */
+    private int nprobe = 8;
+    /** The number of candidates to re-rank per neighbor. */
+    private int refine = 4;
+
+    /**
+     * Constructor of an empty index.
+     * @param centroids the coarse centroids.
+     * @param pq the product quantizer of residuals.
+     * @param rerank true if the raw vectors are kept for exact re-ranking.
+     */
+    public IVFPQ(double[][] centroids, ProductQuantizer pq, boolean rerank) {
+        this.d = pq.dimension();
+        this.centroids = centroids;
+        this.pq = pq;
+        this.rerank = rerank;
+        this.lists = new InvertedList[centroids.length];
+        for (int i = 0; i < lists.length; i++) {
+            lists[i] = new InvertedList();
+        }
+
+        for (double[] centroid : centroids) {
+            if (centroid.length != d) {
+                throw new IllegalArgumentException("The dimension of coarse centroids doesn't match product quantizer");
+            }
+        }
+    }
+
+    /**
+     * Trains the coarse quantizer and product quantizer. Returns an empty
+     * index. The training sample should be a few times larger than the
+     * number of inverted lists and the number of centroids per subspace.
+     * @param sample the training sample.
+     * @param options the hyperparameters.
+     * @return the empty index.
+     */
+    public static IVFPQ fit(double[][] sample, Options options) {
+        if (sample.length < Math.max(options.nlist, options.ksub)) {
+            throw new IllegalArgumentException("Too few training samples: " + sample.length);
+        }
+
+        var coarse = KMeans.fit(sample, options.nlist, options.maxIter);
+        double[][] centroids = coarse.centers();
+        double[][] residuals = new double[sample.length][];
+        IntStream.range(0, sample.length).parallel().forEach(i ->
+                residuals[i] = residual(sample[i], centroids[coarse.group(i)]));
+
+        var pq = ProductQuantizer.fit(residuals, options.m, options.ksub, options.maxIter);
+        return new IVFPQ(centroids, pq, options.rerank);
+    }
+
+    /**
+     * Builds an index.
+     * @param data the data to index, which is also used as training sample.
+     * @param options the hyperparameters.
+     * @return the index.
+     */
+    public static IVFPQ of(double[][] data, Options options) {
+        var index = fit(data, options);
+        index.add(data);
+        return index;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("IVFPQ(size = %d, d = %d, nlist = %d, m = %d, ksub = %d, rerank = %b)",
+                size, d, lists.length, pq.subspaces(), pq.centroids(), rerank);
+    }
+
+    /**
+     * Returns the number of vectors.
+     * @return the number of vectors.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the number of inverted lists to probe.
+     * @return the number of inverted lists to probe.
+     */
+    public int getProbes() {
+        return nprobe;
+    }
+
+    /**
+     * Sets the number of inverted lists to probe, which trades
+     * off the search time for the recall.
+     * @param nprobe the number of inverted lists to probe.
+     */
+    public void setProbes(int nprobe) {
+        if (nprobe < 1) {
+            throw new IllegalArgumentException("Invalid number of probes: " + nprobe);
+        }
+        this.nprobe = Math.min(nprobe, lists.length);
+    }
+
+    /**
+     * Sets the number of candidates per neighbor that are re-ranked by
+     * the exact distance. It takes effect only if the raw vectors are kept.
+     * @param refine the number of candidates per neighbor.
+     */
+    public void setRefine(int refine) {
+        if (refine < 1) {
+            throw new IllegalArgumentException("Invalid refine factor: " + refine);
+        }
+        this.refine = refine;
+    }
+
+    /** Returns the residual of a vector to the centroid. */
+    private static double[] residual(double[] x, double[] centroid) {
+        double[] r = new double[x.length];
+        for (int i = 0; i < r.length; i++) {
+            r[i] = x[i] - centroid[i];
+        }
+        return r;
+    }
+
+    /** Returns the index of nearest coarse centroid. */
+    private int assign(double[] x) {
+        int best = 0;
+        double nearest = Double.MAX_VALUE;
+        for (int i = 0; i < centroids.length; i++) {
+            double dist = MathEx.squaredDistance(x, centroids[i]);
+            if (dist < nearest) {
+                nearest = dist;
+                best = i;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Adds a vector.
+     * @param x the vector.
+     * @return the vector id.
+     */
+    public int add(double[] x) {
+        if (x.length != d) {
+            throw new IllegalArgumentException(String.format("Invalid vector dimension: %d != %d", x.length, d));
+        }
+
+        int list = assign(x);
+        byte[] code = pq.encode(residual(x, centroids[list]));
+        int id = size++;
+        lists[list].add(id, code, 0, code.length, rerank ? x : null);
+        return id;
+    }
+
+    /**
+     * Adds a batch of vectors. The vectors are encoded in parallel.
+     * The batch is processed in chunks so that the buffer of codes
+     * stays bounded for large batches.
+     * @param data the vectors.
+     * @return the id of first vector. The ids of vectors are consecutive.
+     */
+    public int add(double[][] data) {
+        for (double[] x : data) {
+            if (x.length != d) {
+                throw new IllegalArgumentException(String.format("Invalid vector dimension: %d != %d", x.length, d));
+            }
+        }
+
+        int n = data.length;
+        int m = pq.subspaces();
+        int batch = Math.min(n, Math.max(1, BATCH_BYTES / m));
+        int[] assignment = new int[batch];
+        byte[] codes = new byte[batch * m];
+
+        int first = size;
+        for (int from = 0; from < n; from += batch) {
+            int offset = from;
+            int count = Math.min(batch, n - from);
+            IntStream.range(0, count).parallel().forEach(i -> {
+                double[] x = data[offset + i];
+                assignment[i] = assign(x);
+                pq.encode(residual(x, centroids[assignment[i]]), codes, i * m);
+            });
+
+            for (int i = 0; i < count; i++) {
+                lists[assignment[i]].add(size++, codes, i * m, m, rerank ? data[offset + i] : null);
+            }
+        }
+        return first;
+    }
+
+    @Override
+    public Neighbor<double[], Integer> nearest(double[] q) {
+        var neighbors = search(q, 1);
+        return neighbors.length == 0 ? null : neighbors[0];
+    }
+
+    /**
+     * Searches a batch of queries in parallel.
+     * @param q the queries.
+     * @param k the number of nearest neighbors to search for.
+     * @return the k nearest neighbors of each query.
+     */
+    @SuppressWarnings("unchecked")
+    public Neighbor<double[], Integer>[][] search(double[][] q, int k) {
+        return IntStream.range(0, q.length).parallel()
+                .mapToObj(i -> search(q[i], k))
+                .toArray(Neighbor[][]::new);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Neighbor<double[], Integer>[] search(double[] q, int k) {
+        if (k < 1) {
+            throw new IllegalArgumentException("Invalid k: " + k);
+        }
+        if (q.length != d) {
+            throw new IllegalArgumentException(String.format("Invalid query dimension: %d != %d", q.length, d));
+        }
+
+        int m = pq.subspaces();
+        int candidates = rerank ? k * refine : k;
+        var heap = new Heap(candidates);
+        byte[] buffer = new byte[CHUNK * m];
+        for (int p : probes(q)) {
+            var list = lists[p];
+            if (list.size == 0) continue;
+
+            float[] table = pq.table(residual(q, centroids[p]));
+            for (int start = 0; start < list.size; start += CHUNK) {
+                int length = Math.min(CHUNK, list.size - start);
+                MemorySegment.copy(list.codes, ValueLayout.JAVA_BYTE, (long) start * m, buffer, 0, length * m);
+                for (int i = 0; i < length; i++) {
+                    heap.offer(pq.distance(table, buffer, i * m), (long) p << 32 | (start + i));
+                }
+            }
+        }
+
+        // Pop the heap in descending order of distance.
+        int n = heap.size;
+        long[] refs = new long[n];
+        double[] distances = new double[n];
+        for (int i = n; i-- > 0; ) {
+            distances[i] = heap.distance[0];
+            refs[i] = heap.poll();
+        }
+
+        double[][] keys = new double[n][];
+        if (rerank) {
+            for (int i = 0; i < n; i++) {
+                keys[i] = raw(refs[i]);
+                distances[i] = MathEx.squaredDistance(q, keys[i]);
+            }
+
+            int[] index = IntStream.range(0, n).boxed()
+                    .sorted((a, b) -> Double.compare(distances[a], distances[b]))
+                    .mapToInt(Integer::intValue).toArray();
+            long[] r = refs.clone();
+            double[] dist = distances.clone();
+            double[][] x = keys.clone();
+            for (int i = 0; i < n; i++) {
+                refs[i] = r[index[i]];
+                distances[i] = dist[index[i]];
+                keys[i] = x[index[i]];
+            }
+            n = Math.min(n, k);
+        }
+
+        Neighbor<double[], Integer>[] neighbors = new Neighbor[n];
+        for (int i = 0; i < n; i++) {
+            var list = lists[(int) (refs[i] >>> 32)];
+            int id = list.ids.getAtIndex(ID, (int) refs[i]);
+            neighbors[i] = new Neighbor<>(keys[i], id, id, Math.sqrt(Math.max(distances[i], 0.0)));
+        }
+        return neighbors;
+    }
+
+    /** Returns the indices of inverted lists to probe. */
+    private int[] probes(double[] q) {
+        int nlist = lists.length;
+        double[] dist = new double[nlist];
+        VectorMath.squaredDistance(q, centroids, dist);
+        int[] index = IntStream.range(0, nlist).toArray();
+
+        if (nprobe < nlist) {
+            QuickSort.sort(dist, index);
+        }
+        return Arrays.copyOf(index, nprobe);
+    }
+
+    /** Returns the raw vector of a reference to the inverted list entry. */
+    private double[] raw(long ref) {
+        var list = lists[(int) (ref >>> 32)];
+        long base = (long) (int) ref * d;
+        double[] x = new double[d];
+        for (int i = 0; i < d; i++) {
+            x[i] = list.raw.getAtIndex(RAW, base + i);
+        }
+        return x;
+    }
+
+    /**
+     * Returns the number of bytes of index file header, which consists of
+     * the fixed fields, the coarse centroids, the codebooks and the offsets
+     * of inverted lists.
+     * @param d the dimension of vectors.
+     * @param nlist the number of inverted lists.
+     * @param ksub the number of centroids per subspace.
+     * @return the number of bytes of header.
+     */
+    static long headerBytes(int d, int nlist, int ksub) {
+        return FIXED_HEADER + Double.BYTES * ((long) nlist * d + (long) d * ksub) + Long.BYTES * (nlist + 1L);
+    }
+
+    /**
+     * Saves the index to a file, which can be memory-mapped by
+     * {@link #open(Path)}. The file layout is a header followed by
+     * the coarse centroids, the codebooks, the offsets of inverted
+     * lists, and the ids, codes and raw vectors of inverted lists.
+     * All values are little-endian.
+     * @param path the file path.
+     * @throws IOException if fail to write the file.
+     */
+    public void save(Path path) throws IOException {
+        int nlist = lists.length;
+        int m = pq.subspaces();
+        int ksub = pq.centroids();
+        long header = headerBytes(d, nlist, ksub);
+        long[] offsets = new long[nlist + 1];
+        for (int i = 0; i < nlist; i++) {
+            offsets[i + 1] = offsets[i] + lists[i].size;
+        }
+
+        long total = offsets[nlist];
+        long length = header + total * (ID.byteSize() + m + (rerank ? d * RAW.byteSize() : 0));
+        try (var arena = Arena.ofConfined();
+             var channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                     StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            var file = channel.map(FileChannel.MapMode.READ_WRITE, 0, length, arena);
+            var buffer = file.asSlice(0, FIXED_HEADER).asByteBuffer().order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(MAGIC).putInt(VERSION).putInt(d).putInt(nlist).putInt(m).putInt(ksub)
+                  .putInt(rerank ? 1 : 0).putInt(size);
+            long pos = FIXED_HEADER;
+            for (double[] centroid : centroids) {
+                MemorySegment.copy(centroid, 0, file, REAL, pos, d);
+                pos += (long) d * Double.BYTES;
+            }
+            MemorySegment.copy(pq.codebooks(), 0, file, REAL, pos, d * ksub);
+            pos += (long) d * ksub * Double.BYTES;
+            MemorySegment.copy(offsets, 0, file, OFFSET, pos, offsets.length);
+
+            long idBase = header;
+            long codeBase = idBase + total * ID.byteSize();
+            long rawBase = codeBase + total * m;
+            for (int i = 0; i < nlist; i++) {
+                var list = lists[i];
+                if (list.size == 0) continue;
+                MemorySegment.copy(list.ids, 0, file, idBase + offsets[i] * ID.byteSize(), list.size * ID.byteSize());
+                MemorySegment.copy(list.codes, 0, file, codeBase + offsets[i] * m, (long) list.size * m);
+                if (rerank) {
+                    long bytes = (long) d * RAW.byteSize();
+                    MemorySegment.copy(list.raw, 0, file, rawBase + offsets[i] * bytes, list.size * bytes);
+                }
+            }
+            file.force();
+        }
+    }
+
+    /**
+     * Opens an index saved by {@link #save(Path)}. The inverted lists are
+     * memory-mapped rather than loaded to the heap. The mapping is released
+     * when the index is garbage collected. The vectors added after opening
+     * are kept in memory only.
+     * @param path the file path.
+     * @return the index.
+     * @throws IOException if fail to read the file.
+     */
+    public static IVFPQ open(Path path) throws IOException {
+        try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            var file = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size(), Arena.ofAuto());
+            if (file.byteSize() < FIXED_HEADER) {
+                throw new IOException("Invalid IVF-PQ index file: " + path);
+            }
+
+            // Only the fixed fields are wrapped as ByteBuffer, which is
+            // limited to 2GB. The rest is accessed as memory segments.
+            ByteBuffer buffer = file.asSlice(0, FIXED_HEADER).asByteBuffer().order(ByteOrder.LITTLE_ENDIAN);
+            if (buffer.getInt() != MAGIC) {
+                throw new IOException("Invalid IVF-PQ index file: " + path);
+            }
+
+            int version = buffer.getInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported IVF-PQ index version: " + version);
+            }
+
+            int d = buffer.getInt();
+            int nlist = buffer.getInt();
+            int m = buffer.getInt();
+            int ksub = buffer.getInt();
+            boolean rerank = buffer.getInt() != 0;
+            int size = buffer.getInt();
+
+            long header = headerBytes(d, nlist, ksub);
+            if (header > file.byteSize()) {
+                throw new IOException("Truncated IVF-PQ index file: " + path);
+            }
+
+            long pos = FIXED_HEADER;
+            double[][] centroids = new double[nlist][d];
+            for (double[] centroid : centroids) {
+                MemorySegment.copy(file, REAL, pos, centroid, 0, d);
+                pos += (long) d * Double.BYTES;
+            }
+            double[] codebooks = new double[d * ksub];
+            MemorySegment.copy(file, REAL, pos, codebooks, 0, codebooks.length);
+            pos += (long) codebooks.length * Double.BYTES;
+            long[] offsets = new long[nlist + 1];
+            MemorySegment.copy(file, OFFSET, pos, offsets, 0, offsets.length);
+
+            var index = new IVFPQ(centroids, new ProductQuantizer(d, m, ksub, codebooks), rerank);
+            index.size = size;
+
+            long total = offsets[nlist];
+            long idBase = header;
+            long codeBase = idBase + total * ID.byteSize();
+            long rawBase = codeBase + total * m;
+            for (int i = 0; i < nlist; i++) {
+                var list = index.lists[i];
+                int n = (int) (offsets[i + 1] - offsets[i]);
+                if (n == 0) continue;
+                list.size = n;
+                list.capacity = n;
+                list.ids = file.asSlice(idBase + offsets[i] * ID.byteSize(), n * ID.byteSize());
+                list.codes = file.asSlice(codeBase + offsets[i] * m, (long) n * m);
+                if (rerank) {
+                    long bytes = (long) d * RAW.byteSize();
+                    list.raw = file.asSlice(rawBase + offsets[i] * bytes, n * bytes);
+                }
+            }
+            return index;
+        }
+    }
+
+    /**
+     * A bounded max-heap of candidates on primitive arrays. The root is
+     * the farthest candidate, which is replaced by a closer one when the
+     * heap is full.
+     */
+    private static class Heap {
+        /** The distances of candidates. */
+        final float[] distance;
+        /** The references of candidates to the inverted list entries. */
+        final long[] ref;
+        /** The number of candidates. */
+        int size;
+
+        /** Constructor. */
+        Heap(int capacity) {
+            distance = new float[capacity];
+            ref = new long[capacity];
+        }
+
+        /** Offers a candidate. */
+        void offer(float dist, long r) {
+            if (size < distance.length) {
+                int i = size++;
+                while (i > 0) {
+                    int parent = (i - 1) >>> 1;
+                    if (distance[parent] >= dist) break;
+                    distance[i] = distance[parent];
+                    ref[i] = ref[parent];
+                    i = parent;
+                }
+                distance[i] = dist;
+                ref[i] = r;
+            } else if (dist < distance[0]) {
+                siftDown(dist, r);
+            }
+        }
+
+        /** Removes the farthest candidate and returns its reference. */
+        long poll() {
+            long r = ref[0];
+            size--;
+            if (size > 0) {
+                siftDown(distance[size], ref[size]);
+            }
+            return r;
+        }
+
+        /** Places a candidate at the root and sifts it down. */
+        private void siftDown(float dist, long r) {
+            int i = 0;
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= size) break;
+                if (child + 1 < size && distance[child + 1] > distance[child]) child++;
+                if (distance[child] <= dist) break;
+                distance[i] = distance[child];
+                ref[i] = ref[child];
+                i = child;
+            }
+            distance[i] = dist;
+            ref[i] = r;
+        }
+    }
+}
@@ -0,0 +1,239 @@
+/*
+ * Copyright (c) 2010-2025 Haifeng Li. All rights reserved.
+ *
+ * Smile is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Smile is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Smile. If not, see <https://www.gnu.org/licenses/>.
+ */
+package smile.vq;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+import smile.clustering.KMeans;
+
+/**
+ * Product quantization. The vector space is decomposed into the Cartesian
+ * product of m low dimensional subspaces, each of which is quantized by
+ * a k-means codebook of at most 256 centroids. A vector is encoded as m
+ * bytes, the indices of the nearest centroids in the subspaces. The
+ * squared Euclidean distance between a query and an encoded vector is
+ * approximated by the sum of m entries in a precomputed distance table
+ * (asymmetric distance computation), without decoding the vector.
+ *
+ * <h2>References</h2>
+ * <ol>
+ * <li> H. Jegou, M. Douze, and C. Schmid. Product quantization for nearest neighbor search. IEEE TPAMI, 33(1):117-128, 2011.</li>
+ * </ol>
+ *
+ * @author Haifeng Li
+ */
+public class ProductQuantizer implements Serializable {
+    @Serial
+    private static final long serialVersionUID = 1L;
+    /** The maximum number of centroids per subspace. */
+    public static final int MAX_CENTROIDS = 256;
+
+    /** The dimension of vectors. */
+    private final int d;
+    /** The number of subspaces. */
+    private final int m;
+    /** The dimension of subspaces. */
+    private final int dsub;
+    /** The number of centroids per subspace. */
+    private final int ksub;
+    /** The flattened codebooks of shape [m][ksub][dsub]. */
+    private final double[] codebooks;
+
+    /**
+     * Constructor.
+     * @param d the dimension of vectors.
+     * @param m the number of subspaces.
+     * @param ksub the number of centroids per subspace.
+     * @param codebooks the flattened codebooks of shape [m][ksub][d/m].
+     */
+    public ProductQuantizer(int d, int m, int ksub, double[] codebooks) {
+        if (m <= 0 || d % m != 0) {
+            throw new IllegalArgumentException(String.format("The dimension %d is not divisible by the number of subspaces %d", d, m));
+        }
+        if (ksub < 1 || ksub > MAX_CENTROIDS) {
+            throw new IllegalArgumentException("Invalid number of centroids per subspace: " + ksub);
+        }
+        if (codebooks.length != d * ksub) {
+            throw new IllegalArgumentException("Invalid codebook size: " + codebooks.length);
+        }
+
+        this.d = d;
+        this.m = m;
+        this.dsub = d / m;
+        this.ksub = ksub;
+        this.codebooks = codebooks;
+    }
+
+    /**
+     * Trains the codebooks by k-means in each subspace.
+     * @param data the training data.
+     * @param m the number of subspaces.
+     * @param ksub the number of centroids per subspace, at most 256.
+     * @param maxIter the maximum number of k-means iterations.
+     * @return the model.
+     */
+    public static ProductQuantizer fit(double[][] data, int m, int ksub, int maxIter) {
+        int n = data.length;
+        int d = data[0].length;
+        if (m <= 0 || d % m != 0) {
+            throw new IllegalArgumentException(String.format("The dimension %d is not divisible by the number of subspaces %d", d, m));
+        }
+        if (n < ksub) {
+            throw new IllegalArgumentException(String.format("Too few training samples %d for %d centroids", n, ksub));
+        }
+
+        int dsub = d / m;
+        double[] codebooks = new double[d * ksub];
+        IntStream.range(0, m).parallel().forEach(j -> {
+            double[][] sub = new double[n][];
+            for (int i = 0; i < n; i++) {
+                sub[i] = Arrays.copyOfRange(data[i], j * dsub, (j + 1) * dsub);
+            }
+
+            var kmeans = KMeans.fit(sub, ksub, maxIter);
+            double[][] centers = kmeans.centers();
+            for (int c = 0; c < ksub; c++) {
+                System.arraycopy(centers[c], 0, codebooks, (j * ksub + c) * dsub, dsub);
+            }
+        });
+        return new ProductQuantizer(d, m, ksub, codebooks);
+    }
+
+    /**
+     * Returns the dimension of vectors.
+     * @return the dimension of vectors.
+     */
+    public int dimension() {
+        return d;
+    }
+
+    /**
+     * Returns the number of subspaces, i.e. the code length in bytes.
+     * @return the number of subspaces.
+     */
+    public int subspaces() {
+        return m;
+    }
+
+    /**
+     * Returns the number of centroids per subspace.
+     * @return the number of centroids per subspace.
+     */
+    public int centroids() {
+        return ksub;
+    }
+
+    /**
+     * Returns the flattened codebooks of shape [m][ksub][d/m].
+     * @return the flattened codebooks.
+     */
+    public double[] codebooks() {
+        return codebooks;
+    }
+
+    /**
+     * Encodes a vector.
+     * @param x the vector.
+     * @return the code.
+     */
+    public byte[] encode(double[] x) {
+        byte[] code = new byte[m];
+        encode(x, code, 0);
+        return code;
+    }
+
+    /**
+     * Encodes a vector.
+     * @param x the vector.
+     * @param code the output buffer.
+     * @param offset the offset of code in the buffer.
+     */
+    public void encode(double[] x, byte[] code, int offset) {
+        for (int j = 0; j < m; j++) {
+            int best = 0;
+            double nearest = Double.MAX_VALUE;
+            for (int c = 0; c < ksub; c++) {
+                int base = (j * ksub + c) * dsub;
+                double dist = 0.0;
+                for (int l = 0; l < dsub; l++) {
+                    double diff = x[j * dsub + l] - codebooks[base + l];
+                    dist += diff * diff;
+                }
+
+                if (dist < nearest) {
+                    nearest = dist;
+                    best = c;
+                }
+            }
+            code[offset + j] = (byte) best;
+        }
+    }
+
+    /**
+     * Decodes a code to the reconstructed vector.
+     * @param code the code.
+     * @return the reconstructed vector.
+     */
+    public double[] decode(byte[] code) {
+        double[] x = new double[d];
+        for (int j = 0; j < m; j++) {
+            int base = (j * ksub + (code[j] & 0xFF)) * dsub;
+            System.arraycopy(codebooks, base, x, j * dsub, dsub);
+        }
+        return x;
+    }
+
+    /**
+     * Returns the table of squared distances between the subvectors of
+     * query and the centroids, of which the entry (j, c) is at j * ksub + c.
+     * @param q the query vector.
+     * @return the distance table.
+     */
+    public float[] table(double[] q) {
+        float[] table = new float[m * ksub];
+        for (int j = 0; j < m; j++) {
+            for (int c = 0; c < ksub; c++) {
+                int base = (j * ksub + c) * dsub;
+                double dist = 0.0;
+                for (int l = 0; l < dsub; l++) {
+                    double diff = q[j * dsub + l] - codebooks[base + l];
+                    dist += diff * diff;
+                }
+                table[j * ksub + c] = (float) dist;
+            }
+        }
+        return table;
+    }
+
+    /**
+     * Returns the approximate squared distance between the query
+     * of a distance table and an encoded vector.
+     * @param table the distance table of query.
+     * @param code the codes.
+     * @param offset the offset of code.
+     * @return the approximate squared distance.
+     */
+    public float distance(float[] table, byte[] code, int offset) {
+        float dist = 0.0f;
+        for (int j = 0, base = 0; j < m; j++, base += ksub) {
+            dist += table[base + (code[offset + j] & 0xFF)];
+        }
+        return dist;
+    }
+}
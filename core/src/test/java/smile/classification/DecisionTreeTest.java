@@ -17,11 +17,14 @@
 package smile.classification;
 
 import smile.classification.DecisionTree.Options;
+import smile.data.DataFrame;
+import smile.data.vector.ValueVector;
 import smile.datasets.BreastCancer;
 import smile.datasets.*;
 import smile.io.Read;
 import smile.io.Write;
 import smile.math.MathEx;
+import smile.model.cart.Bins;
 import smile.model.cart.SplitRule;
 import smile.validation.*;
 import smile.validation.metric.Error;
@@ -235,4 +238,41 @@ public class DecisionTreeTest {
             System.out.format("%-15s %.4f    %.4f    %.4f%n", fields[i], shap[2*i], shap[2*i+1], shap[2*i+2]);
         }
     }
+
+    /** Predicts the class codes with a tree fitted without formula. */
+    private static int[] predict(DecisionTree tree, DataFrame x) {
+        return x.stream().mapToInt(tree::predict).toArray();
+    }
+
+    @Test
+    public void testBinned() throws Exception {
+        System.out.println("Histogram-based split finding");
+        // The columns of iris have fewer distinct values than bins,
+        // so the candidate splits are exactly those of the exact algorithm.
+        var iris = new Iris();
+        var formula = iris.formula().expand(iris.data().schema());
+        DataFrame x = formula.x(iris.data());
+        ValueVector y = formula.y(iris.data());
+        ClassLabels codec = ClassLabels.fit(y);
+        var exact = new DecisionTree(x, codec.y, y.field(), codec.k, SplitRule.GINI, 20, 100, 5, x.ncol(), null, null);
+        var binned = new DecisionTree(x, codec.y, y.field(), codec.k, SplitRule.GINI, 20, 100, 5, x.ncol(), null, null, new Bins(x, 256));
+        assertEquals(exact.size(), binned.size());
+        assertArrayEquals(predict(exact, x), predict(binned, x));
+
+        var segment = new ImageSegmentation();
+        formula = segment.formula().expand(segment.train().schema());
+        x = formula.x(segment.train());
+        y = formula.y(segment.train());
+        codec = ClassLabels.fit(y);
+        DataFrame testx = formula.x(segment.test());
+        int[] testy = codec.indexOf(segment.testy());
+        exact = new DecisionTree(x, codec.y, y.field(), codec.k, SplitRule.ENTROPY, 20, 100, 5, x.ncol(), null, null);
+        binned = new DecisionTree(x, codec.y, y.field(), codec.k, SplitRule.ENTROPY, 20, 100, 5, x.ncol(), null, null, new Bins(x, 256));
+
+        int error = Error.of(testy, predict(exact, testx));
+        int binnedError = Error.of(testy, predict(binned, testx));
+        System.out.format("Error of exact = %d, binned = %d%n", error, binnedError);
+        assertEquals(43, error);
+        assertEquals(error, binnedError, 0.02 * testy.length);
+    }
 }
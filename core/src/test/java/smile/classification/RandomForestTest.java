@@ -16,10 +16,13 @@
  */
 package smile.classification;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.concurrent.Flow;
 import smile.classification.RandomForest.Options;
 import smile.data.DataFrame;
+import smile.data.Tuple;
 import smile.datasets.*;
 import smile.io.Read;
 import smile.io.Write;
@@ -226,6 +229,24 @@ public class RandomForestTest {
         }
     }
 
+    @Test
+    public void testBinned() throws Exception {
+        System.out.println("Histogram-based split finding");
+        var segment = new ImageSegmentation();
+        int[] testy = segment.testy();
+        var exact = RandomForest.fit(segment.formula(), segment.train(),
+                new Options(200, 16, SplitRule.GINI, 20, 100, 5, 0, 1.0, null, seeds, null));
+        var options = new Options(200, 16, SplitRule.GINI, 20, 100, 5, 256, 1.0, null, seeds, null);
+        var binned = RandomForest.fit(segment.formula(), segment.train(), options);
+
+        int error = Error.of(testy, exact.predict(segment.test()));
+        int binnedError = Error.of(testy, binned.predict(segment.test()));
+        System.out.format("Error of exact = %d, binned = %d%n", error, binnedError);
+        assertEquals(34, error);
+        assertEquals(error, binnedError, 0.01 * testy.length);
+        assertEquals(256, Options.of(options.toProperties()).maxBins());
+    }
+
     @Test
     public void testUSPS() throws Exception {
         System.out.println("USPS");
@@ -371,4 +392,39 @@ public class RandomForestTest {
             System.out.format("%-15s %.4f    %.4f    %.4f%n", fields[i], shap[2*i], shap[2*i+1], shap[2*i+2]);
         }
     }
+
+    @Test
+    public void testFlatForest() throws Exception {
+        System.out.println("Flat forest");
+        MathEx.setSeed(19650218); // to get repeatable results.
+        var weather = new WeatherNominal();
+        var options = new Options(20, 2, SplitRule.GINI, 8, 10, 1, 1.0, null, seeds, null);
+        RandomForest model = RandomForest.fit(weather.formula(), weather.data(), options);
+        DataFrame x = weather.formula().x(weather.data());
+
+        int[] prediction = model.predict(weather.data());
+        List<double[]> posteriori = new ArrayList<>();
+        int[] soft = model.predict(weather.data(), posteriori);
+
+        double[] prob = new double[2];
+        double[] expected = new double[2];
+        for (int i = 0; i < x.size(); i++) {
+            Tuple xi = x.get(i);
+            int[] votes = new int[2];
+            Arrays.fill(expected, 0.0);
+            for (var m : model.models()) {
+                votes[m.tree().predict(xi)]++;
+                m.tree().predict(xi, prob);
+                for (int j = 0; j < 2; j++) {
+                    expected[j] += m.weight() * prob[j];
+                }
+            }
+            MathEx.unitize1(expected);
+
+            assertEquals(MathEx.whichMax(votes), prediction[i]);
+            assertEquals(model.predict(weather.data().get(i)), prediction[i]);
+            assertEquals(MathEx.whichMax(expected), soft[i]);
+            assertArrayEquals(expected, posteriori.get(i), 1E-10);
+        }
+    }
 }
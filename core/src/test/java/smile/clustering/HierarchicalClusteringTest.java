@@ -16,10 +16,16 @@
  */
 package smile.clustering;
 
+import java.nio.file.Files;
 import smile.clustering.linkage.*;
+import smile.datasets.GaussianMixture;
 import smile.io.Read;
 import smile.io.Write;
 import smile.datasets.USPS;
+import smile.graph.AdjacencyList;
+import smile.graph.NearestNeighborGraph;
+import smile.math.MathEx;
+import smile.math.distance.EuclideanDistance;
 import smile.validation.metric.*;
 import org.junit.jupiter.api.*;
 import static org.junit.jupiter.api.Assertions.*;
@@ -49,6 +55,86 @@ public class HierarchicalClusteringTest {
     public void tearDown() {
     }
 
+    /** Returns every 10th point of Gaussian mixture. */
+    private static double[][] sample() {
+        double[][] x = GaussianMixture.generate().x();
+        return java.util.stream.IntStream.range(0, x.length / 10).mapToObj(i -> x[10 * i]).toArray(double[][]::new);
+    }
+
+    @Test
+    public void testNNChain() throws Exception {
+        System.out.println("NN-chain");
+        double[][] x = sample();
+        var complete = HierarchicalClustering.fit(CompleteLinkage.of(x));
+        var model = HierarchicalClustering.nnChain(CompleteLinkage.of(x));
+        assertArrayEquals(complete.height(), model.height(), 1E-5);
+        assertEquals(1.0, AdjustedRandIndex.of(complete.partition(6), model.partition(6)), 1E-7);
+
+        var ward = HierarchicalClustering.fit(WardLinkage.of(x));
+        model = HierarchicalClustering.nnChain(WardLinkage.of(x));
+        assertArrayEquals(ward.height(), model.height(), 1E-2);
+        assertEquals(1.0, AdjustedRandIndex.of(ward.partition(6), model.partition(6)), 1E-7);
+
+        // Ward's linkage on centroids without proximity matrix.
+        model = HierarchicalClustering.ward(x);
+        assertArrayEquals(ward.height(), model.height(), 1E-2);
+        assertEquals(1.0, AdjustedRandIndex.of(ward.partition(6), model.partition(6)), 1E-7);
+
+        assertThrows(IllegalArgumentException.class, () -> HierarchicalClustering.nnChain(UPGMCLinkage.of(x)));
+    }
+
+    @Test
+    public void testSingleLinkageMST() {
+        System.out.println("Single linkage MST");
+        double[][] x = sample();
+        var single = HierarchicalClustering.fit(SingleLinkage.of(x));
+        var model = HierarchicalClustering.singleLinkage(x, new EuclideanDistance());
+        assertArrayEquals(single.height(), model.height(), 1E-5);
+        assertEquals(1.0, AdjustedRandIndex.of(single.partition(6), model.partition(6)), 1E-7);
+    }
+
+    @Test
+    public void testSingleLinkageGraph() {
+        System.out.println("Single linkage k-NN graph");
+        double[][] x = sample();
+        var single = HierarchicalClustering.singleLinkage(x, new EuclideanDistance());
+        // The k-NN graph with k = n - 1 contains the minimum spanning tree.
+        var graph = NearestNeighborGraph.of(x, x.length - 1).graph(false);
+        var model = HierarchicalClustering.singleLinkage(graph);
+        assertArrayEquals(single.height(), model.height(), 1E-7);
+        assertEquals(1.0, AdjustedRandIndex.of(single.partition(6), model.partition(6)), 1E-7);
+
+        // Two components are merged at the infinite height in the end.
+        var forest = new AdjacencyList(6);
+        forest.setWeight(0, 1, 1.0);
+        forest.setWeight(1, 2, 2.0);
+        forest.setWeight(3, 4, 1.5);
+        forest.setWeight(4, 5, 3.0);
+        forest.setWeight(3, 5, 4.0);
+        model = HierarchicalClustering.singleLinkage(forest);
+        assertArrayEquals(new double[]{1.0, 1.5, 2.0, 3.0, Double.POSITIVE_INFINITY}, model.height(), 1E-7);
+        int[] y = model.partition(2);
+        assertEquals(y[0], y[1]);
+        assertEquals(y[0], y[2]);
+        assertEquals(y[3], y[4]);
+        assertEquals(y[3], y[5]);
+        assertNotEquals(y[0], y[3]);
+    }
+
+    @Test
+    public void testMemoryMappedProximity() throws Exception {
+        System.out.println("Memory-mapped proximity");
+        double[][] x = sample();
+        var file = Files.createTempFile("smile-proximity", ".bin");
+        file.toFile().deleteOnExit();
+
+        var proximity = Linkage.proximity(x, MathEx::distance, file);
+        assertEquals(4L * x.length * (x.length + 1) / 2, Files.size(file));
+        var mapped = HierarchicalClustering.fit(new UPGMALinkage(x.length, proximity));
+        var upgma = HierarchicalClustering.fit(UPGMALinkage.of(x));
+        assertArrayEquals(upgma.height(), mapped.height(), 1E-7);
+    }
+
     @Test
     public void testUSPS() throws Exception {
         System.out.println("USPS");
@@ -138,6 +138,77 @@ public class KMeansTest {
         System.out.format("NMI.sqrt = %.2f%%%n", 100 * NormalizedMutualInformation.sqrt(y, model.group()));
     }
 
+    @Test
+    public void testHamerly() {
+        System.out.println("Hamerly");
+        MathEx.setSeed(19650218); // to get repeatable results.
+        var model = KMeans.hamerly(x, 4, 100);
+        System.out.println(model);
+
+        // The assignment must be the same as that of exhaustive search.
+        double[][] centroids = model.centers();
+        for (int i = 0; i < x.length; i++) {
+            double nearest = Double.MAX_VALUE;
+            for (double[] centroid : centroids) {
+                nearest = Math.min(nearest, MathEx.squaredDistance(x[i], centroid));
+            }
+            assertEquals(nearest, model.proximity(i), 1E-7);
+        }
+
+        var lloyd = KMeans.fit(x, 4, 100);
+        assertEquals(lloyd.distortion(), model.distortion(), 0.1 * lloyd.distortion());
+    }
+
+    @Test
+    public void testMiniBatch() {
+        System.out.println("Mini-Batch");
+        MathEx.setSeed(19650218); // to get repeatable results.
+        var model = KMeans.miniBatch(x, 100, new Clustering.Options(4, 1000));
+        System.out.println(model);
+        assertEquals(x.length, model.group().length);
+
+        var lloyd = KMeans.fit(x, 4, 100);
+        assertEquals(lloyd.distortion(), model.distortion(), 0.1 * lloyd.distortion());
+
+        // Streaming updates.
+        var stream = new MiniBatchKMeans(KMeans.seed(x, 4));
+        for (int i = 0; i + 100 <= x.length; i += 100) {
+            stream.update(java.util.Arrays.copyOfRange(x, i, i + 100));
+        }
+        long count = 0;
+        for (int i = 0; i < stream.k(); i++) {
+            count += stream.count(i);
+        }
+        assertEquals(x.length / 100 * 100, count);
+
+        // The returned clustering is a snapshot of the streaming model.
+        var snapshot = stream.clustering(x);
+        double[][] centers = MathEx.clone(snapshot.centers());
+        int[] labels = java.util.Arrays.stream(x).mapToInt(snapshot::predict).toArray();
+        stream.update(java.util.Arrays.copyOfRange(x, 0, 100));
+        for (int i = 0; i < centers.length; i++) {
+            assertArrayEquals(centers[i], snapshot.center(i), 0.0);
+        }
+        assertArrayEquals(labels, java.util.Arrays.stream(x).mapToInt(snapshot::predict).toArray());
+    }
+
+    @Test
+    public void testSeed() {
+        System.out.println("k-means||");
+        MathEx.setSeed(19650218); // to get repeatable results.
+        double[][] seeds = KMeans.seed(x, 64);
+        assertEquals(64, seeds.length);
+        for (double[] seed : seeds) {
+            assertEquals(x[0].length, seed.length);
+        }
+
+        MathEx.setSeed(19650218);
+        double[][] again = KMeans.seed(x, 64);
+        for (int i = 0; i < seeds.length; i++) {
+            assertArrayEquals(seeds[i], again[i], 1E-10);
+        }
+    }
+
     @Test
     public void testUSPS() throws Exception {
         System.out.println("USPS");
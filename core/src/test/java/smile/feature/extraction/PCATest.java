@@ -18,6 +18,8 @@ package smile.feature.extraction;
 
 import smile.math.MathEx;
 import smile.datasets.USArrests;
+import smile.tensor.BlockMatrix;
+import smile.tensor.DenseMatrix;
 import org.junit.jupiter.api.*;
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -128,6 +130,39 @@ public class PCATest {
         }
     }
 
+    @Test
+    public void testPCABlockMatrix() {
+        System.out.println("block matrix");
+        DenseMatrix X = DenseMatrix.of(x);
+        BlockMatrix data = new BlockMatrix(X.rows(0, 20), X.rows(20, 35), X.rows(35, 50));
+        PCA pca = PCA.fit(data).getProjection(4);
+        PCA expected = PCA.fit(x).getProjection(4);
+        assertTrue(MathEx.equals(expected.varianceProportion().toArray(new double[0]), pca.varianceProportion().toArray(new double[0]), 1E-7));
+        assertTrue(MathEx.equals(expected.center().toArray(new double[0]), pca.center().toArray(new double[0]), 1E-10));
+
+        for (int i = 0; i < 4; i++) {
+            for (int j = 0; j < 4; j++) {
+                assertEquals(Math.abs(expected.loadings().get(i, j)), Math.abs(pca.loadings().get(i, j)), 1E-5);
+            }
+        }
+
+        // The large means don't cause catastrophic cancellation.
+        DenseMatrix Y = X.copy();
+        for (int i = 0; i < Y.nrow(); i++) {
+            for (int j = 0; j < Y.ncol(); j++) {
+                Y.add(i, j, 1E8);
+            }
+        }
+        data = new BlockMatrix(Y.rows(0, 20), Y.rows(20, 35), Y.rows(35, 50));
+        pca = PCA.fit(data).getProjection(4);
+        assertTrue(MathEx.equals(expected.varianceProportion().toArray(new double[0]), pca.varianceProportion().toArray(new double[0]), 1E-7));
+        for (int i = 0; i < 4; i++) {
+            for (int j = 0; j < 4; j++) {
+                assertEquals(Math.abs(expected.loadings().get(i, j)), Math.abs(pca.loadings().get(i, j)), 1E-5);
+            }
+        }
+    }
+
     @Test
     public void testPCACor() {
         System.out.println("learn");
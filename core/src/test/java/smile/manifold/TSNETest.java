@@ -63,4 +63,26 @@ public class TSNETest {
 
         assertEquals(1.4170, tsne.cost(), 1E-3);
     }
+
+    @Test
+    public void testBarnesHut() throws Exception {
+        System.out.println("Barnes-Hut tSNE");
+        MathEx.setSeed(19650218); // to get repeatable results.
+        var mnist = new MNIST();
+        double[][] x = mnist.x();
+        PCA pca = PCA.fit(x).getProjection(50);
+        double[][] X = pca.apply(x);
+
+        long start = System.currentTimeMillis();
+        TSNE tsne = TSNE.fit(X, new TSNE.Options(2, 20, 200, 12, 550, 0.5));
+        long end = System.currentTimeMillis();
+        System.out.format("Barnes-Hut t-SNE takes %.2f seconds\n", (end - start) / 1000.0);
+
+        assertEquals(X.length, tsne.coordinates().length);
+        assertEquals(2, tsne.coordinates()[0].length);
+        assertTrue(tsne.cost() > 0 && tsne.cost() < 2.0);
+
+        var options = new TSNE.Options(2, 20, 200, 12, 550, 0.5);
+        assertEquals(0.5, TSNE.Options.of(options.toProperties()).theta());
+    }
 }
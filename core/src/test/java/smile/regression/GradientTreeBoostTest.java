@@ -408,4 +408,27 @@ public class GradientTreeBoostTest {
         String[] expected = {"CHAS", "ZN", "RAD", "INDUS", "B", "TAX", "AGE", "PTRATIO", "NOX", "CRIM", "DIS", "RM", "LSTAT"};
         assertArrayEquals(expected, fields);
     }
+
+    @Test
+    public void testBinned() {
+        System.out.println("Histogram-based split finding");
+        var train = abalone.train();
+        var test = abalone.test();
+        double[] y = abalone.formula().y(test).toDoubleArray();
+
+        MathEx.setSeed(19650218); // to get repeatable results.
+        var exact = GradientTreeBoost.fit(abalone.formula(), train,
+                new GradientTreeBoost.Options(Loss.ls(), 200, 20, 6, 5, 0, 0.05, 0.7, null, null));
+        MathEx.setSeed(19650218); // to get repeatable results.
+        var binned = GradientTreeBoost.fit(abalone.formula(), train,
+                new GradientTreeBoost.Options(Loss.ls(), 200, 20, 6, 5, 256, 0.05, 0.7, null, null));
+
+        double rmse = RMSE.of(y, exact.predict(test));
+        double binnedRMSE = RMSE.of(y, binned.predict(test));
+        System.out.format("RMSE of exact = %.4f, binned = %.4f%n", rmse, binnedRMSE);
+        assertEquals(rmse, binnedRMSE, 0.05 * rmse);
+
+        var options = new GradientTreeBoost.Options(Loss.ls(), 200, 20, 6, 5, 256, 0.05, 0.7, null, null);
+        assertEquals(256, GradientTreeBoost.Options.of(options.toProperties()).maxBins());
+    }
 }
@@ -16,11 +16,16 @@
  */
 package smile.regression;
 
+import java.util.Arrays;
 import smile.data.DataFrame;
+import smile.data.formula.Formula;
 import smile.datasets.ProstateCancer;
 import smile.io.Read;
 import smile.io.Write;
 import smile.math.MathEx;
+import smile.tensor.BlockMatrix;
+import smile.tensor.DenseMatrix;
+import smile.tensor.Vector;
 import smile.datasets.CPU;
 import smile.datasets.Longley;
 import smile.validation.CrossValidation;
@@ -103,6 +108,30 @@ public class OLSTest {
         model.predict(test);
     }
 
+    @Test
+    public void testLongleyBlockMatrix() throws Exception {
+        System.out.println("Longley block matrix");
+        var longley = new Longley();
+        Formula formula = longley.formula().expand(longley.data().schema());
+        formula.bind(longley.data().schema());
+        DenseMatrix X = formula.matrix(longley.data());
+        double[] y = formula.y(longley.data()).toDoubleArray();
+
+        BlockMatrix bx = new BlockMatrix(X.rows(0, 8), X.rows(8, 16));
+        BlockMatrix by = new BlockMatrix(
+                Vector.column(Arrays.copyOfRange(y, 0, 8)),
+                Vector.column(Arrays.copyOfRange(y, 8, 16)));
+        Vector w = OLS.solve(bx, by);
+
+        LinearModel model = OLS.fit(longley.formula(), longley.data());
+        // Longley is ill-conditioned so that the tolerance is relative.
+        assertEquals(model.intercept(), w.get(0), 1E-4 * Math.abs(model.intercept()));
+        Vector coef = model.coefficients();
+        for (int i = 0; i < coef.size(); i++) {
+            assertEquals(coef.get(i), w.get(i + 1), 1E-4 * Math.abs(coef.get(i)));
+        }
+    }
+
     @Test
     public void testCPU() throws Exception {
         System.out.println("CPU");
@@ -0,0 +1,168 @@
+/*
+ * Copyright (c) 2010-2025 Haifeng Li. All rights reserved.
+ *
+ * Smile is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Smile is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Smile. If not, see <https://www.gnu.org/licenses/>.
+ */
+package smile.vq;
+
+import java.nio.file.Files;
+import java.util.Properties;
+import smile.datasets.USPS;
+import smile.math.MathEx;
+import smile.neighbor.LinearSearch;
+import smile.neighbor.Neighbor;
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author Haifeng Li
+ */
+public class IVFPQTest {
+    double[][] x;
+    double[][] testx;
+    LinearSearch<double[], double[]> naive;
+
+    public IVFPQTest() throws Exception {
+        MathEx.setSeed(19650218); // to get repeatable results.
+        var usps = new USPS();
+        x = usps.x();
+        testx = usps.testx();
+        naive = LinearSearch.of(x, MathEx::distance);
+    }
+
+    @BeforeAll
+    public static void setUpClass() throws Exception {
+    }
+
+    @AfterAll
+    public static void tearDownClass() throws Exception {
+    }
+
+    @BeforeEach
+    public void setUp() {
+    }
+
+    @AfterEach
+    public void tearDown() {
+    }
+
+    /** Returns the average recall of k nearest neighbors. */
+    private double recall(IVFPQ index, int k) {
+        int hit = 0;
+        var result = index.search(testx, k);
+        for (int i = 0; i < testx.length; i++) {
+            var truth = naive.search(testx[i], k);
+            for (var m2 : truth) {
+                for (var m1 : result[i]) {
+                    if (m1.index() == m2.index()) {
+                        hit++;
+                        break;
+                    }
+                }
+            }
+        }
+        return (double) hit / (k * testx.length);
+    }
+
+    @Test
+    public void testOptions() {
+        System.out.println("Options");
+        var options = new IVFPQ.Options(64, 16, 256, 20, true);
+        Properties props = options.toProperties();
+        assertEquals(options, IVFPQ.Options.of(props));
+        assertThrows(IllegalArgumentException.class, () -> new IVFPQ.Options(64, 16, 512, 20, true));
+    }
+
+    @Test
+    public void testSearch() {
+        System.out.println("search");
+        var index = IVFPQ.of(x, new IVFPQ.Options(64, 32, 256, 20, false));
+        assertEquals(x.length, index.size());
+
+        index.setProbes(8);
+        double r8 = recall(index, 10);
+        index.setProbes(32);
+        double r32 = recall(index, 10);
+        System.out.format("recall@10 nprobe=8: %.3f, nprobe=32: %.3f%n", r8, r32);
+        assertTrue(r32 >= r8);
+        assertTrue(r32 > 0.5);
+
+        var neighbors = index.search(testx[0], 10);
+        assertEquals(10, neighbors.length);
+        for (int i = 1; i < neighbors.length; i++) {
+            assertTrue(neighbors[i].distance() >= neighbors[i-1].distance());
+        }
+    }
+
+    @Test
+    public void testRerank() {
+        System.out.println("rerank");
+        var index = IVFPQ.of(x, new IVFPQ.Options(64, 16, 256, 20, true));
+        index.setProbes(16);
+        index.setRefine(8);
+        double recall = recall(index, 10);
+        System.out.format("recall@10 with re-ranking: %.3f%n", recall);
+        assertTrue(recall > 0.8);
+
+        Neighbor<double[], Integer> nearest = index.nearest(x[0]);
+        assertEquals(0.0, nearest.distance(), 1E-3);
+        assertArrayEquals(x[0], nearest.key(), 1E-6);
+    }
+
+    @Test
+    public void testHeaderBytes() {
+        System.out.println("header bytes");
+        assertEquals(32 + 8 * (2 * 4 + 4 * 16) + 8 * 3, IVFPQ.headerBytes(4, 2, 16));
+        // Billion-scale index whose header alone is larger than 2GB.
+        long expected = 32 + 8L * ((1L << 20) * 1024 + 1024 * 256) + 8L * ((1 << 20) + 1);
+        assertEquals(expected, IVFPQ.headerBytes(1024, 1 << 20, 256));
+        assertTrue(expected > Integer.MAX_VALUE);
+    }
+
+    @Test
+    public void testSaveOpen() throws Exception {
+        System.out.println("save/open");
+        var index = IVFPQ.fit(x, new IVFPQ.Options(32, 16, 64, 20, true));
+        index.add(x);
+        index.setProbes(8);
+
+        var path = Files.createTempFile("smile-ivfpq", ".index");
+        path.toFile().deleteOnExit();
+        index.save(path);
+
+        int d = x[0].length;
+        long header = IVFPQ.headerBytes(d, 32, 64);
+        assertEquals(IVFPQ.FIXED_HEADER + 8L * (32 * d + d * 64) + 8L * 33, header);
+        assertEquals(header + (long) x.length * (4 + 16 + 4 * d), Files.size(path));
+
+        var copy = IVFPQ.open(path);
+        copy.setProbes(8);
+        assertEquals(index.size(), copy.size());
+        for (int i = 0; i < 10; i++) {
+            var expected = index.search(testx[i], 5);
+            var actual = copy.search(testx[i], 5);
+            assertEquals(expected.length, actual.length);
+            for (int j = 0; j < expected.length; j++) {
+                assertEquals(expected[j].index(), actual[j].index());
+                assertEquals(expected[j].distance(), actual[j].distance(), 1E-7);
+            }
+        }
+
+        // Adds to the memory-mapped index.
+        int id = copy.add(testx[0]);
+        assertEquals(x.length, id);
+        assertEquals(0.0, copy.nearest(testx[0]).distance(), 1E-3);
+    }
+}
@@ -0,0 +1,540 @@
+/*
+ * Copyright (c) 2010-2025 Haifeng Li. All rights reserved.
+ *
+ * Smile is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Smile is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Smile. If not, see <https://www.gnu.org/licenses/>.
+ */
+package smile.deep;
+
+import java.io.IOException;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteOrder;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import smile.data.DataFrame;
+import smile.data.formula.Formula;
+import smile.data.vector.ValueVector;
+import smile.deep.tensor.ScalarType;
+import smile.deep.tensor.Tensor;
+import smile.math.Random;
+
+/**
+ * A data loader assembles mini-batches from a source of samples with
+ * a pool of worker threads. The batches are prefetched into a bounded
+ * queue while the model is trained on the previous ones, and are
+ * delivered in order so that training is reproducible.
+ * <p>
+ * The samples are shuffled per epoch with a permutation determined
+ * by the seed and the epoch index. The epoch index is increased by
+ * every call of {@link #iterator()}.
+ * <p>
+ * The array sources, i.e. data frames and memory-mapped arrays, gather
+ * the samples of a batch directly from the columns or the mapped memory
+ * into reused buffers. The batch tensors may be allocated in pinned
+ * memory for fast copy to CUDA devices.
+ *
+ * @author Haifeng Li
+ */
+public class DataLoader implements Dataset {
+    /** The layout of memory-mapped array elements. */
+    private static final ValueLayout.OfFloat FLOAT = ValueLayout.JAVA_FLOAT_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+
+    /**
+     * The source of samples.
+     */
+    public interface Source {
+        /**
+         * Returns the number of samples.
+         * @return the number of samples.
+         */
+        long size();
+
+        /**
+         * Returns a mini-batch of samples. This method may be called
+         * by multiple worker threads concurrently.
+         * @param index the sample index.
+         * @param pin true if the tensors should be allocated in pinned memory.
+         * @return the sample batch.
+         * @throws IOException if fail to read the samples.
+         */
+        SampleBatch get(int[] index, boolean pin) throws IOException;
+    }
+
+    /**
+     * The data loader hyperparameters.
+     * @param batch the mini-batch size.
+     * @param workers the number of worker threads.
+     * @param prefetch the maximum number of batches loaded in advance.
+     * @param shuffle true if the samples are shuffled per epoch.
+     * @param seed the seed of shuffling permutations.
+     * @param dropLast true if the last incomplete batch is dropped.
+     * @param pin true if the batch tensors are allocated in pinned
+     *            memory. It is ignored if CUDA is not available.
+     */
+    public record Options(int batch, int workers, int prefetch, boolean shuffle, long seed, boolean dropLast, boolean pin) {
+        /** Constructor. */
+        public Options {
+            if (batch <= 0) {
+                throw new IllegalArgumentException("Invalid mini-batch size: " + batch);
+            }
+
+            if (workers <= 0) {
+                throw new IllegalArgumentException("Invalid number of workers: " + workers);
+            }
+
+            if (prefetch <= 0) {
+                throw new IllegalArgumentException("Invalid number of prefetched batches: " + prefetch);
+            }
+        }
+
+        /**
+         * Constructor with shuffling.
+         * @param batch the mini-batch size.
+         */
+        public Options(int batch) {
+            this(batch, Math.min(4, Runtime.getRuntime().availableProcessors()));
+        }
+
+        /**
+         * Constructor with shuffling.
+         * @param batch the mini-batch size.
+         * @param workers the number of worker threads.
+         */
+        public Options(int batch, int workers) {
+            this(batch, workers, 2 * workers, true, 0, false, false);
+        }
+
+        /**
+         * Returns the persistent set of hyperparameters.
+         * @return the persistent set.
+         */
+        public Properties toProperties() {
+            Properties props = new Properties();
+            props.setProperty("smile.data.loader.batch", Integer.toString(batch));
+            props.setProperty("smile.data.loader.workers", Integer.toString(workers));
+            props.setProperty("smile.data.loader.prefetch", Integer.toString(prefetch));
+            props.setProperty("smile.data.loader.shuffle", Boolean.toString(shuffle));
+            props.setProperty("smile.data.loader.seed", Long.toString(seed));
+            props.setProperty("smile.data.loader.drop_last", Boolean.toString(dropLast));
+            props.setProperty("smile.data.loader.pin", Boolean.toString(pin));
+            return props;
+        }
+
+        /**
+         * Returns the options from properties.
+         *
+         * @param props the hyperparameters.
+         * @return the options.
+         */
+        public static Options of(Properties props) {
+            int batch = Integer.parseInt(props.getProperty("smile.data.loader.batch", "32"));
+            int workers = Integer.parseInt(props.getProperty("smile.data.loader.workers", "4"));
+            int prefetch = Integer.parseInt(props.getProperty("smile.data.loader.prefetch", Integer.toString(2 * workers)));
+            boolean shuffle = Boolean.parseBoolean(props.getProperty("smile.data.loader.shuffle", "true"));
+            long seed = Long.parseLong(props.getProperty("smile.data.loader.seed", "0"));
+            boolean dropLast = Boolean.parseBoolean(props.getProperty("smile.data.loader.drop_last", "false"));
+            boolean pin = Boolean.parseBoolean(props.getProperty("smile.data.loader.pin", "false"));
+            return new Options(batch, workers, prefetch, shuffle, seed, dropLast, pin);
+        }
+    }
+
+    /** The source of samples. */
+    private final Source source;
+    /** The hyperparameters. */
+    private final Options options;
+    /** The number of samples. */
+    private final int size;
+    /** True if the tensors are allocated in pinned memory. */
+    private final boolean pin;
+    /** The worker threads. */
+    private final ExecutorService workers;
+    /** The epoch index of next iterator. */
+    private final AtomicInteger epoch = new AtomicInteger();
+
+    /**
+     * Constructor.
+     * @param source the source of samples.
+     * @param options the hyperparameters.
+     */
+    public DataLoader(Source source, Options options) {
+        if (source.size() > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Too many samples: " + source.size());
+        }
+
+        this.source = source;
+        this.options = options;
+        this.size = (int) source.size();
+        this.pin = options.pin && CUDA.isAvailable();
+
+        var counter = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(options.workers, runnable -> {
+            Thread thread = new Thread(runnable, "DataLoader-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Returns a data loader of data frame. The formula is applied to the
+     * data frame once. The samples of a batch are gathered from the
+     * columns of design matrix directly.
+     * @param formula a symbolic description of the model to be fitted.
+     * @param df the data frame of the explanatory and response variables.
+     * @param options the hyperparameters.
+     * @return the data loader.
+     */
+    public static DataLoader of(Formula formula, DataFrame df, Options options) {
+        DataFrame x = formula.x(df);
+        ValueVector y = formula.y(df);
+        ValueVector[] columns = IntStream.range(0, x.ncol()).mapToObj(x::column).toArray(ValueVector[]::new);
+        int p = columns.length;
+        Target target = y.field().dtype().isIntegral() ?
+                new Labels(options.batch, (index, labels) -> {
+                    for (int i = 0; i < index.length; i++) {
+                        labels[i] = y.getInt(index[i]);
+                    }
+                }) :
+                new Responses(options.batch, (index, responses) -> {
+                    for (int i = 0; i < index.length; i++) {
+                        responses[i] = y.getFloat(index[i]);
+                    }
+                });
+
+        return new DataLoader(new ArraySource(x.size(), p, options.batch, target) {
+            @Override
+            void readSamples(int[] index, float[] data) {
+                int n = index.length;
+                for (int j = 0; j < p; j++) {
+                    ValueVector column = columns[j];
+                    for (int i = 0; i < n; i++) {
+                        data[i * p + j] = column.getFloat(index[i]);
+                    }
+                }
+            }
+        }, options);
+    }
+
+    /**
+     * Returns a data loader of memory-mapped array for classification.
+     * @param data the row-major float matrix of samples in little-endian
+     *             byte order, e.g. a memory-mapped file.
+     * @param dim the number of features per sample.
+     * @param target the class labels.
+     * @param options the hyperparameters.
+     * @return the data loader.
+     */
+    public static DataLoader of(MemorySegment data, int dim, int[] target, Options options) {
+        var labels = new Labels(options.batch, (index, y) -> {
+            for (int i = 0; i < index.length; i++) {
+                y[i] = target[index[i]];
+            }
+        });
+        return new DataLoader(new SegmentSource(data, dim, target.length, options.batch, labels), options);
+    }
+
+    /**
+     * Returns a data loader of memory-mapped array for regression.
+     * @param data the row-major float matrix of samples in little-endian
+     *             byte order, e.g. a memory-mapped file.
+     * @param dim the number of features per sample.
+     * @param target the response variable.
+     * @param options the hyperparameters.
+     * @return the data loader.
+     */
+    public static DataLoader of(MemorySegment data, int dim, float[] target, Options options) {
+        var responses = new Responses(options.batch, (index, y) -> {
+            for (int i = 0; i < index.length; i++) {
+                y[i] = target[index[i]];
+            }
+        });
+        return new DataLoader(new SegmentSource(data, dim, target.length, options.batch, responses), options);
+    }
+
+    /**
+     * Returns the hyperparameters.
+     * @return the hyperparameters.
+     */
+    public Options options() {
+        return options;
+    }
+
+    @Override
+    public long size() {
+        return size;
+    }
+
+    @Override
+    public void close() {
+        workers.shutdownNow();
+    }
+
+    @Override
+    public Iterator<SampleBatch> iterator() {
+        int[] order = options.shuffle ?
+                new Random(options.seed + epoch.getAndIncrement()).permutate(size) :
+                IntStream.range(0, size).toArray();
+        int batch = options.batch;
+        int end = options.dropLast ? size - size % batch : size;
+
+        return new Iterator<>() {
+            /** The pending batches in order. */
+            final ArrayDeque<Future<SampleBatch>> queue = new ArrayDeque<>();
+            /** The position of next batch to submit. */
+            int position = 0;
+
+            {
+                prefetch();
+            }
+
+            /** Submits batches until the queue is full. */
+            private void prefetch() {
+                while (queue.size() < options.prefetch && position < end) {
+                    int n = Math.min(batch, end - position);
+                    int[] index = new int[n];
+                    System.arraycopy(order, position, index, 0, n);
+                    position += n;
+                    queue.add(workers.submit(() -> source.get(index, pin)));
+                }
+            }
+
+            @Override
+            public boolean hasNext() {
+                return !queue.isEmpty();
+            }
+
+            @Override
+            public SampleBatch next() {
+                var future = queue.poll();
+                if (future == null) {
+                    throw new NoSuchElementException();
+                }
+
+                prefetch();
+                try {
+                    return future.get();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while loading a mini-batch", ex);
+                } catch (ExecutionException ex) {
+                    throw new IllegalStateException("Failed to load a mini-batch", ex.getCause());
+                }
+            }
+        };
+    }
+
+    /**
+     * Gathers the values of samples into a buffer.
+     * @param <T> the type of buffer.
+     */
+    @FunctionalInterface
+    private interface Gather<T> {
+        /**
+         * Gathers the values of samples.
+         * @param index the sample index.
+         * @param buffer the buffer of values.
+         */
+        void read(int[] index, T buffer);
+    }
+
+    /**
+     * The scalar targets of samples. The targets are gathered into
+     * reused buffers, which are copied to tensors.
+     */
+    private abstract static class Target {
+        /** The mini-batch size. */
+        final int batch;
+
+        /**
+         * Constructor.
+         * @param batch the mini-batch size.
+         */
+        Target(int batch) {
+            this.batch = batch;
+        }
+
+        /**
+         * Returns the tensor of targets.
+         * @param index the sample index.
+         * @param options the tensor options.
+         * @return the tensor of targets.
+         */
+        abstract Tensor read(int[] index, Tensor.Options options);
+    }
+
+    /**
+     * The class labels.
+     */
+    private static class Labels extends Target {
+        /** The gatherer of class labels. */
+        final Gather<long[]> gather;
+        /** The pool of class label buffers. */
+        final ConcurrentLinkedQueue<long[]> buffers = new ConcurrentLinkedQueue<>();
+
+        /**
+         * Constructor.
+         * @param batch the mini-batch size.
+         * @param gather the gatherer of class labels.
+         */
+        Labels(int batch, Gather<long[]> gather) {
+            super(batch);
+            this.gather = gather;
+        }
+
+        @Override
+        Tensor read(int[] index, Tensor.Options options) {
+            int n = index.length;
+            long[] y = buffers.poll();
+            if (y == null) y = new long[batch];
+            gather.read(index, y);
+            Tensor target = Tensor.empty(options.dtype(ScalarType.Int64), n);
+            target.asTorch().data_ptr_long().put(y, 0, n);
+            buffers.add(y);
+            return target;
+        }
+    }
+
+    /**
+     * The response variable.
+     */
+    private static class Responses extends Target {
+        /** The gatherer of response variable. */
+        final Gather<float[]> gather;
+        /** The pool of response buffers. */
+        final ConcurrentLinkedQueue<float[]> buffers = new ConcurrentLinkedQueue<>();
+
+        /**
+         * Constructor.
+         * @param batch the mini-batch size.
+         * @param gather the gatherer of response variable.
+         */
+        Responses(int batch, Gather<float[]> gather) {
+            super(batch);
+            this.gather = gather;
+        }
+
+        @Override
+        Tensor read(int[] index, Tensor.Options options) {
+            int n = index.length;
+            float[] y = ArraySource.acquire(buffers, batch);
+            gather.read(index, y);
+            Tensor target = Tensor.empty(options.dtype(ScalarType.Float32), n);
+            target.asTorch().data_ptr_float().put(y, 0, n);
+            buffers.add(y);
+            return target;
+        }
+    }
+
+    /**
+     * The source of float samples with scalar targets. The samples
+     * are gathered into reused buffers, which are copied to tensors.
+     */
+    private abstract static class ArraySource implements Source {
+        /** The number of samples. */
+        final int size;
+        /** The number of features per sample. */
+        final int dim;
+        /** The mini-batch size. */
+        final int batch;
+        /** The targets of samples. */
+        final Target target;
+        /** The pool of sample buffers. */
+        final ConcurrentLinkedQueue<float[]> buffers = new ConcurrentLinkedQueue<>();
+
+        /**
+         * Constructor.
+         * @param size the number of samples.
+         * @param dim the number of features per sample.
+         * @param batch the mini-batch size.
+         * @param target the targets of samples.
+         */
+        ArraySource(int size, int dim, int batch, Target target) {
+            this.size = size;
+            this.dim = dim;
+            this.batch = batch;
+            this.target = target;
+        }
+
+        /**
+         * Gathers the samples into the buffer in row-major order.
+         * @param index the sample index.
+         * @param data the buffer of samples.
+         */
+        abstract void readSamples(int[] index, float[] data);
+
+        @Override
+        public long size() {
+            return size;
+        }
+
+        @Override
+        public SampleBatch get(int[] index, boolean pin) {
+            int n = index.length;
+            var options = new Tensor.Options().pinnedMemory(pin);
+
+            float[] x = acquire(buffers, batch * dim);
+            readSamples(index, x);
+            Tensor data = Tensor.empty(options.dtype(ScalarType.Float32), n, dim);
+            data.asTorch().data_ptr_float().put(x, 0, n * dim);
+            buffers.add(x);
+            return new SampleBatch(data, target.read(index, options));
+        }
+
+        /** Returns a buffer from the pool or a new one. */
+        static float[] acquire(ConcurrentLinkedQueue<float[]> pool, int length) {
+            float[] buffer = pool.poll();
+            return buffer != null ? buffer : new float[length];
+        }
+    }
+
+    /**
+     * The source of samples in a memory segment.
+     */
+    private static class SegmentSource extends ArraySource {
+        /** The row-major float matrix of samples. */
+        final MemorySegment data;
+
+        /**
+         * Constructor.
+         * @param data the row-major float matrix of samples.
+         * @param dim the number of features per sample.
+         * @param size the number of samples.
+         * @param batch the mini-batch size.
+         * @param target the targets of samples.
+         */
+        SegmentSource(MemorySegment data, int dim, int size, int batch, Target target) {
+            super(size, dim, batch, target);
+            if (data.byteSize() < (long) size * dim * Float.BYTES) {
+                throw new IllegalArgumentException(String.format("Memory segment of %d bytes is too small for %d x %d matrix", data.byteSize(), size, dim));
+            }
+            this.data = data;
+        }
+
+        @Override
+        void readSamples(int[] index, float[] x) {
+            long rowBytes = (long) dim * Float.BYTES;
+            for (int i = 0; i < index.length; i++) {
+                MemorySegment.copy(data, FLOAT, index[i] * rowBytes, x, i * dim, dim);
+            }
+        }
+    }
+}
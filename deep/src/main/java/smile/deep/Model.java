@@ -19,12 +19,16 @@ package smile.deep;
 import java.util.Map;
 import java.util.TreeMap;
 import java.util.function.Function;
+import org.bytedeco.javacpp.Pointer;
 import org.bytedeco.pytorch.Module;
 import smile.deep.layer.LayerBlock;
 import smile.deep.metric.Metric;
 import smile.deep.tensor.Device;
 import smile.deep.tensor.ScalarType;
 import smile.deep.tensor.Tensor;
+import smile.util.AlgoStatus;
+import smile.util.AutoScope;
+import smile.util.IterativeAlgorithmController;
 import smile.util.function.TimeFunction;
 
 /**
@@ -34,6 +38,8 @@ import smile.util.function.TimeFunction;
  */
 public class Model implements Function<Tensor, Tensor> {
     private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(Model.class);
+    /** The number of batches between loss readbacks. */
+    private static final int LOG_INTERVAL = 100;
     /** The neural network. */
     private final LayerBlock net;
     /** The data preprocessing function. */
@@ -44,6 +50,8 @@ public class Model implements Function<Tensor, Tensor> {
     private ScalarType dtype;
     /** The learning rate schedule. */
     private TimeFunction learningRateSchedule;
+    /** The optional training controller. */
+    private IterativeAlgorithmController<AlgoStatus> controller;
 
     /**
      * Constructor.
@@ -180,6 +188,17 @@ public class Model implements Function<Tensor, Tensor> {
         this.learningRateSchedule = learningRateSchedule;
     }
 
+    /**
+     * Sets the training controller. Every 100 batches, the controller
+     * receives the average loss of these batches and the
+     * {@link TrainingState}, which reports the native memory in use.
+     * The training stops early if the controller is interrupted.
+     * @param controller the training controller, or null to disable.
+     */
+    public void setController(IterativeAlgorithmController<AlgoStatus> controller) {
+        this.controller = controller;
+    }
+
     /**
      * Trains the model.
      * @param epochs the number of training epochs.
@@ -208,94 +227,120 @@ public class Model implements Function<Tensor, Tensor> {
 
         train(); // training mode
         int batchIndex = 0;
-        double lossValue = 0.0;
-        for (int epoch = 1; epoch <= epochs; ++epoch) {
-            // Iterate the data loader to yield batches from the dataset.
-            for (SampleBatch batch : train) {
-                Tensor data = device == null ? batch.data() : (dtype == null ? batch.data().to(device) : batch.data().to(device, dtype));
-                Tensor target = device == null ? batch.target() : batch.target().to(device);
-
-                if (transform != null) {
-                    var input = data;
-                    data = transform.apply(input);
-                    input.close();
-                }
+        // The running sum of loss stays on the device so that
+        // the step doesn't wait for the device to complete.
+        Tensor lossSum = null;
+        int lossCount = 0;
+        try {
+            for (int epoch = 1; epoch <= epochs; ++epoch) {
+                // Iterate the data loader to yield batches from the dataset.
+                for (SampleBatch batch : train) {
+                    // All intermediate tensors of the step are released
+                    // at the end of step, including those not referenced
+                    // by the code here, e.g. the outputs of hidden layers.
+                    AutoScope scope = new AutoScope();
+                    Tensor.push(scope);
+                    try {
+                        Tensor data = device == null ? batch.data() : (dtype == null ? batch.data().to(device) : batch.data().to(device, dtype));
+                        Tensor target = device == null ? batch.target() : batch.target().to(device);
+
+                        if (transform != null) {
+                            data = transform.apply(data);
+                        }
 
-                // Reset gradients.
-                optimizer.reset();
-                // Execute the model on the input data.
-                Tensor prediction = net.forward(data);
-                // Compute a loss value to judge the prediction of our model.
-                Tensor error = loss.apply(prediction, target);
-                lossValue += error.floatValue();
-                // Compute gradients of the loss w.r.t. the parameters of our model.
-                error.backward();
-                // Update the parameters based on the calculated gradients.
-                optimizer.step();
-
-                // Explicitly free native memory
-                data.close();
-                target.close();
-                batch.close();
-
-                if (learningRateSchedule != null) {
-                    double rate = learningRateSchedule.apply(batchIndex);
-                    optimizer.setLearningRate(rate);
-                }
+                        // Reset gradients.
+                        optimizer.reset();
+                        // Execute the model on the input data.
+                        Tensor prediction = net.forward(data);
+                        // Compute a loss value to judge the prediction of our model.
+                        Tensor error = loss.apply(prediction, target);
+                        // Compute gradients of the loss w.r.t. the parameters of our model.
+                        error.backward();
+                        // Update the parameters based on the calculated gradients.
+                        optimizer.step();
+
+                        // Accumulate the loss asynchronously on the device.
+                        if (lossSum == null) {
+                            lossSum = error.detach().to(ScalarType.Float32);
+                            scope.remove(lossSum);
+                        } else {
+                            lossSum.add_(error.detach());
+                        }
+                        lossCount++;
+                    } finally {
+                        Tensor.pop();
+                        // The batch tensors were created outside the step scope.
+                        batch.close();
+                    }
 
-                if (++batchIndex % 100 == 0) {
-                    String msg = String.format("Epoch: %d | Batch: %d | Loss: %.4f", epoch, batchIndex, lossValue / 100);
                     if (learningRateSchedule != null) {
                         double rate = learningRateSchedule.apply(batchIndex);
-                        msg += String.format(" | LR: %.5f", rate);
+                        optimizer.setLearningRate(rate);
                     }
 
-                    if (test != null && batchIndex % 1000 == 0) {
-                        Map<String, Double> result = eval(test, metrics);
-                        StringBuilder sb = new StringBuilder(msg);
-                        train(); // return to training mode
-                        for (var metric : metrics) {
-                            String name = metric.name();
-                            sb.append(String.format(" | %s: %.2f%%", name, 100 * result.get(name)));
-                            metric.reset();
+                    if (++batchIndex % LOG_INTERVAL == 0) {
+                        // Read back the loss, which synchronizes with the device.
+                        double lossValue = lossSum.floatValue() / lossCount;
+                        lossSum.close();
+                        lossSum = null;
+                        lossCount = 0;
+
+                        String msg = String.format("Epoch: %d | Batch: %d | Loss: %.4f", epoch, batchIndex, lossValue);
+                        double rate = Double.NaN;
+                        if (learningRateSchedule != null) {
+                            rate = learningRateSchedule.apply(batchIndex);
+                            msg += String.format(" | LR: %.5f", rate);
+                        }
+
+                        if (test != null && batchIndex % 1000 == 0) {
+                            msg += validate(test, metrics);
+                        }
+
+                        var state = new TrainingState(epoch, rate, Pointer.totalBytes(), Pointer.physicalBytes());
+                        msg += String.format(" | Native: %d MB", state.nativeBytes() >> 20);
+                        logger.info(msg);
+
+                        if (controller != null) {
+                            controller.submit(new AlgoStatus(batchIndex, lossValue, state));
+                            if (controller.isInterrupted()) return;
                         }
-                        msg = sb.toString();
                     }
+                }
 
-                    logger.info(msg);
-                    lossValue = 0.0;
-                    free();
+                // Output the validation metrics.
+                if (test != null) {
+                    String msg = String.format("Epoch: %d | Batch: %d", epoch, batchIndex);
+                    logger.info(msg + validate(test, metrics));
                 }
-            }
 
-            // Output the validation metrics.
-            if (test != null) {
-                String msg = String.format("Epoch: %d | Batch: %d", epoch, batchIndex);
-                Map<String, Double> result = eval(test, metrics);
-                StringBuilder sb = new StringBuilder(msg);
-                train(); // return to training mode
-                for (var metric : metrics) {
-                    String name = metric.name();
-                    sb.append(String.format(" | %s: %.2f%%", name, 100 * result.get(name)));
-                    metric.reset();
+                if (checkpoint != null) {
+                    save(String.format("%s-%d.pt", checkpoint, epoch));
                 }
-                msg = sb.toString();
-                logger.info(msg);
             }
-
-            if (checkpoint != null) {
-                save(String.format("%s-%d.pt", checkpoint, epoch));
+        } finally {
+            if (lossSum != null) {
+                lossSum.close();
             }
-            free();
         }
     }
 
     /**
-     * Free up tensors that was not managed by AutoScope.
-     * For example, SequentialBlock doesn't release input
-     * in case that it is used again in ResNet. */
-    private void free() {
-        System.gc();
+     * Evaluates the model on the validation data and returns to the
+     * training mode.
+     * @param test the validation data.
+     * @param metrics the evaluation metrics.
+     * @return the formatted metrics for logging.
+     */
+    private String validate(Dataset test, Metric... metrics) {
+        Map<String, Double> result = eval(test, metrics);
+        StringBuilder sb = new StringBuilder();
+        train(); // return to training mode
+        for (var metric : metrics) {
+            String name = metric.name();
+            sb.append(String.format(" | %s: %.2f%%", name, 100 * result.get(name)));
+            metric.reset();
+        }
+        return sb.toString();
     }
 
     /**
@@ -306,24 +351,26 @@ public class Model implements Function<Tensor, Tensor> {
      */
     public Map<String, Double> eval(Dataset dataset, Metric... metrics) {
         eval(); // evaluation mode
-        for (SampleBatch batch : dataset) {
-            Tensor data   = device == null ? batch.data()   : (dtype == null ? batch.data().to(device) : batch.data().to(device, dtype));
-            Tensor target = device == null ? batch.target() : batch.target().to(device);
-
-            if (transform != null) {
-                var input = data;
-                data = transform.apply(input);
-                input.close();
-            }
+        try (var guard = Tensor.noGradGuard()) {
+            for (SampleBatch batch : dataset) {
+                Tensor.push(new AutoScope());
+                try {
+                    Tensor data   = device == null ? batch.data()   : (dtype == null ? batch.data().to(device) : batch.data().to(device, dtype));
+                    Tensor target = device == null ? batch.target() : batch.target().to(device);
+
+                    if (transform != null) {
+                        data = transform.apply(data);
+                    }
 
-            Tensor output = net.forward(data);
-            for (var metric : metrics) {
-                metric.update(output, target);
+                    Tensor output = net.forward(data);
+                    for (var metric : metrics) {
+                        metric.update(output, target);
+                    }
+                } finally {
+                    Tensor.pop();
+                    batch.close();
+                }
             }
-            // Explicitly free native memory
-            data.close();
-            target.close();
-            batch.close();
         }
 
         Map<String, Double> map = new TreeMap<>();
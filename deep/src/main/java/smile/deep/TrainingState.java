@@ -0,0 +1,37 @@
+/*
+ * Copyright (c) 2010-2024 Haifeng Li. All rights reserved.
+ *
+ * Smile is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Smile is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Smile. If not, see <https://www.gnu.org/licenses/>.
+ */
+package smile.deep;
+
+/**
+ * The state of model training, which is reported to the training
+ * controller along with the average loss. The native memory counters
+ * are those of JavaCPP, which track the tensors and other native
+ * objects allocated through it.
+ *
+ * @param epoch the epoch index, starting from 1.
+ * @param learningRate the learning rate, or NaN if the model has no
+ *                     learning rate schedule.
+ * @param nativeBytes the number of bytes of native memory allocated
+ *                    by live native objects.
+ * @param physicalBytes the physical memory (resident set size) of
+ *                      the process in bytes.
+ *
+ * @author Haifeng Li
+ */
+public record TrainingState(int epoch, double learningRate, long nativeBytes, long physicalBytes) {
+
+}
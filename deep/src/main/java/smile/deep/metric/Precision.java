@@ -82,10 +82,11 @@ public class Precision implements Metric {
         }
 
         if (this.tp == null) {
+            // The running totals outlive the scope of batch.
             long length = strategy == Averaging.Macro || strategy == Averaging.Weighted ? numClasses : 1;
-            this.tp = output.newZeros(length);
-            this.fp = output.newZeros(length);
-            this.size = output.newZeros(numClasses);
+            this.tp = output.newZeros(length).detachScope();
+            this.fp = output.newZeros(length).detachScope();
+            this.size = output.newZeros(numClasses).detachScope();
         }
 
         Tensor prediction = output.dim() == 2 ?
@@ -33,8 +33,12 @@ import smile.util.Tuple2;
  */
 public class Tensor implements AutoCloseable {
     private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(Tensor.class);
-    /** A scope controls the lifecycle of tensors, providing timely deallocation. */
-    private static final Stack<AutoScope> scopes = new Stack<>();
+    /**
+     * A scope controls the lifecycle of tensors, providing timely deallocation.
+     * The scopes are per thread so that the tensors created by a thread, e.g.
+     * data loader workers, are not released by the scope of another thread.
+     */
+    private static final ThreadLocal<Stack<AutoScope>> scopes = ThreadLocal.withInitial(Stack::new);
     /** Default options such as device and dtype. */
     private static Options defaultOptions;
     /** PyTorch Tensor handle. */
@@ -103,7 +107,7 @@ public class Tensor implements AutoCloseable {
      * @param scope a scope to automatically release tensors.
      */
     public static void push(AutoScope scope) {
-        scopes.push(scope);
+        scopes.get().push(scope);
     }
 
     /**
@@ -112,7 +116,7 @@ public class Tensor implements AutoCloseable {
      * @return the top level scope.
      */
     public static AutoScope pop() {
-        var scope = scopes.pop();
+        var scope = scopes.get().pop();
         scope.close();
         return scope;
     }
@@ -123,11 +127,26 @@ public class Tensor implements AutoCloseable {
      */
     public Tensor(org.bytedeco.pytorch.Tensor tensor) {
         this.value = tensor;
-        if (!scopes.isEmpty()) {
-            scopes.peek().add(this);
+        var stack = scopes.get();
+        if (!stack.isEmpty()) {
+            stack.peek().add(this);
         }
     }
 
+    /**
+     * Removes this tensor from the scope on the top of the tensor scope
+     * stack so that it outlives the scope, e.g. the state accumulated
+     * across batches. The caller is responsible for closing the tensor.
+     * @return this tensor.
+     */
+    public Tensor detachScope() {
+        var stack = scopes.get();
+        if (!stack.isEmpty()) {
+            stack.peek().remove(this);
+        }
+        return this;
+    }
+
     /** Prints the tensor on the standard output. */
     public void print() {
         torch.print(value);
@@ -2303,5 +2322,17 @@ public class Tensor implements AutoCloseable {
             value = value.requires_grad(new BoolOptional(required));
             return this;
         }
+
+        /**
+         * Set true if the tensor is allocated in page-locked (pinned) host
+         * memory, which enables faster and asynchronous copy to CUDA devices.
+         * @param pinned the flag indicating if the tensor is allocated in
+         *               pinned memory.
+         * @return this options object.
+         */
+        public Options pinnedMemory(boolean pinned) {
+            value = value.pinned_memory(new BoolOptional(pinned));
+            return this;
+        }
     }
 }
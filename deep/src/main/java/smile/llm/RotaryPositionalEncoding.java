@@ -94,7 +94,9 @@ public interface RotaryPositionalEncoding {
     /**
      * Reshapes the cis tensor to match the shape of the target tensor x for
      * broadcasting purposes, allowing for element-wise operations between
-     * tensors of compatible shapes.
+     * tensors of compatible shapes. If cis is of shape (batch, seqlen, dim),
+     * i.e. the sequences in the batch are at different positions, the
+     * batch dimension is kept.
      * @param cis the frequency tensor for complex exponentials.
      * @param x the target tensor for broadcasting.
      * @return the reshaped cis tensor view.
@@ -106,6 +108,9 @@ public interface RotaryPositionalEncoding {
         Arrays.fill(shape, 1);
         shape[1] = xs[1];
         shape[dim-1] = xs[dim-1];
+        if (cis.dim() == 3) {
+            shape[0] = xs[0];
+        }
         return cis.view(shape);
     }
 
@@ -25,7 +25,8 @@ import smile.llm.RotaryPositionalEncoding;
 
 /**
  * Multi-head attention. It caches key and value information, applying rotary
- * embeddings, and performing linear transformations.
+ * embeddings, and performing linear transformations. The keys and values
+ * are cached in fixed-size pages, which are managed by {@link PagedCache}.
  *
  * @author Haifeng Li
  */
@@ -44,14 +45,28 @@ public class Attention {
     final int headDim;
     /** Linear transformation for queries, keys, values, and output. */
     final LinearLayer wq, wk, wv, wo;
-    /** Cached keys and values. */
+    /**
+     * Cached keys and values of shape (numPages * pageSize, n_local_kv_heads, head_dim).
+     */
     final Tensor cacheK, cacheV;
 
     /**
-     * Constructor.
+     * Constructor. The cache is large enough to hold maxBatchSize
+     * sequences of maxSeqLen.
      * @param args the model configuration parameters.
      */
     public Attention(ModelArgs args) {
+        this(args, (args.maxBatchSize() * args.maxSeqLen() + PagedCache.DEFAULT_PAGE_SIZE - 1) / PagedCache.DEFAULT_PAGE_SIZE,
+             PagedCache.DEFAULT_PAGE_SIZE);
+    }
+
+    /**
+     * Constructor.
+     * @param args the model configuration parameters.
+     * @param numPages the number of pages of key-value cache.
+     * @param pageSize the number of positions per page.
+     */
+    public Attention(ModelArgs args, int numPages, int pageSize) {
         this.numKvHeads = args.numKvHeads() == null ? args.numHeads() : args.numKvHeads();
         // JavaCPP doesn't support torch.distributed yet
         int modelParallelSize = 1; //fs_init.get_model_parallel_world_size();
@@ -65,8 +80,8 @@ public class Attention {
         this.wv = new LinearLayer(args.dim(), numKvHeads * headDim, false);
         this.wo = new LinearLayer(args.numHeads() * headDim, args.dim(), false);
 
-        this.cacheK = Tensor.zeros(args.maxBatchSize(), args.maxSeqLen(), numLocalKvHeads, headDim);
-        this.cacheV = Tensor.zeros(args.maxBatchSize(), args.maxSeqLen(), numLocalKvHeads, headDim);
+        this.cacheK = Tensor.zeros((long) numPages * pageSize, numLocalKvHeads, headDim);
+        this.cacheV = Tensor.zeros((long) numPages * pageSize, numLocalKvHeads, headDim);
 
         this.module = new Module();
         this.module.register_module("wq", wq.asTorch());
@@ -76,14 +91,21 @@ public class Attention {
     }
 
     /**
-     * Forward pass through the attention module.
-     * @param x the input tensor.
-     * @param startPos the starting position for attention caching.
-     * @param cis the precomputed frequency tensor.
-     * @param mask the attention mask tensor.
+     * Forward pass through the attention module. The sequences in the batch
+     * may be at different positions. The keys and values of input tokens are
+     * written to the cache pages, and the keys and values of all positions
+     * of each sequence are gathered from the pages.
+     * @param x the input tensor of shape (batch, seqlen, dim).
+     * @param writeIndex the cache index of input tokens of shape (batch, seqlen).
+     * @param readIndex the cache index of the positions to attend of shape
+     *                  (batch, length), where length is the largest position
+     *                  in the batch plus 1. The positions beyond a sequence
+     *                  should be masked out.
+     * @param cis the frequency tensor of shape (batch, seqlen, headDim/2).
+     * @param mask the attention mask tensor of shape (batch, 1, seqlen, length).
      * @return the output tensor.
      */
-    public Tensor forward(Tensor x, int startPos, Tensor cis, Tensor mask) {
+    public Tensor forward(Tensor x, Tensor writeIndex, Tensor readIndex, Tensor cis, Tensor mask) {
         long[] shape = x.shape();
         int batchSize = (int) shape[0];
         int seqlen = (int) shape[1];
@@ -100,11 +122,26 @@ public class Attention {
         xq = tuple._1();
         xk = tuple._2();
 
-        cacheK.put_(xk, Index.slice(0, batchSize), Index.slice(startPos, startPos + seqlen));
-        cacheV.put_(xv, Index.slice(0, batchSize), Index.slice(startPos, startPos + seqlen));
+        cacheK.put_(xk, Index.of(writeIndex));
+        cacheV.put_(xv, Index.of(writeIndex));
+
+        var keys = cacheK.get(Index.of(readIndex));  // (bs, cache_len + seqlen, n_local_kv_heads, head_dim)
+        var values = cacheV.get(Index.of(readIndex));  // (bs, cache_len + seqlen, n_local_kv_heads, head_dim)
+        return attend(xq, keys, values, mask);
+    }
 
-        var keys = cacheK.get(Index.slice(0, batchSize), Index.slice(0, startPos + seqlen));
-        var values = cacheV.get(Index.slice(0, batchSize), Index.slice(0, startPos + seqlen));
+    /**
+     * Computes the attention output with cached keys and values.
+     * @param xq the query tensor of shape (bs, seqlen, n_local_heads, head_dim).
+     * @param keys the cached keys of shape (bs, cache_len + seqlen, n_local_kv_heads, head_dim).
+     * @param values the cached values of shape (bs, cache_len + seqlen, n_local_kv_heads, head_dim).
+     * @param mask the attention mask tensor.
+     * @return the output tensor.
+     */
+    private Tensor attend(Tensor xq, Tensor keys, Tensor values, Tensor mask) {
+        long[] shape = xq.shape();
+        long batchSize = shape[0];
+        long seqlen = shape[1];
 
         // repeat k/v heads if n_kv_heads < n_heads
         keys = repeatKV(keys, numRep);  // (bs, cache_len + seqlen, n_local_heads, head_dim)
@@ -0,0 +1,554 @@
+/*
+ * Copyright (c) 2010-2024 Haifeng Li. All rights reserved.
+ *
+ * Smile is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Smile is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Smile. If not, see <https://www.gnu.org/licenses/>.
+ */
+package smile.llm.llama;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import smile.deep.tensor.Index;
+import smile.deep.tensor.Tensor;
+import smile.llm.ChatCompletion;
+import smile.llm.FinishReason;
+import smile.llm.Message;
+import smile.util.AutoScope;
+
+/**
+ * The continuous batching scheduler of text generation. The requests from
+ * concurrent clients are queued and a single worker thread drives the
+ * model. Between two decoding steps, the worker admits the queued requests
+ * into the free slots of the attention cache (up to {@code maxBatchSize})
+ * and prefills their prompts. Each decoding step then generates the next
+ * token of all active sequences in one forward pass, although they are at
+ * different positions. A finished sequence is evicted immediately so that
+ * its slot can be taken by a waiting request. Therefore, the throughput
+ * scales with the batch size instead of requests waiting for each other
+ * to complete.
+ * <p>
+ * A request is admitted only if the paged key-value cache has enough free
+ * pages for its prompt and maximum generation length, so that a running
+ * sequence never runs out of cache. The pages of a common prompt prefix
+ * (e.g. the system prompt) are shared and not computed again. Otherwise,
+ * the request waits at the head of the queue until active sequences
+ * finish and release their pages.
+ * <p>
+ * The generated tokens are streamed to each request through its own
+ * flow publisher. The chunks are offered without blocking so that a slow
+ * client never stalls the batch. The tokens that a client can't take yet
+ * stay pending and are offered again in the next step. After a sequence
+ * finishes, its slot is released and the last chunk waits for the client
+ * for a while before the publisher is closed exceptionally. A sequence
+ * is cancelled if its client cancels the subscription (e.g. disconnects).
+ * The request queue is bounded. When it is full, new
+ * requests are rejected so that the callers can apply backpressure
+ * to their clients.
+ * <p>
+ * As the sequences share the random number generator in a batch,
+ * the sampling of a request is not reproducible with a seed.
+ *
+ * @author Haifeng Li
+ */
+public class BatchScheduler implements AutoCloseable {
+    private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(BatchScheduler.class);
+    /** The time to wait for the client to consume the last chunk. */
+    private static final long FLUSH_TIMEOUT_MS = 5000;
+    /** The interval to retry the last chunks when there is nothing to decode. */
+    private static final long FLUSH_POLL_MS = 10;
+
+    /** The model. */
+    private final Llama llama;
+    /** The queue of requests waiting for a batch slot. */
+    private final BlockingQueue<Sequence> queue;
+    /** The free slots of attention cache. */
+    private final ArrayDeque<Integer> freeSlots = new ArrayDeque<>();
+    /** The active sequences in the batch. */
+    private final List<Sequence> active = new ArrayList<>();
+    /** The request at the head of queue that waits for free cache pages. */
+    private Sequence pending;
+    /** The finished sequences whose last chunk waits for a slow client. */
+    private final List<Sequence> draining = new ArrayList<>();
+    /** The worker thread. */
+    private final Thread worker;
+    /** The flag if the scheduler is closed. */
+    private volatile boolean closed = false;
+
+    /**
+     * A sequence in generation.
+     */
+    private static class Sequence {
+        /** The prompt tokens. */
+        final int[] prompt;
+        /** The maximum length of prompt and generated tokens. */
+        final int totalLen;
+        /** The temperature of sampling. */
+        final double temperature;
+        /** The top-p probability threshold of nucleus sampling. */
+        final double topp;
+        /** The optional flow publisher of generated chunks. */
+        final SubmissionPublisher<String> publisher;
+        /** The future of completion. */
+        final CompletableFuture<ChatCompletion> future = new CompletableFuture<>();
+        /** The generated tokens. */
+        final int[] completion;
+        /** The log probabilities of generated tokens, or null if not required. */
+        final float[] logprobs;
+        /** The number of generated tokens. */
+        int size;
+        /** The number of generated tokens that have been published. */
+        int published;
+        /** The batch slot, which is also the sequence id in the paged cache. */
+        int slot = -1;
+        /** The finish reason. */
+        FinishReason reason;
+        /** True if the client has subscribed to the publisher. */
+        boolean subscribed;
+        /** The deadline in nanoseconds to deliver the last chunk. */
+        long deadline;
+
+        Sequence(int[] prompt, int totalLen, double temperature, double topp, boolean logprobs, SubmissionPublisher<String> publisher) {
+            this.prompt = prompt;
+            this.totalLen = totalLen;
+            this.temperature = temperature;
+            this.topp = topp;
+            this.publisher = publisher;
+            this.completion = new int[totalLen - prompt.length];
+            this.logprobs = logprobs ? new float[completion.length] : null;
+        }
+
+        /** Returns the position of the last token. */
+        int position() {
+            return prompt.length + size - 1;
+        }
+
+        /** Returns true if the client has cancelled its subscription. */
+        boolean disconnected() {
+            return subscribed && !publisher.hasSubscribers();
+        }
+    }
+
+    /**
+     * Constructor.
+     * @param llama the model.
+     * @param maxQueueSize the maximum number of requests waiting
+     *                     for a batch slot.
+     */
+    public BatchScheduler(Llama llama, int maxQueueSize) {
+        if (maxQueueSize <= 0) {
+            throw new IllegalArgumentException("Invalid maximum queue size: " + maxQueueSize);
+        }
+
+        this.llama = llama;
+        this.queue = new ArrayBlockingQueue<>(maxQueueSize);
+        for (int slot = 0; slot < llama.model.params.maxBatchSize(); slot++) {
+            freeSlots.add(slot);
+        }
+
+        worker = new Thread(this::run, "llama-batch-scheduler");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * Returns the number of requests waiting for a batch slot.
+     * @return the number of requests waiting for a batch slot.
+     */
+    public int queueSize() {
+        return queue.size();
+    }
+
+    /**
+     * Submits a chat request.
+     * @param dialog the conversational dialog.
+     * @param maxGenLen Maximum length of the generated text sequence.
+     * @param temperature Temperature value for controlling randomness in sampling.
+     * @param topp Top-p probability threshold for nucleus sampling.
+     * @param logprobs Flag indicating whether to compute token log probabilities.
+     * @param publisher an optional flow publisher that asynchronously issues generated chunks.
+     *                  It is closed when the generation is done.
+     * @return the future of generated chat response.
+     * @throws RejectedExecutionException if the request queue is full.
+     */
+    public CompletableFuture<ChatCompletion> chat(Message[] dialog, int maxGenLen, double temperature, double topp, boolean logprobs, SubmissionPublisher<String> publisher) {
+        return submit(llama.tokenizer.encodeDialog(dialog), maxGenLen, temperature, topp, logprobs, publisher);
+    }
+
+    /**
+     * Submits a text generation request.
+     * @param prompt the tokenized prompt.
+     * @param maxGenLen Maximum length of the generated text sequence.
+     * @param temperature Temperature value for controlling randomness in sampling.
+     * @param topp Top-p probability threshold for nucleus sampling.
+     * @param logprobs Flag indicating whether to compute token log probabilities.
+     * @param publisher an optional flow publisher that asynchronously issues generated chunks.
+     *                  It is closed when the generation is done.
+     * @return the future of generated text completion.
+     * @throws RejectedExecutionException if the request queue is full.
+     */
+    public CompletableFuture<ChatCompletion> submit(int[] prompt, int maxGenLen, double temperature, double topp, boolean logprobs, SubmissionPublisher<String> publisher) {
+        int maxSeqLen = llama.model.params.maxSeqLen();
+        if (prompt.length >= maxSeqLen) {
+            throw new IllegalArgumentException("The prompt length is greater than max_seq_len");
+        }
+        if (maxGenLen <= 0) {
+            throw new IllegalArgumentException("Invalid maximum generation length: " + maxGenLen);
+        }
+        if (closed) {
+            throw new RejectedExecutionException("The scheduler is closed");
+        }
+
+        int totalLen = Math.min(maxSeqLen, prompt.length + maxGenLen);
+        var cache = llama.model.cache;
+        if (cache.pages(totalLen) > cache.numPages()) {
+            throw new IllegalArgumentException("The sequence length is greater than the key-value cache size");
+        }
+
+        var sequence = new Sequence(prompt, totalLen, temperature, topp, logprobs, publisher);
+        if (!queue.offer(sequence)) {
+            throw new RejectedExecutionException("The request queue is full");
+        }
+        return sequence.future;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        worker.interrupt();
+        try {
+            worker.join();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * The loop of worker thread.
+     */
+    private void run() {
+        try (var guard = Tensor.noGradGuard()) {
+            while (!closed) {
+                try {
+                    admit();
+                    if (!active.isEmpty()) {
+                        step();
+                    }
+                    drain();
+                } catch (InterruptedException ex) {
+                    break;
+                } catch (Throwable t) {
+                    logger.error("Failed to decode the batch", t);
+                    for (var sequence : List.copyOf(active)) {
+                        fail(sequence, t);
+                    }
+                }
+            }
+        }
+
+        var ex = new CancellationException("The scheduler is closed");
+        for (var sequence : List.copyOf(active)) {
+            fail(sequence, ex);
+        }
+        if (pending != null) {
+            fail(pending, ex);
+        }
+        for (var sequence : queue) {
+            fail(sequence, ex);
+        }
+        for (var sequence : draining) {
+            sequence.publisher.closeExceptionally(ex);
+        }
+        draining.clear();
+    }
+
+    /**
+     * Admits the waiting requests into the free slots and prefills them.
+     * Blocks if there is no active sequence and no waiting request.
+     * If some last chunks are not delivered yet, it waits for a short
+     * while instead so that they can be retried.
+     */
+    private void admit() throws InterruptedException {
+        var cache = llama.model.cache;
+        int admitted = 0;
+        while (!freeSlots.isEmpty()) {
+            var sequence = pending;
+            pending = null;
+            if (sequence == null) {
+                if (!active.isEmpty()) {
+                    sequence = queue.poll();
+                } else if (!draining.isEmpty()) {
+                    sequence = queue.poll(FLUSH_POLL_MS, TimeUnit.MILLISECONDS);
+                } else {
+                    sequence = queue.take();
+                }
+            }
+            if (sequence == null) break;
+            if (sequence.future.isDone()) continue; // cancelled
+
+            int slot = freeSlots.peek();
+            int cached = cache.allocate(slot, sequence.prompt, sequence.totalLen);
+            if (cached < 0) {
+                if (active.isEmpty()) {
+                    fail(sequence, new IllegalStateException("Not enough key-value cache pages: " + cache));
+                    continue;
+                }
+                // Waits for the active sequences to release pages.
+                pending = sequence;
+                break;
+            }
+
+            sequence.slot = freeSlots.poll();
+            active.add(sequence);
+            admitted++;
+            try {
+                prefill(sequence, cached);
+            } catch (Throwable t) {
+                logger.error("Failed to prefill the prompt", t);
+                fail(sequence, t);
+            }
+        }
+
+        if (admitted > 0) {
+            logger.debug("{} active sequences, {} waiting requests, {}", active.size(), queue.size(), cache);
+        }
+    }
+
+    /**
+     * Processes the prompt of a new sequence and samples its first token.
+     * @param cached the number of leading prompt tokens in shared pages,
+     *               which are not processed again.
+     */
+    private void prefill(Sequence sequence, int cached) {
+        int[] prompt = sequence.prompt;
+        int token;
+        try (var scope = new AutoScope()) {
+            Tensor.push(scope);
+            try {
+                long[] tokens = Arrays.stream(prompt, cached, prompt.length).asLongStream().toArray();
+                var input = Tensor.of(tokens, 1, tokens.length).to(llama.model.device());
+                var logits = llama.model.forward(input, new int[]{sequence.slot}, new int[]{cached});
+                token = sample(sequence, logits.get(Index.of(0), Index.of(-1)));
+            } finally {
+                Tensor.pop();
+            }
+        }
+        llama.model.cache.commit(sequence.slot, prompt);
+        append(sequence, token);
+    }
+
+    /**
+     * Generates the next token of all active sequences.
+     */
+    private void step() {
+        int batchSize = active.size();
+        long[] tokens = new long[batchSize];
+        int[] slots = new int[batchSize];
+        int[] positions = new int[batchSize];
+        for (int i = 0; i < batchSize; i++) {
+            var sequence = active.get(i);
+            tokens[i] = sequence.completion[sequence.size - 1];
+            slots[i] = sequence.slot;
+            positions[i] = sequence.position();
+        }
+
+        int[] next = new int[batchSize];
+        try (var scope = new AutoScope()) {
+            Tensor.push(scope);
+            try {
+                var input = Tensor.of(tokens, batchSize, 1).to(llama.model.device());
+                var logits = llama.model.forward(input, slots, positions);
+                for (int i = 0; i < batchSize; i++) {
+                    next[i] = sample(active.get(i), logits.get(Index.of(i), Index.of(-1)));
+                }
+            } finally {
+                Tensor.pop();
+            }
+        }
+
+        // Iterates over a copy as finished sequences are evicted.
+        var batch = List.copyOf(active);
+        for (int i = 0; i < batchSize; i++) {
+            llama.model.cache.setLength(slots[i], positions[i] + 1);
+            append(batch.get(i), next[i]);
+        }
+    }
+
+    /**
+     * Samples the next token and records its log probability if required.
+     * @param sequence the sequence.
+     * @param logits the logits of the last position.
+     * @return the next token.
+     */
+    private int sample(Sequence sequence, Tensor logits) {
+        Tensor next;
+        if (sequence.temperature > 0) {
+            var probs = logits.div(sequence.temperature).softmax(-1);
+            next = probs.topp(sequence.topp);
+        } else {
+            next = logits.argmax(-1, false);
+        }
+
+        int token = (int) next.longValue();
+        if (sequence.logprobs != null && sequence.size < sequence.logprobs.length) {
+            sequence.logprobs[sequence.size] = (float) Math.log(logits.softmax(-1).getFloat(token));
+        }
+        return token;
+    }
+
+    /**
+     * Appends the generated token to the sequence, publishes the new
+     * chunk and evicts the sequence if it is finished.
+     */
+    private void append(Sequence sequence, int token) {
+        if (sequence.future.isDone()) {
+            // The request has been cancelled.
+            evict(sequence);
+            if (sequence.publisher != null) sequence.publisher.close();
+            return;
+        }
+
+        if (sequence.publisher != null && sequence.disconnected()) {
+            logger.debug("The client has cancelled the subscription");
+            evict(sequence);
+            sequence.publisher.close();
+            sequence.future.cancel(false);
+            return;
+        }
+
+        boolean stop = false;
+        for (int stopToken : llama.tokenizer.stopTokens()) {
+            if (token == stopToken) {
+                stop = true;
+                break;
+            }
+        }
+
+        if (stop) {
+            sequence.reason = FinishReason.stop;
+        } else {
+            sequence.completion[sequence.size++] = token;
+            if (sequence.prompt.length + sequence.size >= sequence.totalLen) {
+                sequence.reason = FinishReason.length;
+            }
+        }
+
+        if (sequence.reason == null) {
+            publish(sequence, false);
+        } else {
+            finish(sequence);
+        }
+    }
+
+    /**
+     * Publishes the generated tokens that haven't been published. The chunk
+     * is offered without blocking. A chunk that can't be decoded yet (a
+     * partial UTF-8 character), or is dropped by a slow client, or is
+     * generated before the client subscribes, stays pending and is retried
+     * later, so that a slow client doesn't stall the batch.
+     * @param last true if it is the last chunk.
+     * @return true if there is no pending chunk.
+     */
+    private boolean publish(Sequence sequence, boolean last) {
+        var publisher = sequence.publisher;
+        if (publisher == null || sequence.published == sequence.size) return true;
+        if (!publisher.hasSubscribers()) return false;
+        sequence.subscribed = true;
+
+        int[] chunk = Arrays.copyOfRange(sequence.completion, sequence.published, sequence.size);
+        try {
+            var text = llama.tokenizer.tryDecode(chunk);
+            if (publisher.offer(text, null) >= 0) {
+                sequence.published = sequence.size;
+            }
+        } catch (Exception ex) {
+            logger.debug("Cannot decode a chunk", ex);
+            if (last) {
+                // A truncated character at the end will never be decodable.
+                sequence.published = sequence.size;
+            }
+        }
+        return sequence.published == sequence.size;
+    }
+
+    /**
+     * Retries the last chunks of finished sequences. The publisher is
+     * closed once the last chunk is delivered, or closed exceptionally
+     * if the client disconnects or doesn't take it before the deadline.
+     */
+    private void drain() {
+        long now = System.nanoTime();
+        for (Iterator<Sequence> it = draining.iterator(); it.hasNext(); ) {
+            var sequence = it.next();
+            if (publish(sequence, true)) {
+                sequence.publisher.close();
+                it.remove();
+            } else if (sequence.disconnected() || now - sequence.deadline > 0) {
+                sequence.publisher.closeExceptionally(new TimeoutException("The client didn't receive the last chunk in time"));
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * Completes a finished sequence. Its slot and pages are released
+     * immediately. If the last chunk can't be delivered without blocking,
+     * the publisher is closed later by {@link #drain()}.
+     */
+    private void finish(Sequence sequence) {
+        evict(sequence);
+        int[] completion = Arrays.copyOf(sequence.completion, sequence.size);
+        float[] logprobs = sequence.logprobs == null ? null : Arrays.copyOf(sequence.logprobs, sequence.size);
+        var content = llama.tokenizer.decode(completion);
+        if (sequence.publisher != null) {
+            if (publish(sequence, true)) {
+                sequence.publisher.close();
+            } else {
+                sequence.deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(FLUSH_TIMEOUT_MS);
+                draining.add(sequence);
+            }
+        }
+        sequence.future.complete(new ChatCompletion(llama.name, content, sequence.prompt, completion, sequence.reason, logprobs));
+    }
+
+    /**
+     * Completes a sequence exceptionally.
+     */
+    private void fail(Sequence sequence, Throwable t) {
+        evict(sequence);
+        if (sequence.publisher != null) sequence.publisher.closeExceptionally(t);
+        sequence.future.completeExceptionally(t);
+    }
+
+    /**
+     * Removes a sequence from the batch and releases its slot and pages.
+     */
+    private void evict(Sequence sequence) {
+        if (sequence.slot >= 0) {
+            active.remove(sequence);
+            llama.model.cache.release(sequence.slot);
+            freeSlots.add(sequence.slot);
+            sequence.slot = -1;
+        }
+    }
+}
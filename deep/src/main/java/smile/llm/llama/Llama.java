@@ -93,6 +93,24 @@ public class Llama {
      * @return an instance of Llama model.
      */
     public static Llama build(String checkpointDir, String tokenizerPath, int maxBatchSize, int maxSeqLen, byte deviceId) throws IOException {
+        return build(checkpointDir, tokenizerPath, maxBatchSize, maxSeqLen, maxBatchSize * maxSeqLen, deviceId);
+    }
+
+    /**
+     * Builds a Llama instance by initializing and loading a model checkpoint.
+     * @param checkpointDir the directory path of checkpoint files.
+     * @param tokenizerPath the path of tokenizer model file.
+     * @param maxSeqLen the maximum sequence length for input text.
+     * @param maxBatchSize the maximum batch size for inference.
+     * @param cacheSize the number of positions of the paged key-value cache,
+     *                  which are shared by all sequences. It may be less than
+     *                  maxBatchSize * maxSeqLen as sequences are usually
+     *                  much shorter than maxSeqLen.
+     * @param deviceId the optional CUDA device ID. If negative, don't use CUDA.
+     * @throws IOException if fail to open model checkpoint.
+     * @return an instance of Llama model.
+     */
+    public static Llama build(String checkpointDir, String tokenizerPath, int maxBatchSize, int maxSeqLen, int cacheSize, byte deviceId) throws IOException {
         File dir = new File(checkpointDir);
         if (!dir.exists() || !dir.isDirectory()) {
             throw new IllegalArgumentException("Checkpoint directory doesn't exist: " + checkpointDir);
@@ -138,7 +156,7 @@ public class Llama {
             throw new IllegalStateException("Tokenizer and ModelArgs have different vocabulary size.");
         }
 
-        var model = new Transformer(modelArgs, device);
+        var model = new Transformer(modelArgs, device, cacheSize, PagedCache.DEFAULT_PAGE_SIZE);
         model.eval();
         Collections.sort(checkpoints);
         var checkpoint = checkpoints.get(rank);
@@ -334,6 +352,10 @@ public class Llama {
                 predictions[i] = new ChatCompletion(name, tokenizer.decode(completion), prompts[i], completion, reason, probs);
             }
 
+            for (int i = 0; i < batchSize; i++) {
+                model.cache.release(-(i + 1));
+            }
+
             if (publisher != null) publisher.close();
             Tensor.pop();
             System.gc();
@@ -0,0 +1,385 @@
+/*
+ * Copyright (c) 2010-2024 Haifeng Li. All rights reserved.
+ *
+ * Smile is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Smile is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Smile. If not, see <https://www.gnu.org/licenses/>.
+ */
+package smile.llm.llama;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+
+/**
+ * The page manager of block-paged key-value cache. The cache of each
+ * attention layer is a pool of fixed-size pages, which store the keys
+ * and values of {@code pageSize} consecutive positions. A sequence
+ * doesn't own a dense region of {@code maxSeqLen} positions. Instead,
+ * it has a page table that maps its logical pages to the physical pages.
+ * The pages are allocated from a shared free list so that the memory
+ * is proportional to the actual lengths of sequences. All layers share
+ * the same page tables.
+ * <p>
+ * The full pages of prompts are indexed by their content and the page
+ * before them. A new sequence whose prompt starts with the same tokens,
+ * e.g. a common system prompt, shares these pages instead of storing
+ * and computing them again. Shared pages are reference counted and
+ * never modified as sequences only append to their own last pages.
+ * When a prompt page is no longer used, it stays in the index and is
+ * reclaimed in least recently used order when the free list is empty.
+ * <p>
+ * This class only manages the page tables. The physical storage is
+ * in {@link Attention}.
+ *
+ * @author Haifeng Li
+ */
+public class PagedCache {
+    /** The default number of positions per page. */
+    public static final int DEFAULT_PAGE_SIZE = 16;
+
+    /**
+     * The content of a full prompt page.
+     * @param parent the physical page before it, or -1 for the first page.
+     * @param tokens the tokens in the page.
+     */
+    private record Block(int parent, int[] tokens) {
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Block b && parent == b.parent && Arrays.equals(tokens, b.tokens);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * parent + Arrays.hashCode(tokens);
+        }
+    }
+
+    /** The number of positions per page. */
+    private final int pageSize;
+    /** The number of physical pages. */
+    private final int numPages;
+    /** The free pages. */
+    private final ArrayDeque<Integer> free = new ArrayDeque<>();
+    /** The unused prompt pages that are still indexed, in LRU order. */
+    private final LinkedHashSet<Integer> cached = new LinkedHashSet<>();
+    /** The reference count of pages. */
+    private final int[] refCount;
+    /** The indexed content of pages, or null if not indexed. */
+    private final Block[] blocks;
+    /** The index of full prompt pages. */
+    private final Map<Block, Integer> prefix = new HashMap<>();
+    /** The page tables of sequences. */
+    private final Map<Integer, int[]> pageTables = new HashMap<>();
+    /** The number of positions in use of sequences. */
+    private final Map<Integer, Integer> lengths = new HashMap<>();
+    /** The number of prompt tokens of allocation requests. */
+    private long promptTokens;
+    /** The number of prompt tokens in shared pages. */
+    private long sharedTokens;
+
+    /**
+     * Constructor.
+     * @param numPages the number of physical pages.
+     * @param pageSize the number of positions per page.
+     */
+    public PagedCache(int numPages, int pageSize) {
+        if (numPages <= 0) {
+            throw new IllegalArgumentException("Invalid number of pages: " + numPages);
+        }
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("Invalid page size: " + pageSize);
+        }
+
+        this.numPages = numPages;
+        this.pageSize = pageSize;
+        this.refCount = new int[numPages];
+        this.blocks = new Block[numPages];
+        for (int page = 0; page < numPages; page++) {
+            free.add(page);
+        }
+    }
+
+    /**
+     * Returns the number of positions per page.
+     * @return the number of positions per page.
+     */
+    public int pageSize() {
+        return pageSize;
+    }
+
+    /**
+     * Returns the number of physical pages.
+     * @return the number of physical pages.
+     */
+    public int numPages() {
+        return numPages;
+    }
+
+    /**
+     * Returns the number of pages to hold the given number of positions.
+     * @param length the number of positions.
+     * @return the number of pages.
+     */
+    public int pages(int length) {
+        return (length + pageSize - 1) / pageSize;
+    }
+
+    /**
+     * Allocates the pages of a new sequence. The pages for all positions up
+     * to the given length are reserved up front so that the generation never
+     * runs out of memory. The leading full pages of prompt are shared with
+     * other sequences if possible, except the one of the last prompt token,
+     * which must be processed to predict the next token.
+     *
+     * @param id the sequence id.
+     * @param prompt the prompt tokens.
+     * @param length the maximum length of sequence.
+     * @return the number of prompt tokens in shared pages, which don't need
+     *         to be processed, or -1 if there are not enough free pages.
+     */
+    public synchronized int allocate(int id, int[] prompt, int length) {
+        if (pageTables.containsKey(id)) {
+            throw new IllegalStateException("Sequence " + id + " has been allocated");
+        }
+        if (length < prompt.length) {
+            throw new IllegalArgumentException("The sequence length is less than the prompt length");
+        }
+
+        int size = pages(length);
+        int[] table = new int[size];
+        int shared = 0;
+        int reclaimable = 0;
+        int parent = -1;
+        int maxShared = Math.max(0, prompt.length - 1) / pageSize;
+        while (shared < maxShared) {
+            var block = new Block(parent, Arrays.copyOfRange(prompt, shared * pageSize, (shared + 1) * pageSize));
+            Integer page = prefix.get(block);
+            if (page == null) break;
+            table[shared++] = page;
+            if (refCount[page] == 0) reclaimable++;
+            parent = page;
+        }
+
+        // The cached pages to be shared can't be reclaimed for the new ones.
+        if (size - shared > free.size() + cached.size() - reclaimable) {
+            return -1;
+        }
+
+        for (int i = 0; i < shared; i++) {
+            int page = table[i];
+            if (refCount[page]++ == 0) {
+                cached.remove(page);
+            }
+        }
+
+        for (int i = shared; i < size; i++) {
+            table[i] = newPage();
+        }
+
+        pageTables.put(id, table);
+        lengths.put(id, prompt.length);
+        promptTokens += prompt.length;
+        sharedTokens += (long) shared * pageSize;
+        return shared * pageSize;
+    }
+
+    /**
+     * Extends the page table of a sequence to hold the given number of
+     * positions. The sequence is created if it doesn't exist. The new
+     * pages are not shared.
+     *
+     * @param id the sequence id.
+     * @param length the number of positions.
+     * @return false if there are not enough free pages.
+     */
+    public synchronized boolean extend(int id, int length) {
+        int[] table = pageTables.getOrDefault(id, new int[0]);
+        int size = pages(length);
+        if (size > table.length) {
+            if (size - table.length > free.size() + cached.size()) {
+                return false;
+            }
+
+            int offset = table.length;
+            table = Arrays.copyOf(table, size);
+            for (int i = offset; i < size; i++) {
+                table[i] = newPage();
+            }
+            pageTables.put(id, table);
+        }
+        lengths.merge(id, length, Math::max);
+        return true;
+    }
+
+    /**
+     * Indexes the full pages of prompt after they have been processed so
+     * that the later sequences with the same prefix can share them.
+     *
+     * @param id the sequence id.
+     * @param prompt the prompt tokens.
+     */
+    public synchronized void commit(int id, int[] prompt) {
+        int[] table = table(id);
+        int parent = -1;
+        for (int i = 0; i < prompt.length / pageSize; i++) {
+            int page = table[i];
+            if (blocks[page] == null) {
+                var block = new Block(parent, Arrays.copyOfRange(prompt, i * pageSize, (i + 1) * pageSize));
+                // Another sequence has indexed the same prefix. The rest
+                // pages are not indexed as their parent is not reachable.
+                if (prefix.putIfAbsent(block, page) != null) break;
+                blocks[page] = block;
+            }
+            parent = page;
+        }
+    }
+
+    /**
+     * Updates the number of positions in use of a sequence,
+     * which is used for the utilization metrics.
+     * @param id the sequence id.
+     * @param length the number of positions in use.
+     */
+    public synchronized void setLength(int id, int length) {
+        lengths.put(id, length);
+    }
+
+    /**
+     * Releases the pages of a sequence. It is a no-op if the sequence
+     * doesn't exist.
+     * @param id the sequence id.
+     */
+    public synchronized void release(int id) {
+        int[] table = pageTables.remove(id);
+        lengths.remove(id);
+        if (table == null) return;
+
+        // In reverse order so that a child page is always reclaimed before
+        // its parent, whose page id is a part of the child's key.
+        for (int i = table.length; i-- > 0; ) {
+            int page = table[i];
+            if (--refCount[page] == 0) {
+                if (blocks[page] != null) {
+                    cached.add(page);
+                } else {
+                    free.add(page);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the page table of a sequence.
+     * @param id the sequence id.
+     * @return the page table.
+     */
+    public synchronized int[] table(int id) {
+        int[] table = pageTables.get(id);
+        if (table == null) {
+            throw new IllegalStateException("Sequence " + id + " is not allocated");
+        }
+        return table;
+    }
+
+    /**
+     * Returns the index of a position in the flattened physical storage
+     * of shape {@code [numPages * pageSize, ...]}.
+     * @param table the page table of sequence.
+     * @param position the position in the sequence.
+     * @return the index of position in the physical storage.
+     */
+    public long index(int[] table, int position) {
+        return (long) table[position / pageSize] * pageSize + position % pageSize;
+    }
+
+    /** Returns a free page, reclaiming the least recently used prompt page if needed. */
+    private int newPage() {
+        Integer page = free.poll();
+        if (page == null) {
+            var it = cached.iterator();
+            page = it.next();
+            it.remove();
+            prefix.remove(blocks[page]);
+            blocks[page] = null;
+        }
+        refCount[page] = 1;
+        return page;
+    }
+
+    /**
+     * Returns the number of pages in use by sequences.
+     * @return the number of pages in use.
+     */
+    public synchronized int usedPages() {
+        return numPages - free.size() - cached.size();
+    }
+
+    /**
+     * Returns the number of free pages, including the unused prompt
+     * pages that are kept for prefix sharing.
+     * @return the number of free pages.
+     */
+    public synchronized int freePages() {
+        return free.size() + cached.size();
+    }
+
+    /**
+     * Returns the number of unused prompt pages that are kept for
+     * prefix sharing.
+     * @return the number of cached prompt pages.
+     */
+    public synchronized int cachedPages() {
+        return cached.size();
+    }
+
+    /**
+     * Returns the fraction of positions in the used pages that are
+     * filled, which measures the internal fragmentation. The positions
+     * in a shared page are counted once.
+     * @return the page utilization.
+     */
+    public synchronized double utilization() {
+        int used = usedPages();
+        if (used == 0) return 0.0;
+
+        var pages = new HashMap<Integer, Integer>();
+        for (var entry : pageTables.entrySet()) {
+            int[] table = entry.getValue();
+            int length = lengths.getOrDefault(entry.getKey(), 0);
+            for (int i = 0; i < table.length && i * pageSize < length; i++) {
+                pages.merge(table[i], Math.min(pageSize, length - i * pageSize), Math::max);
+            }
+        }
+
+        long filled = 0;
+        for (int n : pages.values()) filled += n;
+        return (double) filled / ((long) used * pageSize);
+    }
+
+    /**
+     * Returns the fraction of prompt tokens that are served
+     * from the shared pages.
+     * @return the prefix hit rate.
+     */
+    public synchronized double prefixHitRate() {
+        return promptTokens == 0 ? 0.0 : (double) sharedTokens / promptTokens;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("PagedCache(pages = %d x %d, used = %d, cached = %d, free = %d, utilization = %.1f%%, prefix hit = %.1f%%)",
+                numPages, pageSize, usedPages(), cached.size(), free.size(), 100 * utilization(), 100 * prefixHitRate());
+    }
+}
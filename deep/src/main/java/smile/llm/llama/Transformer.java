@@ -24,7 +24,6 @@ import smile.deep.layer.LinearLayer;
 import smile.deep.layer.LayerBlock;
 import smile.deep.layer.RMSNormLayer;
 import smile.deep.tensor.Device;
-import smile.deep.tensor.Index;
 import smile.deep.tensor.ScalarType;
 import smile.deep.tensor.Tensor;
 import smile.llm.RotaryPositionalEncoding;
@@ -54,22 +53,39 @@ public class Transformer extends LayerBlock {
     final LinearLayer output;
     /** The precomputed cosine and sine frequencies. */
     final Tensor cis;
+    /** The page tables of key-value cache. */
+    final PagedCache cache;
 
     /**
-     * Constructor.
+     * Constructor. The key-value cache is large enough to hold
+     * maxBatchSize sequences of maxSeqLen.
      * @param args the model configuration parameters.
      * @param device the compute device.
      */
     public Transformer(ModelArgs args, Device device) {
+        this(args, device, args.maxBatchSize() * args.maxSeqLen(), PagedCache.DEFAULT_PAGE_SIZE);
+    }
+
+    /**
+     * Constructor.
+     * @param args the model configuration parameters.
+     * @param device the compute device.
+     * @param cacheSize the number of positions of key-value cache, which
+     *                  are shared by all sequences.
+     * @param pageSize the number of positions per page of key-value cache.
+     */
+    public Transformer(ModelArgs args, Device device, int cacheSize, int pageSize) {
         this.params = args;
         this.vocabSize = params.vocabSize();
         this.numLayers = params.numLayers();
         this.tokEmbeddings = new EmbeddingLayer(params.vocabSize(), params.dim());
 
+        int numPages = (cacheSize + pageSize - 1) / pageSize;
+        this.cache = new PagedCache(numPages, pageSize);
         this.layers = new ArrayList<>();
         var moduleList = new ModuleListImpl();
         for (int layerId = 0; layerId < params.numLayers(); layerId++) {
-            var block = new TransformerBlock(layerId, params);
+            var block = new TransformerBlock(layerId, params, numPages, pageSize);
             this.layers.add(block);
             moduleList.push_back(block.module);
         }
@@ -92,32 +108,97 @@ public class Transformer extends LayerBlock {
     }
 
     /**
-     * Forward pass through the model.
+     * Returns the page tables of key-value cache.
+     * @return the page tables of key-value cache.
+     */
+    public PagedCache cache() {
+        return cache;
+    }
+
+    /**
+     * Forward pass through the model. The row b of the batch is cached as
+     * the sequence of id -(b+1). Its pages are released and allocated again
+     * when startPos is 0.
      * @param tokens the input token indices.
      * @param startPos the starting position for attention caching.
      * @return the output tensor.
      */
     public Tensor forward(Tensor tokens, int startPos) {
         long[] shape = tokens.shape();
+        int batchSize = (int) shape[0];
         int seqlen = (int) shape[1];
-        Tensor h = tokEmbeddings.forward(tokens);
-        Tensor freqs = cis.get(Index.slice(startPos, startPos+seqlen));
-
-        Tensor mask = null;
-        if (seqlen > 1) {
-            mask = Tensor.full(Float.NEGATIVE_INFINITY, seqlen, seqlen);
-            mask.triu_(1);
-            // When performing key-value caching, we compute the attention scores
-            // only for the new sequence. Thus, the matrix of scores is of size
-            // (seqlen, cache_len + seqlen), and the only masked entries are (i, j) for
-            // j > cache_len + i, since row i corresponds to token cache_len + i.
-            var zeros = Tensor.zeros(seqlen, startPos);
-            mask = Tensor.hstack(zeros, mask);
-            mask = mask.to(h.dtype());
+        int[] ids = new int[batchSize];
+        int[] positions = new int[batchSize];
+        for (int b = 0; b < batchSize; b++) {
+            ids[b] = -(b + 1);
+            positions[b] = startPos;
+            if (startPos == 0) {
+                cache.release(ids[b]);
+            }
+            if (!cache.extend(ids[b], startPos + seqlen)) {
+                throw new IllegalStateException("Out of key-value cache pages: " + cache);
+            }
         }
+        return forward(tokens, ids, positions);
+    }
+
+    /**
+     * Forward pass through the model for a batch of sequences at different
+     * positions. It is used by continuous batching, where new sequences join
+     * the batch between decoding steps of others. The pages of sequences
+     * must have been allocated in the key-value cache.
+     * @param tokens the input token indices of shape (batch, seqlen).
+     * @param ids the sequence ids in the key-value cache.
+     * @param startPos the starting position of each sequence.
+     * @return the output tensor.
+     */
+    public Tensor forward(Tensor tokens, int[] ids, int[] startPos) {
+        long[] shape = tokens.shape();
+        int batchSize = (int) shape[0];
+        int seqlen = (int) shape[1];
+        int length = 0;
+        for (int pos : startPos) {
+            length = Math.max(length, pos + seqlen);
+        }
+
+        long[] writeIndex = new long[batchSize * seqlen];
+        long[] readIndex = new long[batchSize * length];
+        long[] positions = new long[batchSize * seqlen];
+        float[] masks = new float[batchSize * seqlen * length];
+        for (int i = 0; i < batchSize; i++) {
+            int[] table = cache.table(ids[i]);
+            int end = startPos[i] + seqlen;
+            if (end > table.length * cache.pageSize()) {
+                throw new IllegalStateException("The pages of sequence " + ids[i] + " can't hold " + end + " positions");
+            }
+
+            // The positions beyond the sequence read page 0
+            // and are masked out.
+            for (int k = 0; k < end; k++) {
+                readIndex[i * length + k] = cache.index(table, k);
+            }
+
+            for (int j = 0; j < seqlen; j++) {
+                int pos = startPos[i] + j;
+                positions[i * seqlen + j] = pos;
+                writeIndex[i * seqlen + j] = cache.index(table, pos);
+                // Masks the future positions.
+                int offset = (i * seqlen + j) * length;
+                for (int k = pos + 1; k < length; k++) {
+                    masks[offset + k] = Float.NEGATIVE_INFINITY;
+                }
+            }
+        }
+
+        Device device = cis.device();
+        Tensor h = tokEmbeddings.forward(tokens);
+        Tensor write = Tensor.of(writeIndex, batchSize, seqlen).to(device);
+        Tensor read = Tensor.of(readIndex, batchSize, length).to(device);
+        Tensor freqs = cis.get(Tensor.of(positions, batchSize, seqlen).to(device));
+        Tensor mask = Tensor.of(masks, batchSize, 1, seqlen, length).to(device, h.dtype());
 
         for (var layer : layers) {
-            h = layer.forward(h, startPos, freqs, mask);
+            h = layer.forward(h, write, read, freqs, mask);
         }
 
         h = norm.forward(h);
@@ -53,11 +53,32 @@ public class TransformerBlock {
      * @param args the model configuration parameters.
      */
     public TransformerBlock(int layerId, ModelArgs args) {
+        this(layerId, args, new Attention(args));
+    }
+
+    /**
+     * Constructor.
+     * @param layerId the identifier of the block.
+     * @param args the model configuration parameters.
+     * @param numPages the number of pages of key-value cache.
+     * @param pageSize the number of positions per page.
+     */
+    public TransformerBlock(int layerId, ModelArgs args, int numPages, int pageSize) {
+        this(layerId, args, new Attention(args, numPages, pageSize));
+    }
+
+    /**
+     * Constructor.
+     * @param layerId the identifier of the block.
+     * @param args the model configuration parameters.
+     * @param attention the attention module.
+     */
+    private TransformerBlock(int layerId, ModelArgs args, Attention attention) {
         this.layerId = layerId;
         this.numHeads = args.numHeads();
         this.dim = args.dim();
         this.headDim = args.dim() / args.numHeads();
-        this.attention = new Attention(args);
+        this.attention = attention;
         this.feedForward = new FeedForward(
                 args.dim(),
                 4 * args.dim(),
@@ -77,14 +98,15 @@ public class TransformerBlock {
     /**
      * Forward pass through the block.
      * @param x the input tensor.
-     * @param startPos the starting position for attention caching.
+     * @param writeIndex the cache index of input tokens.
+     * @param readIndex the cache index of the positions to attend.
      * @param cis the precomputed frequency tensor.
      * @param mask the attention mask tensor.
      * @return the output tensor.
      */
-    public Tensor forward(Tensor x, int startPos, Tensor cis, Tensor mask) {
+    public Tensor forward(Tensor x, Tensor writeIndex, Tensor readIndex, Tensor cis, Tensor mask) {
         try (Tensor anorm = attentionNorm.forward(x);
-             Tensor ax = attention.forward(anorm, startPos, cis, mask);
+             Tensor ax = attention.forward(anorm, writeIndex, readIndex, cis, mask);
              Tensor h = x.add(ax);
              Tensor fnorm = ffnNorm.forward(h);
              Tensor fx = feedForward.forward(fnorm)) {
@@ -20,17 +20,14 @@ import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Iterator;
 import java.util.Objects;
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingQueue;
 import java.util.function.ToIntFunction;
 import javax.imageio.ImageIO;
+import smile.deep.DataLoader;
 import smile.deep.Dataset;
 import smile.deep.SampleBatch;
 import smile.deep.tensor.Tensor;
-import smile.math.MathEx;
 import smile.vision.transform.Transform;
 
 /**
@@ -43,11 +40,11 @@ import smile.vision.transform.Transform;
  */
 public class ImageDataset implements Dataset {
     record ImageFile(File file, String label) { }
-    private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(ImageDataset.class);
     private final ArrayList<ImageFile> samples = new ArrayList<>();
-    private final int batch;
     private final Transform transform;
     private final ToIntFunction<String> targetTransform;
+    /** The parallel data loader that decodes images. */
+    private final DataLoader loader;
 
     /**
      * Constructor.
@@ -58,7 +55,18 @@ public class ImageDataset implements Dataset {
      * @throws IOException if the root directory doesn't exist or doesn't have images.
      */
     public ImageDataset(int batch, String root, Transform transform, ToIntFunction<String> targetTransform) throws IOException {
-        this.batch = batch;
+        this(new DataLoader.Options(batch), root, transform, targetTransform);
+    }
+
+    /**
+     * Constructor.
+     * @param options the data loader options.
+     * @param root the root directory of image dataset.
+     * @param transform the transformation from image to tensor.
+     * @param targetTransform the transform from image label to class index.
+     * @throws IOException if the root directory doesn't exist or doesn't have images.
+     */
+    public ImageDataset(DataLoader.Options options, String root, Transform transform, ToIntFunction<String> targetTransform) throws IOException {
         this.transform = transform;
         this.targetTransform = targetTransform;
 
@@ -85,11 +93,23 @@ public class ImageDataset implements Dataset {
         if (samples.isEmpty()) {
             throw new IOException("No JPEG or PNG images found in " + root);
         }
+
+        loader = new DataLoader(new DataLoader.Source() {
+            @Override
+            public long size() {
+                return samples.size();
+            }
+
+            @Override
+            public SampleBatch get(int[] index, boolean pin) throws IOException {
+                return readImages(index);
+            }
+        }, options);
     }
 
     @Override
     public void close() {
-        // We don't hold any (external) resources.
+        loader.close();
     }
 
     @Override
@@ -99,53 +119,7 @@ public class ImageDataset implements Dataset {
 
     @Override
     public Iterator<SampleBatch> iterator() {
-        final int size = samples.size();
-        final int[] permutation = MathEx.permutate(size);
-        final BlockingQueue<SampleBatch> queue = new LinkedBlockingQueue<>(100);
-
-        final int start = Math.min(batch, size);
-        final int[] index = Arrays.copyOf(permutation, start);
-
-        try {
-            // prefetch the first batch
-            queue.put(readImages(index));
-        } catch (Exception ex) {
-            logger.error("Failed to load the first batch", ex);
-        }
-
-        final Runnable worker = () -> {
-            for (int i = start; i < size; ) {
-                int n = Math.min(batch, size - i);
-                System.arraycopy(permutation, i, index,  0, n);
-                i += n;
-
-                try {
-                    queue.put(readImages(n == index.length ? index : Arrays.copyOf(index, n)));
-                } catch (Exception ex) {
-                    logger.error("Failed to load images", ex);
-                }
-            }
-        };
-
-        Thread thread = new Thread(worker, "ImageDatasetLoader");
-        thread.start();
-
-        return new Iterator<>() {
-            @Override
-            public boolean hasNext() {
-                return !queue.isEmpty() || thread.isAlive();
-            }
-
-            @Override
-            public SampleBatch next() {
-                try {
-                    return queue.take();
-                } catch (InterruptedException ex) {
-                    logger.error("Failed to take next sample batch", ex);
-                    return null;
-                }
-            }
-        };
+        return loader.iterator();
     }
 
     /**
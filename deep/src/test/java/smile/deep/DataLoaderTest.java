@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) 2010-2024 Haifeng Li. All rights reserved.
+ *
+ * Smile is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Smile is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Smile. If not, see <https://www.gnu.org/licenses/>.
+ */
+package smile.deep;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+import smile.data.DataFrame;
+import smile.data.formula.Formula;
+import smile.data.vector.DoubleVector;
+import smile.data.vector.IntVector;
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author Haifeng Li
+ */
+public class DataLoaderTest {
+
+    public DataLoaderTest() {
+    }
+
+    @BeforeAll
+    public static void setUpClass() throws Exception {
+    }
+
+    @AfterAll
+    public static void tearDownClass() throws Exception {
+    }
+
+    @BeforeEach
+    public void setUp() {
+    }
+
+    @AfterEach
+    public void tearDown() {
+    }
+
+    /** Returns the class labels of an epoch in order. */
+    private static List<Long> epoch(Dataset dataset, int dim) {
+        List<Long> labels = new ArrayList<>();
+        for (SampleBatch batch : dataset) {
+            float[] x = batch.data().floatArray();
+            long[] y = batch.target().longArray();
+            for (int i = 0; i < y.length; i++) {
+                // The first feature of sample i is 10 * i.
+                assertEquals(10 * y[i], x[i * dim], 1E-6);
+                labels.add(y[i]);
+            }
+            batch.close();
+        }
+        return labels;
+    }
+
+    @Test
+    public void testMemorySegment() {
+        System.out.println("MemorySegment");
+        int n = 1000;
+        int dim = 3;
+        int[] target = new int[n];
+        try (var arena = Arena.ofConfined()) {
+            var layout = ValueLayout.JAVA_FLOAT.withOrder(ByteOrder.LITTLE_ENDIAN);
+            MemorySegment data = arena.allocate((long) n * dim * Float.BYTES);
+            for (int i = 0; i < n; i++) {
+                target[i] = i;
+                for (int j = 0; j < dim; j++) {
+                    data.setAtIndex(layout, (long) i * dim + j, 10 * i + j);
+                }
+            }
+
+            var options = new DataLoader.Options(64, 4, 3, true, 7, false, false);
+            try (var loader = DataLoader.of(data, dim, target, options);
+                 var other = DataLoader.of(data, dim, target, options)) {
+                assertEquals(n, loader.size());
+                var first = epoch(loader, dim);
+                var second = epoch(loader, dim);
+                assertEquals(n, first.size());
+                assertEquals(n, first.stream().distinct().count());
+                assertNotEquals(first, second);
+                // Same seed and epoch, same permutation.
+                assertEquals(first, epoch(other, dim));
+            }
+
+            options = new DataLoader.Options(64, 2, 2, false, 0, true, false);
+            try (var loader = DataLoader.of(data, dim, target, options)) {
+                var labels = epoch(loader, dim);
+                assertEquals(960, labels.size());
+                for (int i = 0; i < labels.size(); i++) {
+                    assertEquals(i, labels.get(i));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testDataFrame() {
+        System.out.println("DataFrame");
+        int n = 100;
+        double[] x = new double[n];
+        int[] y = new int[n];
+        for (int i = 0; i < n; i++) {
+            x[i] = 10 * i;
+            y[i] = i;
+        }
+
+        var df = new DataFrame(new DoubleVector("x", x), new IntVector("y", y));
+        try (var loader = DataLoader.of(Formula.lhs("y"), df, new DataLoader.Options(16))) {
+            var labels = epoch(loader, 1);
+            assertEquals(n, labels.size());
+            assertEquals(n, labels.stream().distinct().count());
+        }
+    }
+}
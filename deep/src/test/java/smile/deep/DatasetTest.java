@@ -96,4 +96,47 @@ public class DatasetTest {
             assertEquals(metrics.get("Accuracy"), metrics.get("Weighted-Recall"), 0.001);
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testEvalMultiBatch() {
+        System.out.println("eval multiple batches");
+        float[][] x = new float[100][4];
+        int[] y = new int[100];
+        for (int i = 0; i < x.length; i++) {
+            for (int j = 0; j < 4; j++) {
+                x[i][j] = (float) Math.sin(i * (j + 1));
+            }
+            y[i] = i % 3;
+        }
+
+        Model net = new Model(new SequentialBlock(
+                Layer.relu(4, 16),
+                Layer.logSoftmax(16, 3))
+        );
+
+        try (var guard = Tensor.noGradGuard()) {
+            // The running totals of metrics must survive the per-batch scope.
+            Map<String, Double> batched = net.eval(Dataset.of(x, y, 8),
+                    new Accuracy(),
+                    new Precision(Averaging.Micro),
+                    new Precision(Averaging.Macro),
+                    new Precision(Averaging.Weighted),
+                    new Recall(Averaging.Micro),
+                    new Recall(Averaging.Macro),
+                    new Recall(Averaging.Weighted));
+            Map<String, Double> whole = net.eval(Dataset.of(x, y, 100),
+                    new Accuracy(),
+                    new Precision(Averaging.Micro),
+                    new Precision(Averaging.Macro),
+                    new Precision(Averaging.Weighted),
+                    new Recall(Averaging.Micro),
+                    new Recall(Averaging.Macro),
+                    new Recall(Averaging.Weighted));
+            assertEquals(whole.keySet(), batched.keySet());
+            for (var entry : whole.entrySet()) {
+                assertEquals(entry.getValue(), batched.get(entry.getKey()), 1E-6, entry.getKey());
+            }
+            assertEquals(batched.get("Accuracy"), batched.get("Micro-Precision"), 1E-6);
+        }
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) 2010-2024 Haifeng Li. All rights reserved.
+ *
+ * Smile is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Smile is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Smile. If not, see <https://www.gnu.org/licenses/>.
+ */
+package smile.llm.llama;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author Haifeng Li
+ */
+public class PagedCacheTest {
+
+    public PagedCacheTest() {
+    }
+
+    @BeforeAll
+    public static void setUpClass() throws Exception {
+    }
+
+    @AfterAll
+    public static void tearDownClass() throws Exception {
+    }
+
+    @BeforeEach
+    public void setUp() {
+    }
+
+    @AfterEach
+    public void tearDown() {
+    }
+
+    /** Returns the prompt of a common prefix followed by a suffix. */
+    private static int[] prompt(int prefix, int suffix, int seed) {
+        return IntStream.range(0, prefix + suffix)
+                .map(i -> i < prefix ? i : seed * 1000 + i)
+                .toArray();
+    }
+
+    @Test
+    public void testAllocate() {
+        System.out.println("allocate");
+        var cache = new PagedCache(8, 4);
+        assertEquals(3, cache.pages(9));
+        assertEquals(0, cache.allocate(0, prompt(0, 6, 0), 10));
+        assertEquals(3, cache.usedPages());
+        assertEquals(5, cache.freePages());
+
+        int[] table = cache.table(0);
+        assertEquals(3, table.length);
+        assertEquals(table[1] * 4L + 1, cache.index(table, 5));
+        assertEquals(6.0 / 12, cache.utilization(), 1E-10);
+
+        cache.setLength(0, 9);
+        assertEquals(9.0 / 12, cache.utilization(), 1E-10);
+
+        // not enough pages
+        assertEquals(-1, cache.allocate(1, prompt(0, 6, 1), 24));
+        assertThrows(IllegalStateException.class, () -> cache.table(1));
+
+        assertTrue(cache.extend(1, 5));
+        assertEquals(2, cache.table(1).length);
+        assertFalse(cache.extend(1, 32));
+
+        cache.release(0);
+        cache.release(1);
+        cache.release(2);
+        assertEquals(0, cache.usedPages());
+        assertEquals(8, cache.freePages());
+        assertEquals(0, cache.cachedPages());
+    }
+
+    @Test
+    public void testPrefixSharing() {
+        System.out.println("prefix sharing");
+        var cache = new PagedCache(16, 4);
+        int[] p0 = prompt(10, 3, 0);
+        assertEquals(0, cache.allocate(0, p0, 16));
+        cache.commit(0, p0);
+
+        // The two full pages of common prefix are shared.
+        int[] p1 = prompt(10, 5, 1);
+        assertEquals(8, cache.allocate(1, p1, 16));
+        cache.commit(1, p1);
+        int[] t0 = cache.table(0);
+        int[] t1 = cache.table(1);
+        assertEquals(t0[0], t1[0]);
+        assertEquals(t0[1], t1[1]);
+        assertNotEquals(t0[2], t1[2]);
+        assertEquals(6, cache.usedPages());
+        assertEquals(8.0 / 28, cache.prefixHitRate(), 1E-10);
+
+        // The page of last prompt token is never shared.
+        int[] p2 = prompt(8, 0, 2);
+        assertEquals(4, cache.allocate(2, p2, 8));
+        assertEquals(t0[0], cache.table(2)[0]);
+        assertNotEquals(t0[1], cache.table(2)[1]);
+
+        // The prompt pages are kept after release.
+        cache.release(0);
+        cache.release(1);
+        cache.release(2);
+        assertEquals(0, cache.usedPages());
+        assertTrue(cache.cachedPages() > 0);
+        assertEquals(12, cache.allocate(3, p0, 16));
+        assertArrayEquals(Arrays.copyOf(t0, 3), Arrays.copyOf(cache.table(3), 3));
+        cache.release(3);
+    }
+
+    @Test
+    public void testReclaim() {
+        System.out.println("reclaim");
+        var cache = new PagedCache(4, 4);
+        int[] p0 = prompt(9, 0, 0);
+        assertEquals(0, cache.allocate(0, p0, 12));
+        cache.commit(0, p0);
+        cache.release(0);
+        assertEquals(2, cache.cachedPages());
+        assertEquals(4, cache.freePages());
+
+        // The cached pages are reclaimed for a different prompt.
+        int[] p1 = prompt(0, 9, 1);
+        assertEquals(0, cache.allocate(1, p1, 16));
+        assertEquals(4, cache.usedPages());
+        assertEquals(0, cache.cachedPages());
+        cache.release(1);
+
+        // The old prefix is gone.
+        assertEquals(0, cache.allocate(2, p0, 12));
+        cache.release(2);
+    }
+}
@@ -37,7 +37,8 @@ tasks.quarkusDev {
     jvmArgs = listOf(
         "--add-opens", "java.base/java.lang=ALL-UNNAMED",
         "--add-opens", "java.base/java.nio=ALL-UNNAMED",
-        "--enable-native-access", "ALL-UNNAMED")
+        "--enable-native-access", "ALL-UNNAMED",
+        "--add-modules", "jdk.incubator.vector")
 }
 tasks.withType<JavaCompile> {
     options.encoding = "UTF-8"
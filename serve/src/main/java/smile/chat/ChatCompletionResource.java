@@ -16,6 +16,8 @@
  */
 package smile.chat;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.SubmissionPublisher;
 import jakarta.inject.Inject;
 import jakarta.transaction.Transactional;
@@ -64,18 +66,25 @@ public class ChatCompletionResource {
         conversation.setContext(routingContext, headers);
 
         SubmissionPublisher<String> publisher = new SubmissionPublisher<>();
-        executor.supplyAsync(() -> {
-            var completions = service.complete(request, publisher);
-            saveConversation(conversation, request, completions);
-            return completions;
-        });
-        return Multi.createFrom().publisher(publisher);
+        CompletableFuture<ChatCompletion> future;
+        try {
+            future = service.complete(request, publisher);
+        } catch (RejectedExecutionException ex) {
+            // Too many requests in the queue. Ask the client to retry later.
+            publisher.close();
+            throw new ServiceUnavailableException(1L);
+        }
+
+        future.thenAcceptAsync(completion -> saveConversation(conversation, request, completion), executor);
+        // Stops the generation if the client disconnects.
+        return Multi.createFrom().publisher(publisher)
+                .onCancellation().invoke(() -> future.cancel(false));
     }
 
     @Transactional
     public void saveConversation(Conversation conversation,
                                  CompletionRequest request,
-                                 ChatCompletion[] completions) {
+                                 ChatCompletion completion) {
         Long conversationId = request.conversation;
         if (conversationId == null || conversationId <= 0) {
             conversation.persist();
@@ -94,12 +103,10 @@ public class ChatCompletionResource {
             }
         }
 
-        for (var completion : completions) {
-            ConversationItem item = new ConversationItem();
-            item.conversationId = conversationId;
-            item.role = Role.assistant.toString();
-            item.content = completion.content();
-            item.persist();
-        }
+        ConversationItem item = new ConversationItem();
+        item.conversationId = conversationId;
+        item.role = Role.assistant.toString();
+        item.content = completion.content();
+        item.persist();
     }
 }
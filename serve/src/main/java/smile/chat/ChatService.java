@@ -18,7 +18,9 @@ package smile.chat;
 
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.SubmissionPublisher;
+import jakarta.annotation.PreDestroy;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 import io.quarkus.runtime.Startup;
@@ -27,7 +29,9 @@ import smile.llm.*;
 import smile.llm.llama.*;
 
 /**
- * The chat completion service provider.
+ * The chat completion service provider. The requests are served by
+ * a continuous batching scheduler so that concurrent conversations
+ * share the batch slots of the model.
  *
  * @author Haifeng Li
  */
@@ -37,6 +41,8 @@ public class ChatService {
     private static final Logger logger = Logger.getLogger(ChatService.class);
     /** The LLM models. */
     private Llama model;
+    /** The scheduler of requests. */
+    private BatchScheduler scheduler;
 
     /**
      * Load LLM model upon application start.
@@ -46,8 +52,10 @@ public class ChatService {
     public ChatService(ChatServiceConfig config) {
         try {
             if (Files.exists(Paths.get(config.model()))) {
+                int cacheSize = config.cacheSize() > 0 ? config.cacheSize() : config.maxBatchSize() * config.maxSeqLen();
                 model = Llama.build(config.model(), config.tokenizer(),
-                        config.maxBatchSize(), config.maxSeqLen(), config.device());
+                        config.maxBatchSize(), config.maxSeqLen(), cacheSize, config.device());
+                scheduler = new BatchScheduler(model, config.maxQueueSize());
             } else {
                 logger.infof("LLM model '%s' doesn't exist. Chat service won't be available.", config.model());
             }
@@ -61,17 +69,29 @@ public class ChatService {
      * @return true if the service/model is available.
      */
     public boolean isAvailable() {
-        return model != null;
+        return scheduler != null;
     }
 
     /**
-     * Completes a chat request.
+     * Stops the scheduler upon application shutdown.
+     */
+    @PreDestroy
+    void shutdown() {
+        if (scheduler != null) {
+            scheduler.close();
+        }
+    }
+
+    /**
+     * Completes a chat request asynchronously.
      * @param request the chat request.
      * @param publisher the flow publisher.
+     * @return the future of chat completion.
+     * @throws java.util.concurrent.RejectedExecutionException if the
+     *         request queue is full.
      */
-    public ChatCompletion[] complete(CompletionRequest request, SubmissionPublisher<String> publisher) {
-        Message[][] dialogs = { request.messages };
-        return model.chat(dialogs, request.maxTokens, request.temperature,
-                request.topP, request.logprobs, request.seed, publisher);
+    public CompletableFuture<ChatCompletion> complete(CompletionRequest request, SubmissionPublisher<String> publisher) {
+        return scheduler.chat(request.messages, request.maxTokens, request.temperature,
+                request.topP, request.logprobs, publisher);
     }
 }
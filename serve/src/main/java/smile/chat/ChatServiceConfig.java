@@ -33,6 +33,15 @@ public interface ChatServiceConfig {
     int maxSeqLen();
     @WithDefault("1")
     int maxBatchSize();
+    /** The maximum number of requests waiting for a batch slot. */
+    @WithDefault("64")
+    int maxQueueSize();
+    /**
+     * The number of positions of the paged key-value cache shared by all
+     * sequences. If 0, it is maxBatchSize * maxSeqLen.
+     */
+    @WithDefault("0")
+    int cacheSize();
     @WithDefault("0")
     byte device();
 }
@@ -17,10 +17,12 @@
 package smile.serve;
 
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import io.vertx.core.json.JsonObject;
 import jakarta.ws.rs.BadRequestException;
+import smile.data.DataFrame;
 import smile.data.Tuple;
 import smile.data.type.StructType;
 import smile.io.Paths;
@@ -116,6 +118,47 @@ public class InferenceModel {
         return new InferenceResponse(y, probabilities);
     }
 
+    /**
+     * Performs the vectorized inference of a batch.
+     * @param batch the input tuples.
+     * @return the inference results.
+     */
+    public InferenceResponse[] predict(List<Tuple> batch) {
+        int n = batch.size();
+        var responses = new InferenceResponse[n];
+        if (n == 0) return responses;
+
+        var data = DataFrame.of(model.schema(), batch);
+        switch (model) {
+            case ClassificationModel m -> {
+                if (isSoft) {
+                    var posteriori = new ArrayList<double[]>(n);
+                    int[] y = m.classifier().predict(data, posteriori);
+                    for (int i = 0; i < n; i++) {
+                        responses[i] = new InferenceResponse(y[i], posteriori.get(i));
+                    }
+                } else {
+                    int[] y = m.classifier().predict(data);
+                    for (int i = 0; i < n; i++) {
+                        responses[i] = new InferenceResponse(y[i]);
+                    }
+                }
+            }
+            case RegressionModel m -> {
+                double[] y = m.regression().predict(data);
+                for (int i = 0; i < n; i++) {
+                    responses[i] = new InferenceResponse(y[i]);
+                }
+            }
+            default -> {
+                for (int i = 0; i < n; i++) {
+                    responses[i] = new InferenceResponse(0);
+                }
+            }
+        }
+        return responses;
+    }
+
     /**
      * Converts a JSON object to a SMILE tuple.
      * @param values the JSON object.
@@ -20,6 +20,7 @@ import java.io.BufferedReader;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.util.List;
+import java.util.concurrent.CompletionStage;
 import jakarta.inject.Inject;
 import jakarta.ws.rs.Consumes;
 import jakarta.ws.rs.GET;
@@ -61,11 +62,18 @@ public class InferenceResource {
         return service.getModel(id).metadata();
     }
 
+    @GET
+    @Path("/{id}/stats")
+    @Produces(MediaType.APPLICATION_JSON)
+    public ModelStats stats(@PathParam("id") String id) {
+        return service.stats(id);
+    }
+
     @POST
     @Path("/{id}")
     @Consumes(MediaType.APPLICATION_JSON)
     @Produces(MediaType.APPLICATION_JSON)
-    public InferenceResponse predict(@PathParam("id") String id, JsonObject request) {
+    public CompletionStage<InferenceResponse> predict(@PathParam("id") String id, JsonObject request) {
         return service.predict(id, request);
     }
 
@@ -74,18 +82,12 @@ public class InferenceResource {
     @Consumes({MediaType.APPLICATION_JSON, MediaType.TEXT_PLAIN})
     @RestStreamElementType(MediaType.TEXT_PLAIN) // Important for streaming item by item without buffering
     public Multi<String> csv(@HeaderParam("Content-Type") String contentType, @PathParam("id") String id, InputStream input) {
-        var model = service.getModel(id);
+        service.getModel(id); // throws NotFoundException before streaming
         boolean json = MediaType.APPLICATION_JSON.equals(contentType);
         return Multi.createFrom().emitter(emitter -> {
             Infrastructure.getDefaultWorkerPool().submit(() -> {
                 try (var reader = new BufferedReader(new InputStreamReader(input))) {
-                    String line;
-                    while ((line = reader.readLine()) != null) {
-                        if (!line.isBlank()) {
-                            var response = json ? model.predict(new JsonObject(line)) : model.predict(line);
-                            emitter.emit(response.toString());
-                        }
-                    }
+                    service.predict(id, reader, json, response -> emitter.emit(response.toString()));
                     emitter.complete();
                 } catch (Exception ex) {
                     emitter.fail(ex);
@@ -16,24 +16,42 @@
  */
 package smile.serve;
 
+import java.io.BufferedReader;
 import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.WatchService;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.TreeMap;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Stream;
 import io.quarkus.runtime.Startup;
 import io.vertx.core.json.JsonObject;
+import jakarta.annotation.PreDestroy;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 import jakarta.ws.rs.BadRequestException;
+import jakarta.ws.rs.InternalServerErrorException;
 import jakarta.ws.rs.NotFoundException;
+import jakarta.ws.rs.ServiceUnavailableException;
 import org.jboss.logging.Logger;
-import smile.io.Read;
-import smile.model.Model;
+import smile.data.Tuple;
+import static java.nio.file.StandardWatchEventKinds.*;
 
 /**
  * The inference service provider.
@@ -44,8 +62,20 @@ import smile.model.Model;
 @ApplicationScoped
 public class InferenceService {
     private static final Logger logger = Logger.getLogger(InferenceService.class);
+    /** The quiet period in milliseconds before reloading the updated model files. */
+    private static final long WATCH_DELAY = 1000;
+    /** The maximum time in milliseconds to drain the micro-batchers at shutdown. */
+    private static final long SHUTDOWN_TIMEOUT = 5000;
     /** The ML models. */
-    private final Map<String, InferenceModel> models = new TreeMap<>();
+    private final Map<String, ModelEntry> models = new ConcurrentHashMap<>();
+    /** The service configuration. */
+    private final InferenceServiceConfig config;
+    /** The watch service of model directory. */
+    private WatchService watchService;
+    /** The threads shared by the micro-batchers of all models, or null if the requests are not batched. */
+    private final ExecutorService batchExecutor;
+    /** The maximum number of micro-batches of a model processed concurrently. */
+    private final int batchParallelism;
 
     /**
      * Load ML models upon application start.
@@ -53,49 +83,243 @@ public class InferenceService {
      */
     @Inject
     public InferenceService(InferenceServiceConfig config) {
+        this.config = config;
+        int batchThreads = config.batchThreads() > 0 ? config.batchThreads() : Runtime.getRuntime().availableProcessors();
+        this.batchParallelism = parallelism(config.batchParallelism(), batchThreads);
+        this.batchExecutor = config.maxBatchSize() <= 1 ? null : Executors.newFixedThreadPool(batchThreads,
+                Thread.ofPlatform().name("smile-batcher-", 0).daemon(true).factory());
+
+        long start = System.nanoTime();
         var path = Paths.get(config.model()).toAbsolutePath().normalize();
         if (Files.isRegularFile(path)) {
-            loadModel(path);
+            register(path);
         } else if (Files.isDirectory(path)) {
             try (Stream<Path> files = Files.list(path)) {
                 files.forEach(file -> {
                     if (Files.isRegularFile(file) && file.toString().endsWith(".sml")) {
-                        loadModel(file);
+                        register(file);
                     }
                 });
             } catch (IOException ex) {
                 logger.error(ex);
             }
+
+            if (config.watch()) {
+                watch(path);
+            }
         } else {
             logger.errorf("'%s' is not a regular file", path);
         }
+
+        logger.infof("Registered %d models in %d ms", models.size(), (System.nanoTime() - start) / 1000000);
     }
 
     /**
-     * Loads a model.
+     * Registers a model file. With lazy loading, the model is registered
+     * by the file name and loaded on the first request. Otherwise, the
+     * model is loaded and registered by its id-version tags.
      * @param path the model file path.
      */
-    private void loadModel(Path path) {
+    private void register(Path path) {
+        if (config.lazyLoad()) {
+            var id = smile.io.Paths.getFileName(path);
+            models.put(id, new ModelEntry(id, path, batcher()));
+            return;
+        }
+
         try {
             logger.infof("Loading model from '%s'", path);
-            var obj = Read.object(path);
-            if (obj instanceof Model dummy) {
-                var model = new InferenceModel(dummy, path);
-                models.put(model.id(), model);
-            } else {
-                logger.errorf("'%s' is not a valid model", path);
+            long start = System.nanoTime();
+            var model = ModelEntry.read(path);
+            long nanos = System.nanoTime() - start;
+
+            var entry = new ModelEntry(model.id(), path, batcher());
+            entry.install(model, nanos);
+            var old = models.put(entry.id, entry);
+            if (old != null) {
+                old.unload();
             }
+            evict(entry);
         } catch (Exception ex) {
             logger.errorf(ex, "Failed to load model '%s'", path);
         }
     }
 
     /**
-     * Returns the list of models in id-version format.
+     * Returns the factory of micro-batchers, or null if the requests are not batched.
+     * The micro-batchers of all models share the same threads.
+     * @return the factory of micro-batchers.
+     */
+    private Function<InferenceModel, MicroBatcher> batcher() {
+        if (batchExecutor == null) return null;
+        return model -> new MicroBatcher(model, config.maxBatchSize(), config.maxBatchDelay(), config.maxQueueSize(), batchExecutor, batchParallelism);
+    }
+
+    /**
+     * Returns the parallelism of micro-batchers. It is less than the
+     * number of shared batch threads, if there are more than one, so
+     * that the other models always have a thread to run on while a
+     * busy model waits out the batch delay.
+     * @param parallelism the configured parallelism per model.
+     * @param threads the number of shared batch threads.
+     * @return the parallelism per model.
+     */
+    static int parallelism(int parallelism, int threads) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("Invalid batch parallelism: " + parallelism);
+        }
+        return Math.max(1, Math.min(parallelism, threads - 1));
+    }
+
+    /**
+     * Watches the model directory. The new and updated model files are
+     * loaded and swapped in. The models of deleted files are removed.
+     * @param dir the model directory.
+     */
+    private void watch(Path dir) {
+        try {
+            watchService = dir.getFileSystem().newWatchService();
+            dir.register(watchService, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE);
+        } catch (IOException ex) {
+            logger.errorf(ex, "Failed to watch model directory '%s'", dir);
+            return;
+        }
+
+        Thread.ofPlatform().name("smile-model-watcher").daemon(true).start(() -> {
+            var changed = new LinkedHashSet<Path>();
+            try {
+                while (true) {
+                    // A file is usually written in several steps. Waits
+                    // until the directory is quiet to read complete files.
+                    var key = changed.isEmpty() ? watchService.take() : watchService.poll(WATCH_DELAY, TimeUnit.MILLISECONDS);
+                    if (key == null) {
+                        changed.forEach(this::refresh);
+                        changed.clear();
+                        continue;
+                    }
+
+                    for (var event : key.pollEvents()) {
+                        if (event.context() instanceof Path file && file.toString().endsWith(".sml")) {
+                            changed.add(dir.resolve(file));
+                        }
+                    }
+
+                    if (!key.reset()) {
+                        logger.errorf("Model directory '%s' is not accessible", dir);
+                        return;
+                    }
+                }
+            } catch (InterruptedException | ClosedWatchServiceException ex) {
+                logger.debug("Model directory watcher stopped");
+            }
+        });
+    }
+
+    /**
+     * Reloads, adds or removes the model of an updated file.
+     * @param path the model file path.
+     */
+    private void refresh(Path path) {
+        var entry = models.values().stream()
+                .filter(e -> e.path.equals(path))
+                .findAny().orElse(null);
+
+        if (!Files.isRegularFile(path)) {
+            if (entry != null && models.remove(entry.id, entry)) {
+                entry.unload();
+                logger.infof("Removed model %s as '%s' is deleted", entry.id, path);
+            }
+            return;
+        }
+
+        if (entry == null) {
+            register(path);
+            return;
+        }
+
+        try {
+            if (config.lazyLoad()) {
+                // The model not in memory will be loaded on demand.
+                if (entry.isResident()) {
+                    entry.load();
+                }
+            } else {
+                long start = System.nanoTime();
+                var model = ModelEntry.read(path);
+                long nanos = System.nanoTime() - start;
+                if (model.id().equals(entry.id)) {
+                    entry.install(model, nanos);
+                } else {
+                    // A new version of model. Replaces the old one.
+                    var update = new ModelEntry(model.id(), path, batcher());
+                    update.install(model, nanos);
+                    var old = models.put(update.id, update);
+                    if (old != null) old.unload();
+                    if (models.remove(entry.id, entry)) entry.unload();
+                    evict(update);
+                }
+            }
+        } catch (Exception ex) {
+            logger.errorf(ex, "Failed to reload model '%s'. Keep serving the current one", path);
+        }
+    }
+
+    /**
+     * Unloads the least recently used models if the number of models
+     * in memory exceeds the limit.
+     * @param current the model to keep in memory.
+     */
+    private synchronized void evict(ModelEntry current) {
+        int max = config.maxResidentModels();
+        if (max <= 0) return;
+
+        var residents = models.values().stream()
+                .filter(entry -> entry != current && entry.isResident())
+                .sorted(Comparator.comparingLong(ModelEntry::lastAccess))
+                .toList();
+        for (int i = 0; i < residents.size() - max + 1; i++) {
+            residents.get(i).unload();
+        }
+    }
+
+    /**
+     * Returns the list of models. The model id is in id-version format,
+     * or the file name with lazy loading.
      * @return the list of models.
      */
     public List<String> models() {
-        return new ArrayList<>(models.keySet());
+        return models.keySet().stream().sorted().toList();
+    }
+
+    /**
+     * Returns the model entry.
+     * @param id the model id.
+     * @return the model entry.
+     * @throws NotFoundException if model doesn't exist.
+     */
+    private ModelEntry entry(String id) throws NotFoundException {
+        var entry = models.get(id);
+        if (entry == null) throw new NotFoundException(id);
+        return entry;
+    }
+
+    /**
+     * Returns the model in memory. Loads the model if necessary.
+     * @param id the model id.
+     * @return the model in memory.
+     * @throws NotFoundException if model doesn't exist.
+     */
+    private ModelEntry.Resident resident(String id) throws NotFoundException {
+        var entry = entry(id);
+        boolean loading = !entry.isResident();
+        try {
+            var resident = entry.get();
+            if (loading) evict(entry);
+            return resident;
+        } catch (IOException ex) {
+            logger.errorf(ex, "Failed to load model '%s'", entry.path);
+            throw new InternalServerErrorException("Failed to load model " + id);
+        }
     }
 
     /**
@@ -105,19 +329,144 @@ public class InferenceService {
      * @throws NotFoundException if model doesn't exist.
      */
     public InferenceModel getModel(String id) throws NotFoundException {
-        var model = models.get(id);
-        if (model == null) throw new NotFoundException(id);
-        return model;
+        return resident(id).model();
+    }
+
+    /**
+     * Returns the loading and usage statistics of a model.
+     * @param id the model id.
+     * @return the model statistics.
+     * @throws NotFoundException if model doesn't exist.
+     */
+    public ModelStats stats(String id) throws NotFoundException {
+        return entry(id).stats();
     }
 
     /**
      * Performs inference using the generic JSON input.
      * @param model the model id.
      * @param request the generic input data as a Map.
-     * @return the inference result.
+     * @return the future of inference result.
      * @throws BadRequestException if invalid request body.
+     * @throws ServiceUnavailableException if too many requests are waiting.
      */
-    public InferenceResponse predict(String model, JsonObject request) throws BadRequestException, NotFoundException {
-        return getModel(model).predict(request);
+    public CompletableFuture<InferenceResponse> predict(String model, JsonObject request) throws BadRequestException, NotFoundException {
+        var resident = resident(model);
+        var instance = resident.model();
+        Tuple x = instance.json(request);
+        var batcher = resident.batcher();
+        if (batcher == null) {
+            return CompletableFuture.completedFuture(instance.predict(x));
+        }
+
+        try {
+            return batcher.submit(x);
+        } catch (RejectedExecutionException ex) {
+            // The model has just been swapped out.
+            if (batcher.isClosed()) {
+                return CompletableFuture.completedFuture(instance.predict(x));
+            }
+            logger.warnf("Micro-batch queue of %s is full", model);
+            throw new ServiceUnavailableException(1L);
+        }
+    }
+
+    /**
+     * Performs inference on a stream of CSV or JSON lines. The lines are
+     * scored by chunks in parallel. The results are emitted in the order
+     * of lines.
+     * @param model the model id.
+     * @param reader the input lines.
+     * @param json true if the lines are JSON objects, otherwise CSV.
+     * @param emitter the consumer of inference results.
+     * @throws IOException if fail to read the input.
+     * @throws BadRequestException if invalid request body.
+     */
+    public void predict(String model, BufferedReader reader, boolean json, Consumer<InferenceResponse> emitter) throws IOException {
+        var instance = getModel(model);
+        int chunkSize = config.streamChunkSize();
+        // Bounds the chunks in flight to limit the memory of buffered results.
+        int parallelism = Runtime.getRuntime().availableProcessors();
+        var pending = new ArrayDeque<CompletableFuture<InferenceResponse[]>>(parallelism);
+
+        var lines = new ArrayList<String>(chunkSize);
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isBlank()) continue;
+            lines.add(line);
+            if (lines.size() == chunkSize) {
+                if (pending.size() == parallelism) {
+                    emit(pending.poll(), emitter);
+                }
+                pending.add(predict(instance, lines, json));
+                lines = new ArrayList<>(chunkSize);
+            }
+        }
+
+        if (!lines.isEmpty()) {
+            pending.add(predict(instance, lines, json));
+        }
+
+        while (!pending.isEmpty()) {
+            emit(pending.poll(), emitter);
+        }
+    }
+
+    /** Scores a chunk of lines asynchronously. */
+    private CompletableFuture<InferenceResponse[]> predict(InferenceModel model, List<String> lines, boolean json) {
+        return CompletableFuture.supplyAsync(() -> {
+            var batch = lines.stream()
+                    .map(line -> json ? model.json(new JsonObject(line)) : model.csv(line))
+                    .toList();
+            return model.predict(batch);
+        });
+    }
+
+    /** Waits for the results of a chunk and emits them. */
+    private void emit(CompletableFuture<InferenceResponse[]> chunk, Consumer<InferenceResponse> emitter) {
+        try {
+            for (var response : chunk.join()) {
+                emitter.accept(response);
+            }
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) throw cause;
+            throw ex;
+        }
+    }
+
+    /**
+     * Stops watching the model directory and releases the micro-batchers.
+     * The waiting requests are processed before the batch threads exit.
+     */
+    @PreDestroy
+    public void shutdown() {
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException ex) {
+                logger.debug(ex);
+            }
+        }
+        var batchers = models.values().stream()
+                .map(ModelEntry::unload)
+                .filter(Objects::nonNull)
+                .toList();
+
+        if (batchExecutor != null) {
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(SHUTDOWN_TIMEOUT);
+            try {
+                for (var batcher : batchers) {
+                    batcher.awaitTermination(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                }
+                batchExecutor.shutdown();
+                if (!batchExecutor.awaitTermination(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                    logger.warn("Micro-batchers are not drained in time");
+                    batchExecutor.shutdownNow();
+                }
+            } catch (InterruptedException ex) {
+                batchExecutor.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+        }
     }
 }
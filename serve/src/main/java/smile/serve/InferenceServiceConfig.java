@@ -17,6 +17,7 @@
 package smile.serve;
 
 import io.smallrye.config.ConfigMapping;
+import io.smallrye.config.WithDefault;
 
 /**
  * The inference service configuration.
@@ -27,4 +28,38 @@ import io.smallrye.config.ConfigMapping;
 public interface InferenceServiceConfig {
     /** The location of pre-trained model(s) for inference. */
     String model();
+    /**
+     * If true, the models are registered by the file name and loaded
+     * on the first request. Otherwise, the models are loaded at startup.
+     */
+    @WithDefault("false")
+    boolean lazyLoad();
+    /** The maximum number of models in memory. If 0, there is no limit. */
+    @WithDefault("0")
+    int maxResidentModels();
+    /** If true, the new and updated model files in the model directory are loaded on the fly. */
+    @WithDefault("true")
+    boolean watch();
+    /** The maximum number of requests in a micro-batch. If 1, the requests are not batched. */
+    @WithDefault("64")
+    int maxBatchSize();
+    /** The maximum waiting time in milliseconds of a request for its micro-batch. */
+    @WithDefault("2")
+    long maxBatchDelay();
+    /** The maximum number of requests waiting for a micro-batch per model. */
+    @WithDefault("4096")
+    int maxQueueSize();
+    /** The number of threads shared by all models to process micro-batches. If 0, it is the number of processors. */
+    @WithDefault("0")
+    int batchThreads();
+    /**
+     * The maximum number of micro-batches of a model processed concurrently.
+     * It is capped below the number of batch threads so that a busy model
+     * cannot hold all the threads shared with other models.
+     */
+    @WithDefault("2")
+    int batchParallelism();
+    /** The number of lines per chunk that the streaming endpoint scores in parallel. */
+    @WithDefault("256")
+    int streamChunkSize();
 }
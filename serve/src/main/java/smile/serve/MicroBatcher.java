@@ -0,0 +1,274 @@
+/*
+ * Copyright (c) 2010-2025 Haifeng Li. All rights reserved.
+ *
+ * Smile Shell is free software: you can redistribute it and/or modify
+ * under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Smile Shell is distributed in the hope that it will be useful,
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Smile. If not, see <https://www.gnu.org/licenses/>.
+ */
+package smile.serve;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.jboss.logging.Logger;
+import smile.data.Tuple;
+
+/**
+ * The micro-batcher of a model, which coalesces the concurrent requests
+ * into batches for the vectorized inference. A batch is closed when it
+ * reaches the maximum batch size or the first request in it has waited
+ * for the maximum delay. Several batches are processed concurrently
+ * while the next batch is filling.
+ * <p>
+ * The batcher doesn't own any thread. The batches are collected and
+ * processed by the tasks on an executor, which is usually shared by
+ * the batchers of all models. A task is scheduled only when there are
+ * waiting requests, so that an idle model doesn't hold or wake up any
+ * thread. As a task waits for the batch delay on its thread, the
+ * parallelism of a batcher should be less than the number of shared
+ * threads so that a busy model cannot starve the others.
+ * <p>
+ * Closing the batcher stops accepting new requests. The waiting requests
+ * are still processed, so that a model can be swapped out without
+ * dropping in-flight requests.
+ *
+ * @author Haifeng Li
+ */
+public class MicroBatcher implements AutoCloseable {
+    private static final Logger logger = Logger.getLogger(MicroBatcher.class);
+
+    /** A request waiting for its result. */
+    private record Request(Tuple x, CompletableFuture<InferenceResponse> future) {}
+
+    /** The model. */
+    private final InferenceModel model;
+    /** The maximum number of requests in a batch. */
+    private final int maxBatchSize;
+    /** The maximum waiting time of a request in nanoseconds. */
+    private final long maxDelay;
+    /** The waiting requests. */
+    private final LinkedBlockingQueue<Request> queue;
+    /** The executor of batch tasks. */
+    private final Executor executor;
+    /** The maximum number of batches processed concurrently. */
+    private final int parallelism;
+    /** The number of batch tasks submitted to the executor. */
+    private final AtomicInteger tasks = new AtomicInteger();
+    /** The future that completes when the batcher is closed and drained. */
+    private final CompletableFuture<Void> terminated = new CompletableFuture<>();
+    /** The flag if the batcher is closed. */
+    private volatile boolean closed = false;
+
+    /**
+     * Constructor.
+     * @param model the model.
+     * @param maxBatchSize the maximum number of requests in a batch.
+     * @param maxDelay the maximum waiting time of a request in milliseconds.
+     * @param maxQueueSize the maximum number of waiting requests.
+     * @param executor the executor of batch tasks.
+     * @param parallelism the maximum number of batches processed concurrently.
+     */
+    public MicroBatcher(InferenceModel model, int maxBatchSize, long maxDelay, int maxQueueSize, Executor executor, int parallelism) {
+        if (maxBatchSize <= 0) {
+            throw new IllegalArgumentException("Invalid maximum batch size: " + maxBatchSize);
+        }
+        if (maxDelay < 0) {
+            throw new IllegalArgumentException("Invalid maximum delay: " + maxDelay);
+        }
+        if (maxQueueSize <= 0) {
+            throw new IllegalArgumentException("Invalid maximum queue size: " + maxQueueSize);
+        }
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("Invalid parallelism: " + parallelism);
+        }
+
+        this.model = model;
+        this.maxBatchSize = maxBatchSize;
+        this.maxDelay = TimeUnit.MILLISECONDS.toNanos(maxDelay);
+        this.queue = new LinkedBlockingQueue<>(maxQueueSize);
+        this.executor = executor;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Submits a request.
+     * @param x the input tuple.
+     * @return the future of inference result.
+     * @throws RejectedExecutionException if the queue is full or the batcher is closed.
+     */
+    public CompletableFuture<InferenceResponse> submit(Tuple x) throws RejectedExecutionException {
+        if (closed) {
+            throw new RejectedExecutionException("The micro-batcher of " + model.id() + " is closed");
+        }
+
+        var future = new CompletableFuture<InferenceResponse>();
+        var request = new Request(x, future);
+        if (!queue.offer(request)) {
+            throw new RejectedExecutionException("Too many requests to " + model.id());
+        }
+
+        // The batcher may have been drained if closed concurrently.
+        // Otherwise, a task has taken the request.
+        if (closed && queue.remove(request)) {
+            throw new RejectedExecutionException("The micro-batcher of " + model.id() + " is closed");
+        }
+        schedule();
+        return future;
+    }
+
+    /**
+     * Returns true if the batcher is closed.
+     * @return true if the batcher is closed.
+     */
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Returns the number of waiting requests.
+     * @return the number of waiting requests.
+     */
+    public int queueSize() {
+        return queue.size();
+    }
+
+    /**
+     * Stops accepting new requests. The waiting requests are
+     * still processed.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        schedule();
+        terminate();
+    }
+
+    /**
+     * Waits until the batcher is closed and the waiting requests
+     * are processed.
+     * @param timeout the maximum time to wait.
+     * @param unit the time unit of the timeout argument.
+     * @return true if the batcher is terminated, false if the timeout
+     *         elapsed before termination.
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        try {
+            terminated.get(timeout, unit);
+            return true;
+        } catch (TimeoutException ex) {
+            return false;
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException(ex.getCause());
+        }
+    }
+
+    /**
+     * Submits a batch task if there are waiting requests
+     * and the number of tasks is less than the parallelism.
+     */
+    private void schedule() {
+        while (!queue.isEmpty()) {
+            int n = tasks.get();
+            if (n >= parallelism) return;
+            if (tasks.compareAndSet(n, n + 1)) {
+                try {
+                    executor.execute(this::run);
+                } catch (RejectedExecutionException ex) {
+                    // The executor is shut down.
+                    tasks.decrementAndGet();
+                    Request request;
+                    while ((request = queue.poll()) != null) {
+                        request.future.completeExceptionally(ex);
+                    }
+                    terminate();
+                }
+                return;
+            }
+        }
+    }
+
+    /** Completes the termination future if the batcher is closed and drained. */
+    private void terminate() {
+        if (closed && tasks.get() == 0 && queue.isEmpty()) {
+            terminated.complete(null);
+        }
+    }
+
+    /** Collects and processes a batch. */
+    private void run() {
+        var batch = new ArrayList<Request>(maxBatchSize);
+        try {
+            var first = queue.poll();
+            if (first != null) {
+                batch.add(first);
+                long deadline = System.nanoTime() + maxDelay;
+                while (batch.size() < maxBatchSize) {
+                    // Takes the requests that are already waiting first.
+                    if (queue.drainTo(batch, maxBatchSize - batch.size()) > 0) continue;
+                    // No more requests are coming after closing.
+                    if (closed) break;
+                    long timeout = deadline - System.nanoTime();
+                    if (timeout <= 0) break;
+                    var request = queue.poll(timeout, TimeUnit.NANOSECONDS);
+                    if (request == null) break;
+                    batch.add(request);
+                }
+
+                // Lets another task collect the next batch.
+                schedule();
+                process(batch);
+            }
+        } catch (InterruptedException ex) {
+            var error = new RejectedExecutionException("The micro-batcher of " + model.id() + " is interrupted");
+            batch.forEach(request -> request.future.completeExceptionally(error));
+            Thread.currentThread().interrupt();
+        } finally {
+            tasks.decrementAndGet();
+            schedule();
+            terminate();
+        }
+    }
+
+    /**
+     * Processes a batch of requests. If the batch inference fails, the
+     * requests are processed one by one so that only the bad ones fail.
+     */
+    private void process(List<Request> batch) {
+        if (batch.size() > 1) {
+            try {
+                var responses = model.predict(batch.stream().map(Request::x).toList());
+                for (int i = 0; i < responses.length; i++) {
+                    batch.get(i).future.complete(responses[i]);
+                }
+                return;
+            } catch (Exception ex) {
+                logger.debugf(ex, "Batch inference of %d requests failed", batch.size());
+            }
+        }
+
+        for (var request : batch) {
+            try {
+                request.future.complete(model.predict(request.x));
+            } catch (Exception ex) {
+                request.future.completeExceptionally(ex);
+            }
+        }
+    }
+}
@@ -0,0 +1,198 @@
+/*
+ * Copyright (c) 2010-2025 Haifeng Li. All rights reserved.
+ *
+ * Smile Shell is free software: you can redistribute it and/or modify
+ * under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Smile Shell is distributed in the hope that it will be useful,
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Smile. If not, see <https://www.gnu.org/licenses/>.
+ */
+package smile.serve;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import org.jboss.logging.Logger;
+import smile.io.Read;
+import smile.model.Model;
+
+/**
+ * A model file in the registry. The model may be loaded at startup or on
+ * the first request, and may be unloaded to cap the memory usage. When
+ * the file is updated, the new model is swapped in atomically. The
+ * requests that hold the old model, including those waiting in its
+ * micro-batcher, are still served by it.
+ *
+ * @author Haifeng Li
+ */
+class ModelEntry {
+    private static final Logger logger = Logger.getLogger(ModelEntry.class);
+
+    /**
+     * A model in memory and its micro-batcher, which are swapped together.
+     * @param model the model.
+     * @param batcher the micro-batcher, or null if the requests are not batched.
+     */
+    record Resident(InferenceModel model, MicroBatcher batcher) {}
+
+    /** The model id in the registry. */
+    final String id;
+    /** The model file path. */
+    final Path path;
+    /** The factory of micro-batcher, or null if the requests are not batched. */
+    private final Function<InferenceModel, MicroBatcher> batcher;
+    /** The model in memory, or null if not loaded. */
+    private volatile Resident resident;
+    /** The time of last access by System.nanoTime(). */
+    private volatile long lastAccess = System.nanoTime();
+    /** The number of requests. */
+    private final LongAdder requests = new LongAdder();
+    /** The number of times that the model has been loaded. */
+    private int loads;
+    /** The time of last loading in milliseconds. */
+    private long loadTime;
+    /** The epoch milliseconds when the model was last loaded. */
+    private long lastLoaded;
+
+    /**
+     * Constructor.
+     * @param id the model id in the registry.
+     * @param path the model file path.
+     * @param batcher the factory of micro-batcher, or null if the requests are not batched.
+     */
+    ModelEntry(String id, Path path, Function<InferenceModel, MicroBatcher> batcher) {
+        this.id = id;
+        this.path = path;
+        this.batcher = batcher;
+    }
+
+    /**
+     * Reads a model file.
+     * @param path the model file path.
+     * @return the model.
+     * @throws IOException if fail to read the model.
+     */
+    static InferenceModel read(Path path) throws IOException {
+        Object obj;
+        try {
+            obj = Read.object(path);
+        } catch (ClassNotFoundException ex) {
+            throw new IOException(ex);
+        }
+
+        if (obj instanceof Model model) {
+            return new InferenceModel(model, path);
+        }
+        throw new IOException(String.format("'%s' is not a valid model", path));
+    }
+
+    /**
+     * Returns the model in memory for a request. Loads the model if necessary.
+     * @return the model in memory.
+     * @throws IOException if fail to load the model.
+     */
+    Resident get() throws IOException {
+        lastAccess = System.nanoTime();
+        requests.increment();
+        var current = resident;
+        if (current == null) {
+            synchronized (this) {
+                current = resident;
+                if (current == null) {
+                    current = load();
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Loads the model file and swaps it in.
+     * @return the model in memory.
+     * @throws IOException if fail to load the model. The current model,
+     *         if any, is kept in this case.
+     */
+    synchronized Resident load() throws IOException {
+        long start = System.nanoTime();
+        var model = read(path);
+        return install(model, System.nanoTime() - start);
+    }
+
+    /**
+     * Swaps in a model. The micro-batcher of old model stops accepting
+     * requests and processes the waiting ones before exiting.
+     * @param model the model.
+     * @param nanos the time of reading the model in nanoseconds.
+     * @return the model in memory.
+     */
+    synchronized Resident install(InferenceModel model, long nanos) {
+        var current = new Resident(model, batcher == null ? null : batcher.apply(model));
+        var old = resident;
+        resident = current;
+        if (old != null && old.batcher != null) {
+            old.batcher.close();
+        }
+
+        loads++;
+        loadTime = nanos / 1000000;
+        lastLoaded = System.currentTimeMillis();
+        logger.infof("Loaded model %s from '%s' in %d ms", id, path, loadTime);
+        return current;
+    }
+
+    /**
+     * Unloads the model from memory. The in-flight requests are
+     * still served by the model.
+     * @return the closed micro-batcher of the model, which is still
+     *         processing the waiting requests, or null if the model
+     *         is not in memory or the requests are not batched.
+     */
+    synchronized MicroBatcher unload() {
+        var old = resident;
+        resident = null;
+        if (old == null) return null;
+
+        if (old.batcher != null) old.batcher.close();
+        logger.infof("Unloaded model %s", id);
+        return old.batcher;
+    }
+
+    /**
+     * Returns true if the model is loaded in memory.
+     * @return true if the model is loaded in memory.
+     */
+    boolean isResident() {
+        return resident != null;
+    }
+
+    /**
+     * Returns the time of last access by System.nanoTime().
+     * @return the time of last access.
+     */
+    long lastAccess() {
+        return lastAccess;
+    }
+
+    /**
+     * Returns the loading and usage statistics.
+     * @return the statistics.
+     */
+    synchronized ModelStats stats() {
+        long size;
+        try {
+            size = Files.size(path);
+        } catch (IOException ex) {
+            size = -1;
+        }
+        return new ModelStats(id, path.toString(), size, resident != null, loads, loadTime, lastLoaded, requests.sum());
+    }
+}
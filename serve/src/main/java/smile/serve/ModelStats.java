@@ -0,0 +1,41 @@
+/*
+ * Copyright (c) 2010-2025 Haifeng Li. All rights reserved.
+ *
+ * Smile Shell is free software: you can redistribute it and/or modify
+ * under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Smile Shell is distributed in the hope that it will be useful,
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Smile. If not, see <https://www.gnu.org/licenses/>.
+ */
+package smile.serve;
+
+/**
+ * The loading and usage statistics of a model.
+ *
+ * @param id the model id.
+ * @param path the model file path.
+ * @param size the model file size in bytes.
+ * @param resident true if the model is loaded in memory.
+ * @param loads the number of times that the model has been loaded.
+ * @param loadTime the time of last loading in milliseconds.
+ * @param lastLoaded the epoch milliseconds when the model was last loaded.
+ * @param requests the number of requests to the model.
+ *
+ * @author Haifeng Li
+ */
+public record ModelStats(String id,
+                         String path,
+                         long size,
+                         boolean resident,
+                         int loads,
+                         long loadTime,
+                         long lastLoaded,
+                         long requests) {
+}
@@ -0,0 +1,253 @@
+/*
+ * Copyright (c) 2010-2025 Haifeng Li. All rights reserved.
+ *
+ * Smile is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Smile is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Smile. If not, see <https://www.gnu.org/licenses/>.
+ */
+package smile.serve;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import smile.data.Tuple;
+import smile.data.formula.Formula;
+import smile.data.type.DataTypes;
+import smile.data.type.StructField;
+import smile.data.type.StructType;
+import smile.model.Model;
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author Haifeng Li
+ */
+public class MicroBatcherTest {
+    /** The input schema of test models. */
+    static final StructType schema = new StructType(new StructField("x", DataTypes.DoubleType));
+
+    /** A model that predicts 0 for any input. */
+    record ConstantModel(StructType schema, Properties tags) implements Model, java.io.Serializable {
+        ConstantModel(String id, String version) {
+            this(MicroBatcherTest.schema, new Properties());
+            tags.setProperty(Model.ID, id);
+            tags.setProperty(Model.VERSION, version);
+        }
+
+        @Override
+        public String algorithm() {
+            return "constant";
+        }
+
+        @Override
+        public Formula formula() {
+            return null;
+        }
+    }
+
+    /** A model that records the batch sizes and may block the inference. */
+    static class RecordingModel extends InferenceModel {
+        final List<Integer> batches = Collections.synchronizedList(new ArrayList<>());
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch gate;
+
+        RecordingModel(boolean blocking) {
+            super(new ConstantModel("test", "1"), Path.of("test.sml"));
+            gate = new CountDownLatch(blocking ? 1 : 0);
+        }
+
+        void await() {
+            started.countDown();
+            try {
+                gate.await();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        @Override
+        public InferenceResponse predict(Tuple x) {
+            batches.add(1);
+            await();
+            return new InferenceResponse(x.getDouble(0));
+        }
+
+        @Override
+        public InferenceResponse[] predict(List<Tuple> batch) {
+            batches.add(batch.size());
+            await();
+            return batch.stream().map(x -> new InferenceResponse(x.getDouble(0))).toArray(InferenceResponse[]::new);
+        }
+    }
+
+    ExecutorService executor;
+
+    public MicroBatcherTest() {
+    }
+
+    @BeforeAll
+    public static void setUpClass() throws Exception {
+    }
+
+    @AfterAll
+    public static void tearDownClass() throws Exception {
+    }
+
+    @BeforeEach
+    public void setUp() {
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    static Tuple tuple(double x) {
+        return Tuple.of(schema, new double[]{x});
+    }
+
+    @Test
+    public void testBatching() throws Exception {
+        System.out.println("batching");
+        var model = new RecordingModel(false);
+        var batcher = new MicroBatcher(model, 8, 200, 100, executor, 1);
+
+        var futures = new ArrayList<CompletableFuture<InferenceResponse>>();
+        for (int i = 0; i < 20; i++) {
+            futures.add(batcher.submit(tuple(i)));
+        }
+
+        for (int i = 0; i < 20; i++) {
+            assertEquals(i, futures.get(i).get(5, TimeUnit.SECONDS).prediction.doubleValue(), 1E-10);
+        }
+
+        System.out.println("Batch sizes: " + model.batches);
+        assertEquals(20, model.batches.stream().mapToInt(Integer::intValue).sum());
+        assertTrue(model.batches.stream().allMatch(size -> size <= 8));
+        assertTrue(model.batches.size() < 20);
+        batcher.close();
+        assertTrue(batcher.awaitTermination(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testIdle() throws Exception {
+        System.out.println("idle");
+        var tasks = new AtomicInteger();
+        var model = new RecordingModel(false);
+        var batcher = new MicroBatcher(model, 8, 1, 100, task -> {
+            tasks.incrementAndGet();
+            executor.execute(task);
+        }, 2);
+
+        batcher.submit(tuple(1)).get(5, TimeUnit.SECONDS);
+        Thread.sleep(100);
+        int count = tasks.get();
+        // An idle batcher doesn't schedule any task.
+        Thread.sleep(300);
+        assertEquals(count, tasks.get());
+        batcher.close();
+        assertTrue(batcher.awaitTermination(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testSharedThreads() throws Exception {
+        System.out.println("shared threads");
+        int threads = 2;
+        int parallelism = InferenceService.parallelism(2, threads);
+        assertEquals(1, parallelism);
+        assertEquals(1, InferenceService.parallelism(4, 1));
+        assertEquals(4, InferenceService.parallelism(4, 16));
+        assertThrows(IllegalArgumentException.class, () -> InferenceService.parallelism(0, 16));
+
+        var shared = Executors.newFixedThreadPool(threads);
+        try {
+            // A busy model that blocks its inference and has
+            // a long batch delay, which may park its threads.
+            var busy = new RecordingModel(true);
+            var busyBatcher = new MicroBatcher(busy, 64, 2000, 100, shared, parallelism);
+            var pending = new ArrayList<CompletableFuture<InferenceResponse>>();
+            for (int i = 0; i < 10; i++) {
+                pending.add(busyBatcher.submit(tuple(i)));
+            }
+
+            // Another model still gets a thread.
+            var other = new RecordingModel(false);
+            var otherBatcher = new MicroBatcher(other, 64, 0, 100, shared, parallelism);
+            assertEquals(1, otherBatcher.submit(tuple(1)).get(5, TimeUnit.SECONDS).prediction.doubleValue(), 1E-10);
+
+            busy.gate.countDown();
+            busyBatcher.close();
+            otherBatcher.close();
+            for (var future : pending) {
+                future.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            shared.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testBackpressure() throws Exception {
+        System.out.println("backpressure");
+        var model = new RecordingModel(true);
+        var batcher = new MicroBatcher(model, 1, 0, 2, executor, 1);
+
+        var first = batcher.submit(tuple(0));
+        assertTrue(model.started.await(5, TimeUnit.SECONDS));
+        var second = batcher.submit(tuple(1));
+        var third = batcher.submit(tuple(2));
+        assertEquals(2, batcher.queueSize());
+        assertThrows(RejectedExecutionException.class, () -> batcher.submit(tuple(3)));
+
+        model.gate.countDown();
+        assertEquals(0, first.get(5, TimeUnit.SECONDS).prediction.doubleValue(), 1E-10);
+        assertEquals(1, second.get(5, TimeUnit.SECONDS).prediction.doubleValue(), 1E-10);
+        assertEquals(2, third.get(5, TimeUnit.SECONDS).prediction.doubleValue(), 1E-10);
+        batcher.close();
+    }
+
+    @Test
+    public void testShutdownDrain() throws Exception {
+        System.out.println("shutdown drain");
+        var model = new RecordingModel(true);
+        var batcher = new MicroBatcher(model, 1, 0, 10, executor, 1);
+
+        var futures = new ArrayList<CompletableFuture<InferenceResponse>>();
+        futures.add(batcher.submit(tuple(0)));
+        assertTrue(model.started.await(5, TimeUnit.SECONDS));
+        futures.add(batcher.submit(tuple(1)));
+        futures.add(batcher.submit(tuple(2)));
+
+        batcher.close();
+        assertTrue(batcher.isClosed());
+        assertThrows(RejectedExecutionException.class, () -> batcher.submit(tuple(3)));
+        assertFalse(batcher.awaitTermination(100, TimeUnit.MILLISECONDS));
+
+        model.gate.countDown();
+        assertTrue(batcher.awaitTermination(5, TimeUnit.SECONDS));
+        for (int i = 0; i < futures.size(); i++) {
+            assertTrue(futures.get(i).isDone());
+            assertEquals(i, futures.get(i).get().prediction.doubleValue(), 1E-10);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2010-2025 Haifeng Li. All rights reserved.
+ *
+ * Smile is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Smile is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Smile. If not, see <https://www.gnu.org/licenses/>.
+ */
+package smile.serve;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import smile.io.Write;
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+import static smile.serve.MicroBatcherTest.ConstantModel;
+import static smile.serve.MicroBatcherTest.tuple;
+
+/**
+ *
+ * @author Haifeng Li
+ */
+public class ModelEntryTest {
+    ExecutorService executor;
+    Path dir;
+
+    public ModelEntryTest() {
+    }
+
+    @BeforeAll
+    public static void setUpClass() throws Exception {
+    }
+
+    @AfterAll
+    public static void tearDownClass() throws Exception {
+    }
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        executor = Executors.newFixedThreadPool(2);
+        dir = Files.createTempDirectory("smile-serve-test");
+    }
+
+    @AfterEach
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testHotReload() throws Exception {
+        System.out.println("hot reload");
+        var path = dir.resolve("test.sml");
+        Write.object(new ConstantModel("test", "1"), path);
+        var entry = new ModelEntry("test", path, model -> new MicroBatcher(model, 16, 500, 100, executor, 2));
+        assertFalse(entry.isResident());
+
+        var old = entry.get();
+        assertTrue(entry.isResident());
+        assertEquals("test-1", old.model().id());
+
+        // The request waits for its batch to fill when the model is swapped.
+        var future = old.batcher().submit(tuple(1.0));
+        Write.object(new ConstantModel("test", "2"), path);
+        var current = entry.load();
+
+        assertEquals("test-2", current.model().id());
+        assertSame(current, entry.get());
+        assertTrue(old.batcher().isClosed());
+        assertFalse(current.batcher().isClosed());
+
+        // The in-flight request is still served by the old model.
+        assertEquals(0, future.get(5, TimeUnit.SECONDS).prediction.intValue());
+        assertTrue(old.batcher().awaitTermination(5, TimeUnit.SECONDS));
+        assertEquals(0, current.batcher().submit(tuple(2.0)).get(5, TimeUnit.SECONDS).prediction.intValue());
+
+        var batcher = entry.unload();
+        assertSame(current.batcher(), batcher);
+        assertFalse(entry.isResident());
+        assertTrue(batcher.awaitTermination(5, TimeUnit.SECONDS));
+        assertEquals(2, entry.stats().loads());
+    }
+}